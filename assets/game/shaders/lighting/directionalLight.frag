@@ -15,11 +15,17 @@ uniform sampler2D normalsText;
 uniform sampler2D shadowText;
 uniform sampler2D depthText;
 
-uniform vec2 screenSize;
+layout (std140) uniform FrameData {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec2 screenSize;
+};
 
-uniform float specularPower;
-uniform vec3 ambientLight;
-uniform DirectionalLight directionalLight;
+layout (std140) uniform LightData {
+    vec3 ambientLight;
+    float specularPower;
+    DirectionalLight directionalLight;
+};
 
 vec2 getTextCoord() {
     return gl_FragCoord.xy / screenSize;
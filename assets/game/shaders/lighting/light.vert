@@ -1,9 +1,14 @@
 #version 330
 
 layout (location=0) in vec3 position;
-uniform mat4 projectionMatrix;
 uniform mat4 modelMatrix;
 
+layout (std140) uniform FrameData {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec2 screenSize;
+};
+
 void main() {
     gl_Position = projectionMatrix * modelMatrix * vec4(position, 1.0);
 }
\ No newline at end of file
@@ -8,6 +8,12 @@ struct Attenuation{
     float exponent;
 };
 
+struct DirectionalLight {
+    vec3 colour;
+    vec3 direction;
+    float intensity;
+};
+
 struct PointLight {
     vec3 colour;
     vec3 position;
@@ -22,9 +28,18 @@ uniform sampler2D normalsText;
 uniform sampler2D shadowText;
 uniform sampler2D depthText;
 
-uniform vec2 screenSize;
+layout (std140) uniform FrameData {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec2 screenSize;
+};
+
+layout (std140) uniform LightData {
+    vec3 ambientLight;
+    float specularPower;
+    DirectionalLight directionalLight;
+};
 
-uniform float specularPower;
 uniform PointLight pointLight;
 
 vec2 getTextCoord() {
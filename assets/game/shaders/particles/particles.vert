@@ -9,8 +9,11 @@ layout (location=10) in float scale;
 
 out vec2 outTexCoord;
 
-uniform mat4 viewMatrix;
-uniform mat4 projectionMatrix;
+layout (std140) uniform FrameData {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec2 screenSize;
+};
 
 uniform int cols;
 uniform int rows;
@@ -2,6 +2,7 @@
 
 const int MAX_WEIGHTS = 4;
 const int MAX_JOINTS = 150;
+const int NUM_CASCADES = 3;
 
 layout (location=0) in vec3 position;
 layout (location=1) in vec2 texCoord;
@@ -12,9 +13,15 @@ layout (location=5) in mat4 modelInstancedMatrix;
 
 uniform int isInstanced;
 uniform mat4 modelNonInstancedMatrix;
-uniform mat4 lightViewMatrix;
 uniform mat4 jointsMatrix[MAX_JOINTS];
-uniform mat4 orthoProjectionMatrix;
+uniform int cascadeIndex;
+
+layout (std140) uniform ShadowData {
+    mat4 orthoProjectionMatrix[NUM_CASCADES];
+    mat4 lightViewMatrix[NUM_CASCADES];
+    float cascadeFarPlanes[NUM_CASCADES];
+    int renderShadow;
+};
 
 void main() {
     vec4 initPos = vec4(0, 0, 0, 0);
@@ -39,5 +46,5 @@ void main() {
             initPos = vec4(position, 1.0);
         }
     }
-    gl_Position = orthoProjectionMatrix * lightViewMatrix * modelMatrix * initPos;
+    gl_Position = orthoProjectionMatrix[cascadeIndex] * lightViewMatrix[cascadeIndex] * modelMatrix * initPos;
 }
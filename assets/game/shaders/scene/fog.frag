@@ -8,17 +8,29 @@ struct Fog {
     float density;
 };
 
+struct DirectionalLight {
+    vec3 colour;
+    vec3 direction;
+    float intensity;
+};
+
 uniform sampler2D positionsText;
 uniform sampler2D depthText;
 uniform sampler2D sceneText;
 
-uniform vec2 screenSize;
+layout (std140) uniform FrameData {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec2 screenSize;
+};
+
+layout (std140) uniform LightData {
+    vec3 ambientLight;
+    float specularPower;
+    DirectionalLight directionalLight;
+};
 
-uniform mat4 viewMatrix;
 uniform Fog fog;
-uniform vec3 ambientLight;
-uniform vec3 lightColour;
-uniform float lightIntensity;
 
 vec2 getTextCoord() {
     return gl_FragCoord.xy / screenSize;
@@ -44,7 +56,7 @@ void main() {
         discard;
     }
     if (fog.activeFog == 1) {
-        fragColor = calcFog(mvVertexPos.xyz, colour, fog, ambientLight, lightColour, lightIntensity);
+        fragColor = calcFog(mvVertexPos.xyz, colour, fog, ambientLight, directionalLight.colour, directionalLight.intensity);
     } else {
         fragColor = colour;
     }
@@ -15,7 +15,18 @@ layout (location = 2) out vec3 fsSpecular;
 layout (location = 3) out vec3 fsNormal;
 layout (location = 4) out vec2 fsShadow;
 
-uniform mat4 viewMatrix;
+layout (std140) uniform FrameData {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec2 screenSize;
+};
+
+layout (std140) uniform ShadowData {
+    mat4 orthoProjectionMatrix[NUM_CASCADES];
+    mat4 lightViewMatrix[NUM_CASCADES];
+    float cascadeFarPlanes[NUM_CASCADES];
+    int renderShadow;
+};
 
 struct Material {
     vec4 diffuse;
@@ -32,9 +43,6 @@ uniform Material material;
 uniform sampler2D shadowMap_0;
 uniform sampler2D shadowMap_1;
 uniform sampler2D shadowMap_2;
-uniform float cascadeFarPlanes[NUM_CASCADES];
-uniform mat4 orthoProjectionMatrix[NUM_CASCADES];
-uniform int renderShadow;
 
 vec4 diffuseColour;
 vec4 specularColour;
@@ -14,12 +14,21 @@ layout (location=9) in vec2 texOffset;
 layout (location=10) in float selectedInstanced;
 
 uniform int isInstanced;
-uniform mat4 viewMatrix;
-uniform mat4 projectionMatrix;
+layout (std140) uniform FrameData {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec2 screenSize;
+};
+
+layout (std140) uniform ShadowData {
+    mat4 orthoProjectionMatrix[NUM_CASCADES];
+    mat4 lightViewMatrix[NUM_CASCADES];
+    float cascadeFarPlanes[NUM_CASCADES];
+    int renderShadow;
+};
+
 uniform mat4 modelNonInstancedMatrix;
 uniform mat4 jointsMatrix[MAX_JOINTS];
-uniform mat4 lightViewMatrix[NUM_CASCADES];
-uniform mat4 orthoProjectionMatrix[NUM_CASCADES];
 uniform int cols;
 uniform int rows;
 uniform float selectedNonInstanced;
@@ -0,0 +1,65 @@
+#version 430
+#extension GL_ARB_shader_draw_parameters : require
+
+const int NUM_CASCADES = 3;
+
+layout (location=0) in vec3 position;
+layout (location=1) in vec2 texCoord;
+layout (location=2) in vec3 vertexNormal;
+
+struct Element {
+    mat4 modelMatrix;
+    vec4 params;
+};
+
+layout (std430, binding = 0) readonly buffer Elements {
+    Element elements[];
+};
+
+layout (std140) uniform FrameData {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec2 screenSize;
+};
+
+layout (std140) uniform ShadowData {
+    mat4 orthoProjectionMatrix[NUM_CASCADES];
+    mat4 lightViewMatrix[NUM_CASCADES];
+    float cascadeFarPlanes[NUM_CASCADES];
+    int renderShadow;
+};
+
+uniform int cols;
+uniform int rows;
+
+out vec2 vsTextcoord;
+out vec3 vsNormal;
+out vec4 vsMvVertexPos;
+out vec4 vsMlightviewVertexPos[NUM_CASCADES];
+out mat4 vsModelMatrix;
+out float vsSelected;
+
+void main() {
+    // Every draw record covers one element, stored at its base instance
+    Element element = elements[gl_BaseInstanceARB];
+    mat4 modelMatrix = element.modelMatrix;
+    vsSelected = element.params.x;
+
+    vec4 initPos = vec4(position, 1.0);
+    vec4 initNormal = vec4(vertexNormal, 0.0);
+    mat4 viewModelMatrix = viewMatrix * modelMatrix;
+    vsMvVertexPos = viewModelMatrix * initPos;
+    gl_Position = projectionMatrix * vsMvVertexPos;
+
+    float x = texCoord.x / cols;
+    float y = texCoord.y / rows;
+
+    vsTextcoord = vec2(x, y);
+    vsNormal = normalize(viewModelMatrix * initNormal).xyz;
+
+    for (int i = 0; i < NUM_CASCADES; i++) {
+        vsMlightviewVertexPos[i] = orthoProjectionMatrix[i] * lightViewMatrix[i] * modelMatrix * initPos;
+    }
+
+    vsModelMatrix = modelMatrix;
+}
\ No newline at end of file
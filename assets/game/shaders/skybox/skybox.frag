@@ -10,7 +10,12 @@ uniform vec3 ambientLight;
 uniform int hasTexture;
 
 uniform sampler2D depthsText;
-uniform vec2 screenSize;
+
+layout (std140) uniform FrameData {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec2 screenSize;
+};
 
 vec2 getTextCoord() {
     return gl_FragCoord.xy / screenSize;
@@ -7,7 +7,12 @@ layout (location=2) in vec3 vertexNormal;
 out vec2 outTexCoord;
 
 uniform mat4 viewModelMatrix;
-uniform mat4 projectionMatrix;
+
+layout (std140) uniform FrameData {
+    mat4 projectionMatrix;
+    mat4 viewMatrix;
+    vec2 screenSize;
+};
 
 void main() {
     gl_Position = projectionMatrix * viewModelMatrix * vec4(position, 1.0);
@@ -1,5 +1,7 @@
 package com.engineersbox.yajge.animation;
 
+import com.engineersbox.yajge.scene.spatial.BoundingVolume;
+
 import java.util.List;
 
 public class Animation {
@@ -8,6 +10,7 @@ public class Animation {
     private final List<AnimatedFrame> frames;
     private final String name;
     private final double duration;
+    private BoundingVolume bounds;
 
     public Animation(final String name,
                      final List<AnimatedFrame> frames,
@@ -18,10 +21,32 @@ public class Animation {
         this.duration = duration;
     }
 
+    /**
+     * Copy sharing the immutable frames and bounds of the source, with its own
+     * frame index, so it can be read while the source keeps advancing.
+     */
+    public Animation(final Animation source) {
+        this(
+                source.name,
+                source.frames,
+                source.duration
+        );
+        this.currentFrame = source.currentFrame;
+        this.bounds = source.bounds;
+    }
+
     public AnimatedFrame getCurrentFrame() {
         return this.frames.get(this.currentFrame);
     }
 
+    public int getCurrentFrameIndex() {
+        return this.currentFrame;
+    }
+
+    public void setCurrentFrameIndex(final int currentFrame) {
+        this.currentFrame = currentFrame;
+    }
+
     public double getDuration() {
         return this.duration;        
     }
@@ -34,6 +59,18 @@ public class Animation {
         return this.name;
     }
 
+    /**
+     * Model space bounds of the skinned meshes over every frame, or null if none
+     * were baked at import.
+     */
+    public BoundingVolume getBounds() {
+        return this.bounds;
+    }
+
+    public void setBounds(final BoundingVolume bounds) {
+        this.bounds = bounds;
+    }
+
     public AnimatedFrame getNextFrame() {
         nextFrame();
         return this.frames.get(this.currentFrame);
@@ -1,27 +1,57 @@
 package com.engineersbox.yajge.core.engine;
 
+import com.engineersbox.yajge.core.engine.pacing.FramePacer;
+import com.engineersbox.yajge.core.jobs.JobSystem;
 import com.engineersbox.yajge.core.window.Window;
 import com.engineersbox.yajge.core.window.WindowOptions;
+import com.engineersbox.yajge.debug.AllocationTracker;
+import com.engineersbox.yajge.debug.jfr.FrameEvent;
+import com.engineersbox.yajge.debug.profiler.Profiler;
 import com.engineersbox.yajge.input.MouseInput;
 import com.engineersbox.yajge.logging.LoggerCompat;
-import com.engineersbox.yajge.resources.config.io.ConfigHandler;
+import com.engineersbox.yajge.rendering.state.GLStateCache;
+import com.engineersbox.yajge.resources.assets.shader.Shader;
+import com.engineersbox.yajge.resources.config.Config;
+import com.engineersbox.yajge.scene.snapshot.SceneSnapshot;
+import com.engineersbox.yajge.scene.snapshot.SnapshotExchange;
 import com.engineersbox.yajge.util.Timer;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
 public class Engine implements Runnable {
 
     private static final Logger LOGGER = LogManager.getLogger(Engine.class);
+    private static final String SIMULATION_THREAD_NAME = "YAJGE-Simulation";
+    private static final long NANOS_IN_SECOND = 1_000_000_000L;
+    private static final int FRAME_SCOPE = Profiler.registerScope("Engine.frame");
+    private static final int INPUT_SCOPE = Profiler.registerScope("Engine.input");
+    private static final int UPDATE_SCOPE = Profiler.registerScope("Engine.update");
+    private static final int PUBLISH_SCOPE = Profiler.registerScope("Engine.publish");
+    private static final int RENDER_SCOPE = Profiler.registerScope("Engine.render");
+    private static final int SYNC_SCOPE = Profiler.registerScope("Engine.sync");
 
     private final Window window;
     private final Timer timer;
     private final IGameLogic gameLogic;
     private final MouseInput mouseInput;
+    private final SnapshotExchange snapshotExchange;
+    private final EngineContext context;
+    private final JobSystem jobSystem;
+    private final FramePacer framePacer;
+    private final AllocationTracker allocationTracker;
+    private final AllocationTracker simulationAllocationTracker;
+    private final FrameEvent frameEvent;
     private double lastFps;
     private int fps;
+    private long frameCount;
     private final String windowTitle;
-    private boolean running = false;
+    private volatile boolean running = false;
+    private volatile double updatesPerSecond;
 
     public Engine() {
         LoggerCompat.registerGLFWErrorLogger(LOGGER, Level.ERROR);
@@ -29,107 +59,423 @@ public class Engine implements Runnable {
         this.timer = null;
         this.gameLogic = null;
         this.mouseInput = null;
+        this.snapshotExchange = null;
+        this.context = null;
+        this.jobSystem = null;
+        this.framePacer = null;
+        this.allocationTracker = null;
+        this.simulationAllocationTracker = null;
+        this.frameEvent = null;
         this.windowTitle = "YAJGE";
     }
 
     public Engine(final String windowTitle,
                   final IGameLogic gameLogic) {
         this(
+                EngineContext.createDefault(),
                 windowTitle,
-                WindowOptions.createFromConfig(),
                 gameLogic
         );
     }
 
+    public Engine(final EngineContext context,
+                  final String windowTitle,
+                  final IGameLogic gameLogic) {
+        this(
+                context,
+                windowTitle,
+                WindowOptions.createFromConfig(context.getConfig()),
+                gameLogic
+        );
+    }
+
+    /**
+     * Creates an engine in headless mode, {@link IGameLogic} receives a null
+     * {@link Window} and is never asked to render.
+     */
+    public Engine(final IGameLogic gameLogic) {
+        this(
+                EngineContext.createDefault(),
+                gameLogic
+        );
+    }
+
+    /**
+     * Creates a headless engine that only reads from the given context, so any
+     * number of these can run concurrently on their own threads.
+     */
+    public Engine(final EngineContext context,
+                  final IGameLogic gameLogic) {
+        this(
+                context,
+                "YAJGE",
+                null,
+                gameLogic,
+                true
+        );
+    }
+
     public Engine(final String windowTitle,
                   final WindowOptions opts,
                   final IGameLogic gameLogic) {
-        LoggerCompat.registerGLFWErrorLogger(LOGGER, Level.ERROR);
-        this.window = new Window(
+        this(
+                EngineContext.createDefault(),
                 windowTitle,
-                ConfigHandler.CONFIG.video.vsync,
-                opts
+                opts,
+                gameLogic
         );
+    }
+
+    public Engine(final EngineContext context,
+                  final String windowTitle,
+                  final WindowOptions opts,
+                  final IGameLogic gameLogic) {
+        this(
+                context,
+                windowTitle,
+                opts,
+                gameLogic,
+                context.isHeadless()
+        );
+    }
+
+    private Engine(final EngineContext context,
+                   final String windowTitle,
+                   final WindowOptions opts,
+                   final IGameLogic gameLogic,
+                   final boolean headless) {
+        this.context = headless ? context.asHeadless() : context;
+        if (headless) {
+            this.window = null;
+        } else {
+            LoggerCompat.registerGLFWErrorLogger(LOGGER, Level.ERROR);
+            this.window = new Window(
+                    windowTitle,
+                    context.getConfig().video.vsync,
+                    opts,
+                    context.getConfig()
+            );
+        }
         this.windowTitle = windowTitle;
         this.mouseInput = new MouseInput();
         this.gameLogic = gameLogic;
         this.timer = new Timer();
+        this.snapshotExchange = new SnapshotExchange();
+        this.jobSystem = context.getJobSystem();
+        this.framePacer = FramePacer.create(
+                context.getConfig().video.framePacer,
+                TimeUnit.MICROSECONDS.toNanos(context.getConfig().video.pacerSpinMicros)
+        );
+        final Config.Engine.Features features = context.getConfig().engine.features;
+        this.allocationTracker = new AllocationTracker(
+                features.allocationTracker,
+                features.allocationBudgetBytes,
+                features.allocationWarmupFrames,
+                features.allocationStrict
+        );
+        this.simulationAllocationTracker = new AllocationTracker(
+                "Simulation step",
+                features.allocationTracker,
+                features.allocationBudgetBytes,
+                features.allocationWarmupFrames,
+                features.allocationStrict
+        );
+        this.frameEvent = new FrameEvent();
     }
 
     @Override
     public void run() {
+        Profiler.bind(this.context.getProfiler());
         try {
             init();
-            gameLoop();
+            if (isHeadless()) {
+                headlessLoop();
+            } else if (isPipelined()) {
+                pipelinedGameLoop();
+            } else {
+                gameLoop();
+            }
         } catch (final Exception e) {
             e.printStackTrace(LoggerCompat.asPrintStream(LOGGER, Level.ERROR));
         } finally {
             cleanup();
+            Profiler.bind(null);
         }
     }
 
     protected void init()  {
-        this.window.init(this.gameLogic::resize);
+        if (!isHeadless()) {
+            this.window.init(this.gameLogic::resize);
+            this.mouseInput.init(this.window);
+        }
         this.timer.init();
-        this.mouseInput.init(this.window);
-        this.gameLogic.init(this.window);
+        this.gameLogic.init(this.window, this.context);
         this.lastFps = this.timer.getTime();
         this.fps = 0;
     }
 
+    public boolean isHeadless() {
+        return this.window == null;
+    }
+
+    protected boolean isPipelined() {
+        return this.context.getConfig().engine.features.pipelinedLoop
+                && this.gameLogic.supportsPipelining();
+    }
+
     protected void gameLoop() {
         float elapsedTime;
         float accumulator = 0f;
-        final float interval = 1f / ConfigHandler.CONFIG.video.ups;
+        final float interval = 1f / this.context.getConfig().video.ups;
         this.running = true;
         while (this.running && !this.window.windowShouldClose()) {
+            this.allocationTracker.beginFrame();
+            Shader.resetUploadCounters();
+            GLStateCache.resetCounters();
+            this.frameEvent.begin();
+            Profiler.begin(FRAME_SCOPE);
             elapsedTime = this.timer.getElapsedTime();
             accumulator += elapsedTime;
             input();
-            while (accumulator >= interval) {
-                update(interval);
-                accumulator -= interval;
-            }
-            render();
+            accumulator = runFixedSteps(accumulator, interval);
+            render(accumulator / interval);
             if (!this.window.isvSync()) {
                 sync();
             }
+            Profiler.end(FRAME_SCOPE);
+            commitFrameEvent(false);
+            this.allocationTracker.endFrame();
         }
         this.running = false;
     }
 
+    /**
+     * Runs fixed steps back to back with no frame cap, so the reported UPS is the
+     * raw simulation throughput.
+     */
+    protected void headlessLoop() {
+        LOGGER.info("Starting headless simulation loop for context {}", this.context.getName());
+        final float interval = 1f / this.context.getConfig().video.ups;
+        long lastReport = System.nanoTime();
+        long updates = 0;
+        this.running = true;
+        while (this.running) {
+            update(interval);
+            updates++;
+            final long now = System.nanoTime();
+            if (now - lastReport >= NANOS_IN_SECOND) {
+                this.updatesPerSecond = updates * (double) NANOS_IN_SECOND / (now - lastReport);
+                LOGGER.info(
+                        "[{}] Headless simulation: {} UPS",
+                        this.context.getName(),
+                        String.format("%.1f", this.updatesPerSecond)
+                );
+                lastReport = now;
+                updates = 0;
+            }
+        }
+    }
+
+    protected void pipelinedGameLoop() throws InterruptedException {
+        LOGGER.debug("Starting pipelined game loop");
+        this.running = true;
+        final Thread simulationThread = new Thread(this::simulationLoop, SIMULATION_THREAD_NAME);
+        simulationThread.setUncaughtExceptionHandler((final Thread thread, final Throwable throwable) -> {
+            throwable.printStackTrace(LoggerCompat.asPrintStream(LOGGER, Level.ERROR));
+            this.running = false;
+        });
+        simulationThread.start();
+        try {
+            while (this.running && !this.window.windowShouldClose()) {
+                this.allocationTracker.beginFrame();
+                Shader.resetUploadCounters();
+                GLStateCache.resetCounters();
+                this.frameEvent.begin();
+                Profiler.begin(FRAME_SCOPE);
+                this.timer.getElapsedTime();
+                input();
+                render(this.snapshotExchange.acquire());
+                if (!this.window.isvSync()) {
+                    sync();
+                }
+                Profiler.end(FRAME_SCOPE);
+                commitFrameEvent(true);
+                this.allocationTracker.endFrame();
+            }
+        } finally {
+            this.running = false;
+            simulationThread.join();
+        }
+    }
+
+    private void simulationLoop() {
+        Profiler.bind(this.context.getProfiler());
+        final Timer simulationTimer = new Timer();
+        simulationTimer.init();
+        float accumulator = 0f;
+        final float interval = 1f / this.context.getConfig().video.ups;
+        while (this.running) {
+            accumulator += simulationTimer.getElapsedTime();
+            if (accumulator < interval) {
+                LockSupport.parkNanos((long) ((interval - accumulator) * 1_000_000_000L));
+                continue;
+            }
+            this.simulationAllocationTracker.beginFrame();
+            accumulator = runFixedSteps(accumulator, interval);
+            Profiler.begin(PUBLISH_SCOPE);
+            this.gameLogic.publish(this.snapshotExchange.beginWrite());
+            this.snapshotExchange.publish();
+            Profiler.end(PUBLISH_SCOPE);
+            this.simulationAllocationTracker.endFrame();
+        }
+    }
+
     protected void cleanup() {
         this.gameLogic.cleanup();
+        final String tracePath = this.context.getConfig().engine.features.profilerTrace;
+        final Profiler profiler = this.context.getProfiler();
+        if (profiler.isEnabled() && tracePath != null) {
+            profiler.setEnabled(false);
+            profiler.exportChromeTrace(Path.of(tracePath));
+        }
+        this.context.cleanup();
     }
     
-    private void sync() {
-        final float loopSlot = 1f / ConfigHandler.CONFIG.video.fps;
-        final double endTime = this.timer.getLastLoopTime() + loopSlot;
-        try {
-            Thread.sleep((long) (endTime - this.timer.getTime()));
-        } catch (final InterruptedException e) {
-            e.printStackTrace(LoggerCompat.asPrintStream(LOGGER, Level.ERROR));
+    /**
+     * Commits the frame event, which is reused across frames so the loop does
+     * not allocate one per frame.
+     */
+    private void commitFrameEvent(final boolean pipelined) {
+        final long frame = this.frameCount++;
+        this.frameEvent.end();
+        if (this.frameEvent.shouldCommit()) {
+            this.frameEvent.frame = frame;
+            this.frameEvent.pipelined = pipelined;
+            this.frameEvent.uniformUploads = Shader.getUploadsIssued();
+            this.frameEvent.skippedUniformUploads = Shader.getUploadsSkipped();
+            this.frameEvent.stateChanges = GLStateCache.getChangesIssued();
+            this.frameEvent.filteredStateChanges = GLStateCache.getChangesFiltered();
+            this.frameEvent.commit();
         }
     }
 
+    private void sync() {
+        Profiler.begin(SYNC_SCOPE);
+        this.framePacer.pace(
+                this.timer.getLastLoopTimeNanos(),
+                NANOS_IN_SECOND / this.context.getConfig().video.fps
+        );
+        Profiler.end(SYNC_SCOPE);
+    }
+
     protected void input() {
+        Profiler.begin(INPUT_SCOPE);
         this.mouseInput.input(this.window);
         this.gameLogic.input(this.window, this.mouseInput);
+        Profiler.end(INPUT_SCOPE);
+    }
+
+    /**
+     * Runs at most {@code video.maxCatchUpSteps} fixed steps, dropping any time
+     * left over beyond that so a long hitch cannot snowball into ever longer
+     * catch-up frames. Returns the remaining fraction of a step.
+     */
+    private float runFixedSteps(final float elapsed,
+                                final float interval) {
+        final int maxSteps = Math.max(1, this.context.getConfig().video.maxCatchUpSteps);
+        float accumulator = elapsed;
+        int steps = 0;
+        while (accumulator >= interval && steps < maxSteps) {
+            update(interval);
+            accumulator -= interval;
+            steps++;
+        }
+        if (accumulator >= interval) {
+            LOGGER.debug(
+                    "Dropped {} fixed steps after reaching catch-up limit of {}",
+                    (int) (accumulator / interval),
+                    maxSteps
+            );
+            accumulator %= interval;
+        }
+        return accumulator;
     }
 
     protected void update(final float interval) {
+        Profiler.begin(UPDATE_SCOPE);
+        this.gameLogic.storePreviousState();
         this.gameLogic.update(interval, this.mouseInput, this.window);
+        Profiler.end(UPDATE_SCOPE);
+    }
+
+    protected void render(final float alpha) {
+        Profiler.begin(RENDER_SCOPE);
+        updateFpsCounter();
+        this.gameLogic.render(this.window, alpha);
+        this.window.update();
+        Profiler.end(RENDER_SCOPE);
     }
 
-    protected void render() {
+    protected void render(final SceneSnapshot snapshot) {
+        Profiler.begin(RENDER_SCOPE);
+        updateFpsCounter();
+        if (snapshot.getSequence() > 0) {
+            this.gameLogic.render(this.window, snapshot);
+        }
+        this.window.update();
+        Profiler.end(RENDER_SCOPE);
+    }
+
+    private void updateFpsCounter() {
         if (this.window.getWindowOptions().showFps() && this.timer.getLastLoopTime() - this.lastFps > 1) {
+            this.allocationTracker.suspend();
             this.lastFps = this.timer.getLastLoopTime();
             this.window.setWindowTitle(this.windowTitle + " - " + this.fps + " FPS");
             this.fps = 0;
+            if (!this.window.isvSync()) {
+                LOGGER.debug("Frame pacing: {}", this.framePacer.getStats());
+            }
+            if (this.allocationTracker.isEnabled()) {
+                LOGGER.debug("Frame allocations: {}", this.allocationTracker);
+            }
+            if (isPipelined() && this.simulationAllocationTracker.isEnabled()) {
+                LOGGER.debug("Simulation allocations: {}", this.simulationAllocationTracker);
+            }
+            this.allocationTracker.resume();
         }
         this.fps++;
-        this.gameLogic.render(this.window);
-        this.window.update();
+    }
+
+    public void stop() {
+        this.running = false;
+    }
+
+    public double getUpdatesPerSecond() {
+        return this.updatesPerSecond;
+    }
+
+    public FramePacer getFramePacer() {
+        return this.framePacer;
+    }
+
+    public AllocationTracker getAllocationTracker() {
+        return this.allocationTracker;
+    }
+
+    /**
+     * @return tracker for the simulation thread of the pipelined loop, which
+     * measures each batch of fixed steps together with its snapshot publish
+     */
+    public AllocationTracker getSimulationAllocationTracker() {
+        return this.simulationAllocationTracker;
+    }
+
+    public JobSystem getJobSystem() {
+        return this.jobSystem;
+    }
+
+    public EngineContext getContext() {
+        return this.context;
     }
 
     protected boolean isRunning() {
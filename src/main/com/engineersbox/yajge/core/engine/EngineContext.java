@@ -0,0 +1,205 @@
+package com.engineersbox.yajge.core.engine;
+
+import com.engineersbox.yajge.core.jobs.JobSystem;
+import com.engineersbox.yajge.debug.profiler.Profiler;
+import com.engineersbox.yajge.resources.assets.material.TextureOptions;
+import com.engineersbox.yajge.resources.config.Config;
+import com.engineersbox.yajge.resources.config.io.ConfigHandler;
+import com.engineersbox.yajge.resources.loader.assimp.TextureCache;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Everything an {@link Engine} instance reads or shares with its renderer and
+ * loaders. Engines built from separate contexts have independent config, texture
+ * caches, job systems, profilers and headless state, so several can run side by
+ * side in one JVM.
+ */
+public class EngineContext {
+
+    private final String name;
+    private final Config config;
+    private final TextureCache textureCache;
+    private final JobSystem jobSystem;
+    private final boolean ownsJobSystem;
+    private final boolean headless;
+    private final Profiler profiler;
+    private final float[] cascadeSplits;
+    private final Map<Class<?>, Object> resources;
+
+    public EngineContext(final String name,
+                         final Config config) {
+        this(
+                name,
+                requireConfig(name, config),
+                config.engine.features.headless
+        );
+    }
+
+    /**
+     * Starts a job system of its own, with workers bound to this context's
+     * profiler, and shuts it down on {@link #cleanup()}.
+     */
+    private EngineContext(final String name,
+                          final Config config,
+                          final boolean headless) {
+        this(
+                name,
+                config,
+                headless,
+                new Profiler(config.engine.features.profiler)
+        );
+    }
+
+    private EngineContext(final String name,
+                          final Config config,
+                          final boolean headless,
+                          final Profiler profiler) {
+        this(
+                name,
+                config,
+                new TextureCache(TextureOptions.fromConfig(config, headless)),
+                new JobSystem(Runtime.getRuntime().availableProcessors(), profiler),
+                true,
+                headless,
+                profiler
+        );
+    }
+
+    /**
+     * @param jobSystem owned by the context from then on and shut down by
+     *                  {@link #cleanup()}
+     */
+    public EngineContext(final String name,
+                         final Config config,
+                         final TextureCache textureCache,
+                         final JobSystem jobSystem,
+                         final boolean headless) {
+        this(
+                name,
+                requireConfig(name, config),
+                textureCache,
+                jobSystem,
+                true,
+                headless,
+                new Profiler(config.engine.features.profiler)
+        );
+    }
+
+    private EngineContext(final String name,
+                          final Config config,
+                          final TextureCache textureCache,
+                          final JobSystem jobSystem,
+                          final boolean ownsJobSystem,
+                          final boolean headless,
+                          final Profiler profiler) {
+        this.name = name;
+        this.config = config;
+        this.textureCache = textureCache;
+        this.jobSystem = jobSystem;
+        this.ownsJobSystem = ownsJobSystem;
+        this.headless = headless;
+        this.profiler = profiler;
+        final float zFar = (float) config.render.camera.zFar;
+        this.cascadeSplits = new float[]{
+                zFar / 20.0f,
+                zFar / 10.0f,
+                zFar
+        };
+        this.resources = new ConcurrentHashMap<>();
+    }
+
+    private static Config requireConfig(final String name,
+                                        final Config config) {
+        if (config == null) {
+            throw new IllegalStateException("Engine context " + name + " requires a config");
+        }
+        return config;
+    }
+
+    public static EngineContext fromFile(final String name,
+                                         final Path configPath) {
+        return new EngineContext(name, ConfigHandler.load(configPath));
+    }
+
+    /**
+     * Context with its own texture cache, job system and profiler, configured by
+     * {@link ConfigHandler#CONFIG}.
+     */
+    public static EngineContext createDefault() {
+        if (ConfigHandler.CONFIG == null) {
+            throw new IllegalStateException(
+                    "No default engine context without -Dyajge.config, create one with EngineContext.fromFile instead"
+            );
+        }
+        return new EngineContext("default", ConfigHandler.CONFIG);
+    }
+
+    /**
+     * @return this context when it is already headless, otherwise one taking over
+     * its config, job system and profiler, with its own headless texture cache
+     */
+    public EngineContext asHeadless() {
+        if (this.headless) {
+            return this;
+        }
+        return new EngineContext(
+                this.name,
+                this.config,
+                new TextureCache(TextureOptions.fromConfig(this.config, true)),
+                this.jobSystem,
+                this.ownsJobSystem,
+                true,
+                this.profiler
+        );
+    }
+
+    public <T> void register(final Class<T> type,
+                             final T resource) {
+        this.resources.put(type, resource);
+    }
+
+    public <T> T getResource(final Class<T> type) {
+        return type.cast(this.resources.get(type));
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public Config getConfig() {
+        return this.config;
+    }
+
+    public TextureCache getTextureCache() {
+        return this.textureCache;
+    }
+
+    public JobSystem getJobSystem() {
+        return this.jobSystem;
+    }
+
+    public boolean isHeadless() {
+        return this.headless;
+    }
+
+    public Profiler getProfiler() {
+        return this.profiler;
+    }
+
+    /**
+     * Far plane of each shadow cascade, derived from {@code render.camera.zFar}.
+     */
+    public float[] getCascadeSplits() {
+        return this.cascadeSplits;
+    }
+
+    public void cleanup() {
+        if (this.ownsJobSystem) {
+            this.jobSystem.shutdown();
+        }
+        this.resources.clear();
+    }
+}
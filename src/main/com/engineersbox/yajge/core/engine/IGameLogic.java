@@ -2,6 +2,7 @@ package com.engineersbox.yajge.core.engine;
 
 import com.engineersbox.yajge.core.window.Window;
 import com.engineersbox.yajge.input.MouseInput;
+import com.engineersbox.yajge.scene.snapshot.SceneSnapshot;
 
 public interface IGameLogic {
 
@@ -11,4 +12,50 @@ public interface IGameLogic {
     void update(final float interval, final MouseInput mouseInput, final Window window);
     void render(final Window window);
     void cleanup();
+
+    /**
+     * Gives implementations the context of the engine running them, so renderers
+     * and loaders they create share its config, caches and job system.
+     */
+    default void init(final Window window,
+                      final EngineContext context) {
+        init(window);
+    }
+
+    /**
+     * Called before every fixed step so implementations can keep the previous
+     * transforms that {@link #render(Window, float)} interpolates from.
+     */
+    default void storePreviousState() {
+    }
+
+    /**
+     * @param alpha how far rendering is between the previous and the current
+     *              fixed step, in {@code [0, 1]}
+     */
+    default void render(final Window window,
+                        final float alpha) {
+        render(window);
+    }
+
+    /**
+     * Opt-in for the pipelined loop, where {@link #update} runs on a simulation
+     * thread and rendering only ever sees state published through {@link #publish}.
+     */
+    default boolean supportsPipelining() {
+        return false;
+    }
+
+    /**
+     * Called on the simulation thread after a batch of fixed steps. Capture
+     * everything the renderer needs into the given snapshot, it is handed to
+     * the render thread as an immutable view once this returns.
+     */
+    default void publish(final SceneSnapshot snapshot) {
+    }
+
+    default void render(final Window window,
+                        final SceneSnapshot snapshot) {
+        render(window);
+    }
 }
\ No newline at end of file
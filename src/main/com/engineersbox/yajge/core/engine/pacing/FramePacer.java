@@ -0,0 +1,22 @@
+package com.engineersbox.yajge.core.engine.pacing;
+
+import com.engineersbox.yajge.resources.config.Config;
+
+public interface FramePacer {
+
+    /**
+     * Blocks until {@code frameStartNanos + frameDurationNanos}, both on the
+     * {@link System#nanoTime()} clock, and records how the frame landed.
+     */
+    void pace(final long frameStartNanos, final long frameDurationNanos);
+
+    PacingStats getStats();
+
+    static FramePacer create(final Config.FramePacerType type,
+                             final long spinNanos) {
+        return switch (type) {
+            case SLEEP -> new SleepFramePacer();
+            case HYBRID -> new HybridFramePacer(spinNanos);
+        };
+    }
+}
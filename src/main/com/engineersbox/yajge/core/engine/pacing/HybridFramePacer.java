@@ -0,0 +1,40 @@
+package com.engineersbox.yajge.core.engine.pacing;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Parks until the deadline is within the spin window, then spins on
+ * {@link System#nanoTime()} for the rest. The window should cover the
+ * scheduler's typical wake-up latency.
+ */
+public class HybridFramePacer implements FramePacer {
+
+    private final long spinNanos;
+    private final PacingStats stats;
+
+    public HybridFramePacer(final long spinNanos) {
+        this.spinNanos = Math.max(0, spinNanos);
+        this.stats = new PacingStats();
+    }
+
+    @Override
+    public void pace(final long frameStartNanos,
+                     final long frameDurationNanos) {
+        final long deadline = frameStartNanos + frameDurationNanos;
+        final long arrival = System.nanoTime();
+        long remaining = deadline - arrival;
+        while (remaining > this.spinNanos) {
+            LockSupport.parkNanos(remaining - this.spinNanos);
+            remaining = deadline - System.nanoTime();
+        }
+        while (deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+        this.stats.record(System.nanoTime() - frameStartNanos, arrival > deadline);
+    }
+
+    @Override
+    public PacingStats getStats() {
+        return this.stats;
+    }
+}
@@ -0,0 +1,83 @@
+package com.engineersbox.yajge.core.engine.pacing;
+
+import java.util.Arrays;
+
+/**
+ * Rolling window of paced frame times. Percentiles are computed on demand into
+ * a preallocated scratch array so recording and querying never allocate.
+ */
+public class PacingStats {
+
+    private static final int DEFAULT_WINDOW = 256;
+
+    private final long[] frameTimes;
+    private final long[] scratch;
+    private int next;
+    private int count;
+    private long frames;
+    private long missedDeadlines;
+
+    public PacingStats() {
+        this(DEFAULT_WINDOW);
+    }
+
+    public PacingStats(final int window) {
+        this.frameTimes = new long[window];
+        this.scratch = new long[window];
+    }
+
+    public synchronized void record(final long frameTimeNanos,
+                                    final boolean missedDeadline) {
+        this.frameTimes[this.next] = frameTimeNanos;
+        this.next = (this.next + 1) % this.frameTimes.length;
+        this.count = Math.min(this.count + 1, this.frameTimes.length);
+        this.frames++;
+        if (missedDeadline) {
+            this.missedDeadlines++;
+        }
+    }
+
+    public synchronized long percentileNanos(final double percentile) {
+        if (this.count == 0) {
+            return 0;
+        }
+        System.arraycopy(this.frameTimes, 0, this.scratch, 0, this.count);
+        Arrays.sort(this.scratch, 0, this.count);
+        final int index = (int) Math.ceil(percentile / 100.0 * this.count) - 1;
+        return this.scratch[Math.max(0, Math.min(this.count - 1, index))];
+    }
+
+    public long getP50Nanos() {
+        return percentileNanos(50);
+    }
+
+    public long getP99Nanos() {
+        return percentileNanos(99);
+    }
+
+    public synchronized long getFrames() {
+        return this.frames;
+    }
+
+    public synchronized long getMissedDeadlines() {
+        return this.missedDeadlines;
+    }
+
+    public synchronized void reset() {
+        this.next = 0;
+        this.count = 0;
+        this.frames = 0;
+        this.missedDeadlines = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "p50=%.3fms p99=%.3fms missed=%d/%d",
+                getP50Nanos() / 1_000_000.0,
+                getP99Nanos() / 1_000_000.0,
+                getMissedDeadlines(),
+                getFrames()
+        );
+    }
+}
@@ -0,0 +1,34 @@
+package com.engineersbox.yajge.core.engine.pacing;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Parks for the whole remaining slot. Cheapest on CPU, but wake-up precision is
+ * left to the OS scheduler so frames tend to overshoot.
+ */
+public class SleepFramePacer implements FramePacer {
+
+    private final PacingStats stats;
+
+    public SleepFramePacer() {
+        this.stats = new PacingStats();
+    }
+
+    @Override
+    public void pace(final long frameStartNanos,
+                     final long frameDurationNanos) {
+        final long deadline = frameStartNanos + frameDurationNanos;
+        final long arrival = System.nanoTime();
+        long remaining = deadline - arrival;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+        this.stats.record(System.nanoTime() - frameStartNanos, arrival > deadline);
+    }
+
+    @Override
+    public PacingStats getStats() {
+        return this.stats;
+    }
+}
@@ -0,0 +1,144 @@
+package com.engineersbox.yajge.core.jobs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * A per-frame DAG of jobs. Jobs can only depend on jobs added before them, so the
+ * graph is acyclic by construction. Each execution forks every job as soon as its
+ * last dependency completes and blocks the caller until the whole graph is done.
+ */
+public class FrameGraph {
+
+    private final String name;
+    private final JobSystem jobSystem;
+    private final List<FrameJob> jobs;
+    private final List<FrameJob> roots;
+    private final AtomicInteger remaining;
+    private final AtomicReference<Throwable> failure;
+    private final Object completionLock;
+    private long lastExecutionNanos;
+
+    FrameGraph(final String name,
+               final JobSystem jobSystem) {
+        this.name = name;
+        this.jobSystem = jobSystem;
+        this.jobs = new ArrayList<>();
+        this.roots = new ArrayList<>();
+        this.remaining = new AtomicInteger();
+        this.failure = new AtomicReference<>();
+        this.completionLock = new Object();
+    }
+
+    public FrameJob addJob(final String jobName,
+                           final Runnable task,
+                           final FrameJob... dependencies) {
+        final FrameJob job = new FrameJob(jobName, task, List.of(dependencies));
+        job.execution = () -> runJob(job);
+        for (final FrameJob dependency : dependencies) {
+            if (!this.jobs.contains(dependency)) {
+                throw new IllegalArgumentException(String.format(
+                        "Job %s depends on %s which is not part of frame graph %s",
+                        jobName,
+                        dependency.getName(),
+                        this.name
+                ));
+            }
+            dependency.addDependent(job);
+        }
+        if (dependencies.length == 0) {
+            this.roots.add(job);
+        }
+        this.jobs.add(job);
+        return job;
+    }
+
+    public void execute() {
+        if (this.jobs.isEmpty()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        for (final FrameJob job : this.jobs) {
+            job.pendingDependencies.set(job.getDependencies().size());
+        }
+        this.failure.set(null);
+        this.remaining.set(this.jobs.size());
+        for (final FrameJob root : this.roots) {
+            schedule(root);
+        }
+        synchronized (this.completionLock) {
+            while (this.remaining.get() > 0) {
+                try {
+                    this.completionLock.wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while executing frame graph " + this.name, e);
+                }
+            }
+        }
+        this.lastExecutionNanos = System.nanoTime() - start;
+        final Throwable cause = this.failure.get();
+        if (cause != null) {
+            throw new IllegalStateException("Job failed in frame graph " + this.name, cause);
+        }
+    }
+
+    /**
+     * Submits the closure built when the job was added, so scheduling does not
+     * allocate one per job every frame.
+     */
+    private void schedule(final FrameJob job) {
+        this.jobSystem.execute(job.execution);
+    }
+
+    private void runJob(final FrameJob job) {
+        try {
+            if (this.failure.get() == null) {
+                job.run();
+            }
+        } catch (final Throwable t) {
+            this.failure.compareAndSet(null, t);
+        } finally {
+            for (final FrameJob dependent : job.dependents()) {
+                if (dependent.pendingDependencies.decrementAndGet() == 0) {
+                    schedule(dependent);
+                }
+            }
+            if (this.remaining.decrementAndGet() == 0) {
+                synchronized (this.completionLock) {
+                    this.completionLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public List<FrameJob> getJobs() {
+        return Collections.unmodifiableList(this.jobs);
+    }
+
+    public long getLastExecutionNanos() {
+        return this.lastExecutionNanos;
+    }
+
+    public String describe() {
+        return this.jobs.stream()
+                .map((final FrameJob job) -> String.format(
+                        "%s [%.3fms] <- [%s]",
+                        job.getName(),
+                        job.getLastDurationNanos() / 1_000_000.0,
+                        job.getDependencies()
+                                .stream()
+                                .map(FrameJob::getName)
+                                .collect(Collectors.joining(", "))
+                ))
+                .collect(Collectors.joining("\n", this.name + ":\n", ""));
+    }
+}
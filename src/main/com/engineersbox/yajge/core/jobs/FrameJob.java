@@ -0,0 +1,67 @@
+package com.engineersbox.yajge.core.jobs;
+
+import com.engineersbox.yajge.debug.profiler.Profiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FrameJob {
+
+    private final String name;
+    private final Runnable task;
+    private final List<FrameJob> dependencies;
+    private final List<FrameJob> dependents;
+    final AtomicInteger pendingDependencies;
+    Runnable execution;
+    private final int scopeId;
+    private volatile long lastStartNanos;
+    private volatile long lastDurationNanos;
+
+    FrameJob(final String name,
+             final Runnable task,
+             final List<FrameJob> dependencies) {
+        this.name = name;
+        this.task = task;
+        this.dependencies = Collections.unmodifiableList(new ArrayList<>(dependencies));
+        this.dependents = new ArrayList<>();
+        this.pendingDependencies = new AtomicInteger();
+        this.scopeId = Profiler.registerScope("Job." + name);
+    }
+
+    void run() {
+        Profiler.begin(this.scopeId);
+        this.lastStartNanos = System.nanoTime();
+        try {
+            this.task.run();
+        } finally {
+            this.lastDurationNanos = System.nanoTime() - this.lastStartNanos;
+            Profiler.end(this.scopeId);
+        }
+    }
+
+    void addDependent(final FrameJob dependent) {
+        this.dependents.add(dependent);
+    }
+
+    List<FrameJob> dependents() {
+        return this.dependents;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public List<FrameJob> getDependencies() {
+        return this.dependencies;
+    }
+
+    public long getLastStartNanos() {
+        return this.lastStartNanos;
+    }
+
+    public long getLastDurationNanos() {
+        return this.lastDurationNanos;
+    }
+}
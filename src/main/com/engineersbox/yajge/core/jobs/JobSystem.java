@@ -0,0 +1,160 @@
+package com.engineersbox.yajge.core.jobs;
+
+import com.engineersbox.yajge.debug.profiler.Profiler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JobSystem {
+
+    private static final Logger LOGGER = LogManager.getLogger(JobSystem.class);
+    private static final String WORKER_THREAD_PREFIX = "YAJGE-Job-";
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 1000;
+
+    @FunctionalInterface
+    public interface RangeTask {
+        void run(final int start, final int end);
+    }
+
+    private final ForkJoinPool pool;
+    private final List<FrameGraph> frameGraphs;
+
+    public JobSystem() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public JobSystem(final int parallelism) {
+        this(parallelism, null);
+    }
+
+    /**
+     * @param profiler bound to every worker, so jobs are profiled with the
+     *                 engine that owns this job system, null to leave them unbound
+     */
+    public JobSystem(final int parallelism,
+                     final Profiler profiler) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ForkJoinPool(
+                Math.max(1, parallelism),
+                (final ForkJoinPool forkJoinPool) -> {
+                    final ForkJoinWorkerThread thread = new Worker(forkJoinPool, profiler);
+                    thread.setName(WORKER_THREAD_PREFIX + threadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                null,
+                false
+        );
+        this.frameGraphs = new CopyOnWriteArrayList<>();
+        LOGGER.debug("Created job system with parallelism {}", this.pool.getParallelism());
+    }
+
+    public int getParallelism() {
+        return this.pool.getParallelism();
+    }
+
+    public void execute(final Runnable job) {
+        this.pool.execute(job);
+    }
+
+    public void parallelFor(final int start,
+                            final int end,
+                            final int grainSize,
+                            final RangeTask task) {
+        if (end - start <= grainSize) {
+            task.run(start, end);
+            return;
+        }
+        final RangeAction action = new RangeAction(start, end, Math.max(1, grainSize), task);
+        if (ForkJoinTask.getPool() == this.pool) {
+            action.invoke();
+        } else {
+            this.pool.invoke(action);
+        }
+    }
+
+    public FrameGraph createFrameGraph(final String name) {
+        final FrameGraph frameGraph = new FrameGraph(name, this);
+        this.frameGraphs.add(frameGraph);
+        return frameGraph;
+    }
+
+    public List<FrameGraph> getFrameGraphs() {
+        return this.frameGraphs;
+    }
+
+    /**
+     * Drops a graph created by {@link #createFrameGraph(String)} once its owner
+     * is done with it, as a shared job system outlives the renderers using it.
+     */
+    public void removeFrameGraph(final FrameGraph frameGraph) {
+        this.frameGraphs.remove(frameGraph);
+    }
+
+    public void shutdown() {
+        this.pool.shutdown();
+        try {
+            if (!this.pool.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Job system did not terminate within {}ms", SHUTDOWN_TIMEOUT_MILLIS);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Worker extends ForkJoinWorkerThread {
+
+        private final Profiler profiler;
+
+        private Worker(final ForkJoinPool pool,
+                       final Profiler profiler) {
+            super(pool);
+            this.profiler = profiler;
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            Profiler.bind(this.profiler);
+        }
+    }
+
+    private static class RangeAction extends RecursiveAction {
+
+        private final int start;
+        private final int end;
+        private final int grainSize;
+        private final transient RangeTask task;
+
+        private RangeAction(final int start,
+                            final int end,
+                            final int grainSize,
+                            final RangeTask task) {
+            this.start = start;
+            this.end = end;
+            this.grainSize = grainSize;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start <= this.grainSize) {
+                this.task.run(this.start, this.end);
+                return;
+            }
+            final int mid = (this.start + this.end) >>> 1;
+            invokeAll(
+                    new RangeAction(this.start, mid, this.grainSize, this.task),
+                    new RangeAction(mid, this.end, this.grainSize, this.task)
+            );
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package com.engineersbox.yajge.core.window;
 
 import com.engineersbox.yajge.logging.LoggerCompat;
-import com.engineersbox.yajge.resources.config.io.ConfigHandler;
+import com.engineersbox.yajge.rendering.state.GLStateCache;
+import com.engineersbox.yajge.resources.config.Config;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -29,17 +30,20 @@ public class Window {
     private boolean resized;
     private boolean vSync;
     private final WindowOptions opts;
+    private final Config config;
     private final Matrix4f projectionMatrix;
 
     public Window(final String title,
                   final boolean vSync,
-                  final WindowOptions opts) {
+                  final WindowOptions opts,
+                  final Config config) {
         this.title = title;
         this.width = opts.width();
         this.height = opts.height();
         this.vSync = vSync;
         this.resized = false;
         this.opts = opts;
+        this.config = config;
         this.projectionMatrix = new Matrix4f();
     }
 
@@ -88,12 +92,12 @@ public class Window {
             glfwWindowHint(GLFW_MAXIMIZED, GLFW_TRUE);
             maximized = true;
         }
-        final long monitorId = findMonitorByIndex(ConfigHandler.CONFIG.video.monitor);
+        final long monitorId = findMonitorByIndex(this.config.video.monitor);
         this.windowHandle = glfwCreateWindow(
                 this.width,
                 this.height,
                 this.title,
-                ConfigHandler.CONFIG.video.fullscreen ? monitorId : NULL,
+                this.config.video.fullscreen ? monitorId : NULL,
                 NULL
         );
         if (this.windowHandle == NULL) {
@@ -108,7 +112,7 @@ public class Window {
             if (videoMode == null) {
                 throw new RuntimeException(String.format(
                         "Failed to get video mode for monitor %d",
-                        ConfigHandler.CONFIG.video.monitor
+                        this.config.video.monitor
                 ));
             }
             glfwSetWindowPos(
@@ -117,7 +121,7 @@ public class Window {
                     (videoMode.height() - this.height) / 2
             );
         }
-        LOGGER.debug("Using configured monitor {} [id: {}]", ConfigHandler.CONFIG.video.monitor, monitorId);
+        LOGGER.debug("Using configured monitor {} [id: {}]", this.config.video.monitor, monitorId);
 
         glfwMakeContextCurrent(this.windowHandle);
         if (isvSync()) {
@@ -127,14 +131,14 @@ public class Window {
         glfwShowWindow(this.windowHandle);
         GL.createCapabilities();
         glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
-        glEnable(GL_DEPTH_TEST);
-        glEnable(GL_STENCIL_TEST);
+        GLStateCache.enable(GL_DEPTH_TEST);
+        GLStateCache.enable(GL_STENCIL_TEST);
         if (this.opts.showTriangles()) {
             glPolygonMode(GL_FRONT_AND_BACK, GL_LINE);
         }
         if (this.opts.cullFace()) {
-            glEnable(GL_CULL_FACE);
-            glCullFace(GL_BACK);
+            GLStateCache.enable(GL_CULL_FACE);
+            GLStateCache.cullFace(GL_BACK);
         }
         if (this.opts.antialiasing()) {
             glfwWindowHint(GLFW_SAMPLES, 4);
@@ -159,13 +163,18 @@ public class Window {
         return monitors.get(idx);
     }
     
+    /**
+     * Puts back the engine's defaults after external rendering, like NanoVG,
+     * which also leaves the GL state cache out of date.
+     */
     public void restoreState() {
-        glEnable(GL_DEPTH_TEST);
-        glEnable(GL_STENCIL_TEST);
-        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
-        if (ConfigHandler.CONFIG.engine.glOptions.cullface) {
-            glEnable(GL_CULL_FACE);
-            glCullFace(GL_BACK);
+        GLStateCache.invalidate();
+        GLStateCache.enable(GL_DEPTH_TEST);
+        GLStateCache.enable(GL_STENCIL_TEST);
+        GLStateCache.blendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        if (this.opts.cullFace()) {
+            GLStateCache.enable(GL_CULL_FACE);
+            GLStateCache.cullFace(GL_BACK);
         }
     }
 
@@ -192,22 +201,10 @@ public class Window {
     public Matrix4f updateProjectionMatrix() {
         final float aspectRatio = (float) this.width / (float) this.height;
         return this.projectionMatrix.setPerspective(
-                (float) Math.toRadians(ConfigHandler.CONFIG.render.camera.fov),
-                aspectRatio,
-                (float) ConfigHandler.CONFIG.render.camera.zNear,
-                (float) ConfigHandler.CONFIG.render.camera.zFar
-        );
-    }
-
-    public static Matrix4f updateProjectionMatrix(final Matrix4f matrix,
-                                                  final int width,
-                                                  final int height) {
-        final float aspectRatio = (float) width / (float) height;
-        return matrix.setPerspective(
-                (float) Math.toRadians(ConfigHandler.CONFIG.render.camera.fov),
+                (float) Math.toRadians(this.config.render.camera.fov),
                 aspectRatio,
-                (float) ConfigHandler.CONFIG.render.camera.zNear,
-                (float) ConfigHandler.CONFIG.render.camera.zFar
+                (float) this.config.render.camera.zNear,
+                (float) this.config.render.camera.zFar
         );
     }
 
@@ -1,6 +1,6 @@
 package com.engineersbox.yajge.core.window;
 
-import com.engineersbox.yajge.resources.config.io.ConfigHandler;
+import com.engineersbox.yajge.resources.config.Config;
 
 public record WindowOptions(boolean cullFace,
                             boolean showTriangles,
@@ -11,16 +11,16 @@ public record WindowOptions(boolean cullFace,
                             int width,
                             int height) {
 
-    public static WindowOptions createFromConfig() {
+    public static WindowOptions createFromConfig(final Config config) {
         return new WindowOptions(
-                ConfigHandler.CONFIG.engine.glOptions.cullface,
-                ConfigHandler.CONFIG.engine.glOptions.showTrianges,
-                ConfigHandler.CONFIG.engine.features.showFPS,
-                ConfigHandler.CONFIG.engine.glOptions.compatProfile,
-                ConfigHandler.CONFIG.engine.glOptions.antialiasing,
-                ConfigHandler.CONFIG.render.camera.frustrumCulling,
-                ConfigHandler.CONFIG.video.width,
-                ConfigHandler.CONFIG.video.height
+                config.engine.glOptions.cullface,
+                config.engine.glOptions.showTrianges,
+                config.engine.features.showFPS,
+                config.engine.glOptions.compatProfile,
+                config.engine.glOptions.antialiasing,
+                config.render.camera.frustrumCulling,
+                config.video.width,
+                config.video.height
         );
     }
 }
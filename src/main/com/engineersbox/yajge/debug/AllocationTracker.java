@@ -0,0 +1,170 @@
+package com.engineersbox.yajge.debug;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Per-frame heap allocation accounting for the thread driving the frame, read
+ * from {@link com.sun.management.ThreadMXBean}. Once the warmup frames have
+ * passed, any frame allocating more than the budget is reported, or rejected
+ * with an {@link IllegalStateException} in strict mode so tests fail on it. A
+ * budget of zero or less only measures. Each tracker must only be used from one
+ * thread.
+ */
+public class AllocationTracker {
+
+    private static final Logger LOGGER = LogManager.getLogger(AllocationTracker.class);
+
+    private final com.sun.management.ThreadMXBean threadBean;
+    private final String name;
+    private final boolean enabled;
+    private final long budgetBytes;
+    private final long warmupFrames;
+    private final boolean strict;
+    private long frameStartBytes;
+    private long suspendedAtBytes;
+    private long excludedBytes;
+    private long lastFrameBytes;
+    private long maxFrameBytes;
+    private long totalBytes;
+    private long frames;
+    private long overBudgetFrames;
+
+    public AllocationTracker(final boolean enabled,
+                             final long budgetBytes,
+                             final long warmupFrames,
+                             final boolean strict) {
+        this(
+                "Frame",
+                enabled,
+                budgetBytes,
+                warmupFrames,
+                strict
+        );
+    }
+
+    /**
+     * @param name what a tracked span is called in reports, such as
+     *             {@code "Frame"}
+     */
+    public AllocationTracker(final String name,
+                             final boolean enabled,
+                             final long budgetBytes,
+                             final long warmupFrames,
+                             final boolean strict) {
+        this.name = name;
+        this.threadBean = resolveThreadBean();
+        this.enabled = enabled && this.threadBean != null;
+        if (enabled && this.threadBean == null) {
+            LOGGER.warn("Thread allocation accounting is not supported by this JVM, allocation tracking disabled");
+        }
+        this.budgetBytes = budgetBytes;
+        this.warmupFrames = warmupFrames;
+        this.strict = strict;
+    }
+
+    private static com.sun.management.ThreadMXBean resolveThreadBean() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof final com.sun.management.ThreadMXBean bean)
+                || !bean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!bean.isThreadAllocatedMemoryEnabled()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return bean;
+    }
+
+    public void beginFrame() {
+        if (this.enabled) {
+            this.frameStartBytes = this.threadBean.getCurrentThreadAllocatedBytes();
+            this.excludedBytes = 0;
+        }
+    }
+
+    /**
+     * Excludes what is allocated until {@link #resume()} from the current frame,
+     * for periodic work such as reporting that is allowed to allocate.
+     */
+    public void suspend() {
+        if (this.enabled) {
+            this.suspendedAtBytes = this.threadBean.getCurrentThreadAllocatedBytes();
+        }
+    }
+
+    public void resume() {
+        if (this.enabled) {
+            this.excludedBytes += this.threadBean.getCurrentThreadAllocatedBytes() - this.suspendedAtBytes;
+        }
+    }
+
+    public void endFrame() {
+        if (!this.enabled) {
+            return;
+        }
+        this.lastFrameBytes = this.threadBean.getCurrentThreadAllocatedBytes()
+                - this.frameStartBytes
+                - this.excludedBytes;
+        this.frames++;
+        if (this.frames <= this.warmupFrames) {
+            return;
+        }
+        this.totalBytes += this.lastFrameBytes;
+        this.maxFrameBytes = Math.max(this.maxFrameBytes, this.lastFrameBytes);
+        if (this.budgetBytes <= 0 || this.lastFrameBytes <= this.budgetBytes) {
+            return;
+        }
+        this.overBudgetFrames++;
+        if (this.strict) {
+            throw new IllegalStateException(String.format(
+                    "%s %d allocated %d bytes, over the budget of %d bytes",
+                    this.name,
+                    this.frames,
+                    this.lastFrameBytes,
+                    this.budgetBytes
+            ));
+        }
+        LOGGER.warn(
+                "{} {} allocated {} bytes, over the budget of {} bytes",
+                this.name,
+                this.frames,
+                this.lastFrameBytes,
+                this.budgetBytes
+        );
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public long getLastFrameBytes() {
+        return this.lastFrameBytes;
+    }
+
+    public long getMaxFrameBytes() {
+        return this.maxFrameBytes;
+    }
+
+    public long getOverBudgetFrames() {
+        return this.overBudgetFrames;
+    }
+
+    public long getAverageFrameBytes() {
+        final long measured = this.frames - this.warmupFrames;
+        return measured > 0 ? this.totalBytes / measured : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s last=%dB avg=%dB max=%dB over-budget=%d/%d",
+                this.name,
+                this.lastFrameBytes,
+                getAverageFrameBytes(),
+                this.maxFrameBytes,
+                this.overBudgetFrames,
+                Math.max(0, this.frames - this.warmupFrames)
+        );
+    }
+}
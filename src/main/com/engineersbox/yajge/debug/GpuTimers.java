@@ -0,0 +1,162 @@
+package com.engineersbox.yajge.debug;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL33.GL_TIME_ELAPSED;
+import static org.lwjgl.opengl.GL33.glGetQueryObjecti64;
+
+/**
+ * GL_TIME_ELAPSED timers over a ring of query objects, one set per frame in
+ * flight. Results are only read once GL_QUERY_RESULT_AVAILABLE reports them
+ * ready, so measuring never stalls the CPU on the GPU. Elapsed time queries
+ * cannot nest, so timers must cover disjoint stretches of a frame.
+ */
+public class GpuTimers {
+
+    private static final Logger LOGGER = LogManager.getLogger(GpuTimers.class);
+    public static final int FRAMES_IN_FLIGHT = 4;
+    public static final int MAX_TIMERS = 64;
+    private static final double NANOS_IN_MILLISECOND = 1_000_000.0;
+
+    private final boolean enabled;
+    private final List<String> names;
+    private final int[][] queries;
+    private final boolean[][] issued;
+    private final double[] lastMillis;
+    private int frame;
+    private int active;
+    private long droppedFrames;
+
+    public GpuTimers(final boolean enabled) {
+        this.enabled = enabled;
+        this.names = new ArrayList<>();
+        this.queries = new int[FRAMES_IN_FLIGHT][MAX_TIMERS];
+        this.issued = new boolean[FRAMES_IN_FLIGHT][MAX_TIMERS];
+        this.lastMillis = new double[MAX_TIMERS];
+        this.frame = 0;
+        this.active = -1;
+    }
+
+    public void init() {
+        if (!this.enabled) {
+            return;
+        }
+        for (final int[] frameQueries : this.queries) {
+            glGenQueries(frameQueries);
+        }
+    }
+
+    public int register(final String name) {
+        final int existing = this.names.indexOf(name);
+        if (existing >= 0) {
+            return existing;
+        }
+        if (this.names.size() >= MAX_TIMERS) {
+            throw new IllegalStateException("Cannot register more than " + MAX_TIMERS + " GPU timers");
+        }
+        this.names.add(name);
+        return this.names.size() - 1;
+    }
+
+    /**
+     * Moves to the next set of queries, collecting every frame whose results
+     * have become available. A set still pending when its turn comes round is
+     * abandoned rather than waited on.
+     */
+    public void beginFrame() {
+        if (!this.enabled) {
+            return;
+        }
+        for (int i = 1; i < FRAMES_IN_FLIGHT; i++) {
+            collect((this.frame + i) % FRAMES_IN_FLIGHT);
+        }
+        this.frame = (this.frame + 1) % FRAMES_IN_FLIGHT;
+        final boolean[] frameIssued = this.issued[this.frame];
+        for (final boolean pending : frameIssued) {
+            if (pending) {
+                this.droppedFrames++;
+                LOGGER.trace("GPU timer results were not ready in time, dropping frame");
+                break;
+            }
+        }
+        Arrays.fill(frameIssued, false);
+    }
+
+    private void collect(final int slot) {
+        final int[] frameQueries = this.queries[slot];
+        final boolean[] frameIssued = this.issued[slot];
+        for (int timer = 0; timer < this.names.size(); timer++) {
+            if (!frameIssued[timer]) {
+                continue;
+            }
+            if (glGetQueryObjecti(frameQueries[timer], GL_QUERY_RESULT_AVAILABLE) == GL_FALSE) {
+                continue;
+            }
+            this.lastMillis[timer] = glGetQueryObjecti64(frameQueries[timer], GL_QUERY_RESULT) / NANOS_IN_MILLISECOND;
+            frameIssued[timer] = false;
+        }
+    }
+
+    public void begin(final int timer) {
+        if (!this.enabled) {
+            return;
+        }
+        if (this.active >= 0) {
+            throw new IllegalStateException(String.format(
+                    "GPU timer %s started while %s is running",
+                    this.names.get(timer),
+                    this.names.get(this.active)
+            ));
+        }
+        glBeginQuery(GL_TIME_ELAPSED, this.queries[this.frame][timer]);
+        this.active = timer;
+    }
+
+    public void end(final int timer) {
+        if (!this.enabled) {
+            return;
+        }
+        glEndQuery(GL_TIME_ELAPSED);
+        this.issued[this.frame][timer] = true;
+        this.active = -1;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public List<String> getNames() {
+        return this.names;
+    }
+
+    public double getLastMillis(final int timer) {
+        return this.lastMillis[timer];
+    }
+
+    public long getDroppedFrames() {
+        return this.droppedFrames;
+    }
+
+    public String describe() {
+        final StringBuilder builder = new StringBuilder();
+        for (int timer = 0; timer < this.names.size(); timer++) {
+            builder.append(String.format("%s=%.3fms ", this.names.get(timer), this.lastMillis[timer]));
+        }
+        return builder.append("dropped=").append(this.droppedFrames).toString();
+    }
+
+    public void cleanup() {
+        if (!this.enabled) {
+            return;
+        }
+        for (final int[] frameQueries : this.queries) {
+            glDeleteQueries(frameQueries);
+        }
+    }
+}
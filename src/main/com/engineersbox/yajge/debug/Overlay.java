@@ -1,17 +1,21 @@
 package com.engineersbox.yajge.debug;
 
 import com.engineersbox.yajge.rendering.Renderer;
+import com.engineersbox.yajge.rendering.state.GLStateCache;
 import com.engineersbox.yajge.rendering.view.Camera;
-import com.engineersbox.yajge.resources.config.io.ConfigHandler;
+import com.engineersbox.yajge.rendering.view.culling.FrustumCullingFilter;
+import com.engineersbox.yajge.resources.assets.shader.Shader;
+import com.engineersbox.yajge.resources.config.Config;
 import com.engineersbox.yajge.scene.Scene;
 import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
 
 public class Overlay {
 
@@ -24,6 +28,7 @@ public class Overlay {
     private final int fontSize;
     private final Renderer renderer;
     private final Scene scene;
+    private final Config config;
 
     public Overlay(final int fontSize,
                    final Window window,
@@ -32,7 +37,8 @@ public class Overlay {
                    final Camera camera,
                    final Statistics stats,
                    final Renderer renderer,
-                   final Scene scene) {
+                   final Scene scene,
+                   final Config config) {
         this.fontSize = fontSize;
         this.window = window;
         this.info = info;
@@ -41,15 +47,16 @@ public class Overlay {
         this.stats = stats;
         this.renderer = renderer;
         this.scene = scene;
+        this.config = config;
         this.textRenderer = new TextRenderer(new Font("SansSerif", Font.PLAIN, fontSize));
     }
 
     public void render(final int fps) {
-        if (!ConfigHandler.CONFIG.engine.debug.overlay) {
+        if (!this.config.engine.debug.overlay) {
             return;
         }
         final List<Pair<String, Color>> lines = new ArrayList<>();
-        if (ConfigHandler.CONFIG.video.showFps) {
+        if (this.config.video.showFps) {
             lines.add(ImmutablePair.of("[FPS] " + fps, Color.MAGENTA));
         }
         lines.add(ImmutablePair.of("[OPENGL CONTEXT]", Color.ORANGE));
@@ -59,18 +66,21 @@ public class Overlay {
         lines.add(ImmutablePair.of("  - Renderer: " + this.info.renderer(), Color.WHITE));
         lines.add(ImmutablePair.of("  - Extensions: " + this.info.extensions(), Color.WHITE));
         lines.add(ImmutablePair.of("[ENGINE PROPERTIES]", Color.CYAN));
-        lines.add(ImmutablePair.of("  - Cull Faces: " + ConfigHandler.CONFIG.engine.glOptions.cullface, Color.WHITE));
-        lines.add(ImmutablePair.of("  - Show Triangles: " + ConfigHandler.CONFIG.engine.glOptions.showTrianges, Color.WHITE));
-        lines.add(ImmutablePair.of("  - Compat Profile: " + ConfigHandler.CONFIG.engine.glOptions.compatProfile, Color.WHITE));
-        lines.add(ImmutablePair.of("  - Frustum Culling: " + ConfigHandler.CONFIG.render.camera.frustrumCulling, Color.WHITE));
+        lines.add(ImmutablePair.of("  - Cull Faces: " + this.config.engine.glOptions.cullface, Color.WHITE));
+        lines.add(ImmutablePair.of("  - Show Triangles: " + this.config.engine.glOptions.showTrianges, Color.WHITE));
+        lines.add(ImmutablePair.of("  - Compat Profile: " + this.config.engine.glOptions.compatProfile, Color.WHITE));
+        lines.add(ImmutablePair.of("  - Frustum Culling: " + this.config.render.camera.frustrumCulling, Color.WHITE));
+        lines.add(ImmutablePair.of("  - Occlusion Culling: " + this.config.render.camera.occlusionCulling, Color.WHITE));
+        lines.add(ImmutablePair.of("  - Contribution Culling Pixels: " + this.config.render.camera.contributionCullingPixels, Color.WHITE));
+        lines.add(ImmutablePair.of("  - Visibility Caching: " + this.config.render.camera.visibilityCaching, Color.WHITE));
         lines.add(ImmutablePair.of("[DEBUG]", Color.GREEN));
-        lines.add(ImmutablePair.of("  - Shadows Only: " + ConfigHandler.CONFIG.engine.debug.shadowsOnly, Color.WHITE));
-        lines.add(ImmutablePair.of("  - Depth Only: " + ConfigHandler.CONFIG.engine.debug.depthOnly, Color.WHITE));
-        lines.add(ImmutablePair.of("  - Flat: " + ConfigHandler.CONFIG.engine.debug.flat, Color.WHITE));
-        lines.add(ImmutablePair.of("  - Show Shadow Cascades: " + ConfigHandler.CONFIG.engine.debug.showCascades, Color.WHITE));
+        lines.add(ImmutablePair.of("  - Shadows Only: " + this.config.engine.debug.shadowsOnly, Color.WHITE));
+        lines.add(ImmutablePair.of("  - Depth Only: " + this.config.engine.debug.depthOnly, Color.WHITE));
+        lines.add(ImmutablePair.of("  - Flat: " + this.config.engine.debug.flat, Color.WHITE));
+        lines.add(ImmutablePair.of("  - Show Shadow Cascades: " + this.config.engine.debug.showCascades, Color.WHITE));
         lines.add(ImmutablePair.of("[CAMERA]", Color.GREEN));
-        lines.add(ImmutablePair.of("  - Near/Far: " + ConfigHandler.CONFIG.render.camera.zNear + "/" + ConfigHandler.CONFIG.render.camera.zFar, Color.WHITE));
-        lines.add(ImmutablePair.of("  - FOV: " + ConfigHandler.CONFIG.render.camera.fov, Color.WHITE));
+        lines.add(ImmutablePair.of("  - Near/Far: " + this.config.render.camera.zNear + "/" + this.config.render.camera.zFar, Color.WHITE));
+        lines.add(ImmutablePair.of("  - FOV: " + this.config.render.camera.fov, Color.WHITE));
         lines.add(ImmutablePair.of("  - Position: [", Color.WHITE));
         lines.add(ImmutablePair.of("       X: " + this.camera.getPosition().x + ",", Color.WHITE));
         lines.add(ImmutablePair.of("       Y: " + this.camera.getPosition().y + ",", Color.WHITE));
@@ -83,29 +93,19 @@ public class Overlay {
         lines.add(ImmutablePair.of("    ]", Color.WHITE));
         lines.add(ImmutablePair.of("[RENDERER]", Color.CYAN));
         lines.add(ImmutablePair.of("  - Pre-Cull Scene Elements:", Color.WHITE));
-        lines.add(ImmutablePair.of("    - Instanced: " + this.scene.getInstancedMeshes()
-                .values()
-                .stream()
-                .mapToLong(List::size)
-                .sum() + ",", Color.WHITE));
-        lines.add(ImmutablePair.of("    - Non-Instanced: " + this.scene.getNonInstancedMeshes()
-                .values()
-                .stream()
-                .mapToLong(List::size)
-                .sum() + ",", Color.WHITE));
+        lines.add(ImmutablePair.of("    - Instanced: " + countElements(this.scene.getInstancedMeshes(), false) + ",", Color.WHITE));
+        lines.add(ImmutablePair.of("    - Non-Instanced: " + countElements(this.scene.getNonInstancedMeshes(), false) + ",", Color.WHITE));
         lines.add(ImmutablePair.of("  - Culled Scene Elements", Color.WHITE));
-        lines.add(ImmutablePair.of("    - Instanced: " + this.scene.getInstancedMeshes()
-                .values()
-                .stream()
-                .map((final List<SceneElement> elements) -> elements.stream().filter(SceneElement::isInsideFrustum))
-                .mapToLong(Stream::count)
-                .sum() + ",", Color.WHITE));
-        lines.add(ImmutablePair.of("    - Non-Instanced: " + this.scene.getNonInstancedMeshes()
-                .values()
-                .stream()
-                .map((final List<SceneElement> elements) -> elements.stream().filter(SceneElement::isInsideFrustum))
-                .mapToLong(Stream::count)
-                .sum() + ",", Color.WHITE));
+        lines.add(ImmutablePair.of("    - Instanced: " + countElements(this.scene.getInstancedMeshes(), true) + ",", Color.WHITE));
+        lines.add(ImmutablePair.of("    - Non-Instanced: " + countElements(this.scene.getNonInstancedMeshes(), true) + ",", Color.WHITE));
+        lines.add(ImmutablePair.of("  - Occluded Scene Elements", Color.WHITE));
+        lines.add(ImmutablePair.of("    - Instanced: " + countOccluded(this.scene.getInstancedMeshes()) + ",", Color.WHITE));
+        lines.add(ImmutablePair.of("    - Non-Instanced: " + countOccluded(this.scene.getNonInstancedMeshes()) + ",", Color.WHITE));
+        final FrustumCullingFilter frustumFilter = this.renderer.getFrustumFilter();
+        lines.add(ImmutablePair.of("  - Visibility: " + (frustumFilter.isCached() ? "Cached" : "Full Cull"), Color.WHITE));
+        lines.add(ImmutablePair.of("    - Retested: " + frustumFilter.getRetestedCount() + ",", Color.WHITE));
+        lines.add(ImmutablePair.of("    - Reused: " + frustumFilter.getReusedCount() + ",", Color.WHITE));
+        lines.add(ImmutablePair.of("    - Contribution Culled: " + frustumFilter.getContributionCulledCount() + ",", Color.WHITE));
         lines.add(ImmutablePair.of("[PIPELINE]", Color.ORANGE));
         for (final Statistics.Stat stat : Statistics.Stat.values()) {
             lines.add(ImmutablePair.of(String.format(
@@ -114,6 +114,10 @@ public class Overlay {
                     this.stats.getResult(stat)
             ), Color.WHITE));
         }
+        lines.add(ImmutablePair.of("  - Uniform Uploads: " + Shader.getUploadsIssued(), Color.WHITE));
+        lines.add(ImmutablePair.of("  - Skipped Uniform Uploads: " + Shader.getUploadsSkipped(), Color.WHITE));
+        lines.add(ImmutablePair.of("  - State Changes: " + GLStateCache.getChangesIssued(), Color.WHITE));
+        lines.add(ImmutablePair.of("  - Filtered State Changes: " + GLStateCache.getChangesFiltered(), Color.WHITE));
         renderDebugLines(
                 this.window,
                 lines,
@@ -122,6 +126,35 @@ public class Overlay {
         );
     }
 
+    private static long countElements(final Map<? extends Mesh, List<SceneElement>> meshes,
+                                      final boolean insideFrustumOnly) {
+        long count = 0;
+        for (final List<SceneElement> sceneElements : meshes.values()) {
+            if (!insideFrustumOnly) {
+                count += sceneElements.size();
+                continue;
+            }
+            for (int i = 0; i < sceneElements.size(); i++) {
+                if (sceneElements.get(i).isInsideFrustum()) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long countOccluded(final Map<? extends Mesh, List<SceneElement>> meshes) {
+        long count = 0;
+        for (final List<SceneElement> sceneElements : meshes.values()) {
+            for (int i = 0; i < sceneElements.size(); i++) {
+                if (sceneElements.get(i).isOccluded()) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
     private void renderDebugLines(final Window window,
                                   final List<Pair<String, Color>> lines,
                                   final int xStart,
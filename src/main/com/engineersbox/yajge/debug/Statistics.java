@@ -48,44 +48,41 @@ public class Statistics {
     }
 
     public static final int MAX = 11;
+    public static final int FRAMES_IN_FLIGHT = 4;
 
     private static final String QUERY_EXTENSION_ARB = "GL_ARB_pipeline_statistics_query";
+    private static final Stat[] STATS = Stat.values();
 
     private final boolean extensionAvailable;
-    private final IntBuffer queryName;
-    private IntBuffer queryResult;
+    private final IntBuffer queryNames;
+    private final boolean[] pending;
+    private final int[] queryResult;
+    private int frame;
     private boolean running;
+    private boolean skipped;
 
     public Statistics() {
         this.extensionAvailable = GLVersion.isExtensionSupported(Statistics.QUERY_EXTENSION_ARB);
-        this.queryName = MemoryUtil.memAllocInt(Statistics.MAX);
+        this.queryNames = MemoryUtil.memAllocInt(Statistics.MAX * Statistics.FRAMES_IN_FLIGHT);
+        this.pending = new boolean[Statistics.FRAMES_IN_FLIGHT];
+        this.queryResult = new int[Statistics.MAX];
+        this.frame = 0;
         this.running = false;
+        this.skipped = false;
     }
 
     public void init() {
         if (!this.extensionAvailable) {
             return;
         }
-        glGenQueries(this.queryName);
+        glGenQueries(this.queryNames);
 
-        final int[] queryCounterBits = new int[Statistics.MAX];
-
-        for (final Stat stat : Stat.values()) {
+        boolean validated = true;
+        for (final Stat stat : STATS) {
             if (stat.composite) {
                 continue;
             }
-            final int[] query = new int[1];
-            glGetQueryiv(
-                    stat.target,
-                    GL_QUERY_COUNTER_BITS,
-                    query
-            );
-            queryCounterBits[stat.target] = query[0];
-        }
-
-        boolean validated = true;
-        for (final int queryCounterBit : queryCounterBits) {
-            validated &= queryCounterBit >= 18;
+            validated &= glGetQueryi(stat.target, GL_QUERY_COUNTER_BITS) >= 18;
         }
 
         if (!validated) {
@@ -93,49 +90,101 @@ public class Statistics {
         }
     }
 
+    private int queryName(final int slot,
+                          final Stat stat) {
+        return this.queryNames.get(slot * Statistics.MAX + stat.index);
+    }
+
     public void begin() {
         if (this.running) {
             throw new IllegalStateException("Statistics query already running");
         }
-        for (final Stat stat : Stat.values()) {
+        this.running = true;
+        if (!this.extensionAvailable) {
+            return;
+        }
+        collect();
+        // Never wait on the GPU, if the oldest set is still in flight this frame goes unmeasured
+        this.skipped = this.pending[this.frame];
+        if (this.skipped) {
+            return;
+        }
+        for (final Stat stat : STATS) {
             if (stat.composite) {
                 continue;
             }
             glBeginQuery(
                     stat.target,
-                    this.queryName.get(stat.index)
+                    queryName(this.frame, stat)
             );
         }
-        this.running = true;
     }
 
     public void end() {
         if (!this.running) {
             throw new IllegalStateException("Statistics query is not running");
         }
-        this.queryResult = MemoryUtil.memAllocInt(Statistics.MAX);
-        for (final Stat stat : Stat.values()) {
+        this.running = false;
+        if (!this.extensionAvailable || this.skipped) {
+            return;
+        }
+        for (final Stat stat : STATS) {
             if (stat.composite) {
                 continue;
             }
             glEndQuery(stat.target);
-            glGetQueryObjectuiv(
-                    this.queryName.get(stat.index),
-                    GL_QUERY_RESULT,
-                    this.queryResult
-            );
         }
-        this.running = false;
+        this.pending[this.frame] = true;
+        this.frame = (this.frame + 1) % Statistics.FRAMES_IN_FLIGHT;
+    }
+
+    /**
+     * Reads back every in-flight set whose results are available, oldest first,
+     * so {@link #getResult} always reflects the newest completed frame.
+     */
+    private void collect() {
+        for (int i = 0; i < Statistics.FRAMES_IN_FLIGHT; i++) {
+            final int slot = (this.frame + i) % Statistics.FRAMES_IN_FLIGHT;
+            if (!this.pending[slot] || !isAvailable(slot)) {
+                continue;
+            }
+            for (final Stat stat : STATS) {
+                if (stat.composite) {
+                    continue;
+                }
+                this.queryResult[stat.index] = glGetQueryObjectui(queryName(slot, stat), GL_QUERY_RESULT);
+            }
+            this.pending[slot] = false;
+        }
+    }
+
+    private boolean isAvailable(final int slot) {
+        for (final Stat stat : STATS) {
+            if (stat.composite) {
+                continue;
+            }
+            if (glGetQueryObjectui(queryName(slot, stat), GL_QUERY_RESULT_AVAILABLE) == GL_FALSE) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public int getResult(final Stat statistic) {
         final int result;
         if (statistic.composite) {
-            result = (int) (this.queryResult.get(statistic.ref.index) * statistic.factor);
+            result = (int) (this.queryResult[statistic.ref.index] * statistic.factor);
         } else {
-            result = this.queryResult.get(statistic.index);
+            result = this.queryResult[statistic.index];
         }
         return result;
     }
 
+    public void cleanup() {
+        if (this.extensionAvailable) {
+            glDeleteQueries(this.queryNames);
+        }
+        MemoryUtil.memFree(this.queryNames);
+    }
+
 }
@@ -0,0 +1,154 @@
+package com.engineersbox.yajge.debug.benchmark;
+
+import com.engineersbox.yajge.core.jobs.JobSystem;
+import com.engineersbox.yajge.rendering.view.culling.BatchFrustumCuller;
+import com.engineersbox.yajge.rendering.view.culling.FrustumCullingFilter;
+import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Matrix4f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the per-element {@link FrustumCullingFilter} path with the batch
+ * kernel, single threaded and split across the job system. Sizes default to
+ * 10k, 100k and 1M spheres and can be overridden as arguments; the largest
+ * default needs a heap of around 2GB for the scene elements alone.
+ */
+public class FrustumCullingBenchmark {
+
+    private static final Logger LOGGER = LogManager.getLogger(FrustumCullingBenchmark.class);
+    private static final int[] DEFAULT_SIZES = {10_000, 100_000, 1_000_000};
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 50;
+    private static final float WORLD_EXTENT = 500.0f;
+    private static final float MAX_RADIUS = 4.0f;
+
+    private FrustumCullingBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static void main(final String[] args) {
+        final int[] sizes = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : DEFAULT_SIZES;
+        final FrustumCullingFilter filter = new FrustumCullingFilter();
+        filter.updateFrustum(
+                new Matrix4f().perspective((float) Math.toRadians(60.0), 16.0f / 9.0f, 0.1f, 1000.0f),
+                new Matrix4f().lookAt(0, 0, 0, 0, 0, -1, 0, 1, 0)
+        );
+        final JobSystem jobSystem = new JobSystem();
+        try {
+            for (final int size : sizes) {
+                run(size, filter, jobSystem);
+            }
+        } finally {
+            jobSystem.shutdown();
+        }
+    }
+
+    private static void run(final int size,
+                            final FrustumCullingFilter filter,
+                            final JobSystem jobSystem) {
+        final Random random = new Random(size);
+        final Mesh unitMesh = createUnitMesh();
+        final List<SceneElement> sceneElements = new ArrayList<>(size);
+        final float[] centres = new float[size * 3];
+        final float[] radii = new float[size];
+        for (int i = 0; i < size; i++) {
+            final float x = (random.nextFloat() * 2.0f - 1.0f) * WORLD_EXTENT;
+            final float y = (random.nextFloat() * 2.0f - 1.0f) * WORLD_EXTENT;
+            final float z = (random.nextFloat() * 2.0f - 1.0f) * WORLD_EXTENT;
+            final float radius = random.nextFloat() * MAX_RADIUS;
+            final SceneElement sceneElement = new SceneElement(unitMesh);
+            sceneElement.setPosition(x, y, z);
+            sceneElement.setScale(radius);
+            sceneElement.updateWorldMatrix();
+            sceneElements.add(sceneElement);
+            centres[i * 3] = x;
+            centres[i * 3 + 1] = y;
+            centres[i * 3 + 2] = z;
+            radii[i] = radius;
+        }
+        final BatchFrustumCuller culler = filter.getBatchCuller();
+        final long[] visibility = new long[BatchFrustumCuller.wordsFor(size)];
+
+        final double perElement = measure(() -> filter.filter(sceneElements));
+        final double batch = measure(() -> culler.cull(centres, radii, size, visibility));
+        final double parallelBatch = measure(() -> culler.cull(centres, radii, size, visibility, jobSystem));
+
+        int perElementVisible = 0;
+        for (final SceneElement sceneElement : sceneElements) {
+            perElementVisible += sceneElement.isInsideFrustum() ? 1 : 0;
+        }
+        int batchVisible = 0;
+        for (final long word : visibility) {
+            batchVisible += Long.bitCount(word);
+        }
+        if (perElementVisible != batchVisible) {
+            LOGGER.warn(
+                    "Visible counts differ at {} spheres: per-element {}, batch {}",
+                    size,
+                    perElementVisible,
+                    batchVisible
+            );
+        }
+        LOGGER.info(
+                "{} spheres ({} visible): per-element {} ms, batch {} ms ({}x), parallel batch {} ms ({}x)",
+                size,
+                batchVisible,
+                String.format("%.3f", perElement),
+                String.format("%.3f", batch),
+                String.format("%.1f", perElement / batch),
+                String.format("%.3f", parallelBatch),
+                String.format("%.1f", perElement / parallelBatch)
+        );
+    }
+
+    /**
+     * Headless octahedron with vertices on the unit axes, so its bounds are the
+     * unit sphere around the origin and each element's scale is its radius.
+     */
+    private static Mesh createUnitMesh() {
+        final float[] positions = {
+                1, 0, 0,
+                -1, 0, 0,
+                0, 1, 0,
+                0, -1, 0,
+                0, 0, 1,
+                0, 0, -1
+        };
+        return new Mesh(
+                positions,
+                new float[12],
+                positions,
+                new int[]{
+                        0, 2, 4, 2, 1, 4, 1, 3, 4, 3, 0, 4,
+                        2, 0, 5, 1, 2, 5, 3, 1, 5, 0, 3, 5
+                },
+                true
+        );
+    }
+
+    /**
+     * @return the median wall time of the measured iterations in milliseconds
+     */
+    private static double measure(final Runnable task) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            task.run();
+        }
+        final long[] samples = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            final long start = System.nanoTime();
+            task.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[MEASURED_ITERATIONS / 2] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,31 @@
+package com.engineersbox.yajge.debug.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.engineersbox.yajge.Clustering")
+@Label("Clustering")
+@Category({"YAJGE", "Virtualisation"})
+@Description("A ClusterGenerator run")
+@Enabled(false)
+@StackTrace(false)
+public class ClusteringEvent extends Event {
+
+    @Label("Mode")
+    public String mode;
+
+    @Label("Input")
+    @Description("Vertices for threshold clustering, clusters for count clustering")
+    public int input;
+
+    @Label("Target")
+    public int target;
+
+    @Label("Clusters")
+    public int clusters;
+}
@@ -0,0 +1,34 @@
+package com.engineersbox.yajge.debug.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.engineersbox.yajge.Culling")
+@Label("Culling")
+@Category({"YAJGE", "Rendering"})
+@Description("Camera frustum and contribution culling for one frame")
+@Enabled(false)
+@StackTrace(false)
+public class CullingEvent extends Event {
+
+    @Label("Cached")
+    @Description("Whether the previous frame's visibility was reused")
+    public boolean cached;
+
+    @Label("Retested")
+    public int retested;
+
+    @Label("Reused")
+    public int reused;
+
+    @Label("Contribution Culled")
+    public int contributionCulled;
+
+    @Label("Visible")
+    public int visible;
+}
@@ -0,0 +1,40 @@
+package com.engineersbox.yajge.debug.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.engineersbox.yajge.Frame")
+@Label("Frame")
+@Category({"YAJGE", "Engine"})
+@Description("A single iteration of the render loop")
+@Enabled(false)
+@StackTrace(false)
+public class FrameEvent extends Event {
+
+    @Label("Frame")
+    public long frame;
+
+    @Label("Pipelined")
+    public boolean pipelined;
+
+    @Label("Uniform Uploads")
+    @Description("Uniform values passed to GL during the frame")
+    public long uniformUploads;
+
+    @Label("Skipped Uniform Uploads")
+    @Description("Uniform values dropped during the frame because they were unchanged")
+    public long skippedUniformUploads;
+
+    @Label("State Changes")
+    @Description("GL state changes passed to the driver during the frame")
+    public long stateChanges;
+
+    @Label("Filtered State Changes")
+    @Description("GL state changes dropped during the frame because they were redundant")
+    public long filteredStateChanges;
+}
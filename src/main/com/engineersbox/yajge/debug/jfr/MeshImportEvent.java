@@ -0,0 +1,30 @@
+package com.engineersbox.yajge.debug.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.engineersbox.yajge.MeshImport")
+@Label("Mesh Import")
+@Category({"YAJGE", "Resources"})
+@Description("A model imported through Assimp")
+@Enabled(false)
+@StackTrace(false)
+public class MeshImportEvent extends Event {
+
+    @Label("Resource")
+    public String resource;
+
+    @Label("Animated")
+    public boolean animated;
+
+    @Label("Meshes")
+    public int meshes;
+
+    @Label("Triangles")
+    public int triangles;
+}
@@ -0,0 +1,24 @@
+package com.engineersbox.yajge.debug.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.engineersbox.yajge.RenderStage")
+@Label("Render Stage")
+@Category({"YAJGE", "Rendering"})
+@Description("A pre-process, lighting or post-process handler run by the Renderer")
+@Enabled(false)
+@StackTrace(false)
+public class RenderStageEvent extends Event {
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Handler")
+    public String handler;
+}
@@ -0,0 +1,27 @@
+package com.engineersbox.yajge.debug.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.engineersbox.yajge.ShadowCascade")
+@Label("Shadow Cascade")
+@Category({"YAJGE", "Rendering"})
+@Description("Depth pass for one shadow cascade")
+@Enabled(false)
+@StackTrace(false)
+public class ShadowCascadeEvent extends Event {
+
+    @Label("Cascade")
+    public int cascade;
+
+    @Label("Meshes")
+    public int meshes;
+
+    @Label("Elements")
+    public int elements;
+}
@@ -0,0 +1,27 @@
+package com.engineersbox.yajge.debug.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.engineersbox.yajge.Simplification")
+@Label("Mesh Simplification")
+@Category({"YAJGE", "Virtualisation"})
+@Description("A QuadricErrorSimplifier run")
+@Enabled(false)
+@StackTrace(false)
+public class SimplificationEvent extends Event {
+
+    @Label("Input Triangles")
+    public int inputTriangles;
+
+    @Label("Target Triangles")
+    public int targetTriangles;
+
+    @Label("Output Triangles")
+    public int outputTriangles;
+}
@@ -0,0 +1,39 @@
+package com.engineersbox.yajge.debug.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.engineersbox.yajge.TextureCache")
+@Label("Texture Cache")
+@Category({"YAJGE", "Resources"})
+@Description("A texture cache lookup or eviction")
+@Enabled(false)
+@StackTrace(false)
+public class TextureCacheEvent extends Event {
+
+    public static final String HIT = "HIT";
+    public static final String MISS = "MISS";
+    public static final String EVICTION = "EVICTION";
+
+    @Label("Path")
+    public String path;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
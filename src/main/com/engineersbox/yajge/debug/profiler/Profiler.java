@@ -0,0 +1,148 @@
+package com.engineersbox.yajge.debug.profiler;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Hierarchical CPU scope profiler. Scopes are registered once up front and then
+ * marked by id with {@link #begin(int)} and {@link #end(int)}, which write into a
+ * preallocated ring buffer owned by the calling thread. Each engine context owns
+ * a profiler and binds its threads to it with {@link #bind(Profiler)}, so engines
+ * sharing a JVM are switched and exported independently. On threads that are
+ * unbound, or bound to a disabled profiler, both calls reduce to a thread local
+ * read.
+ */
+public class Profiler {
+
+    private static final Logger LOGGER = LogManager.getLogger(Profiler.class);
+    private static final int DEFAULT_BUFFER_CAPACITY = 1 << 16;
+
+    private static final List<String> SCOPE_NAMES = new ArrayList<>();
+    private static final ThreadLocal<Binding> BINDING = new ThreadLocal<>();
+
+    private final List<ProfilerBuffer> buffers;
+    private volatile boolean enabled;
+
+    private record Binding(Profiler profiler,
+                           ProfilerBuffer buffer) {
+    }
+
+    public Profiler(final boolean enabled) {
+        this.buffers = new CopyOnWriteArrayList<>();
+        this.enabled = enabled;
+    }
+
+    /**
+     * Routes the calling thread's markers to the given profiler, or drops them
+     * when it is null. A thread bound to the same profiler again keeps its buffer.
+     */
+    public static void bind(final Profiler profiler) {
+        if (profiler == null) {
+            BINDING.remove();
+            return;
+        }
+        final Binding current = BINDING.get();
+        if (current != null && current.profiler() == profiler) {
+            return;
+        }
+        final Thread thread = Thread.currentThread();
+        final ProfilerBuffer buffer = new ProfilerBuffer(
+                thread.getId(),
+                thread.getName(),
+                DEFAULT_BUFFER_CAPACITY
+        );
+        profiler.buffers.add(buffer);
+        BINDING.set(new Binding(profiler, buffer));
+    }
+
+    public static synchronized int registerScope(final String name) {
+        final int existing = SCOPE_NAMES.indexOf(name);
+        if (existing >= 0) {
+            return existing;
+        }
+        SCOPE_NAMES.add(name);
+        return SCOPE_NAMES.size() - 1;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static void begin(final int scopeId) {
+        final Binding binding = BINDING.get();
+        if (binding != null && binding.profiler().enabled) {
+            binding.buffer().record(scopeId, System.nanoTime(), true);
+        }
+    }
+
+    public static void end(final int scopeId) {
+        final Binding binding = BINDING.get();
+        if (binding != null && binding.profiler().enabled) {
+            binding.buffer().record(scopeId, System.nanoTime(), false);
+        }
+    }
+
+    public void reset() {
+        for (final ProfilerBuffer buffer : this.buffers) {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Writes every buffered marker as Chrome trace-event JSON, loadable in
+     * {@code chrome://tracing} or Perfetto. Best called while the profiler is
+     * disabled, markers written concurrently may or may not be included.
+     */
+    public void exportChromeTrace(final Path path) {
+        final String[] scopeNames;
+        synchronized (Profiler.class) {
+            scopeNames = SCOPE_NAMES.toArray(String[]::new);
+        }
+        try (final BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("{\"traceEvents\":[");
+            boolean first = true;
+            for (final ProfilerBuffer buffer : this.buffers) {
+                if (!first) {
+                    writer.write(',');
+                }
+                writer.write(String.format(
+                        "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":%d,\"args\":{\"name\":\"%s\"}}",
+                        buffer.getThreadId(),
+                        escape(buffer.getThreadName())
+                ));
+                first = false;
+                final int count = buffer.size();
+                for (int i = 0; i < count; i++) {
+                    writer.write(String.format(
+                            ",{\"name\":\"%s\",\"ph\":\"%s\",\"ts\":%.3f,\"pid\":1,\"tid\":%d}",
+                            escape(scopeNames[buffer.scopeIdAt(i)]),
+                            buffer.isBeginAt(i) ? "B" : "E",
+                            buffer.timestampAt(i) / 1000.0,
+                            buffer.getThreadId()
+                    ));
+                }
+            }
+            writer.write("],\"displayTimeUnit\":\"ms\"}");
+        } catch (final IOException e) {
+            throw new RuntimeException("Unable to export Chrome trace to " + path, e);
+        }
+        LOGGER.info("Exported profiler trace to {}", path);
+    }
+
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,73 @@
+package com.engineersbox.yajge.debug.profiler;
+
+/**
+ * Single writer ring buffer of scope markers. Once full, the oldest markers are
+ * overwritten so a long session keeps its most recent frames.
+ */
+class ProfilerBuffer {
+
+    private static final int END_FLAG = 1 << 31;
+
+    private final long threadId;
+    private final String threadName;
+    private final long[] timestamps;
+    private final int[] markers;
+    private final int mask;
+    private volatile long written;
+
+    ProfilerBuffer(final long threadId,
+                   final String threadName,
+                   final int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Profiler buffer capacity must be a power of two: " + capacity);
+        }
+        this.threadId = threadId;
+        this.threadName = threadName;
+        this.timestamps = new long[capacity];
+        this.markers = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    void record(final int scopeId,
+                final long timestamp,
+                final boolean begin) {
+        final long index = this.written;
+        final int slot = (int) (index & this.mask);
+        this.timestamps[slot] = timestamp;
+        this.markers[slot] = begin ? scopeId : scopeId | END_FLAG;
+        this.written = index + 1;
+    }
+
+    void clear() {
+        this.written = 0;
+    }
+
+    int size() {
+        return (int) Math.min(this.written, this.timestamps.length);
+    }
+
+    private int slot(final int i) {
+        final long start = Math.max(0, this.written - this.timestamps.length);
+        return (int) ((start + i) & this.mask);
+    }
+
+    int scopeIdAt(final int i) {
+        return this.markers[slot(i)] & ~END_FLAG;
+    }
+
+    boolean isBeginAt(final int i) {
+        return (this.markers[slot(i)] & END_FLAG) == 0;
+    }
+
+    long timestampAt(final int i) {
+        return this.timestamps[slot(i)];
+    }
+
+    long getThreadId() {
+        return this.threadId;
+    }
+
+    String getThreadName() {
+        return this.threadName;
+    }
+}
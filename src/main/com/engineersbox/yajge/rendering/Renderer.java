@@ -1,17 +1,29 @@
 package com.engineersbox.yajge.rendering;
 
+import com.engineersbox.yajge.core.engine.EngineContext;
+import com.engineersbox.yajge.core.jobs.FrameGraph;
+import com.engineersbox.yajge.core.jobs.FrameJob;
+import com.engineersbox.yajge.core.jobs.JobSystem;
 import com.engineersbox.yajge.core.window.Window;
+import com.engineersbox.yajge.debug.GpuTimers;
+import com.engineersbox.yajge.debug.jfr.RenderStageEvent;
+import com.engineersbox.yajge.debug.profiler.Profiler;
+import com.engineersbox.yajge.rendering.command.CommandBuffer;
+import com.engineersbox.yajge.rendering.command.CommandExecutor;
+import com.engineersbox.yajge.rendering.command.IndirectDrawBuffer;
 import com.engineersbox.yajge.rendering.scene.SceneBuffer;
-import com.engineersbox.yajge.rendering.scene.lighting.DirectionalLight;
 import com.engineersbox.yajge.rendering.scene.lighting.PointLight;
-import com.engineersbox.yajge.rendering.scene.shadow.ShadowCascade;
 import com.engineersbox.yajge.rendering.scene.shadow.ShadowRenderer;
+import com.engineersbox.yajge.rendering.state.GLStateCache;
+import com.engineersbox.yajge.rendering.uniform.SharedUniforms;
 import com.engineersbox.yajge.rendering.view.Camera;
 import com.engineersbox.yajge.rendering.view.GBuffer;
 import com.engineersbox.yajge.rendering.view.Transform;
 import com.engineersbox.yajge.rendering.view.culling.FrustumCullingFilter;
+import com.engineersbox.yajge.rendering.view.culling.OcclusionCuller;
 import com.engineersbox.yajge.resources.assets.material.Texture;
 import com.engineersbox.yajge.resources.assets.shader.Shader;
+import com.engineersbox.yajge.resources.assets.shader.Uniform;
 import com.engineersbox.yajge.resources.loader.ResourceLoader;
 import com.engineersbox.yajge.resources.loader.assimp.StaticMeshesLoader;
 import com.engineersbox.yajge.scene.Scene;
@@ -48,6 +60,19 @@ public class Renderer {
     public static final String DIRECTIONAL_LIGHT_SHADER_NAME = "@yajge__internal__DIRECTIONAL_LIGHT";
     public static final String POINT_LIGHT_SHADER_NAME = "@yajge__internal__POINT_LIGHT";
     public static final String FOG_SHADER_NAME = "@yajge__internal__FOG";
+    private static final int RENDER_SCOPE = Profiler.registerScope("Renderer.render");
+    private static final int FRAME_GRAPH_SCOPE = Profiler.registerScope("Renderer.frameGraph");
+    private static final List<SceneElement> NO_INSTANCES = List.of();
+    private static final String PRE_PROCESS_STAGE = "pre";
+    private static final String LIGHTING_STAGE = "lighting";
+    private static final String POST_PROCESS_STAGE = "post";
+    private static final String[] SHADOW_MAP_UNIFORMS = new String[ShadowRenderer.NUM_CASCADES];
+
+    static {
+        for (int i = 0; i < ShadowRenderer.NUM_CASCADES; i++) {
+            SHADOW_MAP_UNIFORMS[i] = "shadowMap_" + i;
+        }
+    }
 
     private final Transform transform;
     private final ShadowRenderer shadowRenderer;
@@ -57,37 +82,152 @@ public class Renderer {
     private final Map<String, TriConsumer<Window,Camera, Scene>> lightingRenderHandlers;
     private final Map<String, Shader> postProcessShaders;
     private final Map<String, TriConsumer<Window,Camera, Scene>> postProcessRenderHandlers;
+    private final Map<String, Integer> handlerScopes;
+    private final Map<String, Integer> handlerTimers;
+    private final GpuTimers gpuTimers;
     private final float specularPower;
     private final FrustumCullingFilter frustumFilter;
-    private final List<SceneElement> filteredElements;
+    private final OcclusionCuller occlusionCuller;
+    private final boolean occlusionCulling;
+    private final EngineContext context;
+    private final JobSystem jobSystem;
+    private final FrameGraph frameGraph;
+    private final CommandBuffer[] geometryCommands;
+    private final IndirectDrawBuffer[] geometryIndirect;
+    private final Matrix4f[] geometryModelMatrices;
+    private final List<Map.Entry<Mesh, List<SceneElement>>> geometryEntries;
+    private final CommandBuffer particleCommands;
+    private final CommandExecutor commandExecutor;
+    private final RenderStageEvent stageEvent;
+    private final JobSystem.RangeTask recordGeometryTask;
+    private Shader geometryShader;
+    private GeometryUniforms geometryUniforms;
+    private int geometryChunks;
+    private Window frameWindow;
+    private Camera frameCamera;
+    private Scene frameScene;
+    private boolean frameShadows;
+    private Shader gBufferIndirectShader;
     private GBuffer gBuffer;
     private SceneBuffer sceneBuffer;
     private Mesh bufferPassMesh;
     private Matrix4f bufferPassModelMatrix;
+    private SharedUniforms sharedUniforms;
     private final Vector4f tmpVec;
+    private final PointLight viewPointLight;
+
+    private record GeometryUniforms(Uniform cols,
+                                    Uniform rows,
+                                    Uniform selected,
+                                    Uniform model,
+                                    Uniform joints) {
+    }
 
-    public Renderer() {
+    public Renderer(final EngineContext context) {
+        this.context = context;
         this.transform = new Transform();
         this.specularPower = 10f;
-        this.shadowRenderer = new ShadowRenderer();
+        this.shadowRenderer = new ShadowRenderer(context);
         this.frustumFilter = new FrustumCullingFilter();
-        this.filteredElements = new ArrayList<>();
+        this.frustumFilter.setMinPixelSize((float) context.getConfig().render.camera.contributionCullingPixels);
+        this.frustumFilter.setVisibilityCaching(
+                context.getConfig().render.camera.visibilityCaching,
+                (float) context.getConfig().render.camera.visibilityCacheThreshold
+        );
+        this.occlusionCuller = new OcclusionCuller();
+        this.occlusionCulling = context.getConfig().render.camera.occlusionCulling;
+        this.jobSystem = context.getJobSystem();
+        final int recorders = Math.max(1, this.jobSystem.getParallelism());
+        this.geometryCommands = new CommandBuffer[recorders];
+        this.geometryIndirect = new IndirectDrawBuffer[recorders];
+        this.geometryModelMatrices = new Matrix4f[recorders];
+        for (int i = 0; i < recorders; i++) {
+            this.geometryCommands[i] = new CommandBuffer();
+            this.geometryIndirect[i] = new IndirectDrawBuffer(this.context.isHeadless());
+            this.geometryModelMatrices[i] = new Matrix4f();
+        }
+        this.geometryEntries = new ArrayList<>();
+        this.particleCommands = new CommandBuffer();
+        this.commandExecutor = new CommandExecutor(this.context.isHeadless());
+        this.stageEvent = new RenderStageEvent();
+        this.recordGeometryTask = (final int start, final int end) -> {
+            for (int chunk = start; chunk < end; chunk++) {
+                recordGeometryChunk(chunk, this.geometryChunks, this.geometryShader, this.geometryUniforms);
+            }
+        };
+        this.frameGraph = createFrameGraph();
         this.preProcessShaders = new ListOrderedMap<>();
         this.lightingShaders = new ListOrderedMap<>();
         this.postProcessShaders = new ListOrderedMap<>();
         this.preProcessRenderHandlers = new HashMap<>();
         this.lightingRenderHandlers = new HashMap<>();
         this.postProcessRenderHandlers = new HashMap<>();
+        this.handlerScopes = new HashMap<>();
+        this.handlerTimers = new HashMap<>();
+        this.gpuTimers = new GpuTimers(
+                context.getConfig().engine.features.gpuTimers
+                        && !context.isHeadless()
+        );
         this.tmpVec = new Vector4f();
+        this.viewPointLight = new PointLight(new Vector3f(), new Vector3f(), 0);
+    }
+
+    private FrameGraph createFrameGraph() {
+        final FrameGraph graph = this.jobSystem.createFrameGraph("render");
+        // Cascades query the spatial index concurrently with the main cull, so it
+        // has to be current before either starts
+        final FrameJob spatialIndex = graph.addJob("spatial.index", () -> {
+            if (this.frameShadows) {
+                this.frameScene.updateSpatialIndex();
+            }
+        });
+        final FrameJob cull = graph.addJob("cull", () -> {
+            if (this.frameWindow.getOptions().frustumCulling()) {
+                this.frustumFilter.filter(this.frameScene, this.jobSystem);
+                if (this.occlusionCulling) {
+                    this.frameScene.cullOccluded(this.occlusionCuller, this.jobSystem);
+                }
+            } else {
+                this.frameScene.resetVisibility();
+            }
+        }, spatialIndex);
+        graph.addJob("instances.build", this::prepareVisibleInstances, cull);
+        graph.addJob("gbuffer.record", this::recordGeometry, cull);
+        graph.addJob("particles.record", this::recordParticles);
+        for (int i = 0; i < ShadowRenderer.NUM_CASCADES; i++) {
+            final int cascade = i;
+            graph.addJob("shadow.cascade." + i, () -> {
+                if (this.frameShadows) {
+                    this.shadowRenderer.updateCascade(
+                            cascade,
+                            this.frameWindow,
+                            this.frameCamera.getViewMatrix(),
+                            this.frameScene,
+                            this.transform.getInterpolationAlpha()
+                    );
+                }
+            }, spatialIndex);
+        }
+        return graph;
     }
 
     public void init(final Window window) {
+        this.gpuTimers.init();
         this.shadowRenderer.init(window);
+        this.shadowRenderer.setGpuTimers(this.gpuTimers);
         this.gBuffer = new GBuffer(window);
         this.sceneBuffer = new SceneBuffer(window);
+        this.sharedUniforms = new SharedUniforms(this.context.isHeadless());
+        this.shadowRenderer.bindUniformBlocks(this.sharedUniforms);
 
         LOGGER.debug("Configuring pre-process shaders");
         this.preProcessShaders.put(GEOMETRY_SHADER_NAME, configureGeometryShader());
+        if (this.context.getConfig().engine.features.indirectDraw
+                && IndirectDrawBuffer.isSupported(this.context.isHeadless())) {
+            LOGGER.debug("Using multi-draw indirect for non-instanced geometry");
+            this.gBufferIndirectShader = configureGeometryIndirectShader();
+            this.sharedUniforms.bindTo(this.gBufferIndirectShader);
+        }
 
         LOGGER.debug("Adding pre-process render handlers");
         this.preProcessRenderHandlers.put(GEOMETRY_SHADER_NAME, this::renderGeometry);
@@ -109,9 +249,19 @@ public class Renderer {
         this.postProcessRenderHandlers.put(FOG_SHADER_NAME, this::renderFog);
         this.postProcessRenderHandlers.put(SKYBOX_SHADER_NAME, this::renderSkybox);
         this.postProcessRenderHandlers.put(PARTICLES_SHADER_NAME, this::renderParticles);
+        registerHandlerScopes(PRE_PROCESS_STAGE, this.preProcessRenderHandlers);
+        registerHandlerScopes(LIGHTING_STAGE, this.lightingRenderHandlers);
+        registerHandlerScopes(POST_PROCESS_STAGE, this.postProcessRenderHandlers);
+        bindUniformBlocks(this.preProcessShaders);
+        bindUniformBlocks(this.lightingShaders);
+        bindUniformBlocks(this.postProcessShaders);
 
         this.bufferPassModelMatrix =  new Matrix4f();
-        this.bufferPassMesh = StaticMeshesLoader.load("assets/game/models/buffer_pass_mess.obj", "models")[0];
+        this.bufferPassMesh = StaticMeshesLoader.load(
+                this.context,
+                "assets/game/models/buffer_pass_mess.obj",
+                "models"
+        )[0];
     }
 
     public void registerPreProcessShaders(final ListOrderedMap<String, Shader> customPreProcessShaders,
@@ -119,10 +269,12 @@ public class Renderer {
         LOGGER.debug("Registering custom pre-process shaders");
         if (customPreProcessShaders != null) {
             this.preProcessShaders.putAll(customPreProcessShaders);
+            bindUniformBlocks(customPreProcessShaders);
         }
         LOGGER.debug("Registering custom pre-process render handlers");
         if (customPreProcessRenderHandlers != null) {
             this.preProcessRenderHandlers.putAll(customPreProcessRenderHandlers);
+            registerHandlerScopes(PRE_PROCESS_STAGE, customPreProcessRenderHandlers);
         }
     }
 
@@ -131,10 +283,12 @@ public class Renderer {
         LOGGER.debug("Registering custom lighting shaders");
         if (customLightingShaders != null) {
             this.lightingShaders.putAll(customLightingShaders);
+            bindUniformBlocks(customLightingShaders);
         }
         LOGGER.debug("Registering custom lighting render handlers");
         if (customLightingRenderHandlers != null) {
             this.lightingRenderHandlers.putAll(customLightingRenderHandlers);
+            registerHandlerScopes(LIGHTING_STAGE, customLightingRenderHandlers);
         }
     }
 
@@ -143,10 +297,54 @@ public class Renderer {
         LOGGER.debug("Registering custom post-process shaders");
         if (customPostProcessShaders != null) {
             this.postProcessShaders.putAll(customPostProcessShaders);
+            bindUniformBlocks(customPostProcessShaders);
         }
         LOGGER.debug("Registering custom post-process render handlers");
         if (customPostProcessRenderHandlers != null) {
             this.postProcessRenderHandlers.putAll(customPostProcessRenderHandlers);
+            registerHandlerScopes(POST_PROCESS_STAGE, customPostProcessRenderHandlers);
+        }
+    }
+
+    /**
+     * Points the shaders at the shared uniform blocks they declare. Shaders
+     * registered before {@link #init(Window)} are bound once the blocks exist.
+     */
+    private void bindUniformBlocks(final Map<String, Shader> shaders) {
+        if (this.sharedUniforms == null) {
+            return;
+        }
+        shaders.values().forEach(this.sharedUniforms::bindTo);
+    }
+
+    private void registerHandlerScopes(final String stage,
+                                       final Map<String, TriConsumer<Window, Camera, Scene>> handlers) {
+        for (final String name : handlers.keySet()) {
+            this.handlerScopes.put(name, Profiler.registerScope("Renderer." + stage + "." + name));
+            this.handlerTimers.put(name, this.gpuTimers.register(stage + "." + name));
+        }
+    }
+
+    private void runHandler(final String stage,
+                            final String name,
+                            final Map<String, TriConsumer<Window, Camera, Scene>> handlers,
+                            final Window window,
+                            final Camera camera,
+                            final Scene scene) {
+        final int scope = this.handlerScopes.get(name);
+        final int timer = this.handlerTimers.get(name);
+        final RenderStageEvent event = this.stageEvent;
+        event.begin();
+        Profiler.begin(scope);
+        this.gpuTimers.begin(timer);
+        handlers.get(name).accept(window, camera, scene);
+        this.gpuTimers.end(timer);
+        Profiler.end(scope);
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.handler = name;
+            event.commit();
         }
     }
 
@@ -159,46 +357,305 @@ public class Renderer {
                        final Camera camera,
                        final Scene scene,
                        final boolean sceneChanged) {
-        clear();
+        render(window, camera, scene, sceneChanged, 1.0f);
+    }
 
-        if (window.getOptions().frustumCulling()) {
-            this.frustumFilter.updateFrustum(window.getProjectionMatrix(), camera.getViewMatrix());
-            this.frustumFilter.filter(scene.getNonInstancedMeshes());
-            this.frustumFilter.filter(scene.getInstancedMeshes());
+    public void render(final Window window,
+                       final Camera camera,
+                       final Scene scene,
+                       final boolean sceneChanged,
+                       final float alpha) {
+        Profiler.begin(RENDER_SCOPE);
+        scene.beginFrame();
+        try {
+            this.gpuTimers.beginFrame();
+            clear();
+            this.transform.setInterpolationAlpha(alpha);
+
+            if (window.getOptions().frustumCulling()) {
+                this.frustumFilter.updateFrustum(window.getProjectionMatrix(), camera.getViewMatrix(), window.getHeight());
+                this.occlusionCuller.updateProjectionView(window.getProjectionMatrix(), camera.getViewMatrix());
+            }
+            this.frameWindow = window;
+            this.frameCamera = camera;
+            this.frameScene = scene;
+            scene.updateWorldMatrices(this.jobSystem);
+            this.frameShadows = scene.isRenderShadows()
+                    && (sceneChanged || !scene.getDirtyElements().isEmpty());
+            Profiler.begin(FRAME_GRAPH_SCOPE);
+            this.frameGraph.execute();
+            Profiler.end(FRAME_GRAPH_SCOPE);
+
+            window.updateProjectionMatrix();
+            this.sharedUniforms.update(
+                    window,
+                    camera.getViewMatrix(),
+                    scene,
+                    this.shadowRenderer.getShadowCascades(),
+                    this.context.getCascadeSplits(),
+                    this.specularPower
+            );
+            if (this.frameShadows) {
+                this.shadowRenderer.render(window, scene, camera, this.transform, this);
+            }
+
+            glViewport(0, 0, window.getWidth(), window.getHeight());
+            for (final String preProcessShader : this.preProcessShaders.keySet()) {
+                LOGGER.trace("[PRE-PROCESS] Running shader: {}", preProcessShader);
+                runHandler(
+                        PRE_PROCESS_STAGE,
+                        preProcessShader,
+                        this.preProcessRenderHandlers,
+                        window,
+                        camera,
+                        scene
+                );
+            }
+
+            startLightRendering();
+            for (final String lightingShader : this.lightingShaders.keySet()) {
+                LOGGER.trace("[LIGHTING] Running shader: {}", lightingShader);
+                runHandler(
+                        LIGHTING_STAGE,
+                        lightingShader,
+                        this.lightingRenderHandlers,
+                        window,
+                        camera,
+                        scene
+                );
+            }
+            endLightRendering();
+
+            for (final String postProcessShader : this.postProcessShaders.keySet()) {
+                LOGGER.trace("[POST-PROCESS] Running shader: {}", postProcessShader);
+                runHandler(
+                        POST_PROCESS_STAGE,
+                        postProcessShader,
+                        this.postProcessRenderHandlers,
+                        window,
+                        camera,
+                        scene
+                );
+            }
+            this.sharedUniforms.fence();
+        } finally {
+            scene.endFrame();
+            Profiler.end(RENDER_SCOPE);
         }
+    }
 
-        if (scene.isRenderShadows() && sceneChanged) {
-            this.shadowRenderer.render(window, scene, camera, this.transform, this);
+    private void prepareVisibleInstances() {
+        final Map<InstancedMesh, List<SceneElement>> visibleInstances = this.frameScene.getVisibleInstancedMeshes();
+        for (final InstancedMesh instancedMesh : this.frameScene.getInstancedMeshes().keySet()) {
+            final List<SceneElement> visible = visibleInstances.getOrDefault(instancedMesh, NO_INSTANCES);
+            instancedMesh.prepareInstances(visible, false, null, this.transform.getInterpolationAlpha(), this.jobSystem);
         }
+    }
 
-        glViewport(0, 0, window.getWidth(), window.getHeight());
-        window.updateProjectionMatrix();
-        for (final String preProcessShader : this.preProcessShaders.keySet()) {
-            LOGGER.trace("[PRE-PROCESS] Running shader: {}", preProcessShader);
-            this.preProcessRenderHandlers.get(preProcessShader).accept(window, camera, scene);
+    /**
+     * Records the visible non-instanced meshes of the geometry pass, split by
+     * mesh across one command buffer per worker. Replaying the buffers in index
+     * order draws in the same order as walking the buckets directly. The task
+     * and uniform handles are kept across frames so recording does not allocate.
+     */
+    private void recordGeometry() {
+        for (final CommandBuffer commands : this.geometryCommands) {
+            commands.reset();
+        }
+        for (final IndirectDrawBuffer indirect : this.geometryIndirect) {
+            indirect.reset();
+        }
+        this.geometryEntries.clear();
+        for (final Map.Entry<Mesh, List<SceneElement>> entry : this.frameScene.getVisibleNonInstancedMeshes().entrySet()) {
+            this.geometryEntries.add(entry);
+        }
+        final int chunks = Math.min(this.geometryCommands.length, this.geometryEntries.size());
+        if (chunks == 0) {
+            return;
+        }
+        final Shader gBufferShader = this.preProcessShaders.get(GEOMETRY_SHADER_NAME);
+        if (gBufferShader != this.geometryShader) {
+            this.geometryShader = gBufferShader;
+            this.geometryUniforms = new GeometryUniforms(
+                    gBufferShader.getUniform("cols"),
+                    gBufferShader.getUniform("rows"),
+                    gBufferShader.getUniform("selectedNonInstanced"),
+                    gBufferShader.getUniform("modelNonInstancedMatrix"),
+                    gBufferShader.getUniform("jointsMatrix")
+            );
         }
+        this.geometryChunks = chunks;
+        this.jobSystem.parallelFor(
+                0,
+                chunks,
+                1,
+                this.recordGeometryTask
+        );
+    }
 
-        startLightRendering();
-        for (final String lightingShader : this.lightingShaders.keySet()) {
-            LOGGER.trace("[LIGHTING] Running shader: {}", lightingShader);
-            this.lightingRenderHandlers.get(lightingShader).accept(window, camera, scene);
+    private void recordGeometryChunk(final int chunk,
+                                     final int chunks,
+                                     final Shader gBufferShader,
+                                     final GeometryUniforms uniforms) {
+        final CommandBuffer commands = this.geometryCommands[chunk];
+        final Matrix4f modelMatrix = this.geometryModelMatrices[chunk];
+        final float alpha = this.transform.getInterpolationAlpha();
+        final int size = this.geometryEntries.size();
+        final int begin = chunk * size / chunks;
+        final int end = (chunk + 1) * size / chunks;
+        final boolean animatedOnly = this.gBufferIndirectShader != null;
+        if (animatedOnly && !recordIndirectGeometryChunk(chunk, begin, end, alpha)) {
+            return;
         }
-        endLightRendering();
+        commands.useShader(gBufferShader);
+        for (int i = begin; i < end; i++) {
+            final Map.Entry<Mesh, List<SceneElement>> entry = this.geometryEntries.get(i);
+            if (animatedOnly && !containsAnimated(entry.getValue())) {
+                continue;
+            }
+            final Mesh mesh = entry.getKey();
+            commands.setUniform("material", mesh.getMaterial());
+            final Texture text = mesh.getMaterial().getTexture();
+            if (text != null) {
+                commands.setUniform(uniforms.cols(), text.getCols());
+                commands.setUniform(uniforms.rows(), text.getRows());
+            }
+            commands.bindMesh(mesh);
+            for (final SceneElement sceneElement : entry.getValue()) {
+                if (animatedOnly && !(sceneElement instanceof AnimatedSceneElement)) {
+                    continue;
+                }
+                commands.setUniform(uniforms.selected(), sceneElement.isSelected() ? 1.0f : 0.0f);
+                commands.setUniform(uniforms.model(), Transform.buildModelMatrix(sceneElement, alpha, modelMatrix));
+                if (sceneElement instanceof final AnimatedSceneElement animatedSceneElement) {
+                    commands.setUniform(uniforms.joints(), animatedSceneElement.getCurrentAnimation().getCurrentFrame().getJointMatrices());
+                }
+                commands.drawElements(mesh.getVertexCount());
+            }
+            commands.unbindMesh(mesh);
+        }
+    }
+
+    /**
+     * Records each mesh of the chunk as one indirect draw over its elements.
+     * Animated elements are left to the uniform path, as their joint matrices
+     * are not part of the element buffer.
+     *
+     * @return whether any animated elements were skipped
+     */
+    private boolean recordIndirectGeometryChunk(final int chunk,
+                                                final int begin,
+                                                final int end,
+                                                final float alpha) {
+        final CommandBuffer commands = this.geometryCommands[chunk];
+        final IndirectDrawBuffer indirect = this.geometryIndirect[chunk];
+        final Matrix4f modelMatrix = this.geometryModelMatrices[chunk];
+        final Uniform cols = this.gBufferIndirectShader.getUniform("cols");
+        final Uniform rows = this.gBufferIndirectShader.getUniform("rows");
+        boolean animated = false;
+        commands.useShader(this.gBufferIndirectShader);
+        for (int i = begin; i < end; i++) {
+            final Map.Entry<Mesh, List<SceneElement>> entry = this.geometryEntries.get(i);
+            final Mesh mesh = entry.getKey();
+            final int first = indirect.getDrawCount();
+            for (final SceneElement sceneElement : entry.getValue()) {
+                if (sceneElement instanceof AnimatedSceneElement) {
+                    animated = true;
+                    continue;
+                }
+                indirect.add(
+                        mesh.getVertexCount(),
+                        Transform.buildModelMatrix(sceneElement, alpha, modelMatrix),
+                        sceneElement.isSelected()
+                );
+            }
+            final int count = indirect.getDrawCount() - first;
+            if (count == 0) {
+                continue;
+            }
+            commands.setUniform("material", mesh.getMaterial());
+            final Texture text = mesh.getMaterial().getTexture();
+            if (text != null) {
+                commands.setUniform(cols, text.getCols());
+                commands.setUniform(rows, text.getRows());
+            }
+            commands.bindMesh(mesh);
+            commands.drawIndirect(indirect, first, count);
+            commands.unbindMesh(mesh);
+        }
+        return animated;
+    }
 
-        for (final String postProcessShader : this.postProcessShaders.keySet()) {
-            LOGGER.trace("[POST-PROCESS] Running shader: {}", postProcessShader);
-            this.postProcessRenderHandlers.get(postProcessShader).accept(window, camera, scene);
+    private static boolean containsAnimated(final List<SceneElement> sceneElements) {
+        for (final SceneElement sceneElement : sceneElements) {
+            if (sceneElement instanceof AnimatedSceneElement) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    /**
+     * Fills the particle instance buffers and records their draws, leaving the
+     * blend and depth state to {@link #renderParticles}.
+     */
+    private void recordParticles() {
+        this.particleCommands.reset();
+        final IParticleEmitter[] emitters = this.frameScene.getParticleEmitters();
+        if (emitters == null) {
+            return;
+        }
+        final Matrix4f viewMatrix = this.frameCamera.getViewMatrix();
+        final Shader particlesShader = this.postProcessShaders.get(PARTICLES_SHADER_NAME);
+        final Uniform cols = particlesShader.getUniform("cols");
+        final Uniform rows = particlesShader.getUniform("rows");
+        this.particleCommands.useShader(particlesShader);
+        for (final IParticleEmitter emitter : emitters) {
+            final InstancedMesh mesh = (InstancedMesh) emitter.getBaseParticle().getMesh();
+            final Texture texture = mesh.getMaterial().getTexture();
+            this.particleCommands.setUniform(cols, texture.getCols());
+            this.particleCommands.setUniform(rows, texture.getRows());
+            mesh.prepareInstances(
+                    emitter.getParticles(),
+                    true,
+                    viewMatrix,
+                    this.transform.getInterpolationAlpha(),
+                    this.jobSystem
+            );
+            this.particleCommands.drawPrepared(mesh);
+        }
+    }
+
+    /**
+     * Command buffers the geometry pass replays for non-instanced meshes, in
+     * order, as recorded for the current frame.
+     */
+    public CommandBuffer[] getGeometryCommands() {
+        return this.geometryCommands;
+    }
+
+    public CommandBuffer getParticleCommands() {
+        return this.particleCommands;
+    }
+
+    public GpuTimers getGpuTimers() {
+        return this.gpuTimers;
+    }
+
+    public FrustumCullingFilter getFrustumFilter() {
+        return this.frustumFilter;
+    }
+
+    public FrameGraph getFrameGraph() {
+        return this.frameGraph;
     }
 
     private Shader configureParticlesShader() {
-        final Shader particlesShader = new Shader();
+        final Shader particlesShader = new Shader(this.context.isHeadless());
         particlesShader.createVertexShader(ResourceLoader.loadAsString("assets/game/shaders/particles/particles.vert"));
         particlesShader.createFragmentShader(ResourceLoader.loadAsString("assets/game/shaders/particles/particles.frag"));
         particlesShader.link();
         Stream.of(
-                "viewMatrix",
-                "projectionMatrix",
                 "textureSampler",
                 "cols",
                 "rows"
@@ -207,33 +664,29 @@ public class Renderer {
     }
 
     private Shader configureSkyboxShader() {
-        final Shader skyboxShader = new Shader();
+        final Shader skyboxShader = new Shader(this.context.isHeadless());
         skyboxShader.createVertexShader(ResourceLoader.loadAsString("assets/game/shaders/skybox/skybox.vert"));
         skyboxShader.createFragmentShader(ResourceLoader.loadAsString("assets/game/shaders/skybox/skybox.frag"));
         skyboxShader.link();
         Stream.of(
-                "projectionMatrix",
                 "viewModelMatrix",
                 "textureSampler",
                 "ambientLight",
                 "colour",
                 "hasTexture",
-                "depthsText",
-                "screenSize"
+                "depthsText"
         ).forEach(skyboxShader::createUniform);
         return skyboxShader;
     }
 
     private Shader configureGeometryShader() {
-        final Shader gBufferShader = new Shader();
+        final Shader gBufferShader = new Shader(this.context.isHeadless());
         gBufferShader.createVertexShader(ResourceLoader.loadAsString("assets/game/shaders/scene/gbuffer.vert"));
         gBufferShader.createFragmentShader(ResourceLoader.loadAsString("assets/game/shaders/scene/gbuffer.frag"));
         gBufferShader.link();
 
         gBufferShader.createMaterialUniform("material");
         Stream.of(
-                "projectionMatrix",
-                "viewMatrix",
                 "textureSampler",
                 "normalMap",
                 "isInstanced",
@@ -241,77 +694,79 @@ public class Renderer {
                 "selectedNonInstanced",
                 "jointsMatrix",
                 "cols",
-                "rows",
-                "renderShadow"
+                "rows"
         ).forEach(gBufferShader::createUniform);
 
         for (int i = 0; i < ShadowRenderer.NUM_CASCADES; i++) {
-            gBufferShader.createUniform("shadowMap_" + i);
+            gBufferShader.createUniform(SHADOW_MAP_UNIFORMS[i]);
         }
-        gBufferShader.createUniform("orthoProjectionMatrix", ShadowRenderer.NUM_CASCADES);
-        gBufferShader.createUniform("lightViewMatrix", ShadowRenderer.NUM_CASCADES);
-        gBufferShader.createUniform("cascadeFarPlanes", ShadowRenderer.NUM_CASCADES);
         return gBufferShader;
     }
 
+    private Shader configureGeometryIndirectShader() {
+        final Shader gBufferIndirectShader = new Shader(this.context.isHeadless());
+        gBufferIndirectShader.createVertexShader(ResourceLoader.loadAsString("assets/game/shaders/scene/gbuffer_indirect.vert"));
+        gBufferIndirectShader.createFragmentShader(ResourceLoader.loadAsString("assets/game/shaders/scene/gbuffer.frag"));
+        gBufferIndirectShader.link();
+
+        gBufferIndirectShader.createMaterialUniform("material");
+        Stream.of(
+                "textureSampler",
+                "normalMap",
+                "cols",
+                "rows"
+        ).forEach(gBufferIndirectShader::createUniform);
+
+        for (int i = 0; i < ShadowRenderer.NUM_CASCADES; i++) {
+            gBufferIndirectShader.createUniform(SHADOW_MAP_UNIFORMS[i]);
+        }
+        return gBufferIndirectShader;
+    }
+
     private Shader configureDirectionalLightShader() {
-        final Shader directionalLightShader = new Shader();
+        final Shader directionalLightShader = new Shader(this.context.isHeadless());
         directionalLightShader.createVertexShader(ResourceLoader.loadAsString("assets/game/shaders/lighting/light.vert"));
         directionalLightShader.createFragmentShader(ResourceLoader.loadAsString("assets/game/shaders/lighting/directionalLight.frag"));
         directionalLightShader.link();
         Stream.of(
                 "modelMatrix",
-                "projectionMatrix",
-                "screenSize",
                 "positionsText",
                 "diffuseText",
                 "specularText",
                 "normalsText",
-                "shadowText",
-                "specularPower",
-                "ambientLight"
+                "shadowText"
         ).forEach(directionalLightShader::createUniform);
-        directionalLightShader.createDirectionalLightUniform("directionalLight");
         return directionalLightShader;
     }
 
     private Shader configurePointLightShader() {
-        final Shader pointLightShader = new Shader();
+        final Shader pointLightShader = new Shader(this.context.isHeadless());
         pointLightShader.createVertexShader(ResourceLoader.loadAsString("assets/game/shaders/lighting/light.vert"));
         pointLightShader.createFragmentShader(ResourceLoader.loadAsString("assets/game/shaders/lighting/pointLight.frag"));
         pointLightShader.link();
         Stream.of(
                 "modelMatrix",
-                "projectionMatrix",
-                "screenSize",
                 "positionsText",
                 "diffuseText",
                 "specularText",
                 "normalsText",
-                "shadowText",
-                "specularPower"
+                "shadowText"
         ).forEach(pointLightShader::createUniform);
         pointLightShader.createPointLightUniform("pointLight");
         return pointLightShader;
     }
 
     private Shader configureFogShader() {
-        final Shader fogShader = new Shader();
+        final Shader fogShader = new Shader(this.context.isHeadless());
         fogShader.createVertexShader(ResourceLoader.loadAsString("assets/game/shaders/lighting/light.vert"));
         fogShader.createFragmentShader(ResourceLoader.loadAsString("assets/game/shaders/scene/fog.frag"));
         fogShader.link();
 
         Stream.of(
                 "modelMatrix",
-                "viewMatrix",
-                "projectionMatrix",
-                "screenSize",
                 "positionsText",
                 "depthText",
-                "sceneText",
-                "ambientLight",
-                "lightColour",
-                "lightIntensity"
+                "sceneText"
         ).forEach(fogShader::createUniform);
         fogShader.createFogUniform("fog");
         return fogShader;
@@ -324,56 +779,49 @@ public class Renderer {
     private void renderGeometry(final Window window,
                                 final Camera camera,
                                 final Scene scene) {
-        glBindFramebuffer(GL_DRAW_FRAMEBUFFER, this.gBuffer.getGBufferId());
+        GLStateCache.bindFramebuffer(GL_DRAW_FRAMEBUFFER, this.gBuffer.getGBufferId());
         clear();
-        glDisable(GL_BLEND);
+        GLStateCache.disable(GL_BLEND);
+        this.shadowRenderer.bindTextures(GL_TEXTURE2);
+        if (this.gBufferIndirectShader != null) {
+            setGeometrySamplers(this.gBufferIndirectShader);
+        }
         final Shader gBufferShader = this.preProcessShaders.get(GEOMETRY_SHADER_NAME);
-        gBufferShader.bind();
+        setGeometrySamplers(gBufferShader);
 
-        final Matrix4f viewMatrix = camera.getViewMatrix();
-        final Matrix4f projectionMatrix = window.getProjectionMatrix();
-        gBufferShader.setUniform("viewMatrix", viewMatrix);
-        gBufferShader.setUniform("projectionMatrix", projectionMatrix);
-        gBufferShader.setUniform("textureSampler", 0);
-        gBufferShader.setUniform("normalMap", 1);
+        renderNonInstancedMeshes();
+        renderInstancedMeshes(scene);
+        gBufferShader.unbind();
+        GLStateCache.enable(GL_BLEND);
+    }
 
-        final List<ShadowCascade> shadowCascades = this.shadowRenderer.getShadowCascades();
-        for (int i = 0; i < ShadowRenderer.NUM_CASCADES; i++) {
-            final ShadowCascade shadowCascade = shadowCascades.get(i);
-            gBufferShader.setUniform("orthoProjectionMatrix", shadowCascade.getOrthoProjMatrix(), i);
-            gBufferShader.setUniform("cascadeFarPlanes", ShadowRenderer.CASCADE_SPLITS[i], i);
-            gBufferShader.setUniform("lightViewMatrix", shadowCascade.getLightViewMatrix(), i);
-        }
-        this.shadowRenderer.bindTextures(GL_TEXTURE2);
+    private static void setGeometrySamplers(final Shader shader) {
+        shader.bind();
+        shader.setUniform("textureSampler", 0);
+        shader.setUniform("normalMap", 1);
         final int start = 2;
         for (int i = 0; i < ShadowRenderer.NUM_CASCADES; i++) {
-            gBufferShader.setUniform("shadowMap_" + i, start + i);
+            shader.setUniform(SHADOW_MAP_UNIFORMS[i], start + i);
         }
-        gBufferShader.setUniform("renderShadow", scene.isRenderShadows() ? 1 : 0);
-
-        renderNonInstancedMeshes(scene);
-        renderInstancedMeshes(scene, viewMatrix);
-        gBufferShader.unbind();
-        glEnable(GL_BLEND);
     }
 
     private void startLightRendering() {
-        glBindFramebuffer(GL_FRAMEBUFFER, this.sceneBuffer.getBufferId());
+        GLStateCache.bindFramebuffer(GL_FRAMEBUFFER, this.sceneBuffer.getBufferId());
 
         clear();
-        glDisable(GL_DEPTH_TEST);
+        GLStateCache.disable(GL_DEPTH_TEST);
 
-        glEnable(GL_BLEND);
-        glBlendEquation(GL_FUNC_ADD);
-        glBlendFunc(GL_ONE, GL_ONE);
+        GLStateCache.enable(GL_BLEND);
+        GLStateCache.blendEquation(GL_FUNC_ADD);
+        GLStateCache.blendFunc(GL_ONE, GL_ONE);
 
-        glBindFramebuffer(GL_READ_FRAMEBUFFER, this.gBuffer.getGBufferId());
+        GLStateCache.bindFramebuffer(GL_READ_FRAMEBUFFER, this.gBuffer.getGBufferId());
     }
 
     private void endLightRendering() {
-        glBindFramebuffer(GL_FRAMEBUFFER, 0);
-        glEnable(GL_DEPTH_TEST);
-        glDisable(GL_BLEND);
+        GLStateCache.bindFramebuffer(GL_FRAMEBUFFER, 0);
+        GLStateCache.enable(GL_DEPTH_TEST);
+        GLStateCache.disable(GL_BLEND);
     }
 
     private void renderPointLights(final Window window,
@@ -384,14 +832,11 @@ public class Renderer {
 
         final Matrix4f viewMatrix = camera.getViewMatrix();
         pointLightShader.setUniform("modelMatrix", this.bufferPassModelMatrix);
-        pointLightShader.setUniform("projectionMatrix", window.getProjectionMatrix());
-        pointLightShader.setUniform("specularPower", this.specularPower);
 
         final int[] textureIds = this.gBuffer.getTextureIds();
         final int numTextures = textureIds != null ? textureIds.length : 0;
         for (int i=0; i<numTextures; i++) {
-            glActiveTexture(GL_TEXTURE0 + i);
-            glBindTexture(GL_TEXTURE_2D, textureIds[i]);
+            GLStateCache.bindTexture2D(GL_TEXTURE0 + i, textureIds[i]);
         }
 
         pointLightShader.setUniform("positionsText", 0);
@@ -399,7 +844,6 @@ public class Renderer {
         pointLightShader.setUniform("specularText", 2);
         pointLightShader.setUniform("normalsText", 3);
         pointLightShader.setUniform("shadowText", 4);
-        pointLightShader.setUniform("screenSize", (float) this.gBuffer.getWidth(), (float) this.gBuffer.getHeight());
 
         final SceneLight sceneLight = scene.getSceneLight();
         final PointLight[] pointLights = sceneLight.getPointLightList();
@@ -408,14 +852,13 @@ public class Renderer {
             return;
         }
         for (final PointLight pointLight : pointLights) {
-            final PointLight currPointLight = new PointLight(pointLight);
-            final Vector3f lightPos = currPointLight.getPosition();
-            this.tmpVec.set(lightPos, 1);
+            this.tmpVec.set(pointLight.getPosition(), 1);
             this.tmpVec.mul(viewMatrix);
-            lightPos.x = this.tmpVec.x;
-            lightPos.y = this.tmpVec.y;
-            lightPos.z = this.tmpVec.z;
-            pointLightShader.setUniform("pointLight", currPointLight);
+            this.viewPointLight.getColor().set(pointLight.getColor());
+            this.viewPointLight.getPosition().set(this.tmpVec.x, this.tmpVec.y, this.tmpVec.z);
+            this.viewPointLight.setIntensity(pointLight.getIntensity());
+            this.viewPointLight.setAttenuation(pointLight.getAttenuation());
+            pointLightShader.setUniform("pointLight", this.viewPointLight);
             this.bufferPassMesh.render();
         }
         pointLightShader.unbind();
@@ -426,17 +869,12 @@ public class Renderer {
                                         final Scene scene) {
         final Shader directionalLightShader = this.lightingShaders.get(DIRECTIONAL_LIGHT_SHADER_NAME);
         directionalLightShader.bind();
-
-        final Matrix4f viewMatrix = camera.getViewMatrix();
         directionalLightShader.setUniform("modelMatrix", this.bufferPassModelMatrix);
-        directionalLightShader.setUniform("projectionMatrix", window.getProjectionMatrix());
-        directionalLightShader.setUniform("specularPower", this.specularPower);
 
         final int[] textureIds = this.gBuffer.getTextureIds();
         final int numTextures = textureIds != null ? textureIds.length : 0;
         for (int i = 0; i < numTextures; i++) {
-            glActiveTexture(GL_TEXTURE0 + i);
-            glBindTexture(GL_TEXTURE_2D, textureIds[i]);
+            GLStateCache.bindTexture2D(GL_TEXTURE0 + i, textureIds[i]);
         }
 
         directionalLightShader.setUniform("positionsText", 0);
@@ -444,15 +882,6 @@ public class Renderer {
         directionalLightShader.setUniform("specularText", 2);
         directionalLightShader.setUniform("normalsText", 3);
         directionalLightShader.setUniform("shadowText", 4);
-        directionalLightShader.setUniform("screenSize", (float) this.gBuffer.getWidth(), (float) this.gBuffer.getHeight());
-
-        final SceneLight sceneLight = scene.getSceneLight();
-        directionalLightShader.setUniform("ambientLight", sceneLight.getAmbientLight());
-
-        final DirectionalLight currDirLight = new DirectionalLight(sceneLight.getDirectionalLight());
-        this.tmpVec.set(currDirLight.getDirection(), 0).mul(viewMatrix);
-        currDirLight.setDirection(new Vector3f(this.tmpVec.x, this.tmpVec.y, this.tmpVec.z));
-        directionalLightShader.setUniform("directionalLight", currDirLight);
 
         this.bufferPassMesh.render();
         directionalLightShader.unbind();
@@ -463,30 +892,16 @@ public class Renderer {
                            final Scene scene) {
         final Shader fogShader = this.postProcessShaders.get(FOG_SHADER_NAME);
         fogShader.bind();
-
-        final Matrix4f viewMatrix = camera.getViewMatrix();
-        final Matrix4f projectionMatrix = window.getProjectionMatrix();
         fogShader.setUniform("modelMatrix", this.bufferPassModelMatrix);
-        fogShader.setUniform("viewMatrix", viewMatrix);
-        fogShader.setUniform("projectionMatrix", projectionMatrix);
 
-        glActiveTexture(GL_TEXTURE0);
-        glBindTexture(GL_TEXTURE_2D, this.gBuffer.getPositionTexture());
-        glActiveTexture(GL_TEXTURE1);
-        glBindTexture(GL_TEXTURE_2D, this.gBuffer.getDepthTexture());
-        glActiveTexture(GL_TEXTURE2);
-        glBindTexture(GL_TEXTURE_2D, this.sceneBuffer.getTextureId());
+        GLStateCache.bindTexture2D(GL_TEXTURE0, this.gBuffer.getPositionTexture());
+        GLStateCache.bindTexture2D(GL_TEXTURE1, this.gBuffer.getDepthTexture());
+        GLStateCache.bindTexture2D(GL_TEXTURE2, this.sceneBuffer.getTextureId());
 
         fogShader.setUniform("positionsText", 0);
         fogShader.setUniform("depthText", 1);
         fogShader.setUniform("sceneText", 2);
-        fogShader.setUniform("screenSize", (float) window.getWidth(), (float)window.getHeight());
         fogShader.setUniform("fog", scene.getFog());
-        final SceneLight sceneLight = scene.getSceneLight();
-        fogShader.setUniform("ambientLight", sceneLight.getAmbientLight());
-        final DirectionalLight dirLight = sceneLight.getDirectionalLight();
-        fogShader.setUniform("lightColour", dirLight.getColor());
-        fogShader.setUniform("lightIntensity", dirLight.getIntensity());
 
         this.bufferPassMesh.render();
         fogShader.unbind();
@@ -495,40 +910,24 @@ public class Renderer {
     private void renderParticles(final Window window,
                                  final Camera camera,
                                  final Scene scene) {
-        glEnable(GL_BLEND);
-        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        GLStateCache.enable(GL_BLEND);
+        GLStateCache.blendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
         final Shader particlesShader = this.postProcessShaders.get(PARTICLES_SHADER_NAME);
         particlesShader.bind();
-
-        final Matrix4f viewMatrix = camera.getViewMatrix();
-        particlesShader.setUniform("viewMatrix", viewMatrix);
         particlesShader.setUniform("textureSampler", 0);
-        particlesShader.setUniform("projectionMatrix", window.getProjectionMatrix());
 
-        final IParticleEmitter[] emitters = scene.getParticleEmitters();
-        if (emitters == null) {
+        if (this.particleCommands.isEmpty()) {
             particlesShader.unbind();
             return;
         }
 
-        glDepthMask(false);
-        glBlendFunc(GL_SRC_ALPHA, GL_ONE);
+        GLStateCache.depthMask(false);
+        GLStateCache.blendFunc(GL_SRC_ALPHA, GL_ONE);
 
-        for (final IParticleEmitter emitter : emitters) {
-            final InstancedMesh mesh = (InstancedMesh) emitter.getBaseParticle().getMesh();
-            final Texture texture = mesh.getMaterial().getTexture();
-            particlesShader.setUniform("cols", texture.getCols());
-            particlesShader.setUniform("rows", texture.getRows());
-            mesh.renderInstanced(
-                    emitter.getParticles(),
-                    true,
-                    this.transform,
-                    viewMatrix
-            );
-        }
+        this.commandExecutor.execute(this.particleCommands);
 
-        glDisable(GL_BLEND);
-        glDepthMask(true);
+        GLStateCache.disable(GL_BLEND);
+        GLStateCache.depthMask(true);
         particlesShader.unbind();
     }
 
@@ -543,7 +942,6 @@ public class Renderer {
         final Shader skyboxShader = this.postProcessShaders.get(SKYBOX_SHADER_NAME);
         skyboxShader.bind();
         skyboxShader.setUniform("textureSampler", 0);
-        skyboxShader.setUniform("projectionMatrix", window.getProjectionMatrix());
         final Matrix4f viewMatrix = camera.getViewMatrix();
         final float m30 = viewMatrix.m30();
         viewMatrix.m30(0);
@@ -559,9 +957,7 @@ public class Renderer {
         skyboxShader.setUniform("colour", mesh.getMaterial().getDiffuseColour());
         skyboxShader.setUniform("hasTexture", mesh.getMaterial().isTextured() ? 1 : 0);
 
-        glActiveTexture(GL_TEXTURE1);
-        glBindTexture(GL_TEXTURE_2D, this.gBuffer.getDepthTexture());
-        skyboxShader.setUniform("screenSize", (float) window.getWidth(), (float) window.getHeight());
+        GLStateCache.bindTexture2D(GL_TEXTURE1, this.gBuffer.getDepthTexture());
         skyboxShader.setUniform("depthsText", 1);
 
         mesh.render();
@@ -571,61 +967,49 @@ public class Renderer {
         skyboxShader.unbind();
     }
 
-    private void renderNonInstancedMeshes(final Scene scene) {
+    private void renderNonInstancedMeshes() {
         final Shader gBufferShader = this.preProcessShaders.get(GEOMETRY_SHADER_NAME);
         gBufferShader.setUniform("isInstanced", 0);
-
-        for (final Map.Entry<Mesh, List<SceneElement>> entry : scene.getNonInstancedMeshes().entrySet()) {
-            gBufferShader.setUniform("material", entry.getKey().getMaterial());
-
-            final Texture text = entry.getKey().getMaterial().getTexture();
-            if (text != null) {
-                gBufferShader.setUniform("cols", text.getCols());
-                gBufferShader.setUniform("rows", text.getRows());
-            }
-
-            entry.getKey().renderList(
-                    entry.getValue(),
-                    (final SceneElement sceneElement) -> {
-                        gBufferShader.setUniform("selectedNonInstanced", sceneElement.isSelected() ? 1.0f : 0.0f);
-                        gBufferShader.setUniform("modelNonInstancedMatrix", this.transform.buildModelMatrix(sceneElement));
-                        if (sceneElement instanceof AnimatedSceneElement animatedSceneElement) {
-                            gBufferShader.setUniform("jointsMatrix", animatedSceneElement.getCurrentAnimation().getCurrentFrame().getJointMatrices());
-                        }
-                    }
-            );
+        for (int i = 0; i < this.geometryCommands.length; i++) {
+            this.geometryIndirect[i].upload();
+            this.commandExecutor.execute(this.geometryCommands[i]);
         }
     }
 
-    private void renderInstancedMeshes(final Scene scene,
-                                       final Matrix4f viewMatrix) {
+    private void renderInstancedMeshes(final Scene scene) {
         final Shader gBufferShader = this.preProcessShaders.get(GEOMETRY_SHADER_NAME);
+        gBufferShader.bind();
         gBufferShader.setUniform("isInstanced", 1);
-        for (final Map.Entry<InstancedMesh, List<SceneElement>> entry : scene.getInstancedMeshes().entrySet()) {
-            final Texture text = entry.getKey().getMaterial().getTexture();
+        for (final InstancedMesh instancedMesh : scene.getInstancedMeshes().keySet()) {
+            final Texture text = instancedMesh.getMaterial().getTexture();
             if (text != null) {
                 gBufferShader.setUniform("cols", text.getCols());
                 gBufferShader.setUniform("rows", text.getRows());
             }
 
-            gBufferShader.setUniform("material", entry.getKey().getMaterial());
-            this.filteredElements.clear();
-            for (final SceneElement sceneElement : entry.getValue()) {
-                if (sceneElement.isInsideFrustum()) {
-                    this.filteredElements.add(sceneElement);
-                }
-            }
-            entry.getKey().renderInstanced(this.filteredElements, this.transform, viewMatrix);
+            gBufferShader.setUniform("material", instancedMesh.getMaterial());
+            instancedMesh.renderPrepared();
         }
     }
 
     public void cleanup() {
+        this.jobSystem.removeFrameGraph(this.frameGraph);
+        this.gpuTimers.cleanup();
         if (this.shadowRenderer != null) {
             this.shadowRenderer.cleanup();
         }
         this.preProcessShaders.values().forEach(Shader::cleanup);
         this.lightingShaders.values().forEach(Shader::cleanup);
         this.postProcessShaders.values().forEach(Shader::cleanup);
+        if (this.gBufferIndirectShader != null) {
+            this.gBufferIndirectShader.cleanup();
+        }
+        for (final IndirectDrawBuffer indirect : this.geometryIndirect) {
+            indirect.cleanup();
+        }
+        if (this.sharedUniforms != null) {
+            this.sharedUniforms.cleanup();
+        }
         if (this.gBuffer != null) {
             this.gBuffer.cleanUp();
         }
@@ -0,0 +1,244 @@
+package com.engineersbox.yajge.rendering.command;
+
+import com.engineersbox.yajge.resources.assets.material.Material;
+import com.engineersbox.yajge.resources.assets.shader.Shader;
+import com.engineersbox.yajge.resources.assets.shader.Uniform;
+import com.engineersbox.yajge.scene.element.object.composite.InstancedMesh;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import org.eclipse.collections.impl.block.factory.HashingStrategies;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMapWithHashingStrategy;
+import org.joml.Matrix4f;
+
+import java.util.Arrays;
+
+/**
+ * Flat recording of draw, bind and uniform commands. Each command is an opcode
+ * followed by its int operands, matrix data goes to a parallel float stream and
+ * shaders, meshes, materials, uniform handles and indirect draw buffers are
+ * interned into a reference table once per recording, keyed by identity with
+ * primitive indices so interning never boxes. Recording touches no GL
+ * state, so any thread can fill a buffer that the GL thread later replays; a
+ * single buffer must not be recorded from two threads at once. Storage is kept across {@link #reset()} and
+ * only grows.
+ */
+public class CommandBuffer {
+
+    private static final int DEFAULT_WORDS = 1024;
+    private static final int DEFAULT_FLOATS = 4096;
+    private static final int DEFAULT_REFS = 64;
+    private static final int MATRIX_FLOATS = 16;
+
+    private int[] words;
+    private int wordCount;
+    private float[] floats;
+    private int floatCount;
+    private Object[] refs;
+    private int refCount;
+    private final ObjectIntHashMapWithHashingStrategy<Object> refIndices;
+    private int commandCount;
+
+    public CommandBuffer() {
+        this(DEFAULT_WORDS, DEFAULT_FLOATS);
+    }
+
+    public CommandBuffer(final int initialWords,
+                         final int initialFloats) {
+        this.words = new int[Math.max(1, initialWords)];
+        this.floats = new float[Math.max(MATRIX_FLOATS, initialFloats)];
+        this.refs = new Object[DEFAULT_REFS];
+        this.refIndices = new ObjectIntHashMapWithHashingStrategy<>(HashingStrategies.identityStrategy());
+    }
+
+    /**
+     * Drops every recorded command, keeping the allocated storage.
+     */
+    public void reset() {
+        Arrays.fill(this.refs, 0, this.refCount, null);
+        this.refIndices.clear();
+        this.wordCount = 0;
+        this.floatCount = 0;
+        this.refCount = 0;
+        this.commandCount = 0;
+    }
+
+    public void useShader(final Shader shader) {
+        emit(CommandOp.USE_SHADER);
+        putWord(ref(shader));
+    }
+
+    public void setUniform(final Uniform uniform,
+                           final int value) {
+        emit(CommandOp.UNIFORM_INT);
+        putWord(ref(uniform));
+        putWord(value);
+    }
+
+    public void setUniform(final Uniform uniform,
+                           final float value) {
+        emit(CommandOp.UNIFORM_FLOAT);
+        putWord(ref(uniform));
+        putWord(Float.floatToRawIntBits(value));
+    }
+
+    public void setUniform(final Uniform uniform,
+                           final Matrix4f value) {
+        emitMatrices(uniform, 1);
+        value.get(this.floats, this.floatCount);
+        this.floatCount += MATRIX_FLOATS;
+    }
+
+    public void setUniform(final Uniform uniform,
+                           final Matrix4f[] matrices) {
+        final int length = matrices != null ? matrices.length : 0;
+        emitMatrices(uniform, length);
+        for (int i = 0; i < length; i++) {
+            matrices[i].get(this.floats, this.floatCount);
+            this.floatCount += MATRIX_FLOATS;
+        }
+    }
+
+    public void setUniform(final String uniformName,
+                           final Material material) {
+        emit(CommandOp.UNIFORM_MATERIAL);
+        putWord(ref(uniformName));
+        putWord(ref(material));
+    }
+
+    /**
+     * Binds the mesh's textures and vertex array for the draws that follow.
+     */
+    public void bindMesh(final Mesh mesh) {
+        emit(CommandOp.BIND_MESH);
+        putWord(ref(mesh));
+    }
+
+    public void unbindMesh(final Mesh mesh) {
+        emit(CommandOp.UNBIND_MESH);
+        putWord(ref(mesh));
+    }
+
+    /**
+     * Draws the indexed triangles of the currently bound mesh.
+     */
+    public void drawElements(final int vertexCount) {
+        emit(CommandOp.DRAW_ELEMENTS);
+        putWord(vertexCount);
+    }
+
+    /**
+     * Draws the instance data prepared for this frame, which has to be filled
+     * before the buffer is replayed rather than before it is recorded.
+     */
+    public void drawPrepared(final InstancedMesh instancedMesh) {
+        emit(CommandOp.DRAW_PREPARED);
+        putWord(ref(instancedMesh));
+    }
+
+    /**
+     * Draws records {@code first} to {@code first + count} of the indirect draw
+     * buffer with the currently bound mesh in a single call.
+     */
+    public void drawIndirect(final IndirectDrawBuffer indirectDrawBuffer,
+                             final int first,
+                             final int count) {
+        emit(CommandOp.DRAW_INDIRECT);
+        putWord(ref(indirectDrawBuffer));
+        putWord(first);
+        putWord(count);
+    }
+
+    /**
+     * Decodes the recorded commands into the visitor in recording order.
+     */
+    public void replay(final CommandVisitor visitor) {
+        int i = 0;
+        while (i < this.wordCount) {
+            final CommandOp op = CommandOp.fromOpcode(this.words[i]);
+            switch (op) {
+                case USE_SHADER -> visitor.useShader((Shader) this.refs[this.words[i + 1]]);
+                case UNIFORM_INT -> visitor.setUniform(
+                        (Uniform) this.refs[this.words[i + 1]],
+                        this.words[i + 2]
+                );
+                case UNIFORM_FLOAT -> visitor.setUniform(
+                        (Uniform) this.refs[this.words[i + 1]],
+                        Float.intBitsToFloat(this.words[i + 2])
+                );
+                case UNIFORM_MATRICES -> visitor.setUniformMatrices(
+                        (Uniform) this.refs[this.words[i + 1]],
+                        this.floats,
+                        this.words[i + 2],
+                        this.words[i + 3]
+                );
+                case UNIFORM_MATERIAL -> visitor.setUniform(
+                        (String) this.refs[this.words[i + 1]],
+                        (Material) this.refs[this.words[i + 2]]
+                );
+                case BIND_MESH -> visitor.bindMesh((Mesh) this.refs[this.words[i + 1]]);
+                case UNBIND_MESH -> visitor.unbindMesh((Mesh) this.refs[this.words[i + 1]]);
+                case DRAW_ELEMENTS -> visitor.drawElements(this.words[i + 1]);
+                case DRAW_PREPARED -> visitor.drawPrepared((InstancedMesh) this.refs[this.words[i + 1]]);
+                case DRAW_INDIRECT -> visitor.drawIndirect(
+                        (IndirectDrawBuffer) this.refs[this.words[i + 1]],
+                        this.words[i + 2],
+                        this.words[i + 3]
+                );
+            }
+            i += 1 + op.getOperands();
+        }
+    }
+
+    public int getCommandCount() {
+        return this.commandCount;
+    }
+
+    public boolean isEmpty() {
+        return this.commandCount == 0;
+    }
+
+    /**
+     * @return bytes currently used by the encoded commands and matrix data
+     */
+    public int getEncodedSize() {
+        return (this.wordCount + this.floatCount) * Integer.BYTES;
+    }
+
+    private void emitMatrices(final Uniform uniform,
+                              final int count) {
+        emit(CommandOp.UNIFORM_MATRICES);
+        putWord(ref(uniform));
+        putWord(this.floatCount);
+        putWord(count);
+        final int required = this.floatCount + count * MATRIX_FLOATS;
+        if (required > this.floats.length) {
+            this.floats = Arrays.copyOf(this.floats, Math.max(required, this.floats.length * 2));
+        }
+    }
+
+    private void emit(final CommandOp op) {
+        final int required = this.wordCount + 1 + op.getOperands();
+        if (required > this.words.length) {
+            this.words = Arrays.copyOf(this.words, Math.max(required, this.words.length * 2));
+        }
+        this.words[this.wordCount++] = op.ordinal();
+        this.commandCount++;
+    }
+
+    private void putWord(final int word) {
+        this.words[this.wordCount++] = word;
+    }
+
+    private int ref(final Object value) {
+        final int existing = this.refIndices.getIfAbsent(value, -1);
+        if (existing >= 0) {
+            return existing;
+        }
+        if (this.refCount == this.refs.length) {
+            this.refs = Arrays.copyOf(this.refs, this.refs.length * 2);
+        }
+        final int index = this.refCount++;
+        this.refs[index] = value;
+        this.refIndices.put(value, index);
+        return index;
+    }
+}
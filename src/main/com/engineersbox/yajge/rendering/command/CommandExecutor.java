@@ -0,0 +1,102 @@
+package com.engineersbox.yajge.rendering.command;
+
+import com.engineersbox.yajge.resources.assets.material.Material;
+import com.engineersbox.yajge.resources.assets.shader.Shader;
+import com.engineersbox.yajge.resources.assets.shader.Uniform;
+import com.engineersbox.yajge.scene.element.object.composite.InstancedMesh;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Replays recorded commands against the current GL context. Must only be used
+ * on the GL thread. Uniform commands target the shader of the last
+ * {@link CommandOp#USE_SHADER} replayed through this executor.
+ */
+public class CommandExecutor implements CommandVisitor {
+
+    private final boolean headless;
+    private Shader shader;
+
+    public CommandExecutor(final boolean headless) {
+        this.headless = headless;
+    }
+
+    public void execute(final CommandBuffer commandBuffer) {
+        commandBuffer.replay(this);
+    }
+
+    @Override
+    public void useShader(final Shader shader) {
+        this.shader = shader;
+        shader.bind();
+    }
+
+    @Override
+    public void setUniform(final Uniform uniform,
+                           final int value) {
+        currentShader().setUniform(uniform, value);
+    }
+
+    @Override
+    public void setUniform(final Uniform uniform,
+                           final float value) {
+        currentShader().setUniform(uniform, value);
+    }
+
+    @Override
+    public void setUniformMatrices(final Uniform uniform,
+                                   final float[] values,
+                                   final int offset,
+                                   final int count) {
+        currentShader().setUniformMatrices(uniform, values, offset, count);
+    }
+
+    @Override
+    public void setUniform(final String uniformName,
+                           final Material material) {
+        currentShader().setUniform(uniformName, material);
+    }
+
+    @Override
+    public void bindMesh(final Mesh mesh) {
+        mesh.bind();
+    }
+
+    @Override
+    public void unbindMesh(final Mesh mesh) {
+        mesh.unbind();
+    }
+
+    @Override
+    public void drawElements(final int vertexCount) {
+        if (this.headless) {
+            return;
+        }
+        glDrawElements(
+                GL_TRIANGLES,
+                vertexCount,
+                GL_UNSIGNED_INT,
+                0
+        );
+    }
+
+    @Override
+    public void drawPrepared(final InstancedMesh instancedMesh) {
+        instancedMesh.renderPrepared();
+    }
+
+    @Override
+    public void drawIndirect(final IndirectDrawBuffer indirectDrawBuffer,
+                             final int first,
+                             final int count) {
+        indirectDrawBuffer.draw(first, count);
+    }
+
+    private Shader currentShader() {
+        if (this.shader == null) {
+            throw new IllegalStateException("Uniform command replayed before any shader was used");
+        }
+        return this.shader;
+    }
+}
@@ -0,0 +1,34 @@
+package com.engineersbox.yajge.rendering.command;
+
+/**
+ * Operations a {@link CommandBuffer} can encode, with the number of int words
+ * each one takes after its opcode.
+ */
+public enum CommandOp {
+    USE_SHADER(1),
+    UNIFORM_INT(2),
+    UNIFORM_FLOAT(2),
+    UNIFORM_MATRICES(3),
+    UNIFORM_MATERIAL(2),
+    BIND_MESH(1),
+    UNBIND_MESH(1),
+    DRAW_ELEMENTS(1),
+    DRAW_PREPARED(1),
+    DRAW_INDIRECT(3);
+
+    private static final CommandOp[] VALUES = values();
+
+    private final int operands;
+
+    CommandOp(final int operands) {
+        this.operands = operands;
+    }
+
+    public int getOperands() {
+        return this.operands;
+    }
+
+    static CommandOp fromOpcode(final int opcode) {
+        return VALUES[opcode];
+    }
+}
@@ -0,0 +1,52 @@
+package com.engineersbox.yajge.rendering.command;
+
+import com.engineersbox.yajge.resources.assets.material.Material;
+import com.engineersbox.yajge.resources.assets.shader.Shader;
+import com.engineersbox.yajge.resources.assets.shader.Uniform;
+import com.engineersbox.yajge.scene.element.object.composite.InstancedMesh;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+
+/**
+ * Receives the decoded commands of a {@link CommandBuffer} in recording order.
+ * {@link CommandExecutor} issues them to GL, other implementations can inspect
+ * a recorded stream without a context.
+ */
+public interface CommandVisitor {
+
+    void useShader(final Shader shader);
+
+    void setUniform(final Uniform uniform,
+                    final int value);
+
+    void setUniform(final Uniform uniform,
+                    final float value);
+
+    /**
+     * @param values backing array of the buffer, only valid during the call
+     * @param offset index of the first float of the first matrix
+     * @param count  number of column-major 4x4 matrices
+     */
+    void setUniformMatrices(final Uniform uniform,
+                            final float[] values,
+                            final int offset,
+                            final int count);
+
+    void setUniform(final String uniformName,
+                    final Material material);
+
+    void bindMesh(final Mesh mesh);
+
+    void unbindMesh(final Mesh mesh);
+
+    void drawElements(final int vertexCount);
+
+    void drawPrepared(final InstancedMesh instancedMesh);
+
+    /**
+     * @param first index of the first draw record in the buffer
+     * @param count number of consecutive draw records
+     */
+    void drawIndirect(final IndirectDrawBuffer indirectDrawBuffer,
+                      final int first,
+                      final int count);
+}
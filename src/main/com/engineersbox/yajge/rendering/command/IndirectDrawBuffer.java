@@ -0,0 +1,155 @@
+package com.engineersbox.yajge.rendering.command;
+
+import org.joml.Matrix4f;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL43.*;
+
+/**
+ * Element data and indirect draw records for submitting every visible element
+ * of a mesh with one {@code glMultiDrawElementsIndirect} call. Each element
+ * gets a model matrix and selection flag in a shader storage buffer at
+ * {@link #ELEMENT_BINDING}, and a draw record whose base instance is the
+ * element's index in that buffer, so the shader reads its data through
+ * {@code gl_BaseInstanceARB}. Recording only touches the CPU arrays and can run
+ * on any thread, {@link #upload()} and {@link #draw(int, int)} need the GL
+ * thread.
+ */
+public class IndirectDrawBuffer {
+
+    public static final int ELEMENT_BINDING = 0;
+    public static final int ELEMENT_FLOATS = 20;
+    private static final int COMMAND_INTS = 5;
+    private static final int DEFAULT_ELEMENTS = 256;
+
+    private final boolean headless;
+    private float[] elements;
+    private int[] commands;
+    private int drawCount;
+    private FloatBuffer elementStaging;
+    private IntBuffer commandStaging;
+    private int elementBufferId;
+    private int commandBufferId;
+
+    public IndirectDrawBuffer(final boolean headless) {
+        this.headless = headless;
+        this.elements = new float[DEFAULT_ELEMENTS * ELEMENT_FLOATS];
+        this.commands = new int[DEFAULT_ELEMENTS * COMMAND_INTS];
+    }
+
+    /**
+     * @return whether the context is at least OpenGL 4.3, which the indirect
+     * geometry shader is written against, and has draw parameters in the shader
+     */
+    public static boolean isSupported(final boolean headless) {
+        if (headless) {
+            return false;
+        }
+        final GLCapabilities capabilities = GL.getCapabilities();
+        return capabilities.OpenGL43
+                && (capabilities.OpenGL46 || capabilities.GL_ARB_shader_draw_parameters);
+    }
+
+    public void reset() {
+        this.drawCount = 0;
+    }
+
+    /**
+     * Appends a single instance draw of the bound mesh for one element.
+     *
+     * @return index of the draw record
+     */
+    public int add(final int vertexCount,
+                   final Matrix4f modelMatrix,
+                   final boolean selected) {
+        if (this.drawCount * COMMAND_INTS == this.commands.length) {
+            this.commands = Arrays.copyOf(this.commands, this.commands.length * 2);
+            this.elements = Arrays.copyOf(this.elements, this.elements.length * 2);
+        }
+        final int e = this.drawCount * ELEMENT_FLOATS;
+        modelMatrix.get(this.elements, e);
+        this.elements[e + 16] = selected ? 1.0f : 0.0f;
+        final int c = this.drawCount * COMMAND_INTS;
+        this.commands[c] = vertexCount;
+        this.commands[c + 1] = 1;
+        this.commands[c + 2] = 0;
+        this.commands[c + 3] = 0;
+        this.commands[c + 4] = this.drawCount;
+        return this.drawCount++;
+    }
+
+    public int getDrawCount() {
+        return this.drawCount;
+    }
+
+    /**
+     * Uploads the recorded elements and draw records, binding the element
+     * buffer and the indirect buffer for the draws that follow.
+     */
+    public void upload() {
+        if (this.headless || this.drawCount == 0) {
+            return;
+        }
+        if (this.elementBufferId == 0) {
+            this.elementBufferId = glGenBuffers();
+            this.commandBufferId = glGenBuffers();
+            this.elementStaging = MemoryUtil.memAllocFloat(this.elements.length);
+            this.commandStaging = MemoryUtil.memAllocInt(this.commands.length);
+        }
+        final int floats = this.drawCount * ELEMENT_FLOATS;
+        final int ints = this.drawCount * COMMAND_INTS;
+        if (this.elementStaging.capacity() < floats) {
+            this.elementStaging = MemoryUtil.memRealloc(this.elementStaging, this.elements.length);
+            this.commandStaging = MemoryUtil.memRealloc(this.commandStaging, this.commands.length);
+        }
+        this.elementStaging.clear();
+        this.elementStaging.put(this.elements, 0, floats).flip();
+        this.commandStaging.clear();
+        this.commandStaging.put(this.commands, 0, ints).flip();
+
+        glBindBuffer(GL_SHADER_STORAGE_BUFFER, this.elementBufferId);
+        glBufferData(GL_SHADER_STORAGE_BUFFER, this.elementStaging, GL_STREAM_DRAW);
+        glBindBufferBase(GL_SHADER_STORAGE_BUFFER, ELEMENT_BINDING, this.elementBufferId);
+        glBindBuffer(GL_DRAW_INDIRECT_BUFFER, this.commandBufferId);
+        glBufferData(GL_DRAW_INDIRECT_BUFFER, this.commandStaging, GL_STREAM_DRAW);
+    }
+
+    /**
+     * Issues {@code count} consecutive draw records starting at {@code first}
+     * against the bound mesh. Expects {@link #upload()} to have run this frame.
+     */
+    public void draw(final int first,
+                     final int count) {
+        if (this.headless) {
+            return;
+        }
+        glMultiDrawElementsIndirect(
+                GL_TRIANGLES,
+                GL_UNSIGNED_INT,
+                (long) first * COMMAND_INTS * Integer.BYTES,
+                count,
+                0
+        );
+    }
+
+    public void cleanup() {
+        if (this.elementBufferId != 0) {
+            glDeleteBuffers(this.elementBufferId);
+            glDeleteBuffers(this.commandBufferId);
+            this.elementBufferId = 0;
+            this.commandBufferId = 0;
+        }
+        if (this.elementStaging != null) {
+            MemoryUtil.memFree(this.elementStaging);
+            MemoryUtil.memFree(this.commandStaging);
+            this.elementStaging = null;
+            this.commandStaging = null;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.engineersbox.yajge.rendering.scene;
 
 import com.engineersbox.yajge.core.window.Window;
 import com.engineersbox.yajge.rendering.RenderingElement;
+import com.engineersbox.yajge.rendering.state.GLStateCache;
 
 import java.nio.ByteBuffer;
 
@@ -14,7 +15,7 @@ public class SceneBuffer implements RenderingElement {
 
     public SceneBuffer(final Window window)  {
         this.bufferId = glGenFramebuffers();
-        glBindFramebuffer(GL_DRAW_FRAMEBUFFER, this.bufferId);
+        GLStateCache.bindFramebuffer(GL_DRAW_FRAMEBUFFER, this.bufferId);
 
         final int[] textureIds = new int[1];
         glGenTextures(textureIds);
@@ -31,7 +32,7 @@ public class SceneBuffer implements RenderingElement {
                 0
         );
 
-        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        GLStateCache.bindFramebuffer(GL_FRAMEBUFFER, 0);
     }
 
     public int getBufferId() {
@@ -43,14 +44,14 @@ public class SceneBuffer implements RenderingElement {
     }
 
     public void cleanup() {
-        glDeleteFramebuffers(this.bufferId);
+        GLStateCache.deleteFramebuffer(this.bufferId);
 
-        glDeleteTextures(this.textureId);
+        GLStateCache.deleteTexture(this.textureId);
     }
 
     @Override
     public void update(final Window window) {
-        glBindTexture(GL_TEXTURE_2D, this.textureId);
+        GLStateCache.bindTexture(GL_TEXTURE_2D, this.textureId);
         glTexImage2D(
                 GL_TEXTURE_2D,
                 0,
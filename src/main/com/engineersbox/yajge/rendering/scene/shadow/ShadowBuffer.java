@@ -1,5 +1,7 @@
 package com.engineersbox.yajge.rendering.scene.shadow;
 
+import com.engineersbox.yajge.rendering.state.GLStateCache;
+
 import static org.lwjgl.opengl.GL30.*;
 
 public class ShadowBuffer {
@@ -15,7 +17,7 @@ public class ShadowBuffer {
 
         this.depthMap = new TextureArray(ShadowRenderer.NUM_CASCADES, SHADOW_MAP_WIDTH, SHADOW_MAP_HEIGHT, GL_DEPTH_COMPONENT);
 
-        glBindFramebuffer(GL_FRAMEBUFFER, this.depthMapFBO);
+        GLStateCache.bindFramebuffer(GL_FRAMEBUFFER, this.depthMapFBO);
         glFramebufferTexture2D(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, GL_TEXTURE_2D, this.depthMap.getIds()[0], 0);
         glDrawBuffer(GL_NONE);
         glReadBuffer(GL_NONE);
@@ -24,7 +26,7 @@ public class ShadowBuffer {
             throw new RuntimeException("Could not create FrameBuffer");
         }
 
-        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        GLStateCache.bindFramebuffer(GL_FRAMEBUFFER, 0);
     }
 
     public TextureArray getDepthMapTexture() {
@@ -37,13 +39,12 @@ public class ShadowBuffer {
 
     public void bindTextures(final int start) {
         for (int i = 0; i < ShadowRenderer.NUM_CASCADES; i++) {
-            glActiveTexture(start + i);
-            glBindTexture(GL_TEXTURE_2D, this.depthMap.getIds()[i]);
+            GLStateCache.bindTexture2D(start + i, this.depthMap.getIds()[i]);
         }
     }
     
     public void cleanup() {
-        glDeleteFramebuffers(this.depthMapFBO);
+        GLStateCache.deleteFramebuffer(this.depthMapFBO);
         this.depthMap.cleanup();
     }
     
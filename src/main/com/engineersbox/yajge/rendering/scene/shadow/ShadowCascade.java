@@ -3,12 +3,20 @@ package com.engineersbox.yajge.rendering.scene.shadow;
 import com.engineersbox.yajge.core.window.Window;
 import com.engineersbox.yajge.rendering.scene.lighting.DirectionalLight;
 import com.engineersbox.yajge.rendering.view.Transform;
-import com.engineersbox.yajge.resources.config.io.ConfigHandler;
+import com.engineersbox.yajge.scene.Scene;
+import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.element.object.composite.InstancedMesh;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import org.joml.FrustumIntersection;
 import org.joml.Matrix4f;
 import org.joml.Vector3f;
 import org.joml.Vector4f;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class ShadowCascade {
 
@@ -21,11 +29,34 @@ public class ShadowCascade {
     private final Vector3f[] frustumCorners;
     private final float zNear;
     private final float zFar;
+    private final float fov;
     private final Vector4f tmpVec;
-    
-    public ShadowCascade(final float zNear, final float zFar) {
+    private final Vector3f lightPosition;
+    private final Vector3f lightAngles;
+    private final float casterExtrusion;
+    private final Matrix4f casterProjViewMatrix;
+    private final FrustumIntersection casterFrustum;
+    private final List<SceneElement> casters;
+    private final Map<Mesh, List<SceneElement>> nonInstancedCasters;
+    private final Map<InstancedMesh, List<SceneElement>> instancedCasters;
+
+    public ShadowCascade(final float zNear,
+                         final float zFar,
+                         final float fov) {
+        this(zNear, zFar, fov, zFar);
+    }
+
+    /**
+     * @param casterExtrusion how far towards the light the caster volume reaches
+     *                        past the near plane of the cascade's ortho volume
+     */
+    public ShadowCascade(final float zNear,
+                         final float zFar,
+                         final float fov,
+                         final float casterExtrusion) {
         this.zNear = zNear;
         this.zFar = zFar;
+        this.fov = fov;
         this.projViewMatrix = new Matrix4f();
         this.orthoProjMatrix = new Matrix4f();
         this.centroid = new Vector3f();
@@ -33,6 +64,14 @@ public class ShadowCascade {
         this.frustumCorners = new Vector3f[FRUSTUM_CORNERS];
         Arrays.setAll(this.frustumCorners, Vector3f::new);
         this.tmpVec = new Vector4f();
+        this.lightPosition = new Vector3f();
+        this.lightAngles = new Vector3f();
+        this.casterExtrusion = casterExtrusion;
+        this.casterProjViewMatrix = new Matrix4f();
+        this.casterFrustum = new FrustumIntersection();
+        this.casters = new ArrayList<>();
+        this.nonInstancedCasters = new HashMap<>();
+        this.instancedCasters = new HashMap<>();
     }
 
     public Matrix4f getLightViewMatrix() {
@@ -46,7 +85,7 @@ public class ShadowCascade {
     public void update(final Window window, final Matrix4f viewMatrix, final DirectionalLight light) {
         final float aspectRatio = (float) window.getWidth() / (float) window.getHeight();
         this.projViewMatrix.setPerspective(
-                (float) Math.toRadians(ConfigHandler.CONFIG.render.camera.fov),
+                this.fov,
                 aspectRatio,
                 this.zNear,
                 this.zFar
@@ -66,13 +105,11 @@ public class ShadowCascade {
         }
 
         final Vector3f lightDirection = light.getDirection();
-        final Vector3f lightPosInc = new Vector3f().set(lightDirection);
-        lightPosInc.mul(maxZ - minZ);
-        final Vector3f lightPosition = new Vector3f();
-        lightPosition.set(this.centroid);
-        lightPosition.add(lightPosInc);
+        this.lightPosition.set(lightDirection)
+                .mul(maxZ - minZ)
+                .add(this.centroid);
 
-        updateLightViewMatrix(lightDirection, lightPosition);
+        updateLightViewMatrix(lightDirection, this.lightPosition);
         updateLightProjectionMatrix();
     }
 
@@ -80,7 +117,7 @@ public class ShadowCascade {
                                        final Vector3f lightPosition) {
         Transform.updateGenericViewMatrix(
                 lightPosition,
-                new Vector3f(
+                this.lightAngles.set(
                         (float) Math.toDegrees(Math.acos(lightDirection.z)),
                         (float) Math.toDegrees(Math.asin(lightDirection.x)),
                         0
@@ -115,6 +152,61 @@ public class ShadowCascade {
                 0,
                 maxZ - minZ
         );
+        this.casterProjViewMatrix.setOrtho(
+                minX,
+                maxX,
+                minY,
+                maxY,
+                -this.casterExtrusion,
+                maxZ - minZ
+        ).mul(this.lightViewMatrix);
+        this.casterFrustum.set(this.casterProjViewMatrix);
+    }
+
+    /**
+     * Collects the elements inside this cascade's volume extruded towards the
+     * light, whether or not the camera sees them, and buckets them by mesh.
+     * Only reads the scene, so cascades can cull concurrently once its spatial
+     * index is current.
+     */
+    public void cullCasters(final Scene scene) {
+        this.casters.clear();
+        scene.queryFrustum(this.casterFrustum, this.casters);
+        this.nonInstancedCasters.keySet().retainAll(scene.getNonInstancedMeshes().keySet());
+        this.instancedCasters.keySet().retainAll(scene.getInstancedMeshes().keySet());
+        for (final List<SceneElement> bucket : this.nonInstancedCasters.values()) {
+            bucket.clear();
+        }
+        for (final List<SceneElement> bucket : this.instancedCasters.values()) {
+            bucket.clear();
+        }
+        for (final SceneElement sceneElement : this.casters) {
+            for (final Mesh mesh : sceneElement.getMeshes()) {
+                if (mesh instanceof final InstancedMesh instancedMesh) {
+                    this.instancedCasters.computeIfAbsent(
+                            instancedMesh,
+                            (final InstancedMesh key) -> new ArrayList<>()
+                    ).add(sceneElement);
+                } else {
+                    this.nonInstancedCasters.computeIfAbsent(
+                            mesh,
+                            (final Mesh key) -> new ArrayList<>()
+                    ).add(sceneElement);
+                }
+            }
+        }
+    }
+
+    public List<SceneElement> getCasters() {
+        return this.casters;
+    }
+
+    public Map<Mesh, List<SceneElement>> getNonInstancedCasters() {
+        return this.nonInstancedCasters;
+    }
+
+    public Map<InstancedMesh, List<SceneElement>> getInstancedCasters() {
+        return this.instancedCasters;
     }
 
 }
@@ -1,12 +1,21 @@
 package com.engineersbox.yajge.rendering.scene.shadow;
 
+import com.engineersbox.yajge.core.engine.EngineContext;
 import com.engineersbox.yajge.core.window.Window;
+import com.engineersbox.yajge.debug.GpuTimers;
+import com.engineersbox.yajge.debug.jfr.ShadowCascadeEvent;
+import com.engineersbox.yajge.debug.profiler.Profiler;
 import com.engineersbox.yajge.rendering.Renderer;
+import com.engineersbox.yajge.rendering.command.CommandBuffer;
+import com.engineersbox.yajge.rendering.command.CommandExecutor;
 import com.engineersbox.yajge.rendering.scene.lighting.DirectionalLight;
+import com.engineersbox.yajge.rendering.state.GLStateCache;
+import com.engineersbox.yajge.rendering.uniform.SharedUniforms;
 import com.engineersbox.yajge.rendering.view.Camera;
 import com.engineersbox.yajge.rendering.view.Transform;
 import com.engineersbox.yajge.resources.assets.shader.Shader;
-import com.engineersbox.yajge.resources.config.io.ConfigHandler;
+import com.engineersbox.yajge.resources.assets.shader.Uniform;
+import com.engineersbox.yajge.resources.config.Config;
 import com.engineersbox.yajge.resources.loader.ResourceLoader;
 import com.engineersbox.yajge.scene.Scene;
 import com.engineersbox.yajge.scene.element.SceneElement;
@@ -21,23 +30,39 @@ import java.util.List;
 import java.util.Map;
 
 import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.GL_DEPTH_CLAMP;
 
 public class ShadowRenderer {
 
     public static final int NUM_CASCADES = 3;
-    public static final float[] CASCADE_SPLITS = new float[]{
-            (float) ConfigHandler.CONFIG.render.camera.zFar / 20.0f,
-            (float) ConfigHandler.CONFIG.render.camera.zFar / 10.0f,
-            (float) ConfigHandler.CONFIG.render.camera.zFar
-    };
+    private static final int RENDER_SCOPE = Profiler.registerScope("ShadowRenderer.render");
+    private static final int CASCADE_SCOPE = Profiler.registerScope("ShadowRenderer.cascade");
 
+    private final EngineContext context;
     private Shader depthShader;
+    private Uniform isInstancedUniform;
+    private Uniform modelUniform;
+    private Uniform jointsUniform;
+    private Uniform cascadeIndexUniform;
     private List<ShadowCascade> shadowCascades;
     private ShadowBuffer shadowBuffer;
-    private final List<SceneElement> filteredItems;
+    private GpuTimers gpuTimers;
+    private final int[] cascadeTimers = new int[NUM_CASCADES];
+    private final CommandBuffer[] cascadeCommands;
+    private final Matrix4f[] cascadeModelMatrices;
+    private final CommandExecutor commandExecutor;
+    private final ShadowCascadeEvent cascadeEvent;
 
-    public ShadowRenderer() {
-        this.filteredItems = new ArrayList<>();
+    public ShadowRenderer(final EngineContext context) {
+        this.context = context;
+        this.cascadeCommands = new CommandBuffer[NUM_CASCADES];
+        this.cascadeModelMatrices = new Matrix4f[NUM_CASCADES];
+        for (int i = 0; i < NUM_CASCADES; i++) {
+            this.cascadeCommands[i] = new CommandBuffer();
+            this.cascadeModelMatrices[i] = new Matrix4f();
+        }
+        this.commandExecutor = new CommandExecutor(context.isHeadless());
+        this.cascadeEvent = new ShadowCascadeEvent();
     }
 
     public void init(final Window window)  {
@@ -46,10 +71,24 @@ public class ShadowRenderer {
 
         setupDepthShader();
 
-        float zNear = (float) ConfigHandler.CONFIG.render.camera.zNear;
+        final Config config = this.context.getConfig();
+        final float[] cascadeSplits = this.context.getCascadeSplits();
+        float zNear = (float) config.render.camera.zNear;
+        for (int i = 0; i < NUM_CASCADES; i++) {
+            this.shadowCascades.add(new ShadowCascade(
+                    zNear,
+                    cascadeSplits[i],
+                    (float) Math.toRadians(config.render.camera.fov),
+                    (float) config.render.camera.zFar
+            ));
+            zNear = cascadeSplits[i];
+        }
+    }
+
+    public void setGpuTimers(final GpuTimers gpuTimers) {
+        this.gpuTimers = gpuTimers;
         for (int i = 0; i < NUM_CASCADES; i++) {
-            this.shadowCascades.add(new ShadowCascade(zNear, CASCADE_SPLITS[i]));
-            zNear = CASCADE_SPLITS[i];
+            this.cascadeTimers[i] = gpuTimers.register("shadow.cascade." + i);
         }
     }
 
@@ -62,87 +101,172 @@ public class ShadowRenderer {
     }
 
     private void setupDepthShader()  {
-        this.depthShader = new Shader();
+        this.depthShader = new Shader(this.context.isHeadless());
         this.depthShader.createVertexShader(ResourceLoader.loadAsString("assets/game/shaders/scene/depth.vert"));
         this.depthShader.createFragmentShader(ResourceLoader.loadAsString("assets/game/shaders/scene/depth.frag"));
         this.depthShader.link();
 
-        this.depthShader.createUniform("isInstanced");
-        this.depthShader.createUniform("modelNonInstancedMatrix");
-        this.depthShader.createUniform("lightViewMatrix");
-        this.depthShader.createUniform("jointsMatrix");
-        this.depthShader.createUniform("orthoProjectionMatrix");
+        this.isInstancedUniform = this.depthShader.createUniform("isInstanced");
+        this.modelUniform = this.depthShader.createUniform("modelNonInstancedMatrix");
+        this.jointsUniform = this.depthShader.createUniform("jointsMatrix");
+        this.cascadeIndexUniform = this.depthShader.createUniform("cascadeIndex");
+    }
+
+    /**
+     * The depth shader reads the cascade matrices from the shared shadow block,
+     * which has to be written for the frame before {@link #render} is called.
+     */
+    public void bindUniformBlocks(final SharedUniforms sharedUniforms) {
+        sharedUniforms.bindTo(this.depthShader);
     }
 
-    private void update(final Window window,
-                        final Matrix4f viewMatrix,
-                        final Scene scene) {
+    public void update(final Window window,
+                       final Matrix4f viewMatrix,
+                       final Scene scene) {
+        scene.updateSpatialIndex();
+        for (int i = 0; i < NUM_CASCADES; i++) {
+            updateCascade(i, window, viewMatrix, scene);
+        }
+    }
+
+    /**
+     * Fits the cascade to the view and culls its casters. Cascades are
+     * independent of each other, so each one can be updated from a separate job
+     * before {@link #render} is called on the GL thread, provided the scene's
+     * spatial index was brought up to date beforehand.
+     */
+    public void updateCascade(final int index,
+                              final Window window,
+                              final Matrix4f viewMatrix,
+                              final Scene scene) {
+        updateCascade(index, window, viewMatrix, scene, 1.0f);
+    }
+
+    /**
+     * As {@link #updateCascade(int, Window, Matrix4f, Scene)}, also recording the
+     * cascade's non-instanced casters with model matrices interpolated by
+     * {@code alpha}.
+     */
+    public void updateCascade(final int index,
+                              final Window window,
+                              final Matrix4f viewMatrix,
+                              final Scene scene,
+                              final float alpha) {
         final SceneLight sceneLight = scene.getSceneLight();
         final DirectionalLight directionalLight = sceneLight != null ? sceneLight.getDirectionalLight() : null;
-        for (final ShadowCascade shadowCascade : this.shadowCascades) {
-            shadowCascade.update(window, viewMatrix, directionalLight);
+        final ShadowCascade shadowCascade = this.shadowCascades.get(index);
+        shadowCascade.update(window, viewMatrix, directionalLight);
+        shadowCascade.cullCasters(scene);
+        recordNonInstancedCasters(index, shadowCascade, alpha);
+    }
+
+    private void recordNonInstancedCasters(final int index,
+                                           final ShadowCascade shadowCascade,
+                                           final float alpha) {
+        final CommandBuffer commands = this.cascadeCommands[index];
+        final Matrix4f modelMatrix = this.cascadeModelMatrices[index];
+        commands.reset();
+        commands.useShader(this.depthShader);
+        commands.setUniform(this.isInstancedUniform, 0);
+        for (final Map.Entry<Mesh, List<SceneElement>> entry : shadowCascade.getNonInstancedCasters().entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            final Mesh mesh = entry.getKey();
+            commands.bindMesh(mesh);
+            for (final SceneElement sceneElement : entry.getValue()) {
+                commands.setUniform(this.modelUniform, Transform.buildModelMatrix(sceneElement, alpha, modelMatrix));
+                if (sceneElement instanceof final AnimatedSceneElement animatedSceneElement) {
+                    commands.setUniform(this.jointsUniform, animatedSceneElement.getCurrentAnimation().getCurrentFrame().getJointMatrices());
+                }
+                commands.drawElements(mesh.getVertexCount());
+            }
+            commands.unbindMesh(mesh);
         }
     }
 
+    public CommandBuffer getCascadeCommands(final int index) {
+        return this.cascadeCommands[index];
+    }
+
+    /**
+     * Expects the cascades to be updated and the instance data of every visible
+     * {@link InstancedMesh} to be prepared for this frame. Casters in front of a
+     * cascade's near plane are clamped onto it rather than clipped.
+     */
     public void render(final Window window,
                        final Scene scene,
                        final Camera camera,
                        final Transform transform,
                        final Renderer renderer) {
-        update(window, camera.getViewMatrix(), scene);
-
-        glBindFramebuffer(GL_FRAMEBUFFER, this.shadowBuffer.getDepthMapFBO());
+        Profiler.begin(RENDER_SCOPE);
+        GLStateCache.bindFramebuffer(GL_FRAMEBUFFER, this.shadowBuffer.getDepthMapFBO());
         glViewport(0, 0, ShadowBuffer.SHADOW_MAP_WIDTH, ShadowBuffer.SHADOW_MAP_HEIGHT);
         glClear(GL_DEPTH_BUFFER_BIT);
+        GLStateCache.enable(GL_DEPTH_CLAMP);
 
         this.depthShader.bind();
 
         for (int i = 0; i < NUM_CASCADES; i++) {
             final ShadowCascade shadowCascade = this.shadowCascades.get(i);
-
-            this.depthShader.setUniform("orthoProjectionMatrix", shadowCascade.getOrthoProjMatrix());
-            this.depthShader.setUniform("lightViewMatrix", shadowCascade.getLightViewMatrix());
+            this.depthShader.setUniform(this.cascadeIndexUniform, i);
 
             glFramebufferTexture2D(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, GL_TEXTURE_2D, this.shadowBuffer.getDepthMapTexture().getIds()[i], 0);
             glClear(GL_DEPTH_BUFFER_BIT);
 
-            renderNonInstancedMeshes(scene, transform);
-            renderInstancedMeshes(scene, transform);
+            final ShadowCascadeEvent event = this.cascadeEvent;
+            event.begin();
+            Profiler.begin(CASCADE_SCOPE);
+            if (this.gpuTimers != null) {
+                this.gpuTimers.begin(this.cascadeTimers[i]);
+            }
+            this.commandExecutor.execute(this.cascadeCommands[i]);
+            renderInstancedMeshes(shadowCascade, transform);
+            if (this.gpuTimers != null) {
+                this.gpuTimers.end(this.cascadeTimers[i]);
+            }
+            Profiler.end(CASCADE_SCOPE);
+            event.end();
+            if (event.shouldCommit()) {
+                commitCascadeEvent(event, i, shadowCascade);
+            }
         }
 
         this.depthShader.unbind();
-        glBindFramebuffer(GL_FRAMEBUFFER, 0);
-    }
-
-    private void renderNonInstancedMeshes(final Scene scene,
-                                          final Transform transform) {
-        this.depthShader.setUniform("isInstanced", 0);
-        for (final Map.Entry<Mesh, List<SceneElement>> entry : scene.getNonInstancedMeshes().entrySet()) {
-            entry.getKey().renderList(
-                    entry.getValue(),
-                    (final SceneElement sceneElement) -> {
-                        this.depthShader.setUniform("modelNonInstancedMatrix", transform.buildModelMatrix(sceneElement));
-                        if (sceneElement instanceof final AnimatedSceneElement animatedSceneElement) {
-                            this.depthShader.setUniform("jointsMatrix", animatedSceneElement.getCurrentAnimation().getCurrentFrame().getJointMatrices());
-                        }
-                    }
-            );
+        GLStateCache.disable(GL_DEPTH_CLAMP);
+        GLStateCache.bindFramebuffer(GL_FRAMEBUFFER, 0);
+        Profiler.end(RENDER_SCOPE);
+    }
+
+    private static void commitCascadeEvent(final ShadowCascadeEvent event,
+                                           final int cascade,
+                                           final ShadowCascade shadowCascade) {
+        int elements = 0;
+        int meshes = 0;
+        for (final List<SceneElement> sceneElements : shadowCascade.getNonInstancedCasters().values()) {
+            elements += sceneElements.size();
+            meshes += sceneElements.isEmpty() ? 0 : 1;
+        }
+        for (final List<SceneElement> sceneElements : shadowCascade.getInstancedCasters().values()) {
+            elements += sceneElements.size();
+            meshes += sceneElements.isEmpty() ? 0 : 1;
         }
+        event.cascade = cascade;
+        event.meshes = meshes;
+        event.elements = elements;
+        event.commit();
     }
 
-    private void renderInstancedMeshes(final Scene scene,
+    private void renderInstancedMeshes(final ShadowCascade shadowCascade,
                                        final Transform transform) {
-        this.depthShader.setUniform("isInstanced", 1);
+        this.depthShader.setUniform(this.isInstancedUniform, 1);
 
-        for (final Map.Entry<InstancedMesh, List<SceneElement>> entry : scene.getInstancedMeshes().entrySet()) {
-            this.filteredItems.clear();
-            for (final SceneElement sceneElement : entry.getValue()) {
-                if (sceneElement.isInsideFrustum()) {
-                    this.filteredItems.add(sceneElement);
-                }
+        for (final Map.Entry<InstancedMesh, List<SceneElement>> entry : shadowCascade.getInstancedCasters().entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
             }
             bindTextures(GL_TEXTURE2);
-            entry.getKey().renderInstanced(this.filteredItems, transform, null);
+            entry.getKey().renderInstances(entry.getValue(), transform.getInterpolationAlpha());
         }
     }
 
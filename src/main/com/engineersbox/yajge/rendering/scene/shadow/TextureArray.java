@@ -1,6 +1,6 @@
 package com.engineersbox.yajge.rendering.scene.shadow;
 
-import org.lwjgl.opengl.GL11;
+import com.engineersbox.yajge.rendering.state.GLStateCache;
 
 import java.nio.ByteBuffer;
 import java.util.Arrays;
@@ -25,7 +25,7 @@ public class TextureArray {
         this.height = height;
 
         Arrays.stream(this.ids).forEach((final int id) -> {
-            glBindTexture(GL_TEXTURE_2D, id);
+            GLStateCache.bindTexture(GL_TEXTURE_2D, id);
             glTexImage2D(GL_TEXTURE_2D, 0, GL_DEPTH_COMPONENT, this.width, this.height, 0, pixelFormat, GL_FLOAT, (ByteBuffer) null);
             glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
             glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
@@ -48,6 +48,6 @@ public class TextureArray {
     }
 
     public void cleanup() {
-        Arrays.stream(this.ids).forEach(GL11::glDeleteTextures);
+        Arrays.stream(this.ids).forEach(GLStateCache::deleteTexture);
     }
 }
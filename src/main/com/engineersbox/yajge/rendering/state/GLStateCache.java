@@ -0,0 +1,307 @@
+package com.engineersbox.yajge.rendering.state;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.GL_DEPTH_CLAMP;
+
+/**
+ * Shadow copy of the GL state the engine changes most often: the program, the
+ * vertex array, 2D texture bindings per unit, framebuffers, capabilities and
+ * blend, depth mask and cull face settings. Engine code routes those changes
+ * through here so calls that would set the current value again never reach the
+ * driver. State starts unknown, so the first change of each kind is always
+ * issued. The cache and its counters are kept per thread, matching the GL
+ * context current on it, so engines rendering on separate threads never see
+ * each other's state. Call {@link #invalidate()} after anything else, like
+ * NanoVG, changed the state.
+ */
+public class GLStateCache {
+
+    private static final int UNKNOWN = -1;
+    private static final int MAX_TEXTURE_UNITS = 32;
+    private static final int[] TRACKED_CAPABILITIES = {
+            GL_BLEND,
+            GL_DEPTH_TEST,
+            GL_STENCIL_TEST,
+            GL_CULL_FACE,
+            GL_DEPTH_CLAMP
+    };
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private static final class State {
+
+        private int program;
+        private int vertexArray;
+        private int activeTexture;
+        private final int[] textures = new int[MAX_TEXTURE_UNITS];
+        private int drawFramebuffer;
+        private int readFramebuffer;
+        private final int[] capabilities = new int[TRACKED_CAPABILITIES.length];
+        private int blendSource;
+        private int blendDestination;
+        private int blendEquation;
+        private int depthMask;
+        private int cullFace;
+        private long changesIssued;
+        private long changesFiltered;
+
+        private State() {
+            invalidate();
+        }
+
+        private void invalidate() {
+            this.program = UNKNOWN;
+            this.vertexArray = UNKNOWN;
+            this.activeTexture = UNKNOWN;
+            Arrays.fill(this.textures, UNKNOWN);
+            this.drawFramebuffer = UNKNOWN;
+            this.readFramebuffer = UNKNOWN;
+            Arrays.fill(this.capabilities, UNKNOWN);
+            this.blendSource = UNKNOWN;
+            this.blendDestination = UNKNOWN;
+            this.blendEquation = UNKNOWN;
+            this.depthMask = UNKNOWN;
+            this.cullFace = UNKNOWN;
+        }
+
+        private boolean filter(final boolean redundant) {
+            if (redundant) {
+                this.changesFiltered++;
+                return true;
+            }
+            this.changesIssued++;
+            return false;
+        }
+    }
+
+    private GLStateCache() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Forgets every cached value, so the next change of each kind is issued.
+     */
+    public static void invalidate() {
+        STATE.get().invalidate();
+    }
+
+    public static void useProgram(final int programId) {
+        final State state = STATE.get();
+        if (state.filter(state.program == programId)) {
+            return;
+        }
+        state.program = programId;
+        glUseProgram(programId);
+    }
+
+    public static void bindVertexArray(final int vaoId) {
+        final State state = STATE.get();
+        if (state.filter(state.vertexArray == vaoId)) {
+            return;
+        }
+        state.vertexArray = vaoId;
+        glBindVertexArray(vaoId);
+    }
+
+    /**
+     * @param texture texture unit enum, {@code GL_TEXTURE0} onwards
+     */
+    public static void activeTexture(final int texture) {
+        final State state = STATE.get();
+        if (state.filter(state.activeTexture == texture)) {
+            return;
+        }
+        state.activeTexture = texture;
+        glActiveTexture(texture);
+    }
+
+    /**
+     * Binds to the active unit. Only {@code GL_TEXTURE_2D} bindings are cached,
+     * other targets are always issued.
+     */
+    public static void bindTexture(final int target,
+                                   final int textureId) {
+        final State state = STATE.get();
+        final int unit = state.activeTexture - GL_TEXTURE0;
+        final boolean tracked = target == GL_TEXTURE_2D && unit >= 0 && unit < MAX_TEXTURE_UNITS;
+        if (tracked) {
+            if (state.filter(state.textures[unit] == textureId)) {
+                return;
+            }
+            state.textures[unit] = textureId;
+        } else {
+            state.changesIssued++;
+        }
+        glBindTexture(target, textureId);
+    }
+
+    /**
+     * Selects the unit and binds a 2D texture to it.
+     */
+    public static void bindTexture2D(final int texture,
+                                     final int textureId) {
+        activeTexture(texture);
+        bindTexture(GL_TEXTURE_2D, textureId);
+    }
+
+    /**
+     * @param target {@code GL_FRAMEBUFFER} binds both the draw and read targets
+     */
+    public static void bindFramebuffer(final int target,
+                                       final int framebufferId) {
+        final boolean draw = target == GL_FRAMEBUFFER || target == GL_DRAW_FRAMEBUFFER;
+        final boolean read = target == GL_FRAMEBUFFER || target == GL_READ_FRAMEBUFFER;
+        final State state = STATE.get();
+        if (state.filter((!draw || state.drawFramebuffer == framebufferId)
+                && (!read || state.readFramebuffer == framebufferId))) {
+            return;
+        }
+        if (draw) {
+            state.drawFramebuffer = framebufferId;
+        }
+        if (read) {
+            state.readFramebuffer = framebufferId;
+        }
+        glBindFramebuffer(target, framebufferId);
+    }
+
+    public static void enable(final int capability) {
+        setEnabled(capability, true);
+    }
+
+    public static void disable(final int capability) {
+        setEnabled(capability, false);
+    }
+
+    public static void setEnabled(final int capability,
+                                  final boolean enabled) {
+        final int index = capabilityIndex(capability);
+        final int value = enabled ? 1 : 0;
+        final State state = STATE.get();
+        if (index >= 0) {
+            if (state.filter(state.capabilities[index] == value)) {
+                return;
+            }
+            state.capabilities[index] = value;
+        } else {
+            state.changesIssued++;
+        }
+        if (enabled) {
+            glEnable(capability);
+        } else {
+            glDisable(capability);
+        }
+    }
+
+    public static void blendFunc(final int source,
+                                 final int destination) {
+        final State state = STATE.get();
+        if (state.filter(state.blendSource == source && state.blendDestination == destination)) {
+            return;
+        }
+        state.blendSource = source;
+        state.blendDestination = destination;
+        glBlendFunc(source, destination);
+    }
+
+    public static void blendEquation(final int mode) {
+        final State state = STATE.get();
+        if (state.filter(state.blendEquation == mode)) {
+            return;
+        }
+        state.blendEquation = mode;
+        glBlendEquation(mode);
+    }
+
+    public static void depthMask(final boolean flag) {
+        final int value = flag ? 1 : 0;
+        final State state = STATE.get();
+        if (state.filter(state.depthMask == value)) {
+            return;
+        }
+        state.depthMask = value;
+        glDepthMask(flag);
+    }
+
+    public static void cullFace(final int mode) {
+        final State state = STATE.get();
+        if (state.filter(state.cullFace == mode)) {
+            return;
+        }
+        state.cullFace = mode;
+        glCullFace(mode);
+    }
+
+    /**
+     * Deletes the program, dropping it from the cache as GL reverts to no
+     * program when the current one is deleted.
+     */
+    public static void deleteProgram(final int programId) {
+        final State state = STATE.get();
+        if (state.program == programId) {
+            state.program = UNKNOWN;
+        }
+        glDeleteProgram(programId);
+    }
+
+    public static void deleteVertexArray(final int vaoId) {
+        final State state = STATE.get();
+        if (state.vertexArray == vaoId) {
+            state.vertexArray = UNKNOWN;
+        }
+        glDeleteVertexArrays(vaoId);
+    }
+
+    public static void deleteTexture(final int textureId) {
+        final int[] textures = STATE.get().textures;
+        for (int i = 0; i < MAX_TEXTURE_UNITS; i++) {
+            if (textures[i] == textureId) {
+                textures[i] = UNKNOWN;
+            }
+        }
+        glDeleteTextures(textureId);
+    }
+
+    public static void deleteFramebuffer(final int framebufferId) {
+        final State state = STATE.get();
+        if (state.drawFramebuffer == framebufferId) {
+            state.drawFramebuffer = UNKNOWN;
+        }
+        if (state.readFramebuffer == framebufferId) {
+            state.readFramebuffer = UNKNOWN;
+        }
+        glDeleteFramebuffers(framebufferId);
+    }
+
+    private static int capabilityIndex(final int capability) {
+        for (int i = 0; i < TRACKED_CAPABILITIES.length; i++) {
+            if (TRACKED_CAPABILITIES[i] == capability) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return state changes passed to GL from this thread since the last
+     * {@link #resetCounters()}
+     */
+    public static long getChangesIssued() {
+        return STATE.get().changesIssued;
+    }
+
+    /**
+     * @return state changes dropped as redundant on this thread since the last
+     * {@link #resetCounters()}
+     */
+    public static long getChangesFiltered() {
+        return STATE.get().changesFiltered;
+    }
+
+    public static void resetCounters() {
+        final State state = STATE.get();
+        state.changesIssued = 0;
+        state.changesFiltered = 0;
+    }
+}
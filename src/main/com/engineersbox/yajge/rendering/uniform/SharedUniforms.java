@@ -0,0 +1,154 @@
+package com.engineersbox.yajge.rendering.uniform;
+
+import com.engineersbox.yajge.core.window.Window;
+import com.engineersbox.yajge.rendering.scene.lighting.DirectionalLight;
+import com.engineersbox.yajge.rendering.scene.shadow.ShadowCascade;
+import com.engineersbox.yajge.rendering.scene.shadow.ShadowRenderer;
+import com.engineersbox.yajge.resources.assets.shader.Shader;
+import com.engineersbox.yajge.resources.assets.shader.UniformBlock;
+import com.engineersbox.yajge.scene.Scene;
+import com.engineersbox.yajge.scene.lighting.SceneLight;
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Per-frame constants shared by every pass through three std140 uniform
+ * blocks: {@value #FRAME_BLOCK} with the camera matrices and screen size,
+ * {@value #SHADOW_BLOCK} with the cascade matrices and split distances and
+ * {@value #LIGHT_BLOCK} with the ambient and view space directional light. Each
+ * block is written once per frame and bound to its fixed binding point, so
+ * shaders only need {@link #bindTo(Shader)} once after linking. The offsets
+ * below mirror the block declarations in the shaders.
+ */
+public class SharedUniforms {
+
+    public static final String FRAME_BLOCK = "FrameData";
+    public static final String SHADOW_BLOCK = "ShadowData";
+    public static final String LIGHT_BLOCK = "LightData";
+    public static final int FRAME_BINDING = 0;
+    public static final int SHADOW_BINDING = 1;
+    public static final int LIGHT_BINDING = 2;
+
+    private static final int MATRIX_BYTES = 64;
+    private static final int ARRAY_STRIDE = 16;
+
+    private static final int FRAME_PROJECTION = 0;
+    private static final int FRAME_VIEW = FRAME_PROJECTION + MATRIX_BYTES;
+    private static final int FRAME_SCREEN_SIZE = FRAME_VIEW + MATRIX_BYTES;
+    private static final int FRAME_SIZE = FRAME_SCREEN_SIZE + 16;
+
+    private static final int SHADOW_ORTHO_PROJECTION = 0;
+    private static final int SHADOW_LIGHT_VIEW = SHADOW_ORTHO_PROJECTION + MATRIX_BYTES * ShadowRenderer.NUM_CASCADES;
+    private static final int SHADOW_FAR_PLANES = SHADOW_LIGHT_VIEW + MATRIX_BYTES * ShadowRenderer.NUM_CASCADES;
+    private static final int SHADOW_RENDER = SHADOW_FAR_PLANES + ARRAY_STRIDE * ShadowRenderer.NUM_CASCADES;
+    private static final int SHADOW_SIZE = SHADOW_RENDER + 16;
+
+    private static final int LIGHT_AMBIENT = 0;
+    private static final int LIGHT_SPECULAR_POWER = 12;
+    private static final int LIGHT_DIRECTIONAL_COLOUR = 16;
+    private static final int LIGHT_DIRECTIONAL_DIRECTION = 32;
+    private static final int LIGHT_DIRECTIONAL_INTENSITY = 44;
+    private static final int LIGHT_SIZE = 48;
+
+    private final UniformBlock frameBlock;
+    private final UniformBlock shadowBlock;
+    private final UniformBlock lightBlock;
+    private final Vector4f tmpVec;
+
+    public SharedUniforms(final boolean headless) {
+        this.frameBlock = new UniformBlock(FRAME_BLOCK, FRAME_BINDING, FRAME_SIZE, headless);
+        this.shadowBlock = new UniformBlock(SHADOW_BLOCK, SHADOW_BINDING, SHADOW_SIZE, headless);
+        this.lightBlock = new UniformBlock(LIGHT_BLOCK, LIGHT_BINDING, LIGHT_SIZE, headless);
+        this.tmpVec = new Vector4f();
+    }
+
+    /**
+     * Binds whichever of the shared blocks the shader declares.
+     */
+    public void bindTo(final Shader shader) {
+        shader.bindUniformBlock(FRAME_BLOCK, FRAME_BINDING);
+        shader.bindUniformBlock(SHADOW_BLOCK, SHADOW_BINDING);
+        shader.bindUniformBlock(LIGHT_BLOCK, LIGHT_BINDING);
+    }
+
+    /**
+     * Writes and binds this frame's copy of every block. Expects the window's
+     * projection matrix and the shadow cascades to be up to date.
+     */
+    public void update(final Window window,
+                       final Matrix4f viewMatrix,
+                       final Scene scene,
+                       final List<ShadowCascade> shadowCascades,
+                       final float[] cascadeSplits,
+                       final float specularPower) {
+        writeFrame(window, viewMatrix);
+        writeShadows(scene, shadowCascades, cascadeSplits);
+        writeLights(scene.getSceneLight(), viewMatrix, specularPower);
+    }
+
+    private void writeFrame(final Window window,
+                            final Matrix4f viewMatrix) {
+        final ByteBuffer buffer = this.frameBlock.begin();
+        window.getProjectionMatrix().get(FRAME_PROJECTION, buffer);
+        viewMatrix.get(FRAME_VIEW, buffer);
+        buffer.putFloat(FRAME_SCREEN_SIZE, window.getWidth());
+        buffer.putFloat(FRAME_SCREEN_SIZE + Float.BYTES, window.getHeight());
+        this.frameBlock.commit();
+    }
+
+    private void writeShadows(final Scene scene,
+                              final List<ShadowCascade> shadowCascades,
+                              final float[] cascadeSplits) {
+        final ByteBuffer buffer = this.shadowBlock.begin();
+        for (int i = 0; i < ShadowRenderer.NUM_CASCADES; i++) {
+            final ShadowCascade shadowCascade = shadowCascades.get(i);
+            shadowCascade.getOrthoProjMatrix().get(SHADOW_ORTHO_PROJECTION + i * MATRIX_BYTES, buffer);
+            shadowCascade.getLightViewMatrix().get(SHADOW_LIGHT_VIEW + i * MATRIX_BYTES, buffer);
+            buffer.putFloat(SHADOW_FAR_PLANES + i * ARRAY_STRIDE, cascadeSplits[i]);
+        }
+        buffer.putInt(SHADOW_RENDER, scene.isRenderShadows() ? 1 : 0);
+        this.shadowBlock.commit();
+    }
+
+    private void writeLights(final SceneLight sceneLight,
+                             final Matrix4f viewMatrix,
+                             final float specularPower) {
+        final ByteBuffer buffer = this.lightBlock.begin();
+        final DirectionalLight directionalLight = sceneLight != null ? sceneLight.getDirectionalLight() : null;
+        if (sceneLight != null) {
+            sceneLight.getAmbientLight().get(LIGHT_AMBIENT, buffer);
+        } else {
+            buffer.putFloat(LIGHT_AMBIENT, 0).putFloat(LIGHT_AMBIENT + 4, 0).putFloat(LIGHT_AMBIENT + 8, 0);
+        }
+        buffer.putFloat(LIGHT_SPECULAR_POWER, specularPower);
+        if (directionalLight != null) {
+            directionalLight.getColor().get(LIGHT_DIRECTIONAL_COLOUR, buffer);
+            this.tmpVec.set(directionalLight.getDirection(), 0).mul(viewMatrix);
+            buffer.putFloat(LIGHT_DIRECTIONAL_DIRECTION, this.tmpVec.x);
+            buffer.putFloat(LIGHT_DIRECTIONAL_DIRECTION + 4, this.tmpVec.y);
+            buffer.putFloat(LIGHT_DIRECTIONAL_DIRECTION + 8, this.tmpVec.z);
+            buffer.putFloat(LIGHT_DIRECTIONAL_INTENSITY, directionalLight.getIntensity());
+        } else {
+            buffer.putFloat(LIGHT_DIRECTIONAL_INTENSITY, 0);
+        }
+        this.lightBlock.commit();
+    }
+
+    /**
+     * Fences this frame's copies once every draw reading them was submitted.
+     */
+    public void fence() {
+        this.frameBlock.fence();
+        this.shadowBlock.fence();
+        this.lightBlock.fence();
+    }
+
+    public void cleanup() {
+        this.frameBlock.cleanup();
+        this.shadowBlock.cleanup();
+        this.lightBlock.cleanup();
+    }
+}
@@ -7,18 +7,25 @@ public class Camera {
 
     private final Vector3f position;
     private final Vector3f rotation;
+    private final Vector3f previousPosition;
+    private final Vector3f previousRotation;
+    private final Vector3f interpolatedPosition;
+    private final Vector3f interpolatedRotation;
     private Matrix4f viewMatrix;
     
     public Camera() {
-        this.position = new Vector3f();
-        this.rotation = new Vector3f();
-        this.viewMatrix = new Matrix4f();
+        this(new Vector3f(), new Vector3f());
     }
     
     public Camera(final Vector3f position,
                   final Vector3f rotation) {
         this.position = position;
         this.rotation = rotation;
+        this.previousPosition = new Vector3f(position);
+        this.previousRotation = new Vector3f(rotation);
+        this.interpolatedPosition = new Vector3f();
+        this.interpolatedRotation = new Vector3f();
+        this.viewMatrix = new Matrix4f();
     }
 
     public Vector3f getPosition() {
@@ -44,6 +51,32 @@ public class Camera {
                 this.viewMatrix
         );
     }
+
+    public Matrix4f updateViewMatrix(final float alpha) {
+        if (alpha >= 1.0f) {
+            return updateViewMatrix();
+        }
+        this.previousPosition.lerp(this.position, alpha, this.interpolatedPosition);
+        this.previousRotation.lerp(this.rotation, alpha, this.interpolatedRotation);
+        return Transform.updateGenericViewMatrix(
+                this.interpolatedPosition,
+                this.interpolatedRotation,
+                this.viewMatrix
+        );
+    }
+
+    public void storePreviousState() {
+        this.previousPosition.set(this.position);
+        this.previousRotation.set(this.rotation);
+    }
+
+    public Vector3f getPreviousPosition() {
+        return this.previousPosition;
+    }
+
+    public Vector3f getPreviousRotation() {
+        return this.previousRotation;
+    }
     
     public void movePosition(final float offsetX,
                              final float offsetY,
@@ -2,7 +2,7 @@ package com.engineersbox.yajge.rendering.view;
 
 import com.engineersbox.yajge.core.window.Window;
 import com.engineersbox.yajge.rendering.RenderingElement;
-import org.lwjgl.opengl.GL11;
+import com.engineersbox.yajge.rendering.state.GLStateCache;
 import org.lwjgl.system.MemoryStack;
 
 import java.nio.ByteBuffer;
@@ -23,7 +23,7 @@ public class GBuffer implements RenderingElement {
 
     public GBuffer(final Window window)  {
         this.gBufferId = glGenFramebuffers();
-        glBindFramebuffer(GL_DRAW_FRAMEBUFFER, this.gBufferId);
+        GLStateCache.bindFramebuffer(GL_DRAW_FRAMEBUFFER, this.gBufferId);
 
         this.textureIds = new int[TOTAL_TEXTURES];
         glGenTextures(this.textureIds);
@@ -32,7 +32,7 @@ public class GBuffer implements RenderingElement {
         this.height = window.getHeight();
 
         for(int i = 0; i < TOTAL_TEXTURES; i++) {
-            glBindTexture(GL_TEXTURE_2D, this.textureIds[i]);
+            GLStateCache.bindTexture(GL_TEXTURE_2D, this.textureIds[i]);
             final int attachmentType;
             // Depth component
             glTexImage2D(
@@ -74,7 +74,7 @@ public class GBuffer implements RenderingElement {
             glDrawBuffers(intBuff);
         }
 
-        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        GLStateCache.bindFramebuffer(GL_FRAMEBUFFER, 0);
     }
 
     public int getWidth() {
@@ -102,10 +102,10 @@ public class GBuffer implements RenderingElement {
     }
 
     public void cleanUp() {
-        glDeleteFramebuffers(this.gBufferId);
+        GLStateCache.deleteFramebuffer(this.gBufferId);
 
         if (this.textureIds != null) {
-            Arrays.stream(this.textureIds, 0, TOTAL_TEXTURES).forEach(GL11::glDeleteTextures);
+            Arrays.stream(this.textureIds, 0, TOTAL_TEXTURES).forEach(GLStateCache::deleteTexture);
         }
     }
 
@@ -114,7 +114,7 @@ public class GBuffer implements RenderingElement {
         this.width = window.getWidth();
         this.height = window.getHeight();
         for(int i = 0; i < TOTAL_TEXTURES; i++) {
-            glBindTexture(GL_TEXTURE_2D, this.textureIds[i]);
+            GLStateCache.bindTexture(GL_TEXTURE_2D, this.textureIds[i]);
             // Depth component
             glTexImage2D(
                     GL_TEXTURE_2D,
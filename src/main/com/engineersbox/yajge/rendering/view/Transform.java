@@ -7,12 +7,15 @@ import org.joml.Vector3f;
 
 public class Transform {
 
+    private static final ThreadLocal<Quaternionf> INTERPOLATED_ROTATION = ThreadLocal.withInitial(Quaternionf::new);
+
     private final Matrix4f modelMatrix;
     private final Matrix4f viewModelMatrix;
     private final Matrix4f modelLightViewMatrix;
     private final Matrix4f lightViewMatrix;
     private final Matrix4f ortho2DMatrix;
     private final Matrix4f orthoModelMatrix;
+    private float interpolationAlpha;
 
     public Transform() {
         this.modelMatrix = new Matrix4f();
@@ -21,6 +24,15 @@ public class Transform {
         this.ortho2DMatrix = new Matrix4f();
         this.orthoModelMatrix = new Matrix4f();
         this.lightViewMatrix = new Matrix4f();
+        this.interpolationAlpha = 1.0f;
+    }
+
+    public float getInterpolationAlpha() {
+        return this.interpolationAlpha;
+    }
+
+    public void setInterpolationAlpha(final float interpolationAlpha) {
+        this.interpolationAlpha = interpolationAlpha;
     }
 
     public Matrix4f getLightViewMatrix() {
@@ -59,15 +71,61 @@ public class Transform {
         return this.ortho2DMatrix.setOrtho2D(left, right, bottom, top);
     }
     
+    /**
+     * Returns the element's cached world matrix directly unless it has to be
+     * interpolated, so the result must be treated as read-only.
+     */
     public Matrix4f buildModelMatrix(final SceneElement sceneElement) {
-        final Quaternionf rotation = sceneElement.getRotation();
-        return this.modelMatrix.translationRotateScale(
-                sceneElement.getPosition().x, sceneElement.getPosition().y, sceneElement.getPosition().z,
-                rotation.x, rotation.y, rotation.z, rotation.w,
-                sceneElement.getScale(), sceneElement.getScale(), sceneElement.getScale()
+        if (this.interpolationAlpha >= 1.0f || !sceneElement.isMoving()) {
+            return sceneElement.getWorldMatrix();
+        }
+        return buildModelMatrix(sceneElement, this.interpolationAlpha, this.modelMatrix);
+    }
+
+    /**
+     * Builds the model matrix {@code alpha} of the way from the element's previous
+     * transform to its current one. Rotations are blended with a normalised lerp
+     * along the shortest arc, which is indistinguishable from slerp over one step.
+     * Children are interpolated in their parent's interpolated space.
+     */
+    public static Matrix4f buildModelMatrix(final SceneElement sceneElement,
+                                            final float alpha,
+                                            final Matrix4f dest) {
+        if (alpha >= 1.0f || !sceneElement.isMoving()) {
+            return buildModelMatrix(sceneElement, dest);
+        }
+        final float inv = 1.0f - alpha;
+        final Vector3f p0 = sceneElement.getPreviousPosition();
+        final Vector3f p1 = sceneElement.getPosition();
+        final Quaternionf q0 = sceneElement.getPreviousRotation();
+        final Quaternionf q1 = sceneElement.getRotation();
+        final float dot = q0.x * q1.x + q0.y * q1.y + q0.z * q1.z + q0.w * q1.w;
+        final float weight = dot < 0.0f ? -alpha : alpha;
+        final float qx = inv * q0.x + weight * q1.x;
+        final float qy = inv * q0.y + weight * q1.y;
+        final float qz = inv * q0.z + weight * q1.z;
+        final float qw = inv * q0.w + weight * q1.w;
+        final float invLength = (float) (1.0 / Math.sqrt(qx * qx + qy * qy + qz * qz + qw * qw));
+        final float scale = inv * sceneElement.getPreviousScale() + alpha * sceneElement.getScale();
+        final SceneElement parent = sceneElement.getParent();
+        if (parent != null) {
+            buildModelMatrix(parent, alpha, dest);
+            return dest.translate(inv * p0.x + alpha * p1.x, inv * p0.y + alpha * p1.y, inv * p0.z + alpha * p1.z)
+                    .rotate(INTERPOLATED_ROTATION.get().set(qx * invLength, qy * invLength, qz * invLength, qw * invLength))
+                    .scale(scale);
+        }
+        return dest.translationRotateScale(
+                inv * p0.x + alpha * p1.x, inv * p0.y + alpha * p1.y, inv * p0.z + alpha * p1.z,
+                qx * invLength, qy * invLength, qz * invLength, qw * invLength,
+                scale, scale, scale
         );
     }
 
+    public static Matrix4f buildModelMatrix(final SceneElement sceneElement,
+                                            final Matrix4f dest) {
+        return dest.set(sceneElement.getWorldMatrix());
+    }
+
     public Matrix4f buildViewModelMatrix(final SceneElement sceneElement,
                                          final Matrix4f viewMatrix) {
         return buildViewModelMatrix(buildModelMatrix(sceneElement), viewMatrix);
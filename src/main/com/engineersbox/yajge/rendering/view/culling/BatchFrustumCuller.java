@@ -0,0 +1,114 @@
+package com.engineersbox.yajge.rendering.view.culling;
+
+import com.engineersbox.yajge.core.jobs.JobSystem;
+import org.joml.Matrix4fc;
+import org.joml.Vector4f;
+
+/**
+ * Tests packed sphere arrays against the six frustum planes and writes one
+ * visibility bit per sphere. Centres are interleaved {@code xyz} triples and
+ * radii a parallel array, matching the layout of the transform store. The
+ * planes are held in locals and unrolled so the JIT keeps the whole test in
+ * registers, and each 64-sphere word is assembled before a single store, so
+ * parallel ranges never share a word.
+ */
+public class BatchFrustumCuller {
+
+    private static final int PLANES = 6;
+    private static final int PARALLEL_THRESHOLD = 8192;
+    private static final int PARALLEL_GRAIN_WORDS = 64;
+
+    private final float[] planes;
+    private final Vector4f plane;
+
+    public BatchFrustumCuller() {
+        this.planes = new float[PLANES * 4];
+        this.plane = new Vector4f();
+    }
+
+    /**
+     * Extracts the normalised, inward facing planes of the given combined
+     * projection and view matrix.
+     */
+    public void setFrustum(final Matrix4fc projectionView) {
+        for (int i = 0; i < PLANES; i++) {
+            projectionView.frustumPlane(i, this.plane);
+            this.planes[i * 4] = this.plane.x;
+            this.planes[i * 4 + 1] = this.plane.y;
+            this.planes[i * 4 + 2] = this.plane.z;
+            this.planes[i * 4 + 3] = this.plane.w;
+        }
+    }
+
+    public static int wordsFor(final int count) {
+        return (count + 63) >>> 6;
+    }
+
+    public static boolean isVisible(final long[] visibility,
+                                    final int index) {
+        return (visibility[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public void cull(final float[] centres,
+                     final float[] radii,
+                     final int count,
+                     final long[] visibility) {
+        cullWords(centres, radii, count, visibility, 0, wordsFor(count));
+    }
+
+    /**
+     * Splits large batches into ranges of whole words across the job system.
+     */
+    public void cull(final float[] centres,
+                     final float[] radii,
+                     final int count,
+                     final long[] visibility,
+                     final JobSystem jobSystem) {
+        final int words = wordsFor(count);
+        if (jobSystem == null || count < PARALLEL_THRESHOLD) {
+            cullWords(centres, radii, count, visibility, 0, words);
+            return;
+        }
+        jobSystem.parallelFor(
+                0,
+                words,
+                PARALLEL_GRAIN_WORDS,
+                (final int start, final int end) -> cullWords(centres, radii, count, visibility, start, end)
+        );
+    }
+
+    private void cullWords(final float[] centres,
+                           final float[] radii,
+                           final int count,
+                           final long[] visibility,
+                           final int startWord,
+                           final int endWord) {
+        final float[] p = this.planes;
+        final float p0x = p[0], p0y = p[1], p0z = p[2], p0w = p[3];
+        final float p1x = p[4], p1y = p[5], p1z = p[6], p1w = p[7];
+        final float p2x = p[8], p2y = p[9], p2z = p[10], p2w = p[11];
+        final float p3x = p[12], p3y = p[13], p3z = p[14], p3w = p[15];
+        final float p4x = p[16], p4y = p[17], p4z = p[18], p4w = p[19];
+        final float p5x = p[20], p5y = p[21], p5z = p[22], p5w = p[23];
+        for (int word = startWord; word < endWord; word++) {
+            final int start = word << 6;
+            final int end = Math.min(count, start + 64);
+            long bits = 0;
+            for (int i = start; i < end; i++) {
+                final int c = i * 3;
+                final float x = centres[c];
+                final float y = centres[c + 1];
+                final float z = centres[c + 2];
+                final float r = -radii[i];
+                final boolean inside = p0x * x + p0y * y + p0z * z + p0w >= r
+                        & p1x * x + p1y * y + p1z * z + p1w >= r
+                        & p2x * x + p2y * y + p2z * z + p2w >= r
+                        & p3x * x + p3y * y + p3z * z + p3w >= r
+                        & p4x * x + p4y * y + p4z * z + p4w >= r
+                        & p5x * x + p5y * y + p5z * z + p5w >= r;
+                bits |= (inside ? 1L : 0L) << (i & 63);
+            }
+            visibility[word] = bits;
+        }
+    }
+}
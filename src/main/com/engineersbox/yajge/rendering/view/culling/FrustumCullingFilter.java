@@ -1,47 +1,289 @@
 package com.engineersbox.yajge.rendering.view.culling;
 
+import com.engineersbox.yajge.core.jobs.JobSystem;
+import com.engineersbox.yajge.debug.jfr.CullingEvent;
+import com.engineersbox.yajge.debug.profiler.Profiler;
+import com.engineersbox.yajge.scene.Scene;
 import com.engineersbox.yajge.scene.element.SceneElement;
 import com.engineersbox.yajge.scene.element.object.composite.Mesh;
 import org.joml.FrustumIntersection;
 import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
 import org.joml.Vector3f;
 
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 
+/**
+ * Culls scene elements against the camera frustum. Scene culls can also drop
+ * elements whose bounding sphere projects to fewer pixels than a threshold, and
+ * reuse the previous frame's result while the camera holds still, retesting
+ * only the elements whose bounds changed. Reuse is tracked per scene, so the
+ * rotating snapshot scenes of a pipelined frame each keep their own last cull.
+ */
 public class FrustumCullingFilter {
 
+    private static final int PARALLEL_FILTER_GRAIN = 512;
+    private static final int FILTER_SCOPE = Profiler.registerScope("FrustumCullingFilter.filter");
+    private static final int MAX_CACHED_FRAMES = 60;
+    private static final float MAX_CACHED_ROTATION_COS = 0.99999f;
+    private static final float PROJECTION_EPSILON = 1.0e-6f;
+
     private final Matrix4f prjViewMatrix;
     private final FrustumIntersection frustumInt;
+    private final BatchFrustumCuller batchCuller;
+    private final CullingEvent cullingEvent;
+
+    private final Matrix4f projMatrix;
+    private final Matrix4f viewMatrix;
+    private final Vector3f cameraPosition;
+    private final Vector3f cameraForward;
+    private final Vector3f cameraUp;
+    private float pixelScale;
+    private float minPixelSize;
+
+    private boolean visibilityCaching;
+    private float cacheThreshold;
+    private final Map<Scene, CullCache> cullCaches;
+
+    private boolean cached;
+    private int retestedCount;
+    private int reusedCount;
+    private int contributionCulledCount;
+    private int visibleCount;
 
     public FrustumCullingFilter() {
         this.prjViewMatrix = new Matrix4f();
         this.frustumInt = new FrustumIntersection();
+        this.batchCuller = new BatchFrustumCuller();
+        this.cullingEvent = new CullingEvent();
+        this.projMatrix = new Matrix4f();
+        this.viewMatrix = new Matrix4f();
+        this.cameraPosition = new Vector3f();
+        this.cameraForward = new Vector3f();
+        this.cameraUp = new Vector3f();
+        this.cullCaches = new WeakHashMap<>();
     }
 
     public void updateFrustum(final Matrix4f projMatrix,
                               final Matrix4f viewMatrix) {
+        updateFrustum(projMatrix, viewMatrix, 0);
+    }
+
+    /**
+     * As {@link #updateFrustum(Matrix4f, Matrix4f)}, also recording the viewport
+     * height that projected sizes are measured against. A height of zero turns
+     * contribution culling off.
+     */
+    public void updateFrustum(final Matrix4f projMatrix,
+                              final Matrix4f viewMatrix,
+                              final int viewportHeight) {
         this.prjViewMatrix.set(projMatrix);
         this.prjViewMatrix.mul(viewMatrix);
         this.frustumInt.set(this.prjViewMatrix);
+        this.batchCuller.setFrustum(this.prjViewMatrix);
+        this.projMatrix.set(projMatrix);
+        this.viewMatrix.set(viewMatrix);
+        viewMatrix.originAffine(this.cameraPosition);
+        viewMatrix.positiveZ(this.cameraForward);
+        viewMatrix.positiveY(this.cameraUp);
+        this.pixelScale = projMatrix.m11() * viewportHeight;
+    }
+
+    /**
+     * Elements whose bounding sphere spans fewer than this many pixels on screen
+     * are culled by scene filtering. Zero or less disables the test.
+     */
+    public void setMinPixelSize(final float minPixelSize) {
+        this.minPixelSize = minPixelSize;
+    }
+
+    /**
+     * Lets scene filtering reuse the last full cull while the camera has not
+     * rotated and has moved at most {@code cameraThreshold} world units since,
+     * retesting only elements whose world bounds were rebuilt. Any scene
+     * membership change, projection change or a run of reused frames
+     * forces a full cull. A non-zero threshold trades exactness at
+     * the frustum edges for fewer full culls.
+     */
+    public void setVisibilityCaching(final boolean visibilityCaching,
+                                     final float cameraThreshold) {
+        this.visibilityCaching = visibilityCaching;
+        this.cacheThreshold = Math.max(0, cameraThreshold);
+        this.cullCaches.clear();
+    }
+
+    /**
+     * Culls through the scene's spatial index, rejecting whole subtrees at once
+     * and testing each element once rather than once per mesh bucket.
+     */
+    public void filter(final Scene scene) {
+        filter(scene, null);
     }
 
+    /**
+     * As {@link #filter(Scene)}, with large scenes culled across the job system.
+     * Not thread safe, as the culling event is reused across calls.
+     */
+    public void filter(final Scene scene,
+                       final JobSystem jobSystem) {
+        Profiler.begin(FILTER_SCOPE);
+        final CullingEvent event = this.cullingEvent;
+        event.begin();
+        final int revision = scene.getVisibilityRevision();
+        final CullCache cache = this.visibilityCaching ? this.cullCaches.computeIfAbsent(scene, (final Scene key) -> new CullCache()) : null;
+        this.cached = cache != null && canReuse(cache, revision);
+        if (this.cached) {
+            cache.frames++;
+            this.retestedCount = scene.recull(scene.getDirtyElements(), this::isVisible);
+            this.contributionCulledCount = 0;
+        } else {
+            scene.cull(this.frustumInt, this.batchCuller, jobSystem);
+            this.retestedCount = scene.getElementCount();
+            this.contributionCulledCount = isContributionCulling() ? scene.cullVisible(this::isLargeEnough) : 0;
+            if (cache != null) {
+                cache.store(
+                        revision,
+                        this.projMatrix,
+                        this.cameraPosition,
+                        this.cameraForward,
+                        this.cameraUp,
+                        this.pixelScale
+                );
+            }
+        }
+        this.reusedCount = scene.getElementCount() - this.retestedCount;
+        this.visibleCount = scene.getVisibleElements().size();
+        event.end();
+        if (event.shouldCommit()) {
+            event.cached = this.cached;
+            event.retested = this.retestedCount;
+            event.reused = this.reusedCount;
+            event.contributionCulled = this.contributionCulledCount;
+            event.visible = this.visibleCount;
+            event.commit();
+        }
+        Profiler.end(FILTER_SCOPE);
+    }
+
+    private boolean canReuse(final CullCache cache,
+                             final int revision) {
+        return cache.valid
+                && cache.revision == revision
+                && cache.frames < MAX_CACHED_FRAMES
+                && cache.pixelScale == this.pixelScale
+                && cache.projMatrix.equals(this.projMatrix, PROJECTION_EPSILON)
+                && cache.position.distance(this.cameraPosition) <= this.cacheThreshold
+                && cache.forward.dot(this.cameraForward) >= MAX_CACHED_ROTATION_COS
+                && cache.up.dot(this.cameraUp) >= MAX_CACHED_ROTATION_COS;
+    }
+
+    private boolean isVisible(final SceneElement sceneElement) {
+        final Vector3f centre = sceneElement.getBoundsCentre();
+        return insideFrustum(centre.x, centre.y, centre.z, sceneElement.getBoundingRadius())
+                && (!isContributionCulling() || isLargeEnough(sceneElement));
+    }
+
+    private boolean isContributionCulling() {
+        return this.minPixelSize > 0 && this.pixelScale > 0;
+    }
+
+    /**
+     * Approximates the projected diameter of the element's bounding sphere from
+     * its view depth. Spheres reaching the camera plane are always kept.
+     */
+    private boolean isLargeEnough(final SceneElement sceneElement) {
+        final Vector3f centre = sceneElement.getBoundsCentre();
+        final float radius = sceneElement.getBoundingRadius();
+        final Matrix4fc view = this.viewMatrix;
+        final float depth = -(view.m02() * centre.x + view.m12() * centre.y + view.m22() * centre.z + view.m32());
+        if (depth <= radius) {
+            return true;
+        }
+        return radius * this.pixelScale / depth >= this.minPixelSize;
+    }
+
+    /**
+     * @return whether the last scene filter reused the previous frame's result
+     */
+    public boolean isCached() {
+        return this.cached;
+    }
+
+    /**
+     * @return elements whose visibility the last scene filter recomputed
+     */
+    public int getRetestedCount() {
+        return this.retestedCount;
+    }
+
+    /**
+     * @return elements whose visibility the last scene filter carried over
+     */
+    public int getReusedCount() {
+        return this.reusedCount;
+    }
+
+    /**
+     * @return elements dropped as too small on screen by the last scene filter,
+     * zero when it reused a previous cull
+     */
+    public int getContributionCulledCount() {
+        return this.contributionCulledCount;
+    }
+
+    public int getVisibleCount() {
+        return this.visibleCount;
+    }
+
+    public BatchFrustumCuller getBatchCuller() {
+        return this.batchCuller;
+    }
+
+    /**
+     * Tests each element's world bounds once per bucket it appears in.
+     */
     public void filter(final Map<? extends Mesh, List<SceneElement>> mapMesh) {
-        for (final Map.Entry<? extends Mesh, List<SceneElement>> entry : mapMesh.entrySet()) {
-            final List<SceneElement> sceneElements = entry.getValue();
-            filter(sceneElements, entry.getKey().getBoundingRadius());
+        Profiler.begin(FILTER_SCOPE);
+        for (final List<SceneElement> sceneElements : mapMesh.values()) {
+            filterBounds(sceneElements, 0, sceneElements.size());
+        }
+        Profiler.end(FILTER_SCOPE);
+    }
+
+    public void filter(final Map<? extends Mesh, List<SceneElement>> mapMesh,
+                       final JobSystem jobSystem) {
+        Profiler.begin(FILTER_SCOPE);
+        for (final List<SceneElement> sceneElements : mapMesh.values()) {
+            jobSystem.parallelFor(
+                    0,
+                    sceneElements.size(),
+                    PARALLEL_FILTER_GRAIN,
+                    (final int start, final int end) -> filterBounds(sceneElements, start, end)
+            );
         }
+        Profiler.end(FILTER_SCOPE);
+    }
+
+    /**
+     * Tests each element's world bounds, the same sphere the scene cull uses, so
+     * elements whose bounds are offset from their origin are not misjudged.
+     */
+    public void filter(final List<SceneElement> sceneElements) {
+        Profiler.begin(FILTER_SCOPE);
+        filterBounds(sceneElements, 0, sceneElements.size());
+        Profiler.end(FILTER_SCOPE);
     }
 
-    public void filter(final List<SceneElement> sceneElements,
-                       final float meshBoundingRadius) {
-        float boundingRadius;
-        Vector3f pos;
-        for (final SceneElement sceneElement : sceneElements) {
+    private void filterBounds(final List<SceneElement> sceneElements,
+                              final int start,
+                              final int end) {
+        for (int i = start; i < end; i++) {
+            final SceneElement sceneElement = sceneElements.get(i);
             if (!sceneElement.isFrustumCullingDisabled()) {
-                boundingRadius = sceneElement.getScale() * meshBoundingRadius;
-                pos = sceneElement.getPosition();
-                sceneElement.setInsideFrustum(insideFrustum(pos.x, pos.y, pos.z, boundingRadius));
+                final Vector3f centre = sceneElement.getBoundsCentre();
+                sceneElement.setInsideFrustum(insideFrustum(centre.x, centre.y, centre.z, sceneElement.getBoundingRadius()));
             }
         }
     }
@@ -52,4 +294,35 @@ public class FrustumCullingFilter {
                                  final float boundingRadius) {
         return this.frustumInt.testSphere(x0, y0, z0, boundingRadius);
     }
+
+    /**
+     * The camera state a scene was last fully culled with.
+     */
+    private static final class CullCache {
+
+        private final Matrix4f projMatrix = new Matrix4f();
+        private final Vector3f position = new Vector3f();
+        private final Vector3f forward = new Vector3f();
+        private final Vector3f up = new Vector3f();
+        private float pixelScale;
+        private int revision;
+        private int frames;
+        private boolean valid;
+
+        private void store(final int revision,
+                           final Matrix4fc projMatrix,
+                           final Vector3f position,
+                           final Vector3f forward,
+                           final Vector3f up,
+                           final float pixelScale) {
+            this.revision = revision;
+            this.frames = 0;
+            this.projMatrix.set(projMatrix);
+            this.position.set(position);
+            this.forward.set(forward);
+            this.up.set(up);
+            this.pixelScale = pixelScale;
+            this.valid = true;
+        }
+    }
 }
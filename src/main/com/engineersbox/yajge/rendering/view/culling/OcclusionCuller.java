@@ -0,0 +1,373 @@
+package com.engineersbox.yajge.rendering.view.culling;
+
+import com.engineersbox.yajge.core.jobs.JobSystem;
+import com.engineersbox.yajge.debug.profiler.Profiler;
+import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Vector3fc;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Software occlusion culling against a small CPU depth buffer. Elements flagged
+ * as occluders are rasterised first, binned into screen tiles that are filled in
+ * parallel, then the screen rectangle of every other element's bounding sphere
+ * is tested against the buffer. Depth is NDC {@code z / w}, so the buffer stays
+ * valid for any perspective projection and nothing is read back from the GPU.
+ * <p>
+ * Triangles crossing the near plane are dropped and occludees touching it are
+ * kept, so the test only ever errs towards drawing.
+ */
+public class OcclusionCuller {
+
+    public static final int DEFAULT_WIDTH = 256;
+    public static final int DEFAULT_HEIGHT = 128;
+    private static final int TILE_SIZE = 32;
+    private static final int PARALLEL_TEST_GRAIN = 64;
+    private static final float MIN_W = 1.0e-4f;
+    private static final float FAR_DEPTH = 1.0f;
+    private static final int OCCLUSION_SCOPE = Profiler.registerScope("OcclusionCuller.cull");
+
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    private final int tilesY;
+    private final float[] depth;
+    private final int[][] bins;
+    private final int[] binCounts;
+    private final Matrix4f projectionView;
+    private final Matrix4f modelViewProjection;
+    private float[] triangles;
+    private int triangleCount;
+    private float[] clipVertices;
+    private boolean[] occludedResults;
+
+    public OcclusionCuller() {
+        this(DEFAULT_WIDTH, DEFAULT_HEIGHT);
+    }
+
+    public OcclusionCuller(final int width,
+                           final int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Depth buffer size must be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        this.tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        this.depth = new float[width * height];
+        this.bins = new int[this.tilesX * this.tilesY][16];
+        this.binCounts = new int[this.tilesX * this.tilesY];
+        this.projectionView = new Matrix4f();
+        this.modelViewProjection = new Matrix4f();
+        this.triangles = new float[9 * 256];
+        this.triangleCount = 0;
+        this.clipVertices = new float[4 * 256];
+        this.occludedResults = new boolean[256];
+        Arrays.fill(this.depth, FAR_DEPTH);
+    }
+
+    public void updateProjectionView(final Matrix4fc projMatrix,
+                                     final Matrix4fc viewMatrix) {
+        this.projectionView.set(projMatrix).mul(viewMatrix);
+    }
+
+    /**
+     * Rasterises the occluders among {@code visible}, then moves every other
+     * element hidden behind them from {@code visible} to {@code occluded},
+     * keeping the order of the rest.
+     *
+     * @return the number of elements moved
+     */
+    public int cull(final List<SceneElement> visible,
+                    final List<SceneElement> occluded,
+                    final JobSystem jobSystem) {
+        Profiler.begin(OCCLUSION_SCOPE);
+        try {
+            if (!rasteriseOccluders(visible, jobSystem)) {
+                return 0;
+            }
+            final int count = visible.size();
+            if (this.occludedResults.length < count) {
+                this.occludedResults = new boolean[Math.max(count, this.occludedResults.length * 2)];
+            }
+            if (jobSystem == null) {
+                testRange(visible, 0, count);
+            } else {
+                jobSystem.parallelFor(
+                        0,
+                        count,
+                        PARALLEL_TEST_GRAIN,
+                        (final int start, final int end) -> testRange(visible, start, end)
+                );
+            }
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                final SceneElement sceneElement = visible.get(i);
+                if (this.occludedResults[i]) {
+                    occluded.add(sceneElement);
+                } else {
+                    visible.set(kept++, sceneElement);
+                }
+            }
+            visible.subList(kept, count).clear();
+            return count - kept;
+        } finally {
+            Profiler.end(OCCLUSION_SCOPE);
+        }
+    }
+
+    private void testRange(final List<SceneElement> visible,
+                           final int start,
+                           final int end) {
+        for (int i = start; i < end; i++) {
+            final SceneElement sceneElement = visible.get(i);
+            this.occludedResults[i] = !sceneElement.isOccluder()
+                    && !sceneElement.isFrustumCullingDisabled()
+                    && isOccluded(sceneElement.getBoundsCentre(), sceneElement.getBoundingRadius());
+        }
+    }
+
+    /**
+     * Clears the buffer and fills it with the occluders among the given
+     * elements, using their current world matrices.
+     *
+     * @return false if there was nothing to rasterise
+     */
+    public boolean rasteriseOccluders(final List<SceneElement> sceneElements,
+                                      final JobSystem jobSystem) {
+        this.triangleCount = 0;
+        for (int i = 0; i < sceneElements.size(); i++) {
+            final SceneElement sceneElement = sceneElements.get(i);
+            if (!sceneElement.isOccluder() || sceneElement.getMeshes() == null) {
+                continue;
+            }
+            this.projectionView.mul(sceneElement.getWorldMatrix(), this.modelViewProjection);
+            for (final Mesh mesh : sceneElement.getMeshes()) {
+                addTriangles(mesh.getPositions(), mesh.getIndices());
+            }
+        }
+        if (this.triangleCount == 0) {
+            Arrays.fill(this.depth, FAR_DEPTH);
+            return false;
+        }
+        binTriangles();
+        final int tileCount = this.tilesX * this.tilesY;
+        if (jobSystem == null) {
+            rasteriseTiles(0, tileCount);
+        } else {
+            jobSystem.parallelFor(0, tileCount, 1, this::rasteriseTiles);
+        }
+        return true;
+    }
+
+    private void addTriangles(final float[] positions,
+                              final int[] indices) {
+        final int vertexCount = positions.length / 3;
+        if (this.clipVertices.length < vertexCount * 4) {
+            this.clipVertices = new float[vertexCount * 4];
+        }
+        final Matrix4f m = this.modelViewProjection;
+        for (int v = 0; v < vertexCount; v++) {
+            final float x = positions[v * 3];
+            final float y = positions[v * 3 + 1];
+            final float z = positions[v * 3 + 2];
+            final float w = m.m03() * x + m.m13() * y + m.m23() * z + m.m33();
+            final int c = v * 4;
+            this.clipVertices[c + 3] = w;
+            if (w <= MIN_W) {
+                continue;
+            }
+            final float invW = 1.0f / w;
+            this.clipVertices[c] = ((m.m00() * x + m.m10() * y + m.m20() * z + m.m30()) * invW * 0.5f + 0.5f) * this.width;
+            this.clipVertices[c + 1] = ((m.m01() * x + m.m11() * y + m.m21() * z + m.m31()) * invW * 0.5f + 0.5f) * this.height;
+            this.clipVertices[c + 2] = (m.m02() * x + m.m12() * y + m.m22() * z + m.m32()) * invW;
+        }
+        for (int i = 0; i + 2 < indices.length; i += 3) {
+            final int a = indices[i] * 4;
+            final int b = indices[i + 1] * 4;
+            final int c = indices[i + 2] * 4;
+            if (this.clipVertices[a + 3] <= MIN_W
+                    || this.clipVertices[b + 3] <= MIN_W
+                    || this.clipVertices[c + 3] <= MIN_W) {
+                continue;
+            }
+            addTriangle(a, b, c);
+        }
+    }
+
+    private void addTriangle(final int a,
+                             final int b,
+                             final int c) {
+        final float[] v = this.clipVertices;
+        final float area = (v[b] - v[a]) * (v[c + 1] - v[a + 1]) - (v[c] - v[a]) * (v[b + 1] - v[a + 1]);
+        if (Math.abs(area) < 1.0e-6f) {
+            return;
+        }
+        if (this.triangles.length < (this.triangleCount + 1) * 9) {
+            this.triangles = Arrays.copyOf(this.triangles, this.triangles.length * 2);
+        }
+        // Both faces are drawn, so store every triangle counter-clockwise
+        final int second = area > 0 ? b : c;
+        final int third = area > 0 ? c : b;
+        final int t = this.triangleCount * 9;
+        this.triangles[t] = v[a];
+        this.triangles[t + 1] = v[a + 1];
+        this.triangles[t + 2] = v[a + 2];
+        this.triangles[t + 3] = v[second];
+        this.triangles[t + 4] = v[second + 1];
+        this.triangles[t + 5] = v[second + 2];
+        this.triangles[t + 6] = v[third];
+        this.triangles[t + 7] = v[third + 1];
+        this.triangles[t + 8] = v[third + 2];
+        this.triangleCount++;
+    }
+
+    private void binTriangles() {
+        Arrays.fill(this.binCounts, 0);
+        for (int i = 0; i < this.triangleCount; i++) {
+            final int t = i * 9;
+            final float minX = Math.min(this.triangles[t], Math.min(this.triangles[t + 3], this.triangles[t + 6]));
+            final float maxX = Math.max(this.triangles[t], Math.max(this.triangles[t + 3], this.triangles[t + 6]));
+            final float minY = Math.min(this.triangles[t + 1], Math.min(this.triangles[t + 4], this.triangles[t + 7]));
+            final float maxY = Math.max(this.triangles[t + 1], Math.max(this.triangles[t + 4], this.triangles[t + 7]));
+            if (maxX < 0 || maxY < 0 || minX >= this.width || minY >= this.height) {
+                continue;
+            }
+            final int tileMinX = Math.max(0, (int) minX / TILE_SIZE);
+            final int tileMaxX = Math.min(this.tilesX - 1, (int) maxX / TILE_SIZE);
+            final int tileMinY = Math.max(0, (int) minY / TILE_SIZE);
+            final int tileMaxY = Math.min(this.tilesY - 1, (int) maxY / TILE_SIZE);
+            for (int ty = tileMinY; ty <= tileMaxY; ty++) {
+                for (int tx = tileMinX; tx <= tileMaxX; tx++) {
+                    final int tile = ty * this.tilesX + tx;
+                    if (this.binCounts[tile] == this.bins[tile].length) {
+                        this.bins[tile] = Arrays.copyOf(this.bins[tile], this.bins[tile].length * 2);
+                    }
+                    this.bins[tile][this.binCounts[tile]++] = i;
+                }
+            }
+        }
+    }
+
+    private void rasteriseTiles(final int start,
+                                final int end) {
+        for (int tile = start; tile < end; tile++) {
+            final int x0 = (tile % this.tilesX) * TILE_SIZE;
+            final int y0 = (tile / this.tilesX) * TILE_SIZE;
+            final int x1 = Math.min(this.width, x0 + TILE_SIZE);
+            final int y1 = Math.min(this.height, y0 + TILE_SIZE);
+            for (int y = y0; y < y1; y++) {
+                Arrays.fill(this.depth, y * this.width + x0, y * this.width + x1, FAR_DEPTH);
+            }
+            final int[] bin = this.bins[tile];
+            for (int i = 0; i < this.binCounts[tile]; i++) {
+                rasteriseTriangle(bin[i] * 9, x0, y0, x1, y1);
+            }
+        }
+    }
+
+    private void rasteriseTriangle(final int t,
+                                   final int tileX0,
+                                   final int tileY0,
+                                   final int tileX1,
+                                   final int tileY1) {
+        final float[] tri = this.triangles;
+        final float ax = tri[t], ay = tri[t + 1], az = tri[t + 2];
+        final float bx = tri[t + 3], by = tri[t + 4], bz = tri[t + 5];
+        final float cx = tri[t + 6], cy = tri[t + 7], cz = tri[t + 8];
+        final int minX = Math.max(tileX0, (int) Math.floor(Math.min(ax, Math.min(bx, cx))));
+        final int maxX = Math.min(tileX1 - 1, (int) Math.ceil(Math.max(ax, Math.max(bx, cx))));
+        final int minY = Math.max(tileY0, (int) Math.floor(Math.min(ay, Math.min(by, cy))));
+        final int maxY = Math.min(tileY1 - 1, (int) Math.ceil(Math.max(ay, Math.max(by, cy))));
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+        final float invArea = 1.0f / ((bx - ax) * (cy - ay) - (cx - ax) * (by - ay));
+        // Edge functions are affine in screen space, so step them per pixel
+        final float e0dx = by - cy, e1dx = cy - ay, e2dx = ay - by;
+        final float px = minX + 0.5f;
+        for (int y = minY; y <= maxY; y++) {
+            final float py = y + 0.5f;
+            float e0 = (cx - bx) * (py - by) - (cy - by) * (px - bx);
+            float e1 = (ax - cx) * (py - cy) - (ay - cy) * (px - cx);
+            float e2 = (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+            final int row = y * this.width;
+            for (int x = minX; x <= maxX; x++) {
+                if (e0 >= 0 && e1 >= 0 && e2 >= 0) {
+                    final float z = (e0 * az + e1 * bz + e2 * cz) * invArea;
+                    if (z < this.depth[row + x]) {
+                        this.depth[row + x] = z;
+                    }
+                }
+                e0 += e0dx;
+                e1 += e1dx;
+                e2 += e2dx;
+            }
+        }
+    }
+
+    /**
+     * Tests the screen rectangle of the sphere's bounding box against the last
+     * rasterised occluders, clipped to the screen. Spheres reaching the near
+     * plane are never occluded.
+     */
+    public boolean isOccluded(final Vector3fc centre,
+                              final float radius) {
+        final Matrix4f m = this.projectionView;
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        float minZ = Float.POSITIVE_INFINITY;
+        for (int corner = 0; corner < 8; corner++) {
+            final float x = centre.x() + ((corner & 1) == 0 ? -radius : radius);
+            final float y = centre.y() + ((corner & 2) == 0 ? -radius : radius);
+            final float z = centre.z() + ((corner & 4) == 0 ? -radius : radius);
+            final float w = m.m03() * x + m.m13() * y + m.m23() * z + m.m33();
+            if (w <= MIN_W) {
+                return false;
+            }
+            final float invW = 1.0f / w;
+            final float sx = ((m.m00() * x + m.m10() * y + m.m20() * z + m.m30()) * invW * 0.5f + 0.5f) * this.width;
+            final float sy = ((m.m01() * x + m.m11() * y + m.m21() * z + m.m31()) * invW * 0.5f + 0.5f) * this.height;
+            final float sz = (m.m02() * x + m.m12() * y + m.m22() * z + m.m32()) * invW;
+            minX = Math.min(minX, sx);
+            maxX = Math.max(maxX, sx);
+            minY = Math.min(minY, sy);
+            maxY = Math.max(maxY, sy);
+            minZ = Math.min(minZ, sz);
+        }
+        if (maxX < 0 || maxY < 0 || minX >= this.width || minY >= this.height) {
+            return false;
+        }
+        final int x0 = Math.max(0, (int) minX);
+        final int x1 = Math.min(this.width - 1, (int) maxX);
+        final int y0 = Math.max(0, (int) minY);
+        final int y1 = Math.min(this.height - 1, (int) maxY);
+        for (int y = y0; y <= y1; y++) {
+            final int row = y * this.width;
+            for (int x = x0; x <= x1; x++) {
+                if (this.depth[row + x] >= minZ) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public float[] getDepthBuffer() {
+        return this.depth;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+}
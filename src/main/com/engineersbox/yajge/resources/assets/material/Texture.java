@@ -1,6 +1,7 @@
 package com.engineersbox.yajge.resources.assets.material;
 
-import com.engineersbox.yajge.resources.config.io.ConfigHandler;
+import com.engineersbox.yajge.rendering.state.GLStateCache;
+import com.engineersbox.yajge.resources.config.Config;
 import com.engineersbox.yajge.resources.loader.ResourceLoader;
 import org.lwjgl.stb.STBImage;
 import org.lwjgl.system.MemoryStack;
@@ -18,19 +19,37 @@ public class Texture {
     private final int id;
     private final int width;
     private final int height;
+    private final boolean headless;
     private int rows = 1;
     private int cols = 1;
 
     public Texture(final int width,
                    final int height,
                    final int pixelFormat)  {
-        this.id = glGenTextures();
+        this(
+                width,
+                height,
+                pixelFormat,
+                TextureOptions.defaults()
+        );
+    }
+
+    public Texture(final int width,
+                   final int height,
+                   final int pixelFormat,
+                   final TextureOptions options)  {
         this.width = width;
         this.height = height;
-        glBindTexture(GL_TEXTURE_2D, this.id);
+        this.headless = options.headless();
+        if (this.headless) {
+            this.id = 0;
+            return;
+        }
+        this.id = glGenTextures();
+        GLStateCache.bindTexture(GL_TEXTURE_2D, this.id);
         glTexImage2D(
                 GL_TEXTURE_2D,
-                ConfigHandler.CONFIG.render.texture.lodBias,
+                options.lodBias(),
                 GL_DEPTH_COMPONENT,
                 this.width,
                 this.height,
@@ -39,14 +58,14 @@ public class Texture {
                 GL_FLOAT,
                 (ByteBuffer) null
         );
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, getMipmapType());
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, getMipmapType());
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, getMipmapType(options.mipmaps()));
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, getMipmapType(options.mipmaps()));
         glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
         glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
     }
 
-    private static int getMipmapType() {
-        return switch (ConfigHandler.CONFIG.render.texture.mipmaps) {
+    private static int getMipmapType(final Config.MipMapType mipmaps) {
+        return switch (mipmaps) {
             case NONE -> GL_NEAREST_MIPMAP_NEAREST;
             case BILINEAR -> GL_LINEAR_MIPMAP_NEAREST;
             case TRILINEAR -> GL_LINEAR_MIPMAP_LINEAR;
@@ -62,15 +81,37 @@ public class Texture {
     }
 
     public Texture(final String fileName)  {
-        this(ResourceLoader.ioResourceToByteBuffer(fileName));
+        this(fileName, TextureOptions.defaults());
+    }
+
+    public Texture(final String fileName,
+                   final TextureOptions options)  {
+        this(ResourceLoader.ioResourceToByteBuffer(fileName), options);
     }
 
     public Texture(final ByteBuffer imageData) {
+        this(imageData, TextureOptions.defaults());
+    }
+
+    public Texture(final ByteBuffer imageData,
+                   final TextureOptions options) {
+        this.headless = options.headless();
         try (final MemoryStack stack = stackPush()) {
             final IntBuffer w = stack.mallocInt(1);
             final IntBuffer h = stack.mallocInt(1);
             final IntBuffer avChannels = stack.mallocInt(1);
 
+            if (this.headless) {
+                // Only the header is read, there is nothing to upload the pixels to
+                if (!STBImage.stbi_info_from_memory(imageData, w, h, avChannels)) {
+                    throw new RuntimeException("Could not read image info from memory");
+                }
+                this.width = w.get();
+                this.height = h.get();
+                this.id = 0;
+                return;
+            }
+
             final ByteBuffer decodedImage = STBImage.stbi_load_from_memory(imageData, w, h, avChannels, 4);
             if (decodedImage == null) {
                 throw new RuntimeException("Could not load image from memory");
@@ -80,13 +121,13 @@ public class Texture {
             this.height = h.get();
 
             this.id = glGenTextures();
-            glBindTexture(GL_TEXTURE_2D, this.id);
+            GLStateCache.bindTexture(GL_TEXTURE_2D, this.id);
             glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
-            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, getMipmapType());
-            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, getMipmapType());
+            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, getMipmapType(options.mipmaps()));
+            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, getMipmapType(options.mipmaps()));
             glTexImage2D(
                     GL_TEXTURE_2D,
-                    ConfigHandler.CONFIG.render.texture.lodBias,
+                    options.lodBias(),
                     GL_RGBA,
                     this.width,
                     this.height,
@@ -117,7 +158,10 @@ public class Texture {
     }
 
     public void bind() {
-        glBindTexture(GL_TEXTURE_2D, this.id);
+        if (this.headless) {
+            return;
+        }
+        GLStateCache.bindTexture(GL_TEXTURE_2D, this.id);
     }
 
     public int getId() {
@@ -125,6 +169,9 @@ public class Texture {
     }
 
     public void cleanup() {
-        glDeleteTextures(this.id);
+        if (this.headless) {
+            return;
+        }
+        GLStateCache.deleteTexture(this.id);
     }
 }
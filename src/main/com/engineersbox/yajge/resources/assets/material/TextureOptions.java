@@ -0,0 +1,41 @@
+package com.engineersbox.yajge.resources.assets.material;
+
+import com.engineersbox.yajge.resources.config.Config;
+import com.engineersbox.yajge.resources.config.io.ConfigHandler;
+
+/**
+ * How textures are uploaded, taken from an engine's config so textures loaded
+ * for one engine never read another's settings.
+ *
+ * @param lodBias level passed to {@code glTexImage2D}
+ * @param headless whether to skip every GL call and only read image headers
+ */
+public record TextureOptions(int lodBias,
+                             Config.MipMapType mipmaps,
+                             boolean headless) {
+
+    public static TextureOptions fromConfig(final Config config,
+                                            final boolean headless) {
+        return new TextureOptions(
+                config.render.texture.lodBias,
+                config.render.texture.mipmaps,
+                headless
+        );
+    }
+
+    /**
+     * Options from {@link ConfigHandler#CONFIG} when it is set, otherwise the
+     * shipped defaults, for textures uploaded to the current GL context without
+     * an engine context. Headless engines pass their texture cache's options.
+     */
+    public static TextureOptions defaults() {
+        if (ConfigHandler.CONFIG != null) {
+            return fromConfig(ConfigHandler.CONFIG, false);
+        }
+        return new TextureOptions(
+                0,
+                Config.MipMapType.BILINEAR,
+                false
+        );
+    }
+}
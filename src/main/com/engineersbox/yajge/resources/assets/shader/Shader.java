@@ -5,6 +5,7 @@ import com.engineersbox.yajge.rendering.scene.lighting.Attenuation;
 import com.engineersbox.yajge.rendering.scene.lighting.DirectionalLight;
 import com.engineersbox.yajge.rendering.scene.lighting.PointLight;
 import com.engineersbox.yajge.rendering.scene.lighting.SpotLight;
+import com.engineersbox.yajge.rendering.state.GLStateCache;
 import com.engineersbox.yajge.resources.assets.material.Material;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -12,38 +13,95 @@ import org.joml.Matrix4f;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
 import org.joml.Vector4f;
-import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
 
 import java.nio.FloatBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL31.GL_INVALID_INDEX;
+import static org.lwjgl.opengl.GL31.glGetUniformBlockIndex;
+import static org.lwjgl.opengl.GL31.glUniformBlockBinding;
 
 public class Shader {
 
     private static final Logger LOGGER = LogManager.getLogger(Shader.class);
+    private static final ThreadLocal<UploadCounters> UPLOAD_COUNTERS = ThreadLocal.withInitial(UploadCounters::new);
+
+    private static final class UploadCounters {
+        private long issued;
+        private long skipped;
+    }
 
     private final int programId;
     private int vertexShaderId;
     private int fragmentShaderId;
     private int geometryShaderId;
-    private final Map<String, Integer> uniforms;
+    private final Map<String, Uniform> uniforms;
+    private final Map<String, String[]> indexedNames;
+    private final Map<String, Map<String, String>> memberNames;
+    private final boolean headless;
+    private final UploadCounters uploadCounters;
+    private float[] matrixValues;
+    private FloatBuffer matrixBuffer;
 
     public Shader()  {
+        this(false);
+    }
+
+    public Shader(final boolean headless)  {
+        this.headless = headless;
+        this.uploadCounters = UPLOAD_COUNTERS.get();
+        this.uniforms = new HashMap<>();
+        this.indexedNames = new HashMap<>();
+        this.memberNames = new HashMap<>();
+        this.matrixValues = new float[16];
+        if (this.headless) {
+            this.programId = 0;
+            return;
+        }
+        this.matrixBuffer = MemoryUtil.memAllocFloat(16);
         this.programId = glCreateProgram();
         if (this.programId == 0) {
             throw new RuntimeException("Could not create Shader");
         }
-        this.uniforms = new HashMap<>();
     }
 
-    public void createUniform(final String uniformName)  {
+    public Uniform createUniform(final String uniformName)  {
+        if (this.headless) {
+            final Uniform uniform = new Uniform(uniformName, -1);
+            this.uniforms.put(uniformName, uniform);
+            return uniform;
+        }
         final int uniformLocation = glGetUniformLocation(this.programId, uniformName);
         if (uniformLocation < 0) {
             throw new RuntimeException("Could not find uniform:" + uniformName);
         }
-        this.uniforms.put(uniformName, uniformLocation);
+        final Uniform uniform = new Uniform(uniformName, uniformLocation);
+        this.uniforms.put(uniformName, uniform);
+        return uniform;
+    }
+
+    /**
+     * @return the handle of a uniform created on this shader, for callers that
+     * set it often enough to skip the name lookup
+     */
+    public Uniform getUniform(final String uniformName) {
+        final Uniform uniform = this.uniforms.get(uniformName);
+        if (uniform == null) {
+            throw new IllegalArgumentException("Uniform was not created: " + uniformName);
+        }
+        return uniform;
+    }
+
+    /**
+     * @return the handle of an element of an array uniform created with
+     * {@link #createUniform(String, int)}
+     */
+    public Uniform getUniform(final String uniformName,
+                              final int index) {
+        return getUniform(indexedName(uniformName, index));
     }
 
     public void createUniform(final String uniformName,
@@ -53,6 +111,26 @@ public class Shader {
         }
     }
 
+    /**
+     * Points the program's uniform block at a binding point, where a
+     * {@link UniformBlock} of the same layout is bound.
+     *
+     * @return false when the program does not declare the block, or it was
+     * optimised out
+     */
+    public boolean bindUniformBlock(final String blockName,
+                                    final int binding) {
+        if (this.headless) {
+            return false;
+        }
+        final int blockIndex = glGetUniformBlockIndex(this.programId, blockName);
+        if (blockIndex == GL_INVALID_INDEX) {
+            return false;
+        }
+        glUniformBlockBinding(this.programId, blockIndex, binding);
+        return true;
+    }
+
     public void createPointLightListUniform(final String uniformName,
                                             final int size)  {
         for (int i = 0; i < size; i++) {
@@ -102,71 +180,206 @@ public class Shader {
         createUniform(uniformName + ".density");
     }
 
-    public void setUniform(final String uniformName,
+    public void setUniform(final Uniform uniform,
                            final Matrix4f value) {
+        if (this.headless) {
+            return;
+        }
+        value.get(this.matrixValues);
+        uploadMatrices(uniform, this.matrixValues, 0, 1);
+    }
+
+    public void setUniform(final Uniform uniform,
+                           final Matrix4f[] matrices) {
+        if (this.headless) {
+            return;
+        }
+        final int length = matrices != null ? matrices.length : 0;
+        if (this.matrixValues.length < 16 * length) {
+            this.matrixValues = new float[16 * length];
+        }
+        for (int i = 0; i < length; i++) {
+            matrices[i].get(this.matrixValues, 16 * i);
+        }
+        uploadMatrices(uniform, this.matrixValues, 0, length);
+    }
+
+    /**
+     * Uploads {@code count} consecutive column-major matrices starting at
+     * {@code offset} in the array.
+     */
+    public void setUniformMatrices(final Uniform uniform,
+                                   final float[] values,
+                                   final int offset,
+                                   final int count) {
+        if (this.headless) {
+            return;
+        }
+        uploadMatrices(uniform, values, offset, count);
+    }
+
+    public void setUniform(final Uniform uniform,
+                           final int value) {
+        if (this.headless) {
+            return;
+        }
+        if (skip(uniform.update(value))) {
+            return;
+        }
+        glUniform1i(uniform.getLocation(), value);
+    }
+
+    public void setUniform(final Uniform uniform,
+                           final float value) {
+        if (this.headless) {
+            return;
+        }
+        if (skip(uniform.update(value))) {
+            return;
+        }
+        glUniform1f(uniform.getLocation(), value);
+    }
+
+    public void setUniform(final Uniform uniform,
+                           final float x,
+                           final float y) {
+        if (this.headless) {
+            return;
+        }
+        if (skip(uniform.update(x, y))) {
+            return;
+        }
+        glUniform2f(uniform.getLocation(), x, y);
+    }
+
+    public void setUniform(final Uniform uniform,
+                           final Vector3f value) {
+        if (this.headless) {
+            return;
+        }
+        if (skip(uniform.update(value.x, value.y, value.z))) {
+            return;
+        }
+        glUniform3f(uniform.getLocation(), value.x, value.y, value.z);
+    }
+
+    public void setUniform(final Uniform uniform,
+                           final Vector4f value) {
+        if (this.headless) {
+            return;
+        }
+        if (skip(uniform.update(value.x, value.y, value.z, value.w))) {
+            return;
+        }
+        glUniform4f(uniform.getLocation(), value.x, value.y, value.z, value.w);
+    }
+
+    private void uploadMatrices(final Uniform uniform,
+                                final float[] values,
+                                final int offset,
+                                final int count) {
+        final int floats = 16 * count;
+        if (skip(uniform.update(values, offset, floats))) {
+            return;
+        }
+        if (this.matrixBuffer.capacity() < floats) {
+            this.matrixBuffer = MemoryUtil.memRealloc(this.matrixBuffer, floats);
+        }
+        this.matrixBuffer.clear();
+        this.matrixBuffer.put(values, offset, floats).flip();
+        glUniformMatrix4fv(uniform.getLocation(), false, this.matrixBuffer);
+    }
 
-        try (final MemoryStack stack = MemoryStack.stackPush()) {
-            glUniformMatrix4fv(
-                    this.uniforms.get(uniformName),
-                    false,
-                    value.get(stack.mallocFloat(16))
-            );
+    private boolean skip(final boolean changed) {
+        if (changed) {
+            this.uploadCounters.issued++;
+            return false;
         }
+        this.uploadCounters.skipped++;
+        return true;
+    }
+
+    /**
+     * @return uniform uploads passed to GL by shaders created on this thread,
+     * since the last {@link #resetUploadCounters()}
+     */
+    public static long getUploadsIssued() {
+        return UPLOAD_COUNTERS.get().issued;
+    }
+
+    /**
+     * @return uniform uploads dropped because the value was unchanged, by
+     * shaders created on this thread, since the last
+     * {@link #resetUploadCounters()}
+     */
+    public static long getUploadsSkipped() {
+        return UPLOAD_COUNTERS.get().skipped;
+    }
+
+    public static void resetUploadCounters() {
+        final UploadCounters counters = UPLOAD_COUNTERS.get();
+        counters.issued = 0;
+        counters.skipped = 0;
+    }
+
+    public void setUniform(final String uniformName,
+                           final Matrix4f value) {
+        setUniform(getUniform(uniformName), value);
     }
 
     public void setUniform(final String uniformName,
                            final Matrix4f value,
                            final int index) {
-        setUniform(uniformName + "[" + index  + "]", value);
+        setUniform(indexedName(uniformName, index), value);
     }
 
     public void setUniform(final String uniformName,
                            final Matrix4f[] matrices) {
-        try (final MemoryStack stack = MemoryStack.stackPush()) {
-            final int length = matrices != null ? matrices.length : 0;
-            final FloatBuffer fb = stack.mallocFloat(16 * length);
-            for (int i = 0; i < length; i++) {
-                matrices[i].get(16 * i, fb);
-            }
-            glUniformMatrix4fv(this.uniforms.get(uniformName), false, fb);
-        }
+        setUniform(getUniform(uniformName), matrices);
+    }
+
+    public void setUniformMatrices(final String uniformName,
+                                   final float[] values,
+                                   final int offset,
+                                   final int count) {
+        setUniformMatrices(getUniform(uniformName), values, offset, count);
     }
 
     public void setUniform(final String uniformName,
                            final int value) {
-        glUniform1i(this.uniforms.get(uniformName), value);
+        setUniform(getUniform(uniformName), value);
     }
 
     public void setUniform(final String uniformName,
                            final float value) {
-        glUniform1f(this.uniforms.get(uniformName), value);
+        setUniform(getUniform(uniformName), value);
     }
 
     public void setUniform(final String uniformName,
                            final float value,
                            final int index) {
-        setUniform(uniformName + "[" + index  + "]", value);
+        setUniform(indexedName(uniformName, index), value);
     }
 
     public void setUniform(final String uniformName,
                            final float x,
                            final float y) {
-        glUniform2f(this.uniforms.get(uniformName), x, y);
+        setUniform(getUniform(uniformName), x, y);
     }
 
     public void setUniform(final String uniformName,
                            final Vector2f value) {
-        glUniform2f(this.uniforms.get(uniformName), value.x, value.y);
+        setUniform(getUniform(uniformName), value.x, value.y);
     }
 
     public void setUniform(final String uniformName,
                            final Vector3f value) {
-        glUniform3f(this.uniforms.get(uniformName), value.x, value.y, value.z);
+        setUniform(getUniform(uniformName), value);
     }
 
     public void setUniform(final String uniformName,
                            final Vector4f value) {
-        glUniform4f(this.uniforms.get(uniformName), value.x, value.y, value.z, value.w);
+        setUniform(getUniform(uniformName), value);
     }
 
     public void setUniform(final String uniformName,
@@ -182,18 +395,18 @@ public class Shader {
     public void setUniform(final String uniformName,
                            final PointLight pointLight,
                            final int pos) {
-        setUniform(uniformName + "[" + pos + "]", pointLight);
+        setUniform(indexedName(uniformName, pos), pointLight);
     }
 
     public void setUniform(final String uniformName,
                            final PointLight pointLight) {
-        setUniform(uniformName + ".colour", pointLight.getColor());
-        setUniform(uniformName + ".position", pointLight.getPosition());
-        setUniform(uniformName + ".intensity", pointLight.getIntensity());
+        setUniform(memberName(uniformName, ".colour"), pointLight.getColor());
+        setUniform(memberName(uniformName, ".position"), pointLight.getPosition());
+        setUniform(memberName(uniformName, ".intensity"), pointLight.getIntensity());
         final Attenuation att = pointLight.getAttenuation();
-        setUniform(uniformName + ".att.constant", att.getConstant());
-        setUniform(uniformName + ".att.linear", att.getLinear());
-        setUniform(uniformName + ".att.exponent", att.getExponent());
+        setUniform(memberName(uniformName, ".att.constant"), att.getConstant());
+        setUniform(memberName(uniformName, ".att.linear"), att.getLinear());
+        setUniform(memberName(uniformName, ".att.exponent"), att.getExponent());
     }
 
     public void setUniform(final String uniformName,
@@ -209,37 +422,74 @@ public class Shader {
     public void setUniform(final String uniformName,
                            final SpotLight spotLight,
                            final int pos) {
-        setUniform(uniformName + "[" + pos + "]", spotLight);
+        setUniform(indexedName(uniformName, pos), spotLight);
     }
 
     public void setUniform(final String uniformName,
                            final SpotLight spotLight) {
-        setUniform(uniformName + ".pl", spotLight.getPointLight());
-        setUniform(uniformName + ".conedir", spotLight.getConeDirection());
-        setUniform(uniformName + ".cutoff", spotLight.getCutOff());
+        setUniform(memberName(uniformName, ".pl"), spotLight.getPointLight());
+        setUniform(memberName(uniformName, ".conedir"), spotLight.getConeDirection());
+        setUniform(memberName(uniformName, ".cutoff"), spotLight.getCutOff());
     }
 
     public void setUniform(final String uniformName,
                            final DirectionalLight dirLight) {
-        setUniform(uniformName + ".colour", dirLight.getColor());
-        setUniform(uniformName + ".direction", dirLight.getDirection());
-        setUniform(uniformName + ".intensity", dirLight.getIntensity());
+        setUniform(memberName(uniformName, ".colour"), dirLight.getColor());
+        setUniform(memberName(uniformName, ".direction"), dirLight.getDirection());
+        setUniform(memberName(uniformName, ".intensity"), dirLight.getIntensity());
     }
 
     public void setUniform(final String uniformName,
                            final Material material) {
-        setUniform(uniformName + ".diffuse", material.getDiffuseColour());
-        setUniform(uniformName + ".specular", material.getSpecularColour());
-        setUniform(uniformName + ".hasTexture", material.isTextured() ? 1 : 0);
-        setUniform(uniformName + ".hasNormalMap", material.hasNormalMap() ? 1 : 0);
-        setUniform(uniformName + ".reflectance", material.getReflectance());
+        setUniform(memberName(uniformName, ".diffuse"), material.getDiffuseColour());
+        setUniform(memberName(uniformName, ".specular"), material.getSpecularColour());
+        setUniform(memberName(uniformName, ".hasTexture"), material.isTextured() ? 1 : 0);
+        setUniform(memberName(uniformName, ".hasNormalMap"), material.hasNormalMap() ? 1 : 0);
+        setUniform(memberName(uniformName, ".reflectance"), material.getReflectance());
     }
 
     public void setUniform(final String uniformName,
                            final Fog fog) {
-        setUniform(uniformName + ".activeFog", fog.isActive() ? 1 : 0);
-        setUniform(uniformName + ".colour", fog.getColour());
-        setUniform(uniformName + ".density", fog.getDensity());
+        setUniform(memberName(uniformName, ".activeFog"), fog.isActive() ? 1 : 0);
+        setUniform(memberName(uniformName, ".colour"), fog.getColour());
+        setUniform(memberName(uniformName, ".density"), fog.getDensity());
+    }
+
+    /**
+     * Composed names for struct members and array elements are cached per shader
+     * so setting uniforms every frame does not build new strings.
+     */
+    private String indexedName(final String uniformName,
+                               final int index) {
+        String[] names = this.indexedNames.get(uniformName);
+        if (names == null || names.length <= index) {
+            final String[] grown = new String[index + 1];
+            if (names != null) {
+                System.arraycopy(names, 0, grown, 0, names.length);
+            }
+            names = grown;
+            this.indexedNames.put(uniformName, names);
+        }
+        String name = names[index];
+        if (name == null) {
+            name = uniformName + "[" + index + "]";
+            names[index] = name;
+        }
+        return name;
+    }
+
+    private String memberName(final String uniformName,
+                              final String member) {
+        final Map<String, String> members = this.memberNames.computeIfAbsent(
+                uniformName,
+                (final String key) -> new HashMap<>()
+        );
+        String name = members.get(member);
+        if (name == null) {
+            name = uniformName + member;
+            members.put(member, name);
+        }
+        return name;
     }
 
     public void createVertexShader(final String shaderCode)  {
@@ -252,6 +502,9 @@ public class Shader {
 
     protected int createShader(final String shaderCode,
                                final int shaderType)  {
+        if (this.headless) {
+            return 0;
+        }
         final int shaderId = glCreateShader(shaderType);
         if (shaderId == 0) {
             throw new RuntimeException("Error creating shader. Type: " + shaderType);
@@ -269,6 +522,9 @@ public class Shader {
     }
 
     public void link()  {
+        if (this.headless) {
+            return;
+        }
         glLinkProgram(this.programId);
         if (glGetProgrami(this.programId, GL_LINK_STATUS) == 0) {
             throw new RuntimeException("Error linking Shader code: " + glGetProgramInfoLog(this.programId, 1024));
@@ -291,17 +547,27 @@ public class Shader {
     }
 
     public void bind() {
-        glUseProgram(this.programId);
+        if (this.headless) {
+            return;
+        }
+        GLStateCache.useProgram(this.programId);
     }
 
     public void unbind() {
-        glUseProgram(0);
+        if (this.headless) {
+            return;
+        }
+        GLStateCache.useProgram(0);
     }
 
     public void cleanup() {
         unbind();
         if (this.programId != 0) {
-            glDeleteProgram(this.programId);
+            GLStateCache.deleteProgram(this.programId);
+        }
+        if (this.matrixBuffer != null) {
+            MemoryUtil.memFree(this.matrixBuffer);
+            this.matrixBuffer = null;
         }
     }
 }
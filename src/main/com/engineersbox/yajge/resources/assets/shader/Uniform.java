@@ -0,0 +1,130 @@
+package com.engineersbox.yajge.resources.assets.shader;
+
+import java.util.Arrays;
+
+/**
+ * Location of a uniform in one {@link Shader} program, resolved once when the
+ * uniform is created, together with a copy of the last value uploaded through
+ * it. Values are compared by their raw bits, so uploading the same value twice
+ * costs a comparison instead of a GL call. Handles are only valid for the shader
+ * that created them.
+ */
+public class Uniform {
+
+    private static final int UNKNOWN = -1;
+
+    private final String name;
+    private final int location;
+    private int[] last;
+    private int lastCount;
+
+    Uniform(final String name,
+            final int location) {
+        this.name = name;
+        this.location = location;
+        this.last = new int[4];
+        this.lastCount = UNKNOWN;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public int getLocation() {
+        return this.location;
+    }
+
+    /**
+     * Forgets the last uploaded value, forcing the next upload through.
+     */
+    public void invalidate() {
+        this.lastCount = UNKNOWN;
+    }
+
+    boolean update(final int value) {
+        if (this.lastCount == 1 && this.last[0] == value) {
+            return false;
+        }
+        this.last[0] = value;
+        this.lastCount = 1;
+        return true;
+    }
+
+    boolean update(final float value) {
+        return update(Float.floatToRawIntBits(value));
+    }
+
+    boolean update(final float x,
+                   final float y) {
+        final int bx = Float.floatToRawIntBits(x);
+        final int by = Float.floatToRawIntBits(y);
+        if (this.lastCount == 2 && this.last[0] == bx && this.last[1] == by) {
+            return false;
+        }
+        this.last[0] = bx;
+        this.last[1] = by;
+        this.lastCount = 2;
+        return true;
+    }
+
+    boolean update(final float x,
+                   final float y,
+                   final float z) {
+        final int bx = Float.floatToRawIntBits(x);
+        final int by = Float.floatToRawIntBits(y);
+        final int bz = Float.floatToRawIntBits(z);
+        if (this.lastCount == 3 && this.last[0] == bx && this.last[1] == by && this.last[2] == bz) {
+            return false;
+        }
+        this.last[0] = bx;
+        this.last[1] = by;
+        this.last[2] = bz;
+        this.lastCount = 3;
+        return true;
+    }
+
+    boolean update(final float x,
+                   final float y,
+                   final float z,
+                   final float w) {
+        final int bx = Float.floatToRawIntBits(x);
+        final int by = Float.floatToRawIntBits(y);
+        final int bz = Float.floatToRawIntBits(z);
+        final int bw = Float.floatToRawIntBits(w);
+        if (this.lastCount == 4
+                && this.last[0] == bx
+                && this.last[1] == by
+                && this.last[2] == bz
+                && this.last[3] == bw) {
+            return false;
+        }
+        this.last[0] = bx;
+        this.last[1] = by;
+        this.last[2] = bz;
+        this.last[3] = bw;
+        this.lastCount = 4;
+        return true;
+    }
+
+    boolean update(final float[] values,
+                   final int offset,
+                   final int count) {
+        if (this.lastCount == count) {
+            int i = 0;
+            while (i < count && this.last[i] == Float.floatToRawIntBits(values[offset + i])) {
+                i++;
+            }
+            if (i == count) {
+                return false;
+            }
+        }
+        if (this.last.length < count) {
+            this.last = Arrays.copyOf(this.last, count);
+        }
+        for (int i = 0; i < count; i++) {
+            this.last[i] = Float.floatToRawIntBits(values[offset + i]);
+        }
+        this.lastCount = count;
+        return true;
+    }
+}
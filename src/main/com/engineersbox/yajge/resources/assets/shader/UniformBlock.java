@@ -0,0 +1,193 @@
+package com.engineersbox.yajge.resources.assets.shader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL44.GL_MAP_COHERENT_BIT;
+import static org.lwjgl.opengl.GL44.GL_MAP_PERSISTENT_BIT;
+import static org.lwjgl.opengl.GL44.glBufferStorage;
+
+/**
+ * Uniform buffer holding one std140 block, shared by every {@link Shader} that
+ * declares it through {@link Shader#bindUniformBlock(String, int)}. The buffer
+ * is a ring of {@value #SEGMENTS} copies of the block, so the copy written for
+ * a frame never overlaps one the GPU may still be reading. When buffer storage
+ * is available the ring stays persistently mapped and fenced per segment,
+ * otherwise each copy is written to a staging buffer and uploaded on
+ * {@link #commit()}. Only use from the thread owning the GL context.
+ */
+public class UniformBlock {
+
+    private static final Logger LOGGER = LogManager.getLogger(UniformBlock.class);
+    public static final int SEGMENTS = 3;
+    private static final long FENCE_TIMEOUT_NS = 1_000_000_000L;
+
+    private final String name;
+    private final int binding;
+    private final int size;
+    private final boolean headless;
+    private final long[] fences;
+    private int bufferId;
+    private int stride;
+    private boolean persistent;
+    private ByteBuffer mapped;
+    private ByteBuffer[] segments;
+    private ByteBuffer staging;
+    private int segment;
+
+    /**
+     * @param size block size in bytes, as laid out by std140
+     */
+    public UniformBlock(final String name,
+                        final int binding,
+                        final int size,
+                        final boolean headless) {
+        this.name = name;
+        this.binding = binding;
+        this.size = size;
+        this.headless = headless;
+        this.fences = new long[SEGMENTS];
+        this.segment = SEGMENTS - 1;
+        if (this.headless) {
+            this.staging = MemoryUtil.memCalloc(size);
+            return;
+        }
+        final int alignment = glGetInteger(GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT);
+        this.stride = (size + alignment - 1) / alignment * alignment;
+        final long capacity = (long) this.stride * SEGMENTS;
+        final GLCapabilities capabilities = GL.getCapabilities();
+        this.persistent = capabilities.OpenGL44 || capabilities.GL_ARB_buffer_storage;
+        this.bufferId = glGenBuffers();
+        glBindBuffer(GL_UNIFORM_BUFFER, this.bufferId);
+        if (this.persistent) {
+            final int flags = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+            glBufferStorage(GL_UNIFORM_BUFFER, capacity, flags);
+            this.mapped = glMapBufferRange(GL_UNIFORM_BUFFER, 0, capacity, flags);
+            if (this.mapped == null) {
+                throw new RuntimeException("Could not map uniform block: " + name);
+            }
+            this.segments = new ByteBuffer[SEGMENTS];
+            for (int i = 0; i < SEGMENTS; i++) {
+                this.segments[i] = this.mapped.slice(i * this.stride, size).order(ByteOrder.nativeOrder());
+            }
+        } else {
+            glBufferData(GL_UNIFORM_BUFFER, capacity, GL_DYNAMIC_DRAW);
+            this.staging = MemoryUtil.memCalloc(size);
+        }
+        glBindBuffer(GL_UNIFORM_BUFFER, 0);
+        LOGGER.debug(
+                "Created uniform block {} at binding {}, {} bytes, persistently mapped: {}",
+                name,
+                binding,
+                size,
+                this.persistent
+        );
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public int getBinding() {
+        return this.binding;
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    public boolean isPersistent() {
+        return this.persistent;
+    }
+
+    /**
+     * Moves to the next segment of the ring, waiting for the GPU to finish with
+     * it first if needed.
+     *
+     * @return buffer to write the block into with absolute puts, offsets are
+     * relative to the start of the block
+     */
+    public ByteBuffer begin() {
+        this.segment = (this.segment + 1) % SEGMENTS;
+        if (!this.persistent) {
+            return this.staging;
+        }
+        awaitFence(this.segment);
+        return this.segments[this.segment];
+    }
+
+    /**
+     * Makes the block written since {@link #begin()} visible and binds its
+     * segment to the block's binding point.
+     */
+    public void commit() {
+        if (this.headless) {
+            return;
+        }
+        final long offset = (long) this.segment * this.stride;
+        if (!this.persistent) {
+            glBindBuffer(GL_UNIFORM_BUFFER, this.bufferId);
+            glBufferSubData(GL_UNIFORM_BUFFER, offset, this.staging);
+            glBindBuffer(GL_UNIFORM_BUFFER, 0);
+        }
+        glBindBufferRange(GL_UNIFORM_BUFFER, this.binding, this.bufferId, offset, this.size);
+    }
+
+    /**
+     * Marks the current segment as in use by every command issued so far. Call
+     * once the frame's draws reading the block have been submitted.
+     */
+    public void fence() {
+        if (!this.persistent) {
+            return;
+        }
+        if (this.fences[this.segment] != 0) {
+            glDeleteSync(this.fences[this.segment]);
+        }
+        this.fences[this.segment] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+
+    private void awaitFence(final int index) {
+        final long fence = this.fences[index];
+        if (fence == 0) {
+            return;
+        }
+        final int status = glClientWaitSync(fence, GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_TIMEOUT_NS);
+        if (status == GL_TIMEOUT_EXPIRED || status == GL_WAIT_FAILED) {
+            LOGGER.warn("Uniform block {} segment {} was not released by the GPU in time", this.name, index);
+        }
+        glDeleteSync(fence);
+        this.fences[index] = 0;
+    }
+
+    public void cleanup() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            if (this.fences[i] != 0) {
+                glDeleteSync(this.fences[i]);
+                this.fences[i] = 0;
+            }
+        }
+        if (this.bufferId != 0) {
+            if (this.persistent) {
+                glBindBuffer(GL_UNIFORM_BUFFER, this.bufferId);
+                glUnmapBuffer(GL_UNIFORM_BUFFER);
+                glBindBuffer(GL_UNIFORM_BUFFER, 0);
+                this.mapped = null;
+                this.segments = null;
+            }
+            glDeleteBuffers(this.bufferId);
+            this.bufferId = 0;
+        }
+        if (this.staging != null) {
+            MemoryUtil.memFree(this.staging);
+            this.staging = null;
+        }
+    }
+}
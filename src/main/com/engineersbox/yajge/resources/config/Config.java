@@ -16,6 +16,11 @@ public class Config {
     BILINEAR,
     TRILINEAR;
   }
+  // NOTE: incomplete #62 implementation
+  public enum FramePacerType {
+    SLEEP,
+    HYBRID;
+  }
 
   public static class Engine {
     public final Engine.Features features;
@@ -23,14 +28,34 @@ public class Config {
     public final Engine.Resources resources;
 
     public static class Features {
+      public final int allocationBudgetBytes;
+      public final boolean allocationStrict;
+      public final boolean allocationTracker;
+      public final int allocationWarmupFrames;
       public final GraphicsAPIType graphicsAPI;
+      public final boolean gpuTimers;
+      public final boolean headless;
+      public final boolean indirectDraw;
+      public final boolean pipelinedLoop;
+      public final boolean profiler;
+      public final java.lang.String profilerTrace;
       public final boolean showFPS;
 
       public Features(
           com.typesafe.config.Config c,
           java.lang.String parentPath,
           $TsCfgValidator $tsCfgValidator) {
+        this.allocationBudgetBytes = c.hasPathOrNull("allocationBudgetBytes") ? c.getInt("allocationBudgetBytes") : 0;
+        this.allocationStrict = c.hasPathOrNull("allocationStrict") && c.getBoolean("allocationStrict");
+        this.allocationTracker = c.hasPathOrNull("allocationTracker") && c.getBoolean("allocationTracker");
+        this.allocationWarmupFrames = c.hasPathOrNull("allocationWarmupFrames") ? c.getInt("allocationWarmupFrames") : 300;
         this.graphicsAPI = GraphicsAPIType.valueOf(c.getString("graphicsAPI"));
+        this.gpuTimers = c.hasPathOrNull("gpuTimers") && c.getBoolean("gpuTimers");
+        this.headless = c.hasPathOrNull("headless") && c.getBoolean("headless");
+        this.indirectDraw = !c.hasPathOrNull("indirectDraw") || c.getBoolean("indirectDraw");
+        this.pipelinedLoop = c.hasPathOrNull("pipelinedLoop") && c.getBoolean("pipelinedLoop");
+        this.profiler = c.hasPathOrNull("profiler") && c.getBoolean("profiler");
+        this.profilerTrace = c.hasPathOrNull("profilerTrace") ? c.getString("profilerTrace") : null;
         this.showFPS = c.hasPathOrNull("showFPS") && c.getBoolean("showFPS");
       }
     }
@@ -123,8 +148,12 @@ public class Config {
     public final Render.Texture texture;
 
     public static class Camera {
+      public final double contributionCullingPixels;
       public final double fov;
       public final boolean frustrumCulling;
+      public final boolean occlusionCulling;
+      public final double visibilityCacheThreshold;
+      public final boolean visibilityCaching;
       public final double zFar;
       public final double zNear;
 
@@ -132,9 +161,17 @@ public class Config {
           com.typesafe.config.Config c,
           java.lang.String parentPath,
           $TsCfgValidator $tsCfgValidator) {
+        this.contributionCullingPixels =
+            c.hasPathOrNull("contributionCullingPixels") ? c.getDouble("contributionCullingPixels") : 0.0;
         this.fov = c.hasPathOrNull("fov") ? c.getDouble("fov") : 60.0;
         this.frustrumCulling =
             !c.hasPathOrNull("frustrumCulling") || c.getBoolean("frustrumCulling");
+        this.occlusionCulling =
+            c.hasPathOrNull("occlusionCulling") && c.getBoolean("occlusionCulling");
+        this.visibilityCacheThreshold =
+            c.hasPathOrNull("visibilityCacheThreshold") ? c.getDouble("visibilityCacheThreshold") : 0.0;
+        this.visibilityCaching =
+            c.hasPathOrNull("visibilityCaching") && c.getBoolean("visibilityCaching");
         this.zFar = c.hasPathOrNull("zFar") ? c.getDouble("zFar") : 1000.0;
         this.zNear = c.hasPathOrNull("zNear") ? c.getDouble("zNear") : 0.01;
       }
@@ -191,9 +228,12 @@ public class Config {
 
   public static class Video {
     public final int fps;
+    public final FramePacerType framePacer;
     public final boolean fullscreen;
     public final int height;
+    public final int maxCatchUpSteps;
     public final int monitor;
+    public final int pacerSpinMicros;
     public final boolean showFps;
     public final int ups;
     public final boolean vsync;
@@ -204,9 +244,12 @@ public class Config {
         java.lang.String parentPath,
         $TsCfgValidator $tsCfgValidator) {
       this.fps = c.hasPathOrNull("fps") ? c.getInt("fps") : 60;
+      this.framePacer = c.hasPathOrNull("framePacer") ? FramePacerType.valueOf(c.getString("framePacer")) : FramePacerType.HYBRID;
       this.fullscreen = c.hasPathOrNull("fullscreen") && c.getBoolean("fullscreen");
       this.height = c.hasPathOrNull("height") ? c.getInt("height") : 1080;
+      this.maxCatchUpSteps = c.hasPathOrNull("maxCatchUpSteps") ? c.getInt("maxCatchUpSteps") : 5;
       this.monitor = c.hasPathOrNull("monitor") ? c.getInt("monitor") : 0;
+      this.pacerSpinMicros = c.hasPathOrNull("pacerSpinMicros") ? c.getInt("pacerSpinMicros") : 1000;
       this.showFps = !c.hasPathOrNull("showFps") || c.getBoolean("showFps");
       this.ups = c.hasPathOrNull("ups") ? c.getInt("ups") : 30;
       this.vsync = !c.hasPathOrNull("vsync") || c.getBoolean("vsync");
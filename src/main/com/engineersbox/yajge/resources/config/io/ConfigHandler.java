@@ -3,15 +3,23 @@ package com.engineersbox.yajge.resources.config.io;
 import com.engineersbox.yajge.resources.config.Config;
 import com.typesafe.config.ConfigFactory;
 
-import java.io.File;
+import java.nio.file.Path;
 
 public abstract class ConfigHandler {
     private static final String CONFIG_FILE_PARAMETER = "yajge.config";
+    /**
+     * Process wide config read from {@code -Dyajge.config}, or null when the
+     * property is not set and every engine is given its own config.
+     */
     public static final Config CONFIG;
 
     static {
-        final File configFile = new File(System.getProperty(CONFIG_FILE_PARAMETER));
-        final com.typesafe.config.Config typesafeConfig = ConfigFactory.parseFile(configFile).resolve();
-        CONFIG = new Config(typesafeConfig);
+        final String configFile = System.getProperty(CONFIG_FILE_PARAMETER);
+        CONFIG = configFile == null ? null : load(Path.of(configFile));
+    }
+
+    public static Config load(final Path configPath) {
+        final com.typesafe.config.Config typesafeConfig = ConfigFactory.parseFile(configPath.toFile()).resolve();
+        return new Config(typesafeConfig);
     }
 }
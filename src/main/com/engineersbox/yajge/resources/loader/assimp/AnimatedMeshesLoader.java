@@ -2,12 +2,17 @@ package com.engineersbox.yajge.resources.loader.assimp;
 
 import com.engineersbox.yajge.animation.AnimatedFrame;
 import com.engineersbox.yajge.animation.Animation;
+import com.engineersbox.yajge.core.engine.EngineContext;
+import com.engineersbox.yajge.debug.jfr.MeshImportEvent;
+import com.engineersbox.yajge.debug.profiler.Profiler;
 import com.engineersbox.yajge.resources.assets.material.Material;
 import com.engineersbox.yajge.scene.element.animation.AnimatedSceneElement;
 import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import com.engineersbox.yajge.scene.spatial.BoundingVolume;
 import com.engineersbox.yajge.util.ListUtils;
 import org.joml.Matrix4f;
 import org.joml.Quaternionf;
+import org.joml.Vector3f;
 import org.lwjgl.PointerBuffer;
 import org.lwjgl.assimp.*;
 
@@ -20,21 +25,69 @@ import static org.lwjgl.assimp.Assimp.*;
 
 public class AnimatedMeshesLoader extends StaticMeshesLoader {
 
-    public static AnimatedSceneElement loadAnimatedSceneElement(final String resourcePath,
-                                                                final String texturesDir)  {
+    private static final int LOAD_SCOPE = Profiler.registerScope("AnimatedMeshesLoader.load");
+    private static final int DEFAULT_FLAGS = aiProcess_GenSmoothNormals
+            | aiProcess_JoinIdenticalVertices
+            | aiProcess_Triangulate
+            | aiProcess_FixInfacingNormals
+            | aiProcess_LimitBoneWeights;
+
+    public static AnimatedSceneElement loadAnimatedSceneElement(final EngineContext context,
+                                                                final String resourcePath,
+                                                                final String texturesDir) {
         return loadAnimatedSceneElement(
+                context,
                 resourcePath,
                 texturesDir,
-                aiProcess_GenSmoothNormals
-                        | aiProcess_JoinIdenticalVertices
-                        | aiProcess_Triangulate
-                        | aiProcess_FixInfacingNormals
-                        | aiProcess_LimitBoneWeights);
+                DEFAULT_FLAGS
+        );
     }
 
-    public static AnimatedSceneElement loadAnimatedSceneElement(final String resourcePath,
+    public static AnimatedSceneElement loadAnimatedSceneElement(final EngineContext context,
+                                                                final String resourcePath,
                                                                 final String texturesDir,
                                                                 final int flags) {
+        return loadAnimatedSceneElement(
+                context.getTextureCache(),
+                resourcePath,
+                texturesDir,
+                flags
+        );
+    }
+
+    private static AnimatedSceneElement loadAnimatedSceneElement(final TextureCache textureCache,
+                                                                 final String resourcePath,
+                                                                 final String texturesDir,
+                                                                 final int flags) {
+        final MeshImportEvent event = new MeshImportEvent();
+        event.begin();
+        Profiler.begin(LOAD_SCOPE);
+        try {
+            final AnimatedSceneElement sceneElement = importAnimatedSceneElement(
+                    textureCache,
+                    resourcePath,
+                    texturesDir,
+                    flags
+            );
+            event.end();
+            if (event.shouldCommit()) {
+                StaticMeshesLoader.commitImportEvent(
+                        event,
+                        resourcePath,
+                        true,
+                        sceneElement.getMeshes()
+                );
+            }
+            return sceneElement;
+        } finally {
+            Profiler.end(LOAD_SCOPE);
+        }
+    }
+
+    private static AnimatedSceneElement importAnimatedSceneElement(final TextureCache textureCache,
+                                                                   final String resourcePath,
+                                                                   final String texturesDir,
+                                                                   final int flags) {
         final AIScene aiScene = aiImportFile(resourcePath, flags);
         if (aiScene == null) {
             throw new RuntimeException("Error loading model");
@@ -48,7 +101,7 @@ public class AnimatedMeshesLoader extends StaticMeshesLoader {
         final List<Material> materials = new ArrayList<>();
         for (int i = 0; i < numMaterials; i++) {
             final AIMaterial aiMaterial = AIMaterial.create(aiMaterials.get(i));
-            processMaterial(aiMaterial, materials, texturesDir);
+            processMaterial(aiMaterial, materials, texturesDir, textureCache);
         }
 
         final List<Bone> boneList = new ArrayList<>();
@@ -58,10 +111,23 @@ public class AnimatedMeshesLoader extends StaticMeshesLoader {
             throw new RuntimeException("Could not retrieve meshes");
         }
         final Mesh[] meshes = new Mesh[numMeshes];
+        final int[][] meshJointIndices = new int[numMeshes][];
+        final float[][] meshWeights = new float[numMeshes][];
         for (int i = 0; i < numMeshes; i++) {
             final AIMesh aiMesh = AIMesh.create(aiMeshes.get(i));
-            final Mesh mesh = processMesh(aiMesh, materials, boneList);
+            final List<Integer> boneIds = new ArrayList<>();
+            final List<Float> weights = new ArrayList<>();
+            final Mesh mesh = processMesh(
+                    aiMesh,
+                    materials,
+                    boneList,
+                    boneIds,
+                    weights,
+                    textureCache.getOptions().headless()
+            );
             meshes[i] = mesh;
+            meshJointIndices[i] = ListUtils.intListToArray(boneIds);
+            meshWeights[i] = ListUtils.floatListToArray(weights);
         }
         final AINode sceneRoot = aiScene.mRootNode();
         if (sceneRoot == null) {
@@ -75,9 +141,59 @@ public class AnimatedMeshesLoader extends StaticMeshesLoader {
                 rootNode,
                 globalInverseTransformation
         );
+        for (final Animation animation : animations.values()) {
+            bakeAnimationBounds(animation, meshes, meshJointIndices, meshWeights);
+        }
         return new AnimatedSceneElement(meshes, animations);
     }
 
+    /**
+     * Skins every vertex with every frame of the animation the same way the
+     * shaders do and stores the box around all of the resulting positions, so
+     * culling never has to pose the meshes at runtime.
+     */
+    private static void bakeAnimationBounds(final Animation animation,
+                                            final Mesh[] meshes,
+                                            final int[][] meshJointIndices,
+                                            final float[][] meshWeights) {
+        final Vector3f min = new Vector3f(Float.POSITIVE_INFINITY);
+        final Vector3f max = new Vector3f(Float.NEGATIVE_INFINITY);
+        final Vector3f joint = new Vector3f();
+        final Vector3f skinned = new Vector3f();
+        for (final AnimatedFrame frame : animation.getFrames()) {
+            final Matrix4f[] jointMatrices = frame.getJointMatrices();
+            for (int m = 0; m < meshes.length; m++) {
+                final float[] positions = meshes[m].getPositions();
+                final int[] jointIndices = meshJointIndices[m];
+                final float[] weights = meshWeights[m];
+                for (int v = 0; v < positions.length / 3; v++) {
+                    final float x = positions[v * 3];
+                    final float y = positions[v * 3 + 1];
+                    final float z = positions[v * 3 + 2];
+                    skinned.zero();
+                    int count = 0;
+                    for (int w = 0; w < Mesh.MAX_WEIGHTS; w++) {
+                        final int index = v * Mesh.MAX_WEIGHTS + w;
+                        if (index >= weights.length || weights[index] <= 0) {
+                            continue;
+                        }
+                        jointMatrices[jointIndices[index]].transformPosition(x, y, z, joint);
+                        skinned.fma(weights[index], joint);
+                        count++;
+                    }
+                    if (count == 0) {
+                        skinned.set(x, y, z);
+                    }
+                    min.min(skinned);
+                    max.max(skinned);
+                }
+            }
+        }
+        if (min.x <= max.x) {
+            animation.setBounds(BoundingVolume.fromAabb(min, max));
+        }
+    }
+
     private static Node buildNodesTree(final AINode aiNode,
                                        final Node parentNode) {
         final String nodeName = aiNode.mName().dataString();
@@ -291,10 +407,10 @@ public class AnimatedMeshesLoader extends StaticMeshesLoader {
 
     private static Mesh processMesh(final AIMesh aiMesh,
                                     final List<Material> materials,
-                                    final List<Bone> boneList) {
-        final List<Integer> boneIds = new ArrayList<>();
-        final List<Float> weights = new ArrayList<>();
-
+                                    final List<Bone> boneList,
+                                    final List<Integer> boneIds,
+                                    final List<Float> weights,
+                                    final boolean headless) {
         final List<Float> vertices = processVertices(aiMesh);
         final List<Float> normals = processNormals(aiMesh);
         final List<Float> textures = processTextCoords(aiMesh);
@@ -319,7 +435,8 @@ public class AnimatedMeshesLoader extends StaticMeshesLoader {
                 ListUtils.floatListToArray(normals),
                 ListUtils.intListToArray(indices),
                 ListUtils.intListToArray(boneIds),
-                ListUtils.floatListToArray(weights)
+                ListUtils.floatListToArray(weights),
+                headless
         );
         final Material material;
         final int materialIdx = aiMesh.mMaterialIndex();
@@ -1,5 +1,8 @@
 package com.engineersbox.yajge.resources.loader.assimp;
 
+import com.engineersbox.yajge.core.engine.EngineContext;
+import com.engineersbox.yajge.debug.jfr.MeshImportEvent;
+import com.engineersbox.yajge.debug.profiler.Profiler;
 import com.engineersbox.yajge.resources.assets.material.Material;
 import com.engineersbox.yajge.resources.assets.material.Texture;
 import com.engineersbox.yajge.scene.element.object.composite.Mesh;
@@ -16,21 +19,74 @@ import static org.lwjgl.assimp.Assimp.*;
 
 public class StaticMeshesLoader {
 
-    public static Mesh[] load(final String resourcePath,
+    private static final int LOAD_SCOPE = Profiler.registerScope("StaticMeshesLoader.load");
+    private static final int DEFAULT_FLAGS = aiProcess_GenSmoothNormals
+            | aiProcess_JoinIdenticalVertices
+            | aiProcess_Triangulate
+            | aiProcess_FixInfacingNormals
+            | aiProcess_PreTransformVertices;
+
+    public static Mesh[] load(final EngineContext context,
+                              final String resourcePath,
                               final String texturesDir)  {
         return load(
+                context,
+                resourcePath,
+                texturesDir,
+                DEFAULT_FLAGS
+        );
+    }
+
+    public static Mesh[] load(final EngineContext context,
+                              final String resourcePath,
+                              final String texturesDir,
+                              final int flags)  {
+        return load(
+                context.getTextureCache(),
                 resourcePath,
                 texturesDir,
-                aiProcess_GenSmoothNormals
-                        | aiProcess_JoinIdenticalVertices
-                        | aiProcess_Triangulate
-                        | aiProcess_FixInfacingNormals
-                        | aiProcess_PreTransformVertices
+                flags
         );
     }
 
-    public static Mesh[] load(final String resourcePath,
-                              final String texturesDir, final int flags)  {
+    private static Mesh[] load(final TextureCache textureCache,
+                               final String resourcePath,
+                               final String texturesDir,
+                               final int flags)  {
+        final MeshImportEvent event = new MeshImportEvent();
+        event.begin();
+        Profiler.begin(LOAD_SCOPE);
+        try {
+            final Mesh[] meshes = importMeshes(textureCache, resourcePath, texturesDir, flags);
+            event.end();
+            if (event.shouldCommit()) {
+                commitImportEvent(event, resourcePath, false, meshes);
+            }
+            return meshes;
+        } finally {
+            Profiler.end(LOAD_SCOPE);
+        }
+    }
+
+    static void commitImportEvent(final MeshImportEvent event,
+                                  final String resourcePath,
+                                  final boolean animated,
+                                  final Mesh[] meshes) {
+        int triangles = 0;
+        for (final Mesh mesh : meshes) {
+            triangles += mesh.triangleCount();
+        }
+        event.resource = resourcePath;
+        event.animated = animated;
+        event.meshes = meshes.length;
+        event.triangles = triangles;
+        event.commit();
+    }
+
+    private static Mesh[] importMeshes(final TextureCache textureCache,
+                                       final String resourcePath,
+                                       final String texturesDir,
+                                       final int flags) {
         final AIScene aiScene = aiImportFile(resourcePath, flags);
         if (aiScene == null) {
             throw new RuntimeException("Error loading model");
@@ -44,7 +100,7 @@ public class StaticMeshesLoader {
         final List<Material> materials = new ArrayList<>();
         for (int i = 0; i < numMaterials; i++) {
             final AIMaterial aiMaterial = AIMaterial.create(aiMaterials.get(i));
-            processMaterial(aiMaterial, materials, texturesDir);
+            processMaterial(aiMaterial, materials, texturesDir, textureCache);
         }
 
         final int numMeshes = aiScene.mNumMeshes();
@@ -55,7 +111,7 @@ public class StaticMeshesLoader {
         final Mesh[] meshes = new Mesh[numMeshes];
         for (int i = 0; i < numMeshes; i++) {
             final AIMesh aiMesh = AIMesh.create(aiMeshes.get(i));
-            final Mesh mesh = processMesh(aiMesh, materials);
+            final Mesh mesh = processMesh(aiMesh, materials, textureCache.getOptions().headless());
             meshes[i] = mesh;
         }
 
@@ -75,7 +131,8 @@ public class StaticMeshesLoader {
 
     protected static void processMaterial(final AIMaterial aiMaterial,
                                           final List<Material> materials,
-                                          final String texturesDir)  {
+                                          final String texturesDir,
+                                          final TextureCache textureCache)  {
         final AIColor4D colour = AIColor4D.create();
 
         final AIString path = AIString.calloc();
@@ -94,13 +151,12 @@ public class StaticMeshesLoader {
         final String texturePath = path.dataString();
         Texture texture = null;
         if (!texturePath.isEmpty()) {
-            final TextureCache textCache = TextureCache.getInstance();
             String textureFile = "";
             if (texturesDir != null && !texturesDir.isEmpty()) {
                 textureFile += texturesDir + "/";
             }
             textureFile = (textureFile + texturePath).replace("//", "/");
-            texture = textCache.getTexture(textureFile);
+            texture = textureCache.getTexture(textureFile);
         }
 
         final Material material = new Material(
@@ -126,7 +182,9 @@ public class StaticMeshesLoader {
         return result == 0 ? new Vector4f(colour.r(),colour.g(), colour.b(), colour.a()) : Material.DEFAULT_COLOUR;
     }
 
-    private static Mesh processMesh(final AIMesh aiMesh, final List<Material> materials) {
+    private static Mesh processMesh(final AIMesh aiMesh,
+                                    final List<Material> materials,
+                                    final boolean headless) {
         final List<Float> vertices = processVertices(aiMesh);
         final List<Float> normals = processNormals(aiMesh);
         final List<Float> textures = processTextCoords(aiMesh);
@@ -144,7 +202,8 @@ public class StaticMeshesLoader {
                 ListUtils.floatListToArray(vertices),
                 ListUtils.floatListToArray(textures),
                 ListUtils.floatListToArray(normals),
-                ListUtils.intListToArray(indices)
+                ListUtils.intListToArray(indices),
+                headless
         );
         final Material material;
         final int materialIdx = aiMesh.mMaterialIndex();
@@ -5,12 +5,14 @@ import org.apache.commons.collections4.map.LRUMap;
 
 import java.util.ArrayList;
 import java.util.Objects;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 public class SyncCache<K, T> {
 
     private final long timeToLive;
     private final LRUMap<K, CacheEntry> cacheMap;
+    private volatile BiConsumer<K, T> evictionListener;
 
     protected class CacheEntry {
         private long lastAccessed;
@@ -30,7 +32,13 @@ public class SyncCache<K, T> {
                      final long timerInterval,
                      final int maxItems) {
         this.timeToLive = ttl * 1000;
-        this.cacheMap = new LRUMap<>(maxItems);
+        this.cacheMap = new LRUMap<K, CacheEntry>(maxItems) {
+            @Override
+            protected boolean removeLRU(final LinkEntry<K, CacheEntry> entry) {
+                notifyEvicted(entry.getKey(), entry.getValue());
+                return true;
+            }
+        };
 
         if (this.timeToLive > 0 && timerInterval > 0) {
             final Thread t = new Thread(() -> {
@@ -48,6 +56,22 @@ public class SyncCache<K, T> {
         }
     }
 
+    /**
+     * Invoked for entries dropped by the LRU policy or expired by the TTL
+     * sweep, never for explicit {@link #remove} calls.
+     */
+    public void setEvictionListener(final BiConsumer<K, T> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    private void notifyEvicted(final K key,
+                               final CacheEntry entry) {
+        final BiConsumer<K, T> listener = this.evictionListener;
+        if (listener != null && entry != null) {
+            listener.accept(key, entry.value);
+        }
+    }
+
     public void put(final K key, final T value) {
         synchronized (this.cacheMap) {
             this.cacheMap.put(key, new CacheEntry(value));
@@ -114,9 +138,11 @@ public class SyncCache<K, T> {
         }
 
         for (final K key : deleteKey) {
+            final CacheEntry removed;
             synchronized (this.cacheMap) {
-                this.cacheMap.remove(key);
+                removed = this.cacheMap.remove(key);
             }
+            notifyEvicted(key, removed);
             Thread.yield();
         }
     }
@@ -1,27 +1,70 @@
 package com.engineersbox.yajge.resources.loader.assimp;
 
+import com.engineersbox.yajge.debug.jfr.TextureCacheEvent;
 import com.engineersbox.yajge.resources.assets.material.Texture;
+import com.engineersbox.yajge.resources.assets.material.TextureOptions;
 
 public class TextureCache {
 
-    private static TextureCache INSTANCE;
     private static final long TTL = 60;
     private static final long SYNC_INTERVAL = 5;
     private static final int MAX_ITEMS = 1000;
     private final SyncCache<String, Texture> cacheMap;
+    private final TextureOptions options;
 
-    private TextureCache() {
+    public TextureCache() {
+        this(TextureOptions.defaults());
+    }
+
+    /**
+     * @param options used for every texture this cache loads
+     */
+    public TextureCache(final TextureOptions options) {
+        this.options = options;
         this.cacheMap = new SyncCache<>(TTL, SYNC_INTERVAL, MAX_ITEMS);
+        this.cacheMap.setEvictionListener((final String path, final Texture texture) -> {
+            final TextureCacheEvent event = new TextureCacheEvent();
+            if (event.shouldCommit()) {
+                commitEvent(event, path, TextureCacheEvent.EVICTION, texture);
+            }
+        });
     }
 
-    public static synchronized TextureCache getInstance() {
-        if (INSTANCE == null) {
-            INSTANCE = new TextureCache();
-        }
-        return INSTANCE;
+    public TextureOptions getOptions() {
+        return this.options;
     }
 
     public Texture getTexture(final String path)  {
-        return this.cacheMap.computeIfAbsent(path, Texture::new);
+        final TextureCacheEvent event = new TextureCacheEvent();
+        event.begin();
+        Texture texture = this.cacheMap.get(path);
+        final boolean hit = texture != null;
+        if (!hit) {
+            texture = new Texture(path, this.options);
+            this.cacheMap.put(path, texture);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            commitEvent(
+                    event,
+                    path,
+                    hit ? TextureCacheEvent.HIT : TextureCacheEvent.MISS,
+                    texture
+            );
+        }
+        return texture;
+    }
+
+    private static void commitEvent(final TextureCacheEvent event,
+                                    final String path,
+                                    final String outcome,
+                                    final Texture texture) {
+        event.path = path;
+        event.outcome = outcome;
+        event.width = texture.getWidth();
+        event.height = texture.getHeight();
+        // Uploads are always RGBA8
+        event.bytes = 4L * texture.getWidth() * texture.getHeight();
+        event.commit();
     }
 }
\ No newline at end of file
@@ -1,17 +1,28 @@
 package com.engineersbox.yajge.scene;
 
+import com.engineersbox.yajge.core.jobs.JobSystem;
 import com.engineersbox.yajge.rendering.scene.atmosphere.Fog;
+import com.engineersbox.yajge.rendering.view.culling.BatchFrustumCuller;
+import com.engineersbox.yajge.rendering.view.culling.OcclusionCuller;
 import com.engineersbox.yajge.scene.element.SceneElement;
 import com.engineersbox.yajge.scene.element.Skybox;
+import com.engineersbox.yajge.scene.element.TransformStore;
 import com.engineersbox.yajge.scene.element.object.composite.InstancedMesh;
 import com.engineersbox.yajge.scene.element.object.composite.Mesh;
 import com.engineersbox.yajge.scene.element.particles.IParticleEmitter;
 import com.engineersbox.yajge.scene.lighting.SceneLight;
+import com.engineersbox.yajge.scene.spatial.BoundingVolumeHierarchy;
+import org.joml.FrustumIntersection;
+import org.joml.Vector3fc;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 public class Scene {
 
+    private static final int PARALLEL_HIERARCHY_THRESHOLD = 4096;
+
     private final Map<Mesh, List<SceneElement>> nonInstancedMeshes;
     private final Map<InstancedMesh, List<SceneElement>> instancedMeshes;
     private Skybox skyBox;
@@ -19,10 +30,51 @@ public class Scene {
     private Fog fog;
     private boolean renderShadows;
     private IParticleEmitter[] particleEmitters;
+    private final BoundingVolumeHierarchy staticHierarchy;
+    private final BoundingVolumeHierarchy dynamicHierarchy;
+    private boolean spatialIndexDirty;
+    private final List<SceneElement> visibleElements;
+    private final List<SceneElement> occludedElements;
+    private final Map<Mesh, List<SceneElement>> visibleNonInstancedMeshes;
+    private final Map<InstancedMesh, List<SceneElement>> visibleInstancedMeshes;
+    private final List<SceneElement> dirtyElements;
+    private boolean dynamicDirty;
+    private TransformStore transformStore;
+    private final List<SceneElement> hierarchyRoots;
+    private final List<SceneElement> hierarchyOrder;
+    private boolean hierarchyDirty;
+    private final AtomicInteger hierarchyChanges;
+    private int hierarchyRevision;
+    private int visibilityRevision;
+    private final Map<SceneElement, int[]> bucketSlots;
+    private final Queue<PendingChange> pendingChanges;
+    private final Object frameLock;
+    private boolean inFrame;
+
+    private record PendingChange(SceneElement sceneElement, boolean add) {
+    }
 
     public Scene() {
         this.nonInstancedMeshes = new HashMap<>();
         this.instancedMeshes = new HashMap<>();
+        this.staticHierarchy = new BoundingVolumeHierarchy(this::contains);
+        this.dynamicHierarchy = new BoundingVolumeHierarchy(this::contains);
+        this.spatialIndexDirty = true;
+        this.visibleElements = new ArrayList<>();
+        this.occludedElements = new ArrayList<>();
+        this.visibleNonInstancedMeshes = new HashMap<>();
+        this.visibleInstancedMeshes = new HashMap<>();
+        this.dirtyElements = new ArrayList<>();
+        this.dynamicDirty = false;
+        this.hierarchyRoots = new ArrayList<>();
+        this.hierarchyOrder = new ArrayList<>();
+        this.hierarchyDirty = true;
+        this.hierarchyChanges = new AtomicInteger();
+        this.hierarchyRevision = this.hierarchyChanges.get();
+        this.bucketSlots = new IdentityHashMap<>();
+        this.pendingChanges = new ArrayDeque<>();
+        this.frameLock = new Object();
+        this.inFrame = false;
         this.fog = Fog.NO_FOG;
         this.renderShadows = true;
     }
@@ -44,20 +96,618 @@ public class Scene {
             return;
         }
         for (final SceneElement sceneElement : sceneElements) {
-            final Mesh[] meshes = sceneElement.getMeshes();
-            for (final Mesh mesh : meshes) {
-                final boolean instancedMesh = mesh instanceof InstancedMesh;
-                List<SceneElement> list = instancedMesh ? this.instancedMeshes.get(mesh) : this.nonInstancedMeshes.get(mesh);
-                if (list == null) {
-                    list = new ArrayList<>();
-                    if (instancedMesh) {
-                        this.instancedMeshes.put((InstancedMesh) mesh, list);
-                    } else {
-                        this.nonInstancedMeshes.put(mesh, list);
+            add(sceneElement);
+        }
+    }
+
+    /**
+     * Adds the element to the bucket of each of its meshes. While a frame is
+     * being rendered the change is queued and applied by {@link #endFrame()}.
+     * Adding an element that is already present does nothing.
+     */
+    public void add(final SceneElement sceneElement) {
+        synchronized (this.frameLock) {
+            if (this.inFrame) {
+                this.pendingChanges.add(new PendingChange(sceneElement, true));
+            } else {
+                addNow(sceneElement);
+            }
+        }
+    }
+
+    /**
+     * Removes the element from its buckets in constant time per mesh by moving
+     * the last element of each bucket into its slot, and drops buckets that end
+     * up empty. Children are not removed with their parent. While a frame is
+     * being rendered the change is queued and applied by {@link #endFrame()}.
+     * The element's meshes must not have changed since it was added.
+     */
+    public void remove(final SceneElement sceneElement) {
+        synchronized (this.frameLock) {
+            if (this.inFrame) {
+                this.pendingChanges.add(new PendingChange(sceneElement, false));
+            } else {
+                removeNow(sceneElement);
+            }
+        }
+    }
+
+    public boolean contains(final SceneElement sceneElement) {
+        return this.bucketSlots.containsKey(sceneElement);
+    }
+
+    private void addNow(final SceneElement sceneElement) {
+        if (this.bucketSlots.containsKey(sceneElement)) {
+            return;
+        }
+        sceneElement.storePreviousTransform();
+        if (this.transformStore != null) {
+            sceneElement.attach(this.transformStore);
+        }
+        final Mesh[] meshes = sceneElement.getMeshes();
+        final int[] slots = new int[meshes.length];
+        for (int i = 0; i < meshes.length; i++) {
+            final List<SceneElement> bucket = bucketOf(meshes[i], true);
+            slots[i] = bucket.size();
+            bucket.add(sceneElement);
+        }
+        this.bucketSlots.put(sceneElement, slots);
+        sceneElement.setHierarchyRevision(this.hierarchyChanges);
+        this.hierarchyDirty = true;
+    }
+
+    private void removeNow(final SceneElement sceneElement) {
+        final int[] slots = this.bucketSlots.remove(sceneElement);
+        if (slots == null) {
+            return;
+        }
+        final Mesh[] meshes = sceneElement.getMeshes();
+        for (int i = 0; i < meshes.length; i++) {
+            final Mesh mesh = meshes[i];
+            final List<SceneElement> bucket = bucketOf(mesh, false);
+            final int last = bucket.size() - 1;
+            final SceneElement moved = bucket.remove(last);
+            if (slots[i] != last) {
+                bucket.set(slots[i], moved);
+                final int[] movedSlots = moved == sceneElement ? slots : this.bucketSlots.get(moved);
+                if (movedSlots != null) {
+                    final Mesh[] movedMeshes = moved.getMeshes();
+                    for (int j = 0; j < movedMeshes.length; j++) {
+                        if (movedMeshes[j] == mesh && movedSlots[j] == last) {
+                            movedSlots[j] = slots[i];
+                        }
                     }
                 }
-                list.add(sceneElement);
             }
+            if (bucket.isEmpty()) {
+                if (mesh instanceof InstancedMesh) {
+                    this.instancedMeshes.remove(mesh);
+                } else {
+                    this.nonInstancedMeshes.remove(mesh);
+                }
+            }
+        }
+        sceneElement.detach();
+        if (sceneElement.getHierarchyRevision() == this.hierarchyChanges) {
+            sceneElement.setHierarchyRevision(null);
+        }
+        this.hierarchyDirty = true;
+    }
+
+    private List<SceneElement> bucketOf(final Mesh mesh,
+                                        final boolean create) {
+        if (mesh instanceof final InstancedMesh instancedMesh) {
+            return create
+                    ? this.instancedMeshes.computeIfAbsent(instancedMesh, (final InstancedMesh key) -> new ArrayList<>())
+                    : this.instancedMeshes.get(instancedMesh);
+        }
+        return create
+                ? this.nonInstancedMeshes.computeIfAbsent(mesh, (final Mesh key) -> new ArrayList<>())
+                : this.nonInstancedMeshes.get(mesh);
+    }
+
+    /**
+     * Marks the start of a frame, after which {@link #add} and {@link #remove}
+     * are deferred so buckets stay stable while passes iterate them. The frame
+     * flag, the queue and immediate changes share one lock, so a change made
+     * from another thread is either applied before the frame starts or queued,
+     * never both or neither.
+     */
+    public void beginFrame() {
+        synchronized (this.frameLock) {
+            this.inFrame = true;
+        }
+    }
+
+    /**
+     * Ends the frame and applies the queued changes in the order they were made.
+     */
+    public void endFrame() {
+        synchronized (this.frameLock) {
+            this.inFrame = false;
+            PendingChange change;
+            while ((change = this.pendingChanges.poll()) != null) {
+                if (change.add()) {
+                    addNow(change.sceneElement());
+                } else {
+                    removeNow(change.sceneElement());
+                }
+            }
+        }
+    }
+
+    /**
+     * Must be called after the mesh buckets are modified directly, so the next
+     * cull or query rebuilds the spatial index from them.
+     */
+    public void invalidateSpatialIndex() {
+        this.hierarchyDirty = true;
+    }
+
+    /**
+     * Recomputes the hierarchy roots of the bucketed elements and their
+     * topological order. A root is the topmost bucketed ancestor of an element,
+     * so parents that were never added, or were removed, are neither indexed nor
+     * drawn, while their bucketed descendants still are.
+     */
+    private void refreshHierarchy() {
+        final int revision = this.hierarchyChanges.get();
+        if (!this.hierarchyDirty && revision == this.hierarchyRevision) {
+            return;
+        }
+        final Set<SceneElement> roots = Collections.newSetFromMap(new IdentityHashMap<>());
+        addRoots(this.nonInstancedMeshes, roots);
+        addRoots(this.instancedMeshes, roots);
+        this.hierarchyRoots.clear();
+        this.hierarchyRoots.addAll(roots);
+        this.hierarchyOrder.clear();
+        for (final SceneElement root : this.hierarchyRoots) {
+            appendSubtree(root, this.hierarchyOrder);
+        }
+        this.hierarchyDirty = false;
+        this.hierarchyRevision = revision;
+        this.spatialIndexDirty = true;
+        this.visibilityRevision++;
+    }
+
+    private void addRoots(final Map<? extends Mesh, List<SceneElement>> meshes,
+                          final Set<SceneElement> roots) {
+        for (final List<SceneElement> bucket : meshes.values()) {
+            for (final SceneElement sceneElement : bucket) {
+                SceneElement root = sceneElement;
+                for (SceneElement ancestor = sceneElement.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+                    if (this.bucketSlots.containsKey(ancestor)) {
+                        root = ancestor;
+                    }
+                }
+                roots.add(root);
+            }
+        }
+    }
+
+    private void appendSubtree(final SceneElement sceneElement,
+                               final List<SceneElement> order) {
+        if (this.bucketSlots.containsKey(sceneElement)) {
+            order.add(sceneElement);
+        }
+        for (final SceneElement child : sceneElement.getChildren()) {
+            appendSubtree(child, order);
+        }
+    }
+
+    public void updateWorldMatrices() {
+        updateWorldMatrices(null);
+    }
+
+    /**
+     * Rebuilds the world matrix of every element whose transform, or whose
+     * ancestor's transform, changed since the last call, and records them in
+     * {@link #getDirtyElements()}. Independent root subtrees are updated in
+     * parallel on the given job system once the scene is large enough. Renderers
+     * call this once per frame before any pass reads the matrices.
+     */
+    public void updateWorldMatrices(final JobSystem jobSystem) {
+        refreshHierarchy();
+        this.dirtyElements.clear();
+        this.dynamicDirty = false;
+        for (int i = 0; i < this.hierarchyRoots.size(); i++) {
+            final SceneElement parent = this.hierarchyRoots.get(i).getParent();
+            if (parent != null) {
+                // Ancestors outside the scene can be shared by several roots
+                parent.updateWorldMatrix();
+            }
+        }
+        if (jobSystem != null
+                && this.hierarchyRoots.size() > 1
+                && this.hierarchyOrder.size() >= PARALLEL_HIERARCHY_THRESHOLD) {
+            jobSystem.parallelFor(
+                    0,
+                    this.hierarchyRoots.size(),
+                    Math.max(1, this.hierarchyRoots.size() / (jobSystem.getParallelism() * 4)),
+                    (final int start, final int end) -> {
+                        for (int i = start; i < end; i++) {
+                            updateSubtree(this.hierarchyRoots.get(i));
+                        }
+                    }
+            );
+        } else {
+            for (int i = 0; i < this.hierarchyRoots.size(); i++) {
+                updateSubtree(this.hierarchyRoots.get(i));
+            }
+        }
+        for (int i = 0; i < this.hierarchyOrder.size(); i++) {
+            final SceneElement sceneElement = this.hierarchyOrder.get(i);
+            if (sceneElement.consumeWorldUpdated()) {
+                this.dirtyElements.add(sceneElement);
+                this.dynamicDirty |= !sceneElement.isStatic();
+            }
+        }
+        if (this.particleEmitters == null) {
+            return;
+        }
+        for (final IParticleEmitter emitter : this.particleEmitters) {
+            final List<SceneElement> particles = emitter.getParticles();
+            for (int i = 0; i < particles.size(); i++) {
+                particles.get(i).updateWorldMatrix();
+            }
+        }
+    }
+
+    /**
+     * Visits the subtree in topological order, so parents are always current
+     * before their children, and refreshes subtree bounds wherever something
+     * below changed.
+     */
+    private static boolean updateSubtree(final SceneElement sceneElement) {
+        boolean changed = sceneElement.updateWorldMatrix();
+        final List<SceneElement> children = sceneElement.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            changed |= updateSubtree(children.get(i));
+        }
+        if (changed) {
+            sceneElement.updateSubtreeRadius();
+        }
+        return changed;
+    }
+
+    /**
+     * Elements, excluding particles, whose world matrix was rebuilt by the last
+     * {@link #updateWorldMatrices()}, parents before children. Each element
+     * appears once.
+     */
+    public List<SceneElement> getDirtyElements() {
+        return this.dirtyElements;
+    }
+
+    /**
+     * Switches the scene to data-oriented storage: every element present and
+     * added later mirrors its transform into the store, and {@link #cull} scans
+     * the store linearly instead of walking the spatial index.
+     */
+    public void setTransformStore(final TransformStore transformStore) {
+        this.transformStore = transformStore;
+        final Set<SceneElement> sceneElements = Collections.newSetFromMap(new IdentityHashMap<>());
+        collectSceneElements(this.nonInstancedMeshes, sceneElements);
+        collectSceneElements(this.instancedMeshes, sceneElements);
+        for (final SceneElement sceneElement : sceneElements) {
+            if (transformStore == null) {
+                sceneElement.detach();
+            } else {
+                sceneElement.attach(transformStore);
+            }
+        }
+    }
+
+    public TransformStore getTransformStore() {
+        return this.transformStore;
+    }
+
+    /**
+     * Rebuilds both BVHs over the scene graph roots when membership or parent
+     * links changed since the last call, otherwise refits the dynamic one if any
+     * of its elements changed. Static subtrees are never refit.
+     */
+    public void updateSpatialIndex() {
+        refreshHierarchy();
+        if (!this.spatialIndexDirty) {
+            if (this.dynamicDirty) {
+                this.dynamicHierarchy.refit();
+                this.dynamicDirty = false;
+            }
+            return;
+        }
+        final List<SceneElement> staticElements = new ArrayList<>();
+        final List<SceneElement> dynamicElements = new ArrayList<>();
+        for (final SceneElement root : this.hierarchyRoots) {
+            updateSubtree(root);
+            (root.isStatic() ? staticElements : dynamicElements).add(root);
+        }
+        this.staticHierarchy.build(staticElements);
+        this.dynamicHierarchy.build(dynamicElements);
+        this.spatialIndexDirty = false;
+        this.dynamicDirty = false;
+    }
+
+    private static void collectSceneElements(final Map<? extends Mesh, List<SceneElement>> meshes,
+                                             final Set<SceneElement> sceneElements) {
+        for (final List<SceneElement> bucket : meshes.values()) {
+            sceneElements.addAll(bucket);
+        }
+    }
+
+    /**
+     * Culls every element once against the frustum, however many meshes it has,
+     * and rebuilds the per-mesh visible buckets from the result.
+     */
+    public void cull(final FrustumIntersection frustum) {
+        cull(frustum, null, null);
+    }
+
+    /**
+     * As {@link #cull(FrustumIntersection)}, but a scene backed by a transform
+     * store is culled with the batch kernel, split across the job system when
+     * one is given. The culler must hold the same frustum.
+     */
+    public void cull(final FrustumIntersection frustum,
+                     final BatchFrustumCuller batchCuller,
+                     final JobSystem jobSystem) {
+        this.visibleElements.clear();
+        clearOccluded();
+        if (this.transformStore != null && batchCuller != null) {
+            this.transformStore.cull(batchCuller, jobSystem, this.visibleElements);
+        } else if (this.transformStore != null) {
+            this.transformStore.cull(frustum, this.visibleElements);
+        } else {
+            updateSpatialIndex();
+            this.staticHierarchy.cull(frustum, this.visibleElements);
+            this.dynamicHierarchy.cull(frustum, this.visibleElements);
+        }
+        rebuildVisibleBuckets();
+    }
+
+    /**
+     * Drops the elements hidden behind occluders from the result of the last
+     * {@link #cull}, rebuilding the visible buckets if any were found. Occluded
+     * elements keep their inside-frustum flag.
+     */
+    public void cullOccluded(final OcclusionCuller occlusionCuller,
+                             final JobSystem jobSystem) {
+        final int first = this.occludedElements.size();
+        if (occlusionCuller.cull(this.visibleElements, this.occludedElements, jobSystem) == 0) {
+            return;
+        }
+        for (int i = first; i < this.occludedElements.size(); i++) {
+            this.occludedElements.get(i).setOccluded(true);
+        }
+        rebuildVisibleBuckets();
+    }
+
+    /**
+     * Re-evaluates only the given elements against the test, keeping the result
+     * of the last cull for every other element, and rebuilds the visible buckets.
+     * Occluded elements are restored first, as occlusion is recomputed per frame.
+     *
+     * @return the number of bucketed elements retested
+     */
+    public int recull(final List<SceneElement> changed,
+                      final Predicate<SceneElement> test) {
+        this.visibleElements.addAll(this.occludedElements);
+        clearOccluded();
+        int retested = 0;
+        for (final SceneElement sceneElement : changed) {
+            if (!this.bucketSlots.containsKey(sceneElement) || sceneElement.isFrustumCullingDisabled()) {
+                continue;
+            }
+            retested++;
+            final boolean inside = test.test(sceneElement);
+            if (inside && !sceneElement.isInsideFrustum()) {
+                this.visibleElements.add(sceneElement);
+            }
+            sceneElement.setInsideFrustum(inside);
+        }
+        this.visibleElements.removeIf(
+                (final SceneElement sceneElement) -> !sceneElement.isFrustumCullingDisabled() && !sceneElement.isInsideFrustum()
+        );
+        rebuildVisibleBuckets();
+        return retested;
+    }
+
+    /**
+     * Drops the visible elements the filter rejects from the result of the last
+     * {@link #cull}, marking them outside the frustum. Elements with culling
+     * disabled are always kept.
+     *
+     * @return the number of elements dropped
+     */
+    public int cullVisible(final Predicate<SceneElement> keep) {
+        final int before = this.visibleElements.size();
+        this.visibleElements.removeIf((final SceneElement sceneElement) -> {
+            if (sceneElement.isFrustumCullingDisabled() || keep.test(sceneElement)) {
+                return false;
+            }
+            sceneElement.setInsideFrustum(false);
+            return true;
+        });
+        final int dropped = before - this.visibleElements.size();
+        if (dropped > 0) {
+            rebuildVisibleBuckets();
+        }
+        return dropped;
+    }
+
+    /**
+     * Bumped whenever the scene's membership or hierarchy changes or its
+     * visibility is reset, so a cached cull result can tell it is stale.
+     */
+    public int getVisibilityRevision() {
+        refreshHierarchy();
+        return this.visibilityRevision;
+    }
+
+    public int getElementCount() {
+        return this.bucketSlots.size();
+    }
+
+    /**
+     * @return every bucketed element, parents before their children
+     */
+    List<SceneElement> getOrderedElements() {
+        refreshHierarchy();
+        return this.hierarchyOrder;
+    }
+
+    private void clearOccluded() {
+        for (final SceneElement sceneElement : this.occludedElements) {
+            sceneElement.setOccluded(false);
+        }
+        this.occludedElements.clear();
+    }
+
+    private void rebuildVisibleBuckets() {
+        clearVisibleBuckets();
+        for (final SceneElement sceneElement : this.visibleElements) {
+            for (final Mesh mesh : sceneElement.getMeshes()) {
+                if (mesh instanceof final InstancedMesh instancedMesh) {
+                    this.visibleInstancedMeshes.computeIfAbsent(
+                            instancedMesh,
+                            (final InstancedMesh key) -> new ArrayList<>()
+                    ).add(sceneElement);
+                } else {
+                    this.visibleNonInstancedMeshes.computeIfAbsent(
+                            mesh,
+                            (final Mesh key) -> new ArrayList<>()
+                    ).add(sceneElement);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks every bucketed element as visible, for frames rendered without culling.
+     */
+    public void resetVisibility() {
+        this.visibilityRevision++;
+        this.visibleElements.clear();
+        clearOccluded();
+        clearVisibleBuckets();
+        copyBuckets(this.nonInstancedMeshes, this.visibleNonInstancedMeshes);
+        copyBuckets(this.instancedMeshes, this.visibleInstancedMeshes);
+    }
+
+    private void clearVisibleBuckets() {
+        this.visibleNonInstancedMeshes.keySet().retainAll(this.nonInstancedMeshes.keySet());
+        this.visibleInstancedMeshes.keySet().retainAll(this.instancedMeshes.keySet());
+        for (final List<SceneElement> bucket : this.visibleNonInstancedMeshes.values()) {
+            bucket.clear();
+        }
+        for (final List<SceneElement> bucket : this.visibleInstancedMeshes.values()) {
+            bucket.clear();
+        }
+    }
+
+    private static <M extends Mesh> void copyBuckets(final Map<M, List<SceneElement>> source,
+                                                     final Map<M, List<SceneElement>> target) {
+        for (final Map.Entry<M, List<SceneElement>> entry : source.entrySet()) {
+            target.computeIfAbsent(
+                    entry.getKey(),
+                    (final M key) -> new ArrayList<>()
+            ).addAll(entry.getValue());
+        }
+    }
+
+    /**
+     * Appends every element with meshes inside the frustum without changing any
+     * visibility state. Unlike the other queries this never rebuilds the index,
+     * so it is safe to call from several threads once {@link #updateSpatialIndex()}
+     * has run for the frame.
+     */
+    public void queryFrustum(final FrustumIntersection frustum,
+                             final List<SceneElement> results) {
+        this.staticHierarchy.queryFrustum(frustum, results);
+        this.dynamicHierarchy.queryFrustum(frustum, results);
+    }
+
+    /**
+     * Appends every element whose bounds overlap the sphere. Bounds are those of
+     * the last {@link #cull} or {@link #updateSpatialIndex()}.
+     */
+    public void querySphere(final Vector3fc center,
+                            final float radius,
+                            final List<SceneElement> results) {
+        ensureSpatialIndex();
+        this.staticHierarchy.querySphere(center, radius, results);
+        this.dynamicHierarchy.querySphere(center, radius, results);
+    }
+
+    /**
+     * @return the closest element whose bounds the ray hits within the given
+     * distance, or null
+     */
+    public SceneElement raycast(final Vector3fc origin,
+                                final Vector3fc direction,
+                                final float maxDistance) {
+        ensureSpatialIndex();
+        final SceneElement staticHit = this.staticHierarchy.raycast(origin, direction, maxDistance);
+        final SceneElement dynamicHit = this.dynamicHierarchy.raycast(
+                origin,
+                direction,
+                staticHit != null ? this.staticHierarchy.getLastHitDistance() : maxDistance
+        );
+        return dynamicHit != null ? dynamicHit : staticHit;
+    }
+
+    private void ensureSpatialIndex() {
+        refreshHierarchy();
+        if (this.spatialIndexDirty) {
+            updateSpatialIndex();
+        }
+    }
+
+    public List<SceneElement> getVisibleElements() {
+        return this.visibleElements;
+    }
+
+    public List<SceneElement> getOccludedElements() {
+        return this.occludedElements;
+    }
+
+    public Map<Mesh, List<SceneElement>> getVisibleNonInstancedMeshes() {
+        return this.visibleNonInstancedMeshes;
+    }
+
+    public Map<InstancedMesh, List<SceneElement>> getVisibleInstancedMeshes() {
+        return this.visibleInstancedMeshes;
+    }
+
+    /**
+     * Stores the previous transform of every element in the scene graph of a
+     * bucketed element, including ancestors and descendants that are not
+     * bucketed themselves, since interpolation reads the whole parent chain.
+     */
+    public void storePreviousTransforms() {
+        refreshHierarchy();
+        for (int i = 0; i < this.hierarchyRoots.size(); i++) {
+            final SceneElement root = this.hierarchyRoots.get(i);
+            for (SceneElement ancestor = root.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+                ancestor.storePreviousTransform();
+            }
+            storePreviousSubtree(root);
+        }
+        if (this.particleEmitters == null) {
+            return;
+        }
+        for (final IParticleEmitter emitter : this.particleEmitters) {
+            for (final SceneElement particle : emitter.getParticles()) {
+                particle.storePreviousTransform();
+            }
+        }
+    }
+
+    private static void storePreviousSubtree(final SceneElement sceneElement) {
+        sceneElement.storePreviousTransform();
+        final List<SceneElement> children = sceneElement.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            storePreviousSubtree(children.get(i));
         }
     }
 
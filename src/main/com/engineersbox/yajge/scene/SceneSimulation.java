@@ -0,0 +1,95 @@
+package com.engineersbox.yajge.scene;
+
+import com.engineersbox.yajge.animation.Animation;
+import com.engineersbox.yajge.core.jobs.FrameGraph;
+import com.engineersbox.yajge.core.jobs.JobSystem;
+import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.element.animation.AnimatedSceneElement;
+import com.engineersbox.yajge.scene.element.particles.IParticleEmitter;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Advances a scene by one simulation step through a frame graph on the job
+ * system. Animated elements step their current animation across the pool while
+ * the particle emitters update alongside. Elements must not share an
+ * {@link Animation} instance, as each is stepped by whichever job holds its
+ * element.
+ */
+public class SceneSimulation {
+
+    private static final int ANIMATION_GRAIN = 256;
+
+    private final Scene scene;
+    private final JobSystem jobSystem;
+    private final FrameGraph frameGraph;
+    private final JobSystem.RangeTask stepAnimationsTask;
+    private final AtomicInteger steppedAnimations;
+    private List<SceneElement> sceneElements;
+    private long elapsedMillis;
+
+    public SceneSimulation(final Scene scene,
+                           final JobSystem jobSystem) {
+        this.scene = scene;
+        this.jobSystem = jobSystem;
+        this.stepAnimationsTask = this::stepAnimations;
+        this.steppedAnimations = new AtomicInteger();
+        this.frameGraph = jobSystem.createFrameGraph("simulation");
+        this.frameGraph.addJob("animation.step", () -> this.jobSystem.parallelFor(
+                0,
+                this.sceneElements.size(),
+                ANIMATION_GRAIN,
+                this.stepAnimationsTask
+        ));
+        this.frameGraph.addJob("particles.update", this::updateParticles);
+    }
+
+    /**
+     * Must be called from the thread that owns the scene, outside any other job
+     * on the same job system.
+     *
+     * @return whether any animation stepped or any emitter updated
+     */
+    public boolean step(final long elapsedMillis) {
+        this.sceneElements = this.scene.getOrderedElements();
+        this.elapsedMillis = elapsedMillis;
+        this.steppedAnimations.set(0);
+        this.frameGraph.execute();
+        final IParticleEmitter[] emitters = this.scene.getParticleEmitters();
+        return this.steppedAnimations.get() > 0 || (emitters != null && emitters.length > 0);
+    }
+
+    private void stepAnimations(final int start,
+                                final int end) {
+        int stepped = 0;
+        for (int i = start; i < end; i++) {
+            if (this.sceneElements.get(i) instanceof final AnimatedSceneElement animatedSceneElement
+                    && animatedSceneElement.getCurrentAnimation() != null) {
+                animatedSceneElement.getCurrentAnimation().nextFrame();
+                stepped++;
+            }
+        }
+        if (stepped > 0) {
+            this.steppedAnimations.addAndGet(stepped);
+        }
+    }
+
+    private void updateParticles() {
+        final IParticleEmitter[] emitters = this.scene.getParticleEmitters();
+        if (emitters == null) {
+            return;
+        }
+        for (final IParticleEmitter emitter : emitters) {
+            emitter.update(this.elapsedMillis);
+        }
+    }
+
+    public FrameGraph getFrameGraph() {
+        return this.frameGraph;
+    }
+
+    public void cleanup() {
+        this.jobSystem.removeFrameGraph(this.frameGraph);
+    }
+}
@@ -1,10 +1,16 @@
 package com.engineersbox.yajge.scene.element;
 
 import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import com.engineersbox.yajge.scene.spatial.BoundingVolume;
+import org.joml.Matrix4f;
 import org.joml.Quaternionf;
 import org.joml.Vector3f;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SceneElement {
 
@@ -13,18 +19,69 @@ public class SceneElement {
     private final Vector3f position;
     private float scale;
     private final Quaternionf rotation;
+    private final Vector3f previousPosition;
+    private float previousScale;
+    private final Quaternionf previousRotation;
     private int texPos;
     private boolean disableFrustumCulling;
     private boolean insideFrustum;
+    private boolean staticElement;
+    private boolean occluder;
+    private boolean occluded;
+    private final Matrix4f worldMatrix;
+    private boolean transformDirty;
+    private boolean moving;
+    private TransformStore store;
+    private int storeId;
+    private SceneElement parent;
+    private List<SceneElement> children;
+    private final Vector3f worldPosition;
+    private final Quaternionf worldRotation;
+    private float worldScale;
+    private float subtreeRadius;
+    private final BoundingVolume localBounds;
+    private boolean localBoundsDirty;
+    private int meshBoundsRevision;
+    private final Vector3f boundsCentre;
+    private float boundingRadius;
+    private int worldVersion;
+    private int parentWorldVersion;
+    private boolean worldUpdated;
+    private AtomicInteger hierarchyRevision;
 
     public SceneElement() {
         this.selected = false;
         this.position = new Vector3f();
         this.scale = 1;
         this.rotation = new Quaternionf();
+        this.previousPosition = new Vector3f();
+        this.previousScale = 1;
+        this.previousRotation = new Quaternionf();
         this.texPos = 0;
         this.insideFrustum = true;
         this.disableFrustumCulling = false;
+        this.staticElement = false;
+        this.occluder = false;
+        this.occluded = false;
+        this.worldMatrix = new Matrix4f();
+        this.transformDirty = true;
+        this.moving = false;
+        this.store = null;
+        this.storeId = -1;
+        this.parent = null;
+        this.children = null;
+        this.worldPosition = new Vector3f();
+        this.worldRotation = new Quaternionf();
+        this.worldScale = 1;
+        this.subtreeRadius = 0;
+        this.localBounds = new BoundingVolume();
+        this.localBoundsDirty = true;
+        this.meshBoundsRevision = 0;
+        this.boundsCentre = new Vector3f();
+        this.boundingRadius = 0;
+        this.worldVersion = 0;
+        this.parentWorldVersion = 0;
+        this.worldUpdated = false;
     }
 
     public SceneElement(final Mesh mesh) {
@@ -52,9 +109,13 @@ public class SceneElement {
     public final void setPosition(final float x,
                                   final float y,
                                   final float z) {
+        if (this.position.x == x && this.position.y == y && this.position.z == z) {
+            return;
+        }
         this.position.x = x;
         this.position.y = y;
         this.position.z = z;
+        markTransformDirty();
     }
 
     public float getScale() {
@@ -62,7 +123,11 @@ public class SceneElement {
     }
 
     public final void setScale(final float scale) {
+        if (this.scale == scale) {
+            return;
+        }
         this.scale = scale;
+        markTransformDirty();
     }
 
     public Quaternionf getRotation() {
@@ -70,7 +135,253 @@ public class SceneElement {
     }
 
     public final void setRotation(final Quaternionf q) {
+        if (this.rotation.equals(q)) {
+            return;
+        }
         this.rotation.set(q);
+        markTransformDirty();
+    }
+
+    /**
+     * Must be called after mutating the vectors returned by {@link #getPosition()}
+     * or {@link #getRotation()} directly, the setters already do so.
+     */
+    public void markTransformDirty() {
+        this.transformDirty = true;
+        this.moving = true;
+    }
+
+    public boolean isTransformDirty() {
+        return this.transformDirty;
+    }
+
+    /**
+     * @return true when the current transform of this element or one of its
+     * ancestors differs from the previous one, so rendering has to interpolate
+     * rather than use the cached world matrix
+     */
+    public boolean isMoving() {
+        return this.moving || (this.parent != null && this.parent.isMoving());
+    }
+
+    /**
+     * Cached world matrix, the parent's world matrix times this element's local
+     * {@code translationRotateScale}, rebuilt only after either changed. Callers
+     * must not modify it.
+     */
+    public Matrix4f getWorldMatrix() {
+        updateWorldMatrix();
+        return this.worldMatrix;
+    }
+
+    /**
+     * Brings the world matrix up to date, updating stale ancestors first.
+     *
+     * @return true if the world matrix was stale and has been rebuilt
+     */
+    public boolean updateWorldMatrix() {
+        boolean parentChanged = false;
+        if (this.parent != null) {
+            this.parent.updateWorldMatrix();
+            parentChanged = this.parentWorldVersion != this.parent.worldVersion;
+        }
+        final int meshRevision = meshBoundsRevision();
+        if (meshRevision != this.meshBoundsRevision) {
+            this.meshBoundsRevision = meshRevision;
+            markBoundsDirty();
+        }
+        if (!this.transformDirty && !parentChanged) {
+            return false;
+        }
+        if (this.parent == null) {
+            this.worldMatrix.translationRotateScale(this.position, this.rotation, this.scale);
+            this.worldRotation.set(this.rotation);
+            this.worldScale = this.scale;
+        } else {
+            this.worldMatrix.set(this.parent.worldMatrix)
+                    .translate(this.position)
+                    .rotate(this.rotation)
+                    .scale(this.scale);
+            this.parent.worldRotation.mul(this.rotation, this.worldRotation);
+            this.worldScale = this.parent.worldScale * this.scale;
+            this.parentWorldVersion = this.parent.worldVersion;
+        }
+        this.worldMatrix.getTranslation(this.worldPosition);
+        final BoundingVolume bounds = getLocalBounds();
+        this.worldMatrix.transformPosition(bounds.getCentre(), this.boundsCentre);
+        this.boundingRadius = bounds.getRadius() * Math.abs(this.worldScale);
+        this.worldVersion++;
+        this.transformDirty = false;
+        this.worldUpdated = true;
+        if (this.store != null) {
+            syncStoreTransform();
+            this.store.setWorldMatrix(this.storeId, this.worldMatrix);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the world matrix was rebuilt since the last call
+     */
+    public boolean consumeWorldUpdated() {
+        final boolean updated = this.worldUpdated;
+        this.worldUpdated = false;
+        return updated;
+    }
+
+    /**
+     * World space position as of the last {@link #updateWorldMatrix()}, equal to
+     * {@link #getPosition()} for elements without a parent.
+     */
+    public Vector3f getWorldPosition() {
+        return this.worldPosition;
+    }
+
+    public Quaternionf getWorldRotation() {
+        return this.worldRotation;
+    }
+
+    public float getWorldScale() {
+        return this.worldScale;
+    }
+
+    public SceneElement getParent() {
+        return this.parent;
+    }
+
+    public List<SceneElement> getChildren() {
+        return this.children == null ? Collections.emptyList() : this.children;
+    }
+
+    /**
+     * Attaches the child under this element. Its position, rotation and scale
+     * become relative to this element from then on.
+     */
+    public void addChild(final SceneElement child) {
+        for (SceneElement ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor == child) {
+                throw new IllegalStateException("Cannot attach a scene element below itself");
+            }
+        }
+        if (child.parent != null) {
+            child.parent.removeChild(child);
+        }
+        if (this.children == null) {
+            this.children = new ArrayList<>();
+        }
+        this.children.add(child);
+        child.parent = this;
+        child.markTransformDirty();
+        bumpHierarchyRevisions(child);
+    }
+
+    public void removeChild(final SceneElement child) {
+        if (child.parent != this || this.children == null) {
+            return;
+        }
+        this.children.remove(child);
+        child.parent = null;
+        child.markTransformDirty();
+        bumpHierarchyRevisions(child);
+    }
+
+    /**
+     * Bumps the revision of every scene holding this element, one of its
+     * ancestors or one of the child's descendants, as only those scenes can have
+     * a cached hierarchy order that includes the changed link.
+     */
+    private void bumpHierarchyRevisions(final SceneElement child) {
+        for (SceneElement ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor.hierarchyRevision != null) {
+                ancestor.hierarchyRevision.incrementAndGet();
+            }
+        }
+        child.bumpSubtreeHierarchyRevisions();
+    }
+
+    private void bumpSubtreeHierarchyRevisions() {
+        if (this.hierarchyRevision != null) {
+            this.hierarchyRevision.incrementAndGet();
+        }
+        if (this.children == null) {
+            return;
+        }
+        for (final SceneElement child : this.children) {
+            child.bumpSubtreeHierarchyRevisions();
+        }
+    }
+
+    /**
+     * @return revision counter of the scene holding this element, or null when
+     * it is not part of a scene
+     */
+    public AtomicInteger getHierarchyRevision() {
+        return this.hierarchyRevision;
+    }
+
+    /**
+     * Set by the scene on add and cleared on remove, so parent changes under
+     * this element bump that scene's revision.
+     */
+    public void setHierarchyRevision(final AtomicInteger hierarchyRevision) {
+        this.hierarchyRevision = hierarchyRevision;
+    }
+
+    /**
+     * Radius around {@link #getWorldPosition()} enclosing this element and all of
+     * its descendants, as of the last {@link #updateSubtreeRadius()}.
+     */
+    public float getSubtreeRadius() {
+        return this.subtreeRadius;
+    }
+
+    /**
+     * Recomputes {@link #getSubtreeRadius()} from this element's bounds and its
+     * children's subtree radii, which must be current.
+     */
+    public void updateSubtreeRadius() {
+        float radius = this.worldPosition.distance(this.boundsCentre) + this.boundingRadius;
+        if (this.children != null) {
+            for (int i = 0; i < this.children.size(); i++) {
+                final SceneElement child = this.children.get(i);
+                radius = Math.max(radius, this.worldPosition.distance(child.worldPosition) + child.subtreeRadius);
+            }
+        }
+        this.subtreeRadius = radius;
+    }
+
+    public Vector3f getPreviousPosition() {
+        return this.previousPosition;
+    }
+
+    public float getPreviousScale() {
+        return this.previousScale;
+    }
+
+    public Quaternionf getPreviousRotation() {
+        return this.previousRotation;
+    }
+
+    /**
+     * Records the current transform as the state at the start of the next fixed
+     * step, rendering interpolates between the two.
+     */
+    public void storePreviousTransform() {
+        this.previousPosition.set(this.position);
+        this.previousRotation.set(this.rotation);
+        this.previousScale = this.scale;
+        this.moving = false;
+    }
+
+    public void setPreviousTransform(final Vector3f position,
+                                     final Quaternionf rotation,
+                                     final float scale) {
+        this.previousPosition.set(position);
+        this.previousRotation.set(rotation);
+        this.previousScale = scale;
+        this.moving = !this.previousPosition.equals(this.position)
+                || !this.previousRotation.equals(this.rotation)
+                || this.previousScale != this.scale;
     }
 
     public Mesh getMesh() {
@@ -82,11 +393,24 @@ public class SceneElement {
     }
 
     public void setMeshes(final Mesh[] meshes) {
+        if (this.meshes == meshes) {
+            return;
+        }
         this.meshes = meshes;
+        markBoundsDirty();
+    }
+
+    /**
+     * Forces the bounds to be recomputed on the next {@link #updateWorldMatrix()},
+     * which scene indices then pick up like a transform change.
+     */
+    protected void markBoundsDirty() {
+        this.localBoundsDirty = true;
+        this.transformDirty = true;
     }
 
     public void setMesh(final Mesh mesh) {
-        this.meshes = new Mesh[]{mesh};
+        setMeshes(new Mesh[]{mesh});
     }
 
     public void cleanup() {
@@ -98,6 +422,9 @@ public class SceneElement {
 
     public void setSelected(final boolean selected) {
         this.selected = selected;
+        if (this.store != null) {
+            this.store.setSelected(this.storeId, selected);
+        }
     }
 
     public void setTexPos(final int texPos) {
@@ -105,11 +432,17 @@ public class SceneElement {
     }
 
     public boolean isInsideFrustum() {
+        if (this.store != null) {
+            return this.store.isInsideFrustum(this.storeId);
+        }
         return this.insideFrustum;
     }
 
     public void setInsideFrustum(final boolean insideFrustum) {
         this.insideFrustum = insideFrustum;
+        if (this.store != null) {
+            this.store.setInsideFrustum(this.storeId, insideFrustum);
+        }
     }
     
     public boolean isFrustumCullingDisabled() {
@@ -118,5 +451,159 @@ public class SceneElement {
 
     public void setFrustumCulling(final boolean frustumCulling) {
         this.disableFrustumCulling = !frustumCulling;
-    }    
+        if (this.store != null) {
+            this.store.setCullingDisabled(this.storeId, this.disableFrustumCulling);
+        }
+    }
+
+    public boolean isStatic() {
+        return this.staticElement;
+    }
+
+    /**
+     * Static elements are promised never to move once added to a scene, which lets
+     * the scene keep them in a spatial index that is built once and never refit.
+     */
+    public void setStatic(final boolean staticElement) {
+        this.staticElement = staticElement;
+    }
+
+    public boolean isOccluder() {
+        return this.occluder;
+    }
+
+    /**
+     * Occluders are rasterised into the software depth buffer that other
+     * elements are occlusion culled against. Best kept to a few large, rigid,
+     * low polygon meshes such as terrain and building shells.
+     */
+    public void setOccluder(final boolean occluder) {
+        this.occluder = occluder;
+    }
+
+    /**
+     * @return true if the element passed the last frustum cull but was hidden
+     * behind an occluder
+     */
+    public boolean isOccluded() {
+        return this.occluded;
+    }
+
+    public void setOccluded(final boolean occluded) {
+        this.occluded = occluded;
+    }
+
+    /**
+     * Sum of the bounds revisions of the meshes, which only ever grows while the
+     * meshes stay the same.
+     */
+    private int meshBoundsRevision() {
+        if (this.meshes == null) {
+            return 0;
+        }
+        int revision = 0;
+        for (final Mesh mesh : this.meshes) {
+            revision += mesh.getBoundsRevision();
+        }
+        return revision;
+    }
+
+    /**
+     * Model space bounds enclosing every mesh of this element, the union of
+     * their own bounds.
+     */
+    protected BoundingVolume getLocalBounds() {
+        if (this.localBoundsDirty) {
+            this.localBounds.clear();
+            if (this.meshes != null) {
+                for (final Mesh mesh : this.meshes) {
+                    this.localBounds.union(mesh.getBounds());
+                }
+            }
+            this.localBoundsDirty = false;
+        }
+        return this.localBounds;
+    }
+
+    /**
+     * World space centre of the sphere enclosing all of the element's meshes, as
+     * of the last {@link #updateWorldMatrix()}. Differs from the world position
+     * for meshes that are not centred on their origin.
+     */
+    public Vector3f getBoundsCentre() {
+        return this.boundsCentre;
+    }
+
+    /**
+     * Radius of the sphere around {@link #getBoundsCentre()}, scaled by the world
+     * scale of the last {@link #updateWorldMatrix()}.
+     */
+    public float getBoundingRadius() {
+        return this.boundingRadius;
+    }
+
+    /**
+     * Writes the world space box enclosing the transformed model space box of the
+     * element's meshes. Both are left inverted for elements without meshes.
+     */
+    public void getWorldAabb(final Vector3f min,
+                             final Vector3f max) {
+        final BoundingVolume bounds = getLocalBounds();
+        if (bounds.isEmpty()) {
+            min.set(Float.POSITIVE_INFINITY);
+            max.set(Float.NEGATIVE_INFINITY);
+            return;
+        }
+        getWorldMatrix().transformAab(bounds.getMin(), bounds.getMax(), min, max);
+    }
+
+    /**
+     * Mirrors this element into the given store, moving it out of any store it
+     * was attached to before. From then on every transform and flag change is
+     * written through, and the frustum flag is read back from the store.
+     */
+    public void attach(final TransformStore store) {
+        if (this.store == store) {
+            return;
+        }
+        detach();
+        this.store = store;
+        this.storeId = store.allocate(this);
+        store.setSelected(this.storeId, this.selected);
+        store.setInsideFrustum(this.storeId, this.insideFrustum);
+        store.setCullingDisabled(this.storeId, this.disableFrustumCulling);
+        syncStoreTransform();
+        this.transformDirty = true;
+    }
+
+    public void detach() {
+        if (this.store == null) {
+            return;
+        }
+        this.insideFrustum = this.store.isInsideFrustum(this.storeId);
+        this.store.release(this.storeId);
+        this.store = null;
+        this.storeId = -1;
+    }
+
+    private void syncStoreTransform() {
+        if (this.store != null) {
+            this.store.setTransform(
+                    this.storeId,
+                    this.worldPosition,
+                    this.boundsCentre,
+                    this.worldRotation,
+                    this.worldScale,
+                    getBoundingRadius()
+            );
+        }
+    }
+
+    public TransformStore getTransformStore() {
+        return this.store;
+    }
+
+    public int getTransformStoreId() {
+        return this.storeId;
+    }
 }
@@ -0,0 +1,252 @@
+package com.engineersbox.yajge.scene.element;
+
+import com.engineersbox.yajge.core.jobs.JobSystem;
+import com.engineersbox.yajge.rendering.view.culling.BatchFrustumCuller;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Structure-of-arrays mirror of element transforms, bounds and flags indexed by
+ * a per-store element id. Attached {@link SceneElement}s write through to it on
+ * every change, so culling and instance buffer filling can scan contiguous
+ * primitive arrays instead of chasing the elements' heap objects.
+ */
+public class TransformStore {
+
+    public static final int MATRIX_FLOATS = 16;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final byte SELECTED = 1;
+    private static final byte INSIDE_FRUSTUM = 1 << 1;
+    private static final byte CULLING_DISABLED = 1 << 2;
+
+    private SceneElement[] owners;
+    private float[] positions;
+    private float[] centres;
+    private float[] rotations;
+    private float[] scales;
+    private float[] radii;
+    private float[] matrices;
+    private byte[] flags;
+    private long[] visibility;
+    private int[] freeIds;
+    private int freeCount;
+    private int highWater;
+    private int count;
+
+    public TransformStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public TransformStore(final int initialCapacity) {
+        final int capacity = Math.max(1, initialCapacity);
+        this.owners = new SceneElement[capacity];
+        this.positions = new float[capacity * 3];
+        this.centres = new float[capacity * 3];
+        this.rotations = new float[capacity * 4];
+        this.scales = new float[capacity];
+        this.radii = new float[capacity];
+        this.matrices = new float[capacity * MATRIX_FLOATS];
+        this.flags = new byte[capacity];
+        this.visibility = new long[BatchFrustumCuller.wordsFor(capacity)];
+        this.freeIds = new int[capacity];
+        this.freeCount = 0;
+        this.highWater = 0;
+        this.count = 0;
+    }
+
+    int allocate(final SceneElement owner) {
+        final int id;
+        if (this.freeCount > 0) {
+            id = this.freeIds[--this.freeCount];
+        } else {
+            if (this.highWater == this.owners.length) {
+                grow(this.owners.length * 2);
+            }
+            id = this.highWater++;
+        }
+        this.owners[id] = owner;
+        this.count++;
+        return id;
+    }
+
+    void release(final int id) {
+        this.owners[id] = null;
+        this.flags[id] = 0;
+        this.freeIds[this.freeCount++] = id;
+        this.count--;
+    }
+
+    private void grow(final int capacity) {
+        this.owners = Arrays.copyOf(this.owners, capacity);
+        this.positions = Arrays.copyOf(this.positions, capacity * 3);
+        this.centres = Arrays.copyOf(this.centres, capacity * 3);
+        this.rotations = Arrays.copyOf(this.rotations, capacity * 4);
+        this.scales = Arrays.copyOf(this.scales, capacity);
+        this.radii = Arrays.copyOf(this.radii, capacity);
+        this.matrices = Arrays.copyOf(this.matrices, capacity * MATRIX_FLOATS);
+        this.flags = Arrays.copyOf(this.flags, capacity);
+        this.visibility = Arrays.copyOf(this.visibility, BatchFrustumCuller.wordsFor(capacity));
+        this.freeIds = Arrays.copyOf(this.freeIds, capacity);
+    }
+
+    void setTransform(final int id,
+                      final Vector3f position,
+                      final Vector3f centre,
+                      final Quaternionf rotation,
+                      final float scale,
+                      final float radius) {
+        final int p = id * 3;
+        this.positions[p] = position.x;
+        this.positions[p + 1] = position.y;
+        this.positions[p + 2] = position.z;
+        this.centres[p] = centre.x;
+        this.centres[p + 1] = centre.y;
+        this.centres[p + 2] = centre.z;
+        final int r = id * 4;
+        this.rotations[r] = rotation.x;
+        this.rotations[r + 1] = rotation.y;
+        this.rotations[r + 2] = rotation.z;
+        this.rotations[r + 3] = rotation.w;
+        this.scales[id] = scale;
+        this.radii[id] = radius;
+    }
+
+    void setWorldMatrix(final int id,
+                        final Matrix4f worldMatrix) {
+        worldMatrix.get(this.matrices, id * MATRIX_FLOATS);
+    }
+
+    void setFlag(final int id,
+                 final byte flag,
+                 final boolean value) {
+        if (value) {
+            this.flags[id] |= flag;
+        } else {
+            this.flags[id] &= (byte) ~flag;
+        }
+    }
+
+    void setSelected(final int id,
+                     final boolean selected) {
+        setFlag(id, SELECTED, selected);
+    }
+
+    void setInsideFrustum(final int id,
+                          final boolean insideFrustum) {
+        setFlag(id, INSIDE_FRUSTUM, insideFrustum);
+    }
+
+    void setCullingDisabled(final int id,
+                            final boolean cullingDisabled) {
+        setFlag(id, CULLING_DISABLED, cullingDisabled);
+    }
+
+    public boolean isSelected(final int id) {
+        return (this.flags[id] & SELECTED) != 0;
+    }
+
+    public boolean isInsideFrustum(final int id) {
+        return (this.flags[id] & INSIDE_FRUSTUM) != 0;
+    }
+
+    public boolean isCullingDisabled(final int id) {
+        return (this.flags[id] & CULLING_DISABLED) != 0;
+    }
+
+    public float getScale(final int id) {
+        return this.scales[id];
+    }
+
+    public float getBoundingRadius(final int id) {
+        return this.radii[id];
+    }
+
+    /**
+     * Copies the element's world matrix into {@code dest} at the given absolute
+     * float index without touching the buffer's position.
+     */
+    public void copyWorldMatrix(final int id,
+                                final FloatBuffer dest,
+                                final int index) {
+        dest.put(index, this.matrices, id * MATRIX_FLOATS, MATRIX_FLOATS);
+    }
+
+    /**
+     * Linear sphere test over every live id, updating the inside-frustum flags
+     * and appending the visible elements in id order.
+     */
+    public void cull(final FrustumIntersection frustum,
+                     final List<SceneElement> visible) {
+        for (int id = 0; id < this.highWater; id++) {
+            final SceneElement owner = this.owners[id];
+            if (owner == null) {
+                continue;
+            }
+            final byte elementFlags = this.flags[id];
+            if ((elementFlags & CULLING_DISABLED) != 0) {
+                visible.add(owner);
+                continue;
+            }
+            final int p = id * 3;
+            final boolean inside = frustum.testSphere(
+                    this.centres[p],
+                    this.centres[p + 1],
+                    this.centres[p + 2],
+                    this.radii[id]
+            );
+            this.flags[id] = (byte) (inside ? elementFlags | INSIDE_FRUSTUM : elementFlags & ~INSIDE_FRUSTUM);
+            if (inside) {
+                visible.add(owner);
+            }
+        }
+    }
+
+    /**
+     * Batch variant of {@link #cull(FrustumIntersection, List)}: the culler fills
+     * a visibility bitset from the packed arrays, possibly in parallel, and a
+     * single pass then folds it into the flags and the visible list.
+     */
+    public void cull(final BatchFrustumCuller culler,
+                     final JobSystem jobSystem,
+                     final List<SceneElement> visible) {
+        culler.cull(this.centres, this.radii, this.highWater, this.visibility, jobSystem);
+        for (int id = 0; id < this.highWater; id++) {
+            final SceneElement owner = this.owners[id];
+            if (owner == null) {
+                continue;
+            }
+            final byte elementFlags = this.flags[id];
+            if ((elementFlags & CULLING_DISABLED) != 0) {
+                visible.add(owner);
+                continue;
+            }
+            final boolean inside = BatchFrustumCuller.isVisible(this.visibility, id);
+            this.flags[id] = (byte) (inside ? elementFlags | INSIDE_FRUSTUM : elementFlags & ~INSIDE_FRUSTUM);
+            if (inside) {
+                visible.add(owner);
+            }
+        }
+    }
+
+    /**
+     * Visibility bits of the last batch cull, indexed by element id.
+     */
+    public long[] getVisibility() {
+        return this.visibility;
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    public int capacity() {
+        return this.owners.length;
+    }
+}
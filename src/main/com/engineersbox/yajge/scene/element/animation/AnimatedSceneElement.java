@@ -3,6 +3,7 @@ package com.engineersbox.yajge.scene.element.animation;
 import com.engineersbox.yajge.animation.Animation;
 import com.engineersbox.yajge.scene.element.SceneElement;
 import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import com.engineersbox.yajge.scene.spatial.BoundingVolume;
 
 import java.util.Map;
 import java.util.Optional;
@@ -24,11 +25,31 @@ public class AnimatedSceneElement extends SceneElement {
         return this.animations.get(name);
     }
 
+    public Map<String, Animation> getAnimations() {
+        return this.animations;
+    }
+
     public Animation getCurrentAnimation() {
         return this.currentAnimation;
     }
 
     public void setCurrentAnimation(final Animation currentAnimation) {
+        if (this.currentAnimation == currentAnimation) {
+            return;
+        }
         this.currentAnimation = currentAnimation;
+        markBoundsDirty();
+    }
+
+    /**
+     * Uses the bounds baked for the current animation, which cover every pose it
+     * reaches, and falls back to the bind pose bounds of the meshes.
+     */
+    @Override
+    protected BoundingVolume getLocalBounds() {
+        if (this.currentAnimation != null && this.currentAnimation.getBounds() != null) {
+            return this.currentAnimation.getBounds();
+        }
+        return super.getLocalBounds();
     }
 }
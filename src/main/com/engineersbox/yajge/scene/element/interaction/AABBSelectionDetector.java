@@ -1,6 +1,7 @@
 package com.engineersbox.yajge.scene.element.interaction;
 
 import com.engineersbox.yajge.rendering.view.Camera;
+import com.engineersbox.yajge.scene.Scene;
 import com.engineersbox.yajge.scene.element.SceneElement;
 import org.joml.Intersectionf;
 import org.joml.Vector2f;
@@ -12,6 +13,7 @@ public class AABBSelectionDetector {
     private final Vector3f min;
     private final Vector2f nearFar;
     private Vector3f dir;
+    private SceneElement lastSelected;
 
     public AABBSelectionDetector() {
         this.dir = new Vector3f();
@@ -20,6 +22,36 @@ public class AABBSelectionDetector {
         this.nearFar = new Vector2f();
     }
 
+    /**
+     * Picks through the scene's spatial index, only visiting elements whose
+     * bounds the ray actually crosses.
+     */
+    public void selectSceneElement(final Scene scene,
+                                   final Camera camera) {
+        this.dir = camera.getViewMatrix()
+                .positiveZ(this.dir)
+                .negate();
+        selectSceneElement(
+                scene,
+                camera.getPosition(),
+                this.dir
+        );
+    }
+
+    protected boolean selectSceneElement(final Scene scene,
+                                         final Vector3f center,
+                                         final Vector3f dir) {
+        if (this.lastSelected != null) {
+            this.lastSelected.setSelected(false);
+        }
+        this.lastSelected = scene.raycast(center, dir, Float.POSITIVE_INFINITY);
+        if (this.lastSelected == null) {
+            return false;
+        }
+        this.lastSelected.setSelected(true);
+        return true;
+    }
+
     public void selectSceneElement(final SceneElement[] sceneElements,
                                    final Camera camera) {
         this.dir = camera.getViewMatrix()
@@ -41,11 +73,8 @@ public class AABBSelectionDetector {
 
         for (final SceneElement sceneElement : sceneElements) {
             sceneElement.setSelected(false);
-            this.min.set(sceneElement.getPosition());
-            this.max.set(sceneElement.getPosition());
-            this.min.add(-sceneElement.getScale(), -sceneElement.getScale(), -sceneElement.getScale());
-            this.max.add(sceneElement.getScale(), sceneElement.getScale(), sceneElement.getScale());
-            if (Intersectionf.intersectRayAab(
+            sceneElement.getWorldAabb(this.min, this.max);
+            if (this.min.x <= this.max.x && Intersectionf.intersectRayAab(
                     center,
                     dir,
                     this.min,
@@ -58,6 +87,7 @@ public class AABBSelectionDetector {
         }
         if (selectedSceneElement != null) {
             selectedSceneElement.setSelected(true);
+            this.lastSelected = selectedSceneElement;
             selected = true;
         }
         return selected;
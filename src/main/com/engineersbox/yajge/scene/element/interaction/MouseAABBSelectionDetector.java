@@ -2,6 +2,7 @@ package com.engineersbox.yajge.scene.element.interaction;
 
 import com.engineersbox.yajge.core.window.Window;
 import com.engineersbox.yajge.rendering.view.Camera;
+import com.engineersbox.yajge.scene.Scene;
 import com.engineersbox.yajge.scene.element.SceneElement;
 import org.joml.Matrix4f;
 import org.joml.Vector2d;
@@ -27,6 +28,27 @@ public class MouseAABBSelectionDetector extends AABBSelectionDetector {
                                   final Window window,
                                   final Vector2d mousePos,
                                   final Camera camera) {
+        return selectSceneElement(
+                sceneElements,
+                camera.getPosition(),
+                computeMouseDir(window, mousePos, camera)
+        );
+    }
+
+    public boolean selectSceneElement(final Scene scene,
+                                      final Window window,
+                                      final Vector2d mousePos,
+                                      final Camera camera) {
+        return selectSceneElement(
+                scene,
+                camera.getPosition(),
+                computeMouseDir(window, mousePos, camera)
+        );
+    }
+
+    private Vector3f computeMouseDir(final Window window,
+                                     final Vector2d mousePos,
+                                     final Camera camera) {
         final int wdwWitdh = window.getWidth();
         final int wdwHeight = window.getHeight();
         
@@ -44,16 +66,10 @@ public class MouseAABBSelectionDetector extends AABBSelectionDetector {
         this.invViewMatrix.invert();
         this.tmpVec.mul(this.invViewMatrix);
 
-        this.mouseDir.set(
+        return this.mouseDir.set(
                 this.tmpVec.x,
                 this.tmpVec.y,
                 this.tmpVec.z
         );
-
-        return selectSceneElement(
-                sceneElements,
-                camera.getPosition(),
-                this.mouseDir
-        );
     }
 }
@@ -1,8 +1,11 @@
 package com.engineersbox.yajge.scene.element.object.composite;
 
+import com.engineersbox.yajge.core.jobs.JobSystem;
+import com.engineersbox.yajge.rendering.state.GLStateCache;
 import com.engineersbox.yajge.rendering.view.Transform;
 import com.engineersbox.yajge.resources.assets.material.Texture;
 import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.element.TransformStore;
 import com.engineersbox.yajge.util.AllocUtils;
 import com.engineersbox.yajge.util.ArrayUtils;
 import org.joml.Matrix4f;
@@ -14,7 +17,6 @@ import java.util.List;
 import static org.lwjgl.opengl.GL15.*;
 import static org.lwjgl.opengl.GL20.glEnableVertexAttribArray;
 import static org.lwjgl.opengl.GL20.glVertexAttribPointer;
-import static org.lwjgl.opengl.GL30.glBindVertexArray;
 import static org.lwjgl.opengl.GL31.glDrawElementsInstanced;
 import static org.lwjgl.opengl.GL33.glVertexAttribDivisor;
 
@@ -26,10 +28,13 @@ public class InstancedMesh extends Mesh {
     private static final int MAT4F_SIZE_BYTES = MAT4F_SIZE_FLOATS * FLOAT_SIZE_BYTES;
     private static final int INSTANCE_SIZE_BYTES = MAT4F_SIZE_BYTES + FLOAT_SIZE_BYTES * 2 + FLOAT_SIZE_BYTES;
     private static final int INSTANCE_SIZE_FLOATS = MAT4F_SIZE_FLOATS + 3;
+    private static final int PARALLEL_PREPARE_GRAIN = 256;
+    private static final ThreadLocal<Matrix4f> MODEL_MATRIX = ThreadLocal.withInitial(Matrix4f::new);
 
     private final int numInstances;
     private final int instanceDataVBO;
     private FloatBuffer instanceDataBuffer;
+    private int preparedCount;
 
     public InstancedMesh(final float[] positions,
                          final float[] texCoords,
@@ -45,10 +50,14 @@ public class InstancedMesh extends Mesh {
                 ArrayUtils.createFilledArray(Mesh.MAX_WEIGHTS * positions.length / 3, 0f)
         );
         this.numInstances = numInstances;
-        glBindVertexArray(this.vaoId);
+        this.instanceDataBuffer = MemoryUtil.memAllocFloat(numInstances * INSTANCE_SIZE_FLOATS);
+        if (this.headless) {
+            this.instanceDataVBO = 0;
+            return;
+        }
+        GLStateCache.bindVertexArray(this.vaoId);
         this.instanceDataVBO = glGenBuffers();
         this.vboIdList.add(this.instanceDataVBO);
-        this.instanceDataBuffer = MemoryUtil.memAllocFloat(numInstances * INSTANCE_SIZE_FLOATS);
         glBindBuffer(GL_ARRAY_BUFFER, this.instanceDataVBO);
         int start = 5;
         int strideStart = 0;
@@ -75,7 +84,7 @@ public class InstancedMesh extends Mesh {
         glEnableVertexAttribArray(start);
 
         glBindBuffer(GL_ARRAY_BUFFER, 0);
-        glBindVertexArray(0);
+        GLStateCache.bindVertexArray(0);
     }
 
     @Override
@@ -95,52 +104,140 @@ public class InstancedMesh extends Mesh {
                                 final boolean billBoard,
                                 final Transform transform,
                                 final Matrix4f viewMatrix) {
+        prepareInstances(sceneElements, billBoard, viewMatrix, transform.getInterpolationAlpha(), null);
+        renderPrepared();
+    }
+
+    /**
+     * Fills the CPU side instance buffer without touching GL, so it can run on a
+     * job thread ahead of submission. When a job system is given, large batches
+     * are split across its workers.
+     */
+    public void prepareInstances(final List<SceneElement> sceneElements,
+                                 final boolean billBoard,
+                                 final Matrix4f viewMatrix,
+                                 final JobSystem jobSystem) {
+        prepareInstances(sceneElements, billBoard, viewMatrix, 1.0f, jobSystem);
+    }
+
+    public void prepareInstances(final List<SceneElement> sceneElements,
+                                 final boolean billBoard,
+                                 final Matrix4f viewMatrix,
+                                 final float alpha,
+                                 final JobSystem jobSystem) {
+        final int length = sceneElements.size();
+        ensureCapacity(length);
+        this.instanceDataBuffer.clear();
+        final Texture texture = getMaterial().getTexture();
+        if (jobSystem == null) {
+            prepareRange(sceneElements, 0, length, 0, billBoard, viewMatrix, alpha, texture);
+        } else {
+            jobSystem.parallelFor(
+                    0,
+                    length,
+                    PARALLEL_PREPARE_GRAIN,
+                    (final int start, final int end) -> prepareRange(sceneElements, start, end, 0, billBoard, viewMatrix, alpha, texture)
+            );
+        }
+        this.preparedCount = length;
+    }
+
+    public void renderPrepared() {
+        if (this.headless) {
+            return;
+        }
         startRender();
         final int chunkSize = this.numInstances;
-        final int length = sceneElements.size();
-        for (int i = 0; i < length; i += chunkSize) {
-            final int end = Math.min(length, i + chunkSize);
+        for (int i = 0; i < this.preparedCount; i += chunkSize) {
+            renderChunkInstanced(i, Math.min(this.preparedCount, i + chunkSize));
+        }
+        endRender();
+    }
+
+    /**
+     * Draws the given elements from the space after the prepared instances, so
+     * passes that cull on their own, like shadow cascades, leave the prepared
+     * data of the main pass intact.
+     */
+    public void renderInstances(final List<SceneElement> sceneElements,
+                                final float alpha) {
+        final int count = sceneElements.size();
+        if (this.headless || count == 0) {
+            return;
+        }
+        ensureCapacity(this.preparedCount + count);
+        this.instanceDataBuffer.clear();
+        prepareRange(sceneElements, 0, count, this.preparedCount, false, null, alpha, getMaterial().getTexture());
+        startRender();
+        final int chunkSize = this.numInstances;
+        for (int i = 0; i < count; i += chunkSize) {
             renderChunkInstanced(
-                    sceneElements.subList(i, end),
-                    billBoard,
-                    transform,
-                    viewMatrix
+                    this.preparedCount + i,
+                    this.preparedCount + Math.min(count, i + chunkSize)
             );
         }
         endRender();
     }
 
-    private void renderChunkInstanced(final List<SceneElement> sceneElements,
-                                      final boolean billBoard,
-                                      final Transform transform,
-                                      final Matrix4f viewMatrix) {
-        this.instanceDataBuffer.clear();
-        final Texture texture = getMaterial().getTexture();
-        for (int i = 0; i < sceneElements.size(); i++) {
+    public int getPreparedCount() {
+        return this.preparedCount;
+    }
+
+    private void ensureCapacity(final int instances) {
+        final int required = Math.max(instances, this.numInstances) * INSTANCE_SIZE_FLOATS;
+        if (this.instanceDataBuffer.capacity() < required) {
+            this.instanceDataBuffer = MemoryUtil.memRealloc(this.instanceDataBuffer, required);
+        }
+    }
+
+    private void prepareRange(final List<SceneElement> sceneElements,
+                              final int start,
+                              final int end,
+                              final int offset,
+                              final boolean billBoard,
+                              final Matrix4f viewMatrix,
+                              final float alpha,
+                              final Texture texture) {
+        final Matrix4f modelMatrix = MODEL_MATRIX.get();
+        for (int i = start; i < end; i++) {
             final SceneElement sceneElement = sceneElements.get(i);
-            final Matrix4f modelMatrix = transform.buildModelMatrix(sceneElement);
-            if (viewMatrix != null && billBoard) {
-                viewMatrix.transpose3x3(modelMatrix);
+            final int instance = offset + i;
+            final TransformStore store = sceneElement.getTransformStore();
+            if (store != null
+                    && !billBoard
+                    && !sceneElement.isTransformDirty()
+                    && (alpha >= 1.0f || !sceneElement.isMoving())) {
+                store.copyWorldMatrix(sceneElement.getTransformStoreId(), this.instanceDataBuffer, INSTANCE_SIZE_FLOATS * instance);
+            } else {
+                Transform.buildModelMatrix(sceneElement, alpha, modelMatrix);
+                if (viewMatrix != null && billBoard) {
+                    viewMatrix.transpose3x3(modelMatrix);
+                }
+                modelMatrix.get(INSTANCE_SIZE_FLOATS * instance, this.instanceDataBuffer);
             }
-            modelMatrix.get(INSTANCE_SIZE_FLOATS * i, this.instanceDataBuffer);
             if (texture != null) {
                 final int col = sceneElement.getTexPos() % texture.getCols();
                 final int row = sceneElement.getTexPos() / texture.getCols();
                 final float textXOffset = (float) col / texture.getCols();
                 final float textYOffset = (float) row / texture.getRows();
-                final int buffPos = INSTANCE_SIZE_FLOATS * i + MAT4F_SIZE_FLOATS;
+                final int buffPos = INSTANCE_SIZE_FLOATS * instance + MAT4F_SIZE_FLOATS;
                 this.instanceDataBuffer.put(buffPos, textXOffset);
                 this.instanceDataBuffer.put(buffPos + 1, textYOffset);
             }
 
-            final int buffPos = INSTANCE_SIZE_FLOATS * i + MAT4F_SIZE_FLOATS + 2;
+            final int buffPos = INSTANCE_SIZE_FLOATS * instance + MAT4F_SIZE_FLOATS + 2;
             final float selectedScale = sceneElement.isSelected() ? 1 : 0;
             this.instanceDataBuffer.put(
                     buffPos,
                     billBoard ? sceneElement.getScale() : selectedScale
             );
         }
+    }
 
+    private void renderChunkInstanced(final int start,
+                                      final int end) {
+        this.instanceDataBuffer.limit(end * INSTANCE_SIZE_FLOATS);
+        this.instanceDataBuffer.position(start * INSTANCE_SIZE_FLOATS);
         glBindBuffer(GL_ARRAY_BUFFER, this.instanceDataVBO);
         glBufferData(GL_ARRAY_BUFFER, this.instanceDataBuffer, GL_DYNAMIC_READ);
         glDrawElementsInstanced(
@@ -148,8 +245,9 @@ public class InstancedMesh extends Mesh {
                 getVertexCount(),
                 GL_UNSIGNED_INT,
                 0,
-                sceneElements.size()
+                end - start
         );
         glBindBuffer(GL_ARRAY_BUFFER, 0);
+        this.instanceDataBuffer.clear();
     }
 }
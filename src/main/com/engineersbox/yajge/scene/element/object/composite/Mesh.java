@@ -1,8 +1,10 @@
 package com.engineersbox.yajge.scene.element.object.composite;
 
+import com.engineersbox.yajge.rendering.state.GLStateCache;
 import com.engineersbox.yajge.resources.assets.material.Material;
 import com.engineersbox.yajge.resources.assets.material.Texture;
 import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.spatial.BoundingVolume;
 import com.engineersbox.yajge.util.AllocUtils;
 import com.engineersbox.yajge.util.ArrayUtils;
 import org.joml.Vector3f;
@@ -23,25 +25,45 @@ public class Mesh {
 
     protected final int vaoId;
     protected final List<Integer> vboIdList;
+    protected final boolean headless;
     private final int vertexCount;
     private Material material;
-    private float boundingRadius;
+    private final BoundingVolume bounds;
+    private int boundsRevision;
     private final float[] positions;
     private final float[] texCoords;
     private final float[] normals;
     private final int[] indices;
 
+    /**
+     * Uploads the mesh to the current GL context.
+     */
     public Mesh(final float[] positions,
                 final float[] texCoords,
                 final float[] normals,
                 final int[] indices) {
+        this(
+                positions,
+                texCoords,
+                normals,
+                indices,
+                false
+        );
+    }
+
+    public Mesh(final float[] positions,
+                final float[] texCoords,
+                final float[] normals,
+                final int[] indices,
+                final boolean headless) {
         this(
                 positions,
                 texCoords,
                 normals,
                 indices,
                 ArrayUtils.createFilledArray(Mesh.MAX_WEIGHTS * positions.length / 3, 0),
-                ArrayUtils.createFilledArray(Mesh.MAX_WEIGHTS * positions.length / 3, 0.0f)
+                ArrayUtils.createFilledArray(Mesh.MAX_WEIGHTS * positions.length / 3, 0.0f),
+                headless
         );
     }
 
@@ -51,10 +73,40 @@ public class Mesh {
                 final int[] indices,
                 final int[] jointIndices,
                 final float[] weights) {
+        this(
+                positions,
+                texCoords,
+                normals,
+                indices,
+                jointIndices,
+                weights,
+                false
+        );
+    }
+
+    /**
+     * @param headless keeps the mesh CPU side only, for engines running without
+     * a GL context
+     */
+    public Mesh(final float[] positions,
+                final float[] texCoords,
+                final float[] normals,
+                final int[] indices,
+                final int[] jointIndices,
+                final float[] weights,
+                final boolean headless) {
         this.positions = positions;
         this.texCoords = texCoords;
         this.normals = normals;
         this.indices = indices;
+        this.vertexCount = indices.length;
+        this.vboIdList = new ArrayList<>();
+        this.headless = headless;
+        this.bounds = BoundingVolume.fromPositions(positions);
+        if (this.headless) {
+            this.vaoId = 0;
+            return;
+        }
         FloatBuffer posBuffer = null;
         FloatBuffer texCoordsBuffer = null;
         FloatBuffer vecNormalsBuffer = null;
@@ -62,12 +114,8 @@ public class Mesh {
         IntBuffer jointIndicesBuffer = null;
         IntBuffer indicesBuffer = null;
         try {
-            calculateBoundingRadius(positions);
-
-            this.vertexCount = indices.length;
-            this.vboIdList = new ArrayList<>();
             this.vaoId = glGenVertexArrays();
-            glBindVertexArray(this.vaoId);
+            GLStateCache.bindVertexArray(this.vaoId);
 
             posBuffer = allocateFloatBuffer(0, 3, positions);
             texCoordsBuffer = allocateFloatBuffer(1, 2, texCoords);
@@ -90,7 +138,7 @@ public class Mesh {
             indicesBuffer = allocateIndexBuffer(indices);
 
             glBindBuffer(GL_ARRAY_BUFFER, 0);
-            glBindVertexArray(0);
+            GLStateCache.bindVertexArray(0);
         } finally {
             AllocUtils.freeAll(
                     posBuffer,
@@ -103,13 +151,6 @@ public class Mesh {
         }
     }
 
-    private void calculateBoundingRadius(final float[] positions) {
-        this.boundingRadius = 0;
-        for (final float pos : positions) {
-            this.boundingRadius = Math.max(Math.abs(pos), this.boundingRadius);
-        }
-    }
-
     private FloatBuffer allocateFloatBuffer(final int index,
                                             final int size,
                                             final float[] values) {
@@ -151,6 +192,10 @@ public class Mesh {
         this.material = material;
     }
 
+    public boolean isHeadless() {
+        return this.headless;
+    }
+
     public final int getVaoId() {
         return this.vaoId;
     }
@@ -159,34 +204,76 @@ public class Mesh {
         return this.vertexCount;
     }
 
+    /**
+     * Box and sphere around the mesh's vertices in model space, computed when the
+     * mesh is created and replaced by {@link #setBoundingRadius(float)}.
+     */
+    public BoundingVolume getBounds() {
+        return this.bounds;
+    }
+
+    /**
+     * Radius of the sphere around {@link BoundingVolume#getCentre()}, not the origin.
+     */
     public float getBoundingRadius() {
-        return this.boundingRadius;
+        return this.bounds.getRadius();
     }
 
+    /**
+     * Replaces the computed bounds with a sphere of the given radius around the
+     * mesh origin, and the box around that sphere. Elements using the mesh pick
+     * the new bounds up on their next world matrix update.
+     */
     public void setBoundingRadius(final float boundingRadius) {
-        this.boundingRadius = boundingRadius;
+        this.bounds.setSphere(0, 0, 0, boundingRadius);
+        this.boundsRevision++;
+    }
+
+    /**
+     * Incremented whenever {@link #getBounds()} changes after construction.
+     */
+    public int getBoundsRevision() {
+        return this.boundsRevision;
     }
 
     protected void startRender() {
+        if (this.headless) {
+            return;
+        }
         final Texture texture = this.material != null ? this.material.getTexture() : null;
         if (texture != null) {
-            glActiveTexture(GL_TEXTURE0);
-            glBindTexture(GL_TEXTURE_2D, texture.getId());
+            GLStateCache.bindTexture2D(GL_TEXTURE0, texture.getId());
         }
         final Texture normalMap = this.material != null ? this.material.getNormalMap() : null;
         if (normalMap != null) {
-            glActiveTexture(GL_TEXTURE1);
-            glBindTexture(GL_TEXTURE_2D, normalMap.getId());
+            GLStateCache.bindTexture2D(GL_TEXTURE1, normalMap.getId());
         }
-        glBindVertexArray(getVaoId());
+        GLStateCache.bindVertexArray(getVaoId());
     }
 
+    /**
+     * Leaves the vertex array and textures bound, so the next mesh only pays
+     * for the bindings that actually differ.
+     */
     protected void endRender() {
-        glBindVertexArray(0);
-        glBindTexture(GL_TEXTURE_2D, 0);
+    }
+
+    /**
+     * Binds the material textures and vertex array so that draws can be issued
+     * separately, as when replaying a command buffer.
+     */
+    public void bind() {
+        startRender();
+    }
+
+    public void unbind() {
+        endRender();
     }
 
     public void render() {
+        if (this.headless) {
+            return;
+        }
         startRender();
         glDrawElements(
                 GL_TRIANGLES,
@@ -197,46 +284,56 @@ public class Mesh {
         endRender();
     }
 
+    /**
+     * Draws every element in the list, callers pass lists that are already culled.
+     */
     public void renderList(final List<SceneElement> sceneElements,
                            final Consumer<SceneElement> consumer) {
+        if (this.headless) {
+            return;
+        }
         startRender();
 
         for (final SceneElement sceneElement : sceneElements) {
-            if (sceneElement.isInsideFrustum()) {
-                consumer.accept(sceneElement);
-                glDrawElements(
-                        GL_TRIANGLES,
-                        getVertexCount(),
-                        GL_UNSIGNED_INT,
-                        0
-                );
-            }
+            consumer.accept(sceneElement);
+            glDrawElements(
+                    GL_TRIANGLES,
+                    getVertexCount(),
+                    GL_UNSIGNED_INT,
+                    0
+            );
         }
 
         endRender();
     }
 
     public void cleanUp() {
+        final Texture texture = this.material != null ? this.material.getTexture() : null;
+        if (texture != null) {
+            texture.cleanup();
+        }
+        if (this.headless) {
+            return;
+        }
         glDisableVertexAttribArray(0);
         glBindBuffer(GL_ARRAY_BUFFER, 0);
         for (final int vboId : this.vboIdList) {
             glDeleteBuffers(vboId);
         }
-        final Texture texture = this.material.getTexture();
-        if (texture != null) {
-            texture.cleanup();
-        }
-        glBindVertexArray(0);
-        glDeleteVertexArrays(this.vaoId);
+        GLStateCache.bindVertexArray(0);
+        GLStateCache.deleteVertexArray(this.vaoId);
     }
 
     public void deleteBuffers() {
+        if (this.headless) {
+            return;
+        }
         glBindBuffer(GL_ARRAY_BUFFER, 0);
         for (final int vboId : this.vboIdList) {
             glDeleteBuffers(vboId);
         }
-        glBindVertexArray(0);
-        glDeleteVertexArrays(this.vaoId);
+        GLStateCache.bindVertexArray(0);
+        GLStateCache.deleteVertexArray(this.vaoId);
     }
 
     protected static float[] createEmptyFloatArray(final int length,
@@ -264,6 +361,10 @@ public class Mesh {
         return vertices;
     }
 
+    public float[] getPositions() {
+        return this.positions;
+    }
+
     public int[] getIndices() {
         return this.indices;
     }
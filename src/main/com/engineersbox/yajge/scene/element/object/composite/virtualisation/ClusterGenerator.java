@@ -1,5 +1,6 @@
 package com.engineersbox.yajge.scene.element.object.composite.virtualisation;
 
+import com.engineersbox.yajge.debug.jfr.ClusteringEvent;
 import com.engineersbox.yajge.scene.element.object.composite.virtualisation.graph.Graph;
 import com.engineersbox.yajge.scene.element.object.composite.virtualisation.graph.GraphEdge;
 import com.engineersbox.yajge.scene.element.object.composite.virtualisation.graph.GraphVertex;
@@ -17,6 +18,8 @@ public class ClusterGenerator {
     public static List<VertexCluster> findClustersThreshold(final Graph graph,
                                                            final int clusterVertexThreshold) {
         ClusterGenerator.LOGGER.info("[CLUSTERING - THRESHOLD | START] Reducing graph {} with cluster threshold {}", graph, clusterVertexThreshold);
+        final ClusteringEvent event = new ClusteringEvent();
+        event.begin();
         final long timeStart = System.currentTimeMillis();
         final PriorityQueue<GraphEdge> edges = new PriorityQueue<>(graph.getEdges().size(), (final GraphEdge a, final GraphEdge b) -> {
             if (a.length() < b.length()) {
@@ -43,6 +46,13 @@ public class ClusterGenerator {
                 clusterVertexThreshold
         );
         final long timeEnd = System.currentTimeMillis();
+        commitClusteringEvent(
+                event,
+                "THRESHOLD",
+                graph.getVertices().size(),
+                clusterVertexThreshold,
+                clustering.size()
+        );
         final OptionalDouble average = clustering
                 .stream()
                 .map(VertexCluster::size)
@@ -57,6 +67,21 @@ public class ClusterGenerator {
         return clustering;
     }
 
+    private static void commitClusteringEvent(final ClusteringEvent event,
+                                              final String mode,
+                                              final int input,
+                                              final int target,
+                                              final int clusters) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.mode = mode;
+            event.input = input;
+            event.target = target;
+            event.clusters = clusters;
+            event.commit();
+        }
+    }
+
     private static List<VertexCluster> group(final Map<GraphVertex, VertexCluster> clusters,
                                              final PriorityQueue<GraphEdge> edges,
                                              final int clusterVertexThreshold) {
@@ -109,6 +134,8 @@ public class ClusterGenerator {
     public static Map<VertexCluster, List<VertexCluster>> findClustersCount(final List<VertexCluster> clusters,
                                                                             final int k) {
         ClusterGenerator.LOGGER.info("[CLUSTERING - COUNT | START] Reducing clusters with cluster count {}", k);
+        final ClusteringEvent event = new ClusteringEvent();
+        event.begin();
         final long timeStart = System.currentTimeMillis();
         final PriorityQueue<GraphEdge> edges = new PriorityQueue<>(getClustersEdges(clusters).size(), (final GraphEdge a, final GraphEdge b) -> {
             if (a.length() < b.length()) {
@@ -155,6 +182,13 @@ public class ClusterGenerator {
             numClusters--;
         }
         final long timeEnd = System.currentTimeMillis();
+        commitClusteringEvent(
+                event,
+                "COUNT",
+                clusters.size(),
+                k,
+                numClusters
+        );
         final OptionalDouble average = vertexClusterMapping.values()
                 .stream()
                 .map(VertexCluster::size)
@@ -15,6 +15,7 @@ package com.engineersbox.yajge.scene.element.object.composite.virtualisation;
     Refactored to support decimation by rendered size by Jack Kilrain A.K.A EngineersBox in 2022
  */
 
+import com.engineersbox.yajge.debug.jfr.SimplificationEvent;
 import com.engineersbox.yajge.scene.element.object.composite.Mesh;
 import com.engineersbox.yajge.scene.element.object.composite.virtualisation.primitive.Ref;
 import com.engineersbox.yajge.scene.element.object.composite.virtualisation.primitive.SymetricMatrix;
@@ -142,6 +143,8 @@ public class QuadricErrorSimplifier {
     public Mesh simplify(final int targetCount,
                          final double aggressiveness,
                          final boolean complexNormals) {
+        final SimplificationEvent event = new SimplificationEvent();
+        event.begin();
         // re-read the mesh every time we simplify to start with the original data.
         processMesh();
         QuadricErrorSimplifier.LOGGER.info(
@@ -199,7 +202,15 @@ public class QuadricErrorSimplifier {
                 triangleCount - deletedTriangles,
                 (deletedTriangles * 100) / triangleCount
         );
-        return createSimplifiedMesh(complexNormals);
+        final Mesh simplified = createSimplifiedMesh(complexNormals);
+        event.end();
+        if (event.shouldCommit()) {
+            event.inputTriangles = triangleCount;
+            event.targetTriangles = targetCount;
+            event.outputTriangles = triangleCount - deletedTriangles;
+            event.commit();
+        }
+        return simplified;
     }
 
     private int removeAndMarkVertices(final double threshold,
@@ -577,7 +588,8 @@ public class QuadricErrorSimplifier {
                 ArrayUtils.toPrimitive(newVertices.toArray(Float[]::new)),
                 new float[0],
                 ArrayUtils.toPrimitive(newNormals.toArray(Float[]::new)),
-                ArrayUtils.toPrimitive(indexList.toArray(Integer[]::new))
+                ArrayUtils.toPrimitive(indexList.toArray(Integer[]::new)),
+                this.inMesh.isHeadless()
         );
     }
 
@@ -1,5 +1,6 @@
 package com.engineersbox.yajge.scene.element.particles;
 
+import com.engineersbox.yajge.core.jobs.JobSystem;
 import com.engineersbox.yajge.scene.element.SceneElement;
 import org.joml.Vector3f;
 
@@ -9,6 +10,8 @@ import java.util.List;
 
 public class FlowParticleEmitter implements IParticleEmitter {
 
+    private static final int PARALLEL_UPDATE_GRAIN = 1024;
+
     private int maxParticles;
     private boolean active;
     private final List<SceneElement> particles;
@@ -19,10 +22,29 @@ public class FlowParticleEmitter implements IParticleEmitter {
     private float positionRndRange;
     private float scaleRndRange;
     private long animRange;
+    private final JobSystem jobSystem;
 
     public FlowParticleEmitter(final Particle baseParticle,
                                final int maxParticles,
                                final long creationPeriodMillis) {
+        this(
+                baseParticle,
+                maxParticles,
+                creationPeriodMillis,
+                null
+        );
+    }
+
+    /**
+     * @param jobSystem integrates particle positions in parallel on every
+     *                  {@link #update(long)}, usually the engine context's, or
+     *                  null to update serially
+     */
+    public FlowParticleEmitter(final Particle baseParticle,
+                               final int maxParticles,
+                               final long creationPeriodMillis,
+                               final JobSystem jobSystem) {
+        this.jobSystem = jobSystem;
         this.particles = new ArrayList<>();
         this.baseParticle = baseParticle;
         this.maxParticles = maxParticles;
@@ -93,19 +115,35 @@ public class FlowParticleEmitter implements IParticleEmitter {
         this.speedRndRange = speedRndRange;
     }
 
+    @Override
     public void update(final long elapsedTime) {
         final long now = System.currentTimeMillis();
         if (this.lastCreationTime == 0) {
             this.lastCreationTime = now;
         }
-        final Iterator<? extends SceneElement> it = this.particles.iterator();
-        while (it.hasNext()) {
-            final Particle particle = (Particle) it.next();
-            if (particle.updateTTL(elapsedTime) < 0) {
-                it.remove();
-            } else {
-                updatePosition(particle, elapsedTime);
+        if (this.jobSystem == null) {
+            final Iterator<? extends SceneElement> it = this.particles.iterator();
+            while (it.hasNext()) {
+                final Particle particle = (Particle) it.next();
+                if (particle.updateTTL(elapsedTime) < 0) {
+                    it.remove();
+                } else {
+                    updatePosition(particle, elapsedTime);
+                }
             }
+        } else {
+            // Expiry mutates the list so stays serial, integration is per particle
+            this.particles.removeIf((final SceneElement particle) -> ((Particle) particle).updateTTL(elapsedTime) < 0);
+            this.jobSystem.parallelFor(
+                    0,
+                    this.particles.size(),
+                    PARALLEL_UPDATE_GRAIN,
+                    (final int start, final int end) -> {
+                        for (int i = start; i < end; i++) {
+                            updatePosition((Particle) this.particles.get(i), elapsedTime);
+                        }
+                    }
+            );
         }
 
         final int length = this.getParticles().size();
@@ -123,6 +161,7 @@ public class FlowParticleEmitter implements IParticleEmitter {
         final float scaleInc = sign * (float)Math.random() * this.scaleRndRange;
         final long updateAnimInc = (long)sign *(long)(Math.random() * (float)this.animRange);
         particle.getPosition().add(posInc, posInc, posInc);
+        particle.markTransformDirty();
         particle.getSpeed().add(speedInc, speedInc, speedInc);
         particle.setScale(particle.getScale() + scaleInc);
         particle.setUpdateTextureMills(particle.getUpdateTextureMillis() + updateAnimInc);
@@ -6,6 +6,7 @@ import java.util.List;
 
 public interface IParticleEmitter {
     void cleanup();
+    void update(final long elapsedTime);
     Particle getBaseParticle();
     List<SceneElement> getParticles();
 }
@@ -0,0 +1,346 @@
+package com.engineersbox.yajge.scene.snapshot;
+
+import com.engineersbox.yajge.animation.Animation;
+import com.engineersbox.yajge.rendering.scene.lighting.DirectionalLight;
+import com.engineersbox.yajge.rendering.scene.lighting.PointLight;
+import com.engineersbox.yajge.rendering.scene.lighting.SpotLight;
+import com.engineersbox.yajge.rendering.view.Camera;
+import com.engineersbox.yajge.rendering.view.Transform;
+import com.engineersbox.yajge.scene.Scene;
+import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.element.animation.AnimatedSceneElement;
+import com.engineersbox.yajge.scene.element.object.composite.InstancedMesh;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import com.engineersbox.yajge.scene.element.particles.IParticleEmitter;
+import com.engineersbox.yajge.scene.lighting.SceneLight;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SceneSnapshot {
+
+    private static final ThreadLocal<Matrix4f> FLATTEN_MATRIX = ThreadLocal.withInitial(Matrix4f::new);
+    private static final ThreadLocal<Vector3f> FLATTEN_POSITION = ThreadLocal.withInitial(Vector3f::new);
+    private static final ThreadLocal<Vector3f> FLATTEN_SCALE = ThreadLocal.withInitial(Vector3f::new);
+    private static final ThreadLocal<Quaternionf> FLATTEN_ROTATION = ThreadLocal.withInitial(Quaternionf::new);
+
+    private final Scene scene;
+    private final Camera camera;
+    private final SceneLight sceneLight;
+    private final DirectionalLight directionalLight;
+    private Map<SceneElement, SceneElement> proxies;
+    private Map<SceneElement, SceneElement> staleProxies;
+    private final Map<IParticleEmitter, SnapshotParticleEmitter> emitters;
+    private IParticleEmitter[] emitterProxies;
+    private boolean sceneChanged;
+    private long sequence;
+    private long sceneRevision;
+
+    public SceneSnapshot() {
+        this.scene = new Scene();
+        this.camera = new Camera();
+        this.sceneLight = new SceneLight();
+        this.sceneLight.setAmbientLight(new Vector3f());
+        this.sceneLight.setSkyboxLight(new Vector3f());
+        this.directionalLight = new DirectionalLight(new Vector3f(), new Vector3f(), 0);
+        this.proxies = new IdentityHashMap<>();
+        this.staleProxies = new IdentityHashMap<>();
+        this.emitters = new IdentityHashMap<>();
+        this.emitterProxies = new IParticleEmitter[0];
+        this.sceneChanged = false;
+        this.sequence = 0;
+    }
+
+    public void capture(final Scene source,
+                        final Camera sourceCamera,
+                        final boolean sceneChanged) {
+        final Map<SceneElement, SceneElement> swap = this.staleProxies;
+        this.staleProxies = this.proxies;
+        this.proxies = swap;
+        this.proxies.clear();
+
+        captureBuckets(source.getNonInstancedMeshes());
+        captureBuckets(source.getInstancedMeshes());
+        for (final SceneElement staleProxy : this.staleProxies.values()) {
+            this.scene.remove(staleProxy);
+        }
+        this.staleProxies.clear();
+
+        this.scene.setSkybox(source.getSkybox());
+        this.scene.setFog(source.getFog());
+        this.scene.setRenderShadows(source.isRenderShadows());
+        captureSceneLight(source.getSceneLight());
+        captureParticleEmitters(source.getParticleEmitters());
+
+        this.camera.getPosition().set(sourceCamera.getPosition());
+        this.camera.getRotation().set(sourceCamera.getRotation());
+        this.camera.getPreviousPosition().set(sourceCamera.getPreviousPosition());
+        this.camera.getPreviousRotation().set(sourceCamera.getPreviousRotation());
+        this.camera.getViewMatrix().set(sourceCamera.getViewMatrix());
+        this.sceneChanged = sceneChanged;
+    }
+
+    /**
+     * Proxies join and leave the snapshot scene through {@link Scene#add} and
+     * {@link Scene#remove}, so it tracks membership and hierarchy roots for
+     * culling like any other scene. Proxies kept from the last capture stay in
+     * their buckets unless their meshes changed.
+     */
+    private <M extends Mesh> void captureBuckets(final Map<M, List<SceneElement>> source) {
+        for (final List<SceneElement> bucket : source.values()) {
+            for (final SceneElement sceneElement : bucket) {
+                proxyOf(sceneElement);
+            }
+        }
+    }
+
+    private void proxyOf(final SceneElement sceneElement) {
+        if (this.proxies.containsKey(sceneElement)) {
+            return;
+        }
+        SceneElement proxy = this.staleProxies.remove(sceneElement);
+        if (proxy == null) {
+            proxy = createProxy(sceneElement);
+            this.scene.add(proxy);
+        } else if (proxy.getMeshes() != sceneElement.getMeshes()) {
+            this.scene.remove(proxy);
+            proxy.setMeshes(sceneElement.getMeshes());
+            this.scene.add(proxy);
+        }
+        copyState(sceneElement, proxy);
+        this.proxies.put(sceneElement, proxy);
+    }
+
+    private static SceneElement createProxy(final SceneElement sceneElement) {
+        if (sceneElement instanceof final AnimatedSceneElement animatedSceneElement) {
+            final Map<String, Animation> animations = new HashMap<>();
+            for (final Map.Entry<String, Animation> entry : animatedSceneElement.getAnimations().entrySet()) {
+                animations.put(entry.getKey(), new Animation(entry.getValue()));
+            }
+            return new AnimatedSceneElement(
+                    animatedSceneElement.getMeshes(),
+                    animations
+            );
+        }
+        return new SceneElement(sceneElement.getMeshes());
+    }
+
+    static void copyState(final SceneElement source,
+                          final SceneElement proxy) {
+        proxy.setMeshes(source.getMeshes());
+        if (source.getParent() != null) {
+            copyFlattenedTransform(source, proxy);
+        } else {
+            final Vector3f position = source.getPosition();
+            proxy.setPosition(position.x, position.y, position.z);
+            proxy.setRotation(source.getRotation());
+            proxy.setScale(source.getScale());
+            proxy.setPreviousTransform(
+                    source.getPreviousPosition(),
+                    source.getPreviousRotation(),
+                    source.getPreviousScale()
+            );
+        }
+        proxy.setSelected(source.isSelected());
+        proxy.setTexPos(source.getTexPos());
+        // Visibility is left to the render side cull of the snapshot scene, which
+        // may carry it over from that scene's previous cull
+        proxy.setFrustumCulling(!source.isFrustumCullingDisabled());
+        proxy.setStatic(source.isStatic());
+        proxy.setOccluder(source.isOccluder());
+        if (source instanceof final AnimatedSceneElement animatedSource
+                && proxy instanceof final AnimatedSceneElement animatedProxy) {
+            copyAnimation(animatedSource, animatedProxy);
+        }
+    }
+
+    /**
+     * Proxies hold their own copy of each animation and only take the frame
+     * index, as the source keeps advancing on the simulation thread while the
+     * snapshot is rendered.
+     */
+    private static void copyAnimation(final AnimatedSceneElement source,
+                                      final AnimatedSceneElement proxy) {
+        final Animation current = source.getCurrentAnimation();
+        if (current == null) {
+            proxy.setCurrentAnimation(null);
+            return;
+        }
+        Animation copy = proxy.getAnimation(current.getName());
+        if (copy == null || copy.getFrames() != current.getFrames()) {
+            copy = new Animation(current);
+            proxy.getAnimations().put(current.getName(), copy);
+        }
+        copy.setCurrentFrameIndex(current.getCurrentFrameIndex());
+        proxy.setCurrentAnimation(copy);
+    }
+
+    /**
+     * Proxies are flat, so children carry their world transform, and the world
+     * transform of their previous state for interpolation.
+     */
+    private static void copyFlattenedTransform(final SceneElement source,
+                                               final SceneElement proxy) {
+        final Matrix4f matrix = FLATTEN_MATRIX.get();
+        final Vector3f position = FLATTEN_POSITION.get();
+        final Quaternionf rotation = FLATTEN_ROTATION.get();
+        source.getWorldMatrix();
+        proxy.setPosition(source.getWorldPosition().x, source.getWorldPosition().y, source.getWorldPosition().z);
+        proxy.setRotation(source.getWorldRotation());
+        proxy.setScale(source.getWorldScale());
+        Transform.buildModelMatrix(source, 0.0f, matrix);
+        matrix.getTranslation(position);
+        matrix.getNormalizedRotation(rotation);
+        proxy.setPreviousTransform(
+                position,
+                rotation,
+                matrix.getScale(FLATTEN_SCALE.get()).x
+        );
+    }
+
+    private void captureSceneLight(final SceneLight source) {
+        if (source == null) {
+            this.scene.setSceneLight(null);
+            return;
+        }
+        copyVector(source.getAmbientLight(), this.sceneLight.getAmbientLight());
+        copyVector(source.getSkyboxLight(), this.sceneLight.getSkyboxLight());
+        final DirectionalLight sourceDirectionalLight = source.getDirectionalLight();
+        if (sourceDirectionalLight != null) {
+            this.directionalLight.getColor().set(sourceDirectionalLight.getColor());
+            this.directionalLight.getDirection().set(sourceDirectionalLight.getDirection());
+            this.directionalLight.setIntensity(sourceDirectionalLight.getIntensity());
+            this.sceneLight.setDirectionalLight(this.directionalLight);
+        } else {
+            this.sceneLight.setDirectionalLight(null);
+        }
+        this.sceneLight.setPointLights(copyPointLights(
+                source.getPointLightList(),
+                this.sceneLight.getPointLightList()
+        ));
+        this.sceneLight.setSpotLightList(copySpotLights(
+                source.getSpotLightList(),
+                this.sceneLight.getSpotLightList()
+        ));
+        this.scene.setSceneLight(this.sceneLight);
+    }
+
+    private static PointLight[] copyPointLights(final PointLight[] source,
+                                                final PointLight[] previous) {
+        if (source == null) {
+            return null;
+        }
+        if (previous == null || previous.length != source.length) {
+            final PointLight[] copies = new PointLight[source.length];
+            for (int i = 0; i < source.length; i++) {
+                copies[i] = new PointLight(source[i]);
+            }
+            return copies;
+        }
+        for (int i = 0; i < source.length; i++) {
+            copyPointLight(source[i], previous[i]);
+        }
+        return previous;
+    }
+
+    private static SpotLight[] copySpotLights(final SpotLight[] source,
+                                              final SpotLight[] previous) {
+        if (source == null) {
+            return null;
+        }
+        if (previous == null || previous.length != source.length) {
+            final SpotLight[] copies = new SpotLight[source.length];
+            for (int i = 0; i < source.length; i++) {
+                copies[i] = new SpotLight(source[i]);
+            }
+            return copies;
+        }
+        for (int i = 0; i < source.length; i++) {
+            copyPointLight(source[i].getPointLight(), previous[i].getPointLight());
+            previous[i].getConeDirection().set(source[i].getConeDirection());
+            previous[i].setCutOff(source[i].getCutOff());
+        }
+        return previous;
+    }
+
+    private static void copyPointLight(final PointLight source,
+                                       final PointLight target) {
+        target.getColor().set(source.getColor());
+        target.getPosition().set(source.getPosition());
+        target.setIntensity(source.getIntensity());
+        target.setAttenuation(source.getAttenuation());
+    }
+
+    private static void copyVector(final Vector3f source,
+                                   final Vector3f target) {
+        if (source == null) {
+            target.zero();
+        } else {
+            target.set(source);
+        }
+    }
+
+    private void captureParticleEmitters(final IParticleEmitter[] source) {
+        if (source == null) {
+            this.scene.setParticleEmitters(null);
+            this.emitters.clear();
+            return;
+        }
+        if (this.emitterProxies.length != source.length) {
+            this.emitterProxies = new IParticleEmitter[source.length];
+        }
+        for (int i = 0; i < source.length; i++) {
+            final SnapshotParticleEmitter proxy = this.emitters.computeIfAbsent(
+                    source[i],
+                    SnapshotParticleEmitter::new
+            );
+            proxy.capture();
+            this.emitterProxies[i] = proxy;
+        }
+        if (this.emitters.size() > source.length) {
+            this.emitters.keySet().retainAll(List.of(source));
+        }
+        this.scene.setParticleEmitters(this.emitterProxies);
+    }
+
+    public Scene getScene() {
+        return this.scene;
+    }
+
+    public Camera getCamera() {
+        return this.camera;
+    }
+
+    /**
+     * As captured until published, then whether any snapshot published since the
+     * one acquired before this, including skipped ones, changed the scene.
+     */
+    public boolean isSceneChanged() {
+        return this.sceneChanged;
+    }
+
+    void setSceneChanged(final boolean sceneChanged) {
+        this.sceneChanged = sceneChanged;
+    }
+
+    long getSceneRevision() {
+        return this.sceneRevision;
+    }
+
+    void setSceneRevision(final long sceneRevision) {
+        this.sceneRevision = sceneRevision;
+    }
+
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    void setSequence(final long sequence) {
+        this.sequence = sequence;
+    }
+}
@@ -0,0 +1,49 @@
+package com.engineersbox.yajge.scene.snapshot;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free triple buffer between the simulation and render threads. The producer
+ * always has a private snapshot to write into and the consumer always has a private
+ * snapshot to read from, so neither side ever blocks on the other. Scene changes
+ * are counted in a revision, so a change in a snapshot the consumer never saw is
+ * still reported by the next one it acquires.
+ */
+public class SnapshotExchange {
+
+    private final AtomicReference<SceneSnapshot> pending;
+    private SceneSnapshot writing;
+    private SceneSnapshot reading;
+    private long nextSequence;
+    private long sceneRevision;
+    private long acquiredRevision;
+
+    public SnapshotExchange() {
+        this.pending = new AtomicReference<>(new SceneSnapshot());
+        this.writing = new SceneSnapshot();
+        this.reading = new SceneSnapshot();
+        this.nextSequence = 1;
+    }
+
+    public SceneSnapshot beginWrite() {
+        return this.writing;
+    }
+
+    public void publish() {
+        if (this.writing.isSceneChanged()) {
+            this.sceneRevision++;
+        }
+        this.writing.setSceneRevision(this.sceneRevision);
+        this.writing.setSequence(this.nextSequence++);
+        this.writing = this.pending.getAndSet(this.writing);
+    }
+
+    public SceneSnapshot acquire() {
+        if (this.pending.get().getSequence() > this.reading.getSequence()) {
+            this.reading = this.pending.getAndSet(this.reading);
+        }
+        this.reading.setSceneChanged(this.reading.getSceneRevision() != this.acquiredRevision);
+        this.acquiredRevision = this.reading.getSceneRevision();
+        return this.reading;
+    }
+}
@@ -0,0 +1,55 @@
+package com.engineersbox.yajge.scene.snapshot;
+
+import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.element.particles.IParticleEmitter;
+import com.engineersbox.yajge.scene.element.particles.Particle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SnapshotParticleEmitter implements IParticleEmitter {
+
+    private final IParticleEmitter source;
+    private final List<SceneElement> particles;
+    private final List<SceneElement> pool;
+
+    public SnapshotParticleEmitter(final IParticleEmitter source) {
+        this.source = source;
+        this.particles = new ArrayList<>();
+        this.pool = new ArrayList<>();
+    }
+
+    void capture() {
+        final List<SceneElement> sourceParticles = this.source.getParticles();
+        final int count = sourceParticles.size();
+        while (this.pool.size() < count) {
+            this.pool.add(new SceneElement(this.source.getBaseParticle().getMesh()));
+        }
+        this.particles.clear();
+        for (int i = 0; i < count; i++) {
+            final SceneElement proxy = this.pool.get(i);
+            SceneSnapshot.copyState(sourceParticles.get(i), proxy);
+            this.particles.add(proxy);
+        }
+    }
+
+    @Override
+    public void cleanup() {
+        // Proxies share meshes with the source emitter, which owns their cleanup
+    }
+
+    @Override
+    public void update(final long elapsedTime) {
+        // Proxies only mirror the source emitter, which is simulated instead
+    }
+
+    @Override
+    public Particle getBaseParticle() {
+        return this.source.getBaseParticle();
+    }
+
+    @Override
+    public List<SceneElement> getParticles() {
+        return this.particles;
+    }
+}
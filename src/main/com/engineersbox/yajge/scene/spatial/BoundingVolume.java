@@ -0,0 +1,207 @@
+package com.engineersbox.yajge.scene.spatial;
+
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+
+/**
+ * Local space bounds of a mesh or element: an axis aligned box and a sphere
+ * around its own centre, which need not be the origin. An empty volume has an
+ * inverted box and a zero radius.
+ */
+public class BoundingVolume {
+
+    private final Vector3f min;
+    private final Vector3f max;
+    private final Vector3f centre;
+    private float radius;
+
+    public BoundingVolume() {
+        this.min = new Vector3f(Float.POSITIVE_INFINITY);
+        this.max = new Vector3f(Float.NEGATIVE_INFINITY);
+        this.centre = new Vector3f();
+        this.radius = 0;
+    }
+
+    /**
+     * Computes the box and a tight sphere over packed {@code xyz} positions. The
+     * sphere is the smaller of Ritter's and the one around the box centre.
+     */
+    public static BoundingVolume fromPositions(final float[] positions) {
+        final BoundingVolume volume = new BoundingVolume();
+        final int count = positions.length / 3;
+        if (count == 0) {
+            return volume;
+        }
+        for (int i = 0; i < count; i++) {
+            final float x = positions[i * 3];
+            final float y = positions[i * 3 + 1];
+            final float z = positions[i * 3 + 2];
+            volume.min.set(Math.min(volume.min.x, x), Math.min(volume.min.y, y), Math.min(volume.min.z, z));
+            volume.max.set(Math.max(volume.max.x, x), Math.max(volume.max.y, y), Math.max(volume.max.z, z));
+        }
+
+        final Vector3f boxCentre = new Vector3f(volume.min).add(volume.max).mul(0.5f);
+        float boxRadiusSquared = 0;
+        for (int i = 0; i < count; i++) {
+            boxRadiusSquared = Math.max(
+                    boxRadiusSquared,
+                    boxCentre.distanceSquared(positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2])
+            );
+        }
+
+        final Vector3f ritterCentre = new Vector3f();
+        final float ritterRadius = ritterSphere(positions, count, ritterCentre);
+        final float boxRadius = (float) Math.sqrt(boxRadiusSquared);
+        if (ritterRadius < boxRadius) {
+            volume.centre.set(ritterCentre);
+            volume.radius = ritterRadius;
+        } else {
+            volume.centre.set(boxCentre);
+            volume.radius = boxRadius;
+        }
+        return volume;
+    }
+
+    /**
+     * @return a volume with the given box and the sphere through its corners
+     */
+    public static BoundingVolume fromAabb(final Vector3fc min,
+                                          final Vector3fc max) {
+        final BoundingVolume volume = new BoundingVolume();
+        volume.min.set(min);
+        volume.max.set(max);
+        volume.centre.set(min).add(max).mul(0.5f);
+        volume.radius = volume.centre.distance(max);
+        return volume;
+    }
+
+    private static float ritterSphere(final float[] positions,
+                                      final int count,
+                                      final Vector3f centre) {
+        final int y = furthestFrom(positions, count, positions[0], positions[1], positions[2]);
+        final int z = furthestFrom(positions, count, positions[y * 3], positions[y * 3 + 1], positions[y * 3 + 2]);
+        centre.set(
+                (positions[y * 3] + positions[z * 3]) * 0.5f,
+                (positions[y * 3 + 1] + positions[z * 3 + 1]) * 0.5f,
+                (positions[y * 3 + 2] + positions[z * 3 + 2]) * 0.5f
+        );
+        float radius = centre.distance(positions[z * 3], positions[z * 3 + 1], positions[z * 3 + 2]);
+        for (int i = 0; i < count; i++) {
+            final float px = positions[i * 3];
+            final float py = positions[i * 3 + 1];
+            final float pz = positions[i * 3 + 2];
+            final float distance = centre.distance(px, py, pz);
+            if (distance <= radius) {
+                continue;
+            }
+            // Grow just enough to reach the point, keeping the far side fixed
+            final float grown = (radius + distance) * 0.5f;
+            final float shift = (grown - radius) / distance;
+            centre.add(
+                    (px - centre.x) * shift,
+                    (py - centre.y) * shift,
+                    (pz - centre.z) * shift
+            );
+            radius = grown;
+        }
+        return radius;
+    }
+
+    private static int furthestFrom(final float[] positions,
+                                    final int count,
+                                    final float x,
+                                    final float y,
+                                    final float z) {
+        int furthest = 0;
+        float furthestDistance = -1;
+        for (int i = 0; i < count; i++) {
+            final float dx = positions[i * 3] - x;
+            final float dy = positions[i * 3 + 1] - y;
+            final float dz = positions[i * 3 + 2] - z;
+            final float distance = dx * dx + dy * dy + dz * dz;
+            if (distance > furthestDistance) {
+                furthestDistance = distance;
+                furthest = i;
+            }
+        }
+        return furthest;
+    }
+
+    /**
+     * Grows this volume to also enclose the other one, the sphere becoming the
+     * smallest one around both spheres.
+     */
+    public BoundingVolume union(final BoundingVolume other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return set(other);
+        }
+        this.min.min(other.min);
+        this.max.max(other.max);
+        final float distance = this.centre.distance(other.centre);
+        if (distance + other.radius <= this.radius) {
+            return this;
+        }
+        if (distance + this.radius <= other.radius) {
+            this.centre.set(other.centre);
+            this.radius = other.radius;
+            return this;
+        }
+        final float grown = (distance + this.radius + other.radius) * 0.5f;
+        this.centre.lerp(other.centre, (grown - this.radius) / distance);
+        this.radius = grown;
+        return this;
+    }
+
+    public BoundingVolume set(final BoundingVolume other) {
+        this.min.set(other.min);
+        this.max.set(other.max);
+        this.centre.set(other.centre);
+        this.radius = other.radius;
+        return this;
+    }
+
+    public BoundingVolume clear() {
+        this.min.set(Float.POSITIVE_INFINITY);
+        this.max.set(Float.NEGATIVE_INFINITY);
+        this.centre.zero();
+        this.radius = 0;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return this.min.x > this.max.x;
+    }
+
+    public Vector3f getMin() {
+        return this.min;
+    }
+
+    public Vector3f getMax() {
+        return this.max;
+    }
+
+    public Vector3f getCentre() {
+        return this.centre;
+    }
+
+    public float getRadius() {
+        return this.radius;
+    }
+
+    /**
+     * Replaces the bounds with the given sphere and the box around it.
+     */
+    public BoundingVolume setSphere(final float x,
+                                    final float y,
+                                    final float z,
+                                    final float radius) {
+        this.min.set(x - radius, y - radius, z - radius);
+        this.max.set(x + radius, y + radius, z + radius);
+        this.centre.set(x, y, z);
+        this.radius = radius;
+        return this;
+    }
+}
@@ -0,0 +1,699 @@
+package com.engineersbox.yajge.scene.spatial;
+
+import com.engineersbox.yajge.scene.element.SceneElement;
+import org.joml.FrustumIntersection;
+import org.joml.Intersectionf;
+import org.joml.Vector2f;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Binary BVH over the subtree bounding spheres of scene graph roots, built with
+ * a binned surface area heuristic. Each root stands in for all of its
+ * descendants until a query needs to look inside it. Nodes live in flat arrays with children always
+ * stored after their parent, so {@link #refit()} is a single reverse sweep, and
+ * every node covers a contiguous range of elements so whole subtrees can be
+ * accepted or rejected without visiting their leaves. Descendants that are not
+ * members, by the predicate given on construction, are walked through for
+ * their children but never reported.
+ */
+public class BoundingVolumeHierarchy {
+
+    private static final int MAX_LEAF_SIZE = 4;
+    private static final int MAX_SAH_LEAF_SIZE = 16;
+    private static final int SAH_BINS = 12;
+    private static final int NODE_STRIDE = 6;
+    private static final int ELEMENT_STRIDE = 4;
+    private static final float MIN_EXTENT = 1e-6f;
+    private static final ThreadLocal<int[]> QUERY_STACK = ThreadLocal.withInitial(() -> new int[0]);
+
+    private final Predicate<SceneElement> member;
+    private SceneElement[] elements;
+    private float[] elementBounds;
+    private int size;
+    private float[] nodeBounds;
+    private int[] nodeLeft;
+    private int[] nodeFirst;
+    private int[] nodeSize;
+    private int nodeCount;
+    private int[] stack;
+    private final float[] binBounds;
+    private final int[] binCounts;
+    private final float[] rightAreas;
+    private final int[] rightCounts;
+    private final Vector2f hit;
+    private float lastHitDistance;
+    private SceneElement rayClosest;
+    private float rayDistance;
+
+    public BoundingVolumeHierarchy() {
+        this((final SceneElement sceneElement) -> sceneElement.getMeshes() != null);
+    }
+
+    public BoundingVolumeHierarchy(final Predicate<SceneElement> member) {
+        this.member = member;
+        this.elements = new SceneElement[0];
+        this.elementBounds = new float[0];
+        this.nodeBounds = new float[0];
+        this.nodeLeft = new int[0];
+        this.nodeFirst = new int[0];
+        this.nodeSize = new int[0];
+        this.stack = new int[0];
+        this.binBounds = new float[SAH_BINS * NODE_STRIDE];
+        this.binCounts = new int[SAH_BINS];
+        this.rightAreas = new float[SAH_BINS];
+        this.rightCounts = new int[SAH_BINS];
+        this.hit = new Vector2f();
+    }
+
+    public void build(final List<SceneElement> sceneElements) {
+        this.size = sceneElements.size();
+        if (this.elements.length < this.size) {
+            this.elements = new SceneElement[this.size];
+            this.elementBounds = new float[this.size * ELEMENT_STRIDE];
+        }
+        Arrays.fill(this.elements, this.size, this.elements.length, null);
+        for (int i = 0; i < this.size; i++) {
+            this.elements[i] = sceneElements.get(i);
+            updateElementBounds(i);
+        }
+        this.nodeCount = 0;
+        if (this.size == 0) {
+            return;
+        }
+        final int maxNodes = 2 * this.size - 1;
+        if (this.nodeLeft.length < maxNodes) {
+            this.nodeBounds = new float[maxNodes * NODE_STRIDE];
+            this.nodeLeft = new int[maxNodes];
+            this.nodeFirst = new int[maxNodes];
+            this.nodeSize = new int[maxNodes];
+            this.stack = new int[maxNodes];
+        }
+        subdivide(allocateNode(), 0, this.size);
+    }
+
+    /**
+     * Recomputes every bound from the current element transforms while keeping
+     * the topology, which stays cheap for moving elements at the cost of looser
+     * nodes than a rebuild would give.
+     */
+    public void refit() {
+        for (int i = 0; i < this.size; i++) {
+            updateElementBounds(i);
+        }
+        for (int node = this.nodeCount - 1; node >= 0; node--) {
+            final int left = this.nodeLeft[node];
+            if (left < 0) {
+                computeLeafBounds(node);
+                continue;
+            }
+            final int o = node * NODE_STRIDE;
+            final int l = left * NODE_STRIDE;
+            final int r = (left + 1) * NODE_STRIDE;
+            for (int axis = 0; axis < 3; axis++) {
+                this.nodeBounds[o + axis] = Math.min(this.nodeBounds[l + axis], this.nodeBounds[r + axis]);
+                this.nodeBounds[o + 3 + axis] = Math.max(this.nodeBounds[l + 3 + axis], this.nodeBounds[r + 3 + axis]);
+            }
+        }
+    }
+
+    /**
+     * Sets {@link SceneElement#setInsideFrustum(boolean)} for every element with
+     * frustum culling enabled and appends the ones with meshes that remain
+     * visible.
+     */
+    public void cull(final FrustumIntersection frustum,
+                     final List<SceneElement> visible) {
+        if (this.nodeCount == 0) {
+            return;
+        }
+        int top = 0;
+        this.stack[top++] = 0;
+        while (top > 0) {
+            final int node = this.stack[--top];
+            final int o = node * NODE_STRIDE;
+            final int result = frustum.intersectAab(
+                    this.nodeBounds[o],
+                    this.nodeBounds[o + 1],
+                    this.nodeBounds[o + 2],
+                    this.nodeBounds[o + 3],
+                    this.nodeBounds[o + 4],
+                    this.nodeBounds[o + 5]
+            );
+            if (result == FrustumIntersection.INSIDE) {
+                markRange(node, true, visible);
+            } else if (result != FrustumIntersection.INTERSECT) {
+                markRange(node, false, visible);
+            } else if (this.nodeLeft[node] < 0) {
+                cullLeaf(node, frustum, visible);
+            } else {
+                this.stack[top++] = this.nodeLeft[node];
+                this.stack[top++] = this.nodeLeft[node] + 1;
+            }
+        }
+    }
+
+    private void markRange(final int node,
+                           final boolean inside,
+                           final List<SceneElement> visible) {
+        final int end = this.nodeFirst[node] + this.nodeSize[node];
+        for (int i = this.nodeFirst[node]; i < end; i++) {
+            markSubtree(this.elements[i], inside, visible);
+        }
+    }
+
+    private void markSubtree(final SceneElement sceneElement,
+                             final boolean inside,
+                             final List<SceneElement> visible) {
+        markElement(sceneElement, inside, visible);
+        final List<SceneElement> children = sceneElement.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            markSubtree(children.get(i), inside, visible);
+        }
+    }
+
+    private void markElement(final SceneElement sceneElement,
+                             final boolean inside,
+                             final List<SceneElement> visible) {
+        if (!this.member.test(sceneElement)) {
+            return;
+        }
+        if (sceneElement.isFrustumCullingDisabled()) {
+            visible.add(sceneElement);
+            return;
+        }
+        sceneElement.setInsideFrustum(inside);
+        if (inside) {
+            visible.add(sceneElement);
+        }
+    }
+
+    /**
+     * Tests the subtree sphere first, so a group entirely in or out of view is
+     * resolved without looking at its members.
+     */
+    private void cullSubtree(final SceneElement sceneElement,
+                             final FrustumIntersection frustum,
+                             final List<SceneElement> visible) {
+        final Vector3f position = sceneElement.getWorldPosition();
+        final List<SceneElement> children = sceneElement.getChildren();
+        if (children.isEmpty()) {
+            markElement(
+                    sceneElement,
+                    testBounds(frustum, sceneElement),
+                    visible
+            );
+            return;
+        }
+        final int result = frustum.intersectSphere(position.x, position.y, position.z, sceneElement.getSubtreeRadius());
+        if (result == FrustumIntersection.INSIDE) {
+            markSubtree(sceneElement, true, visible);
+            return;
+        } else if (result != FrustumIntersection.INTERSECT) {
+            markSubtree(sceneElement, false, visible);
+            return;
+        }
+        markElement(
+                sceneElement,
+                testBounds(frustum, sceneElement),
+                visible
+        );
+        for (int i = 0; i < children.size(); i++) {
+            cullSubtree(children.get(i), frustum, visible);
+        }
+    }
+
+    private static boolean testBounds(final FrustumIntersection frustum,
+                                      final SceneElement sceneElement) {
+        final Vector3f centre = sceneElement.getBoundsCentre();
+        return frustum.testSphere(centre.x, centre.y, centre.z, sceneElement.getBoundingRadius());
+    }
+
+    private void cullLeaf(final int node,
+                          final FrustumIntersection frustum,
+                          final List<SceneElement> visible) {
+        final int end = this.nodeFirst[node] + this.nodeSize[node];
+        for (int i = this.nodeFirst[node]; i < end; i++) {
+            cullSubtree(this.elements[i], frustum, visible);
+        }
+    }
+
+    /**
+     * Appends the elements with meshes that {@link #cull} would find visible,
+     * without touching their frustum flags. Traverses with a stack owned by the
+     * calling thread, which only grows when a rebuild made the hierarchy deeper,
+     * so several queries can run concurrently against an unchanging hierarchy.
+     */
+    public void queryFrustum(final FrustumIntersection frustum,
+                             final List<SceneElement> results) {
+        if (this.nodeCount == 0) {
+            return;
+        }
+        int[] nodes = QUERY_STACK.get();
+        if (nodes.length < this.stack.length) {
+            nodes = new int[this.stack.length];
+            QUERY_STACK.set(nodes);
+        }
+        int top = 0;
+        nodes[top++] = 0;
+        while (top > 0) {
+            final int node = nodes[--top];
+            final int o = node * NODE_STRIDE;
+            final int result = frustum.intersectAab(
+                    this.nodeBounds[o],
+                    this.nodeBounds[o + 1],
+                    this.nodeBounds[o + 2],
+                    this.nodeBounds[o + 3],
+                    this.nodeBounds[o + 4],
+                    this.nodeBounds[o + 5]
+            );
+            if (result == FrustumIntersection.INSIDE) {
+                collectRange(node, true, results);
+            } else if (result != FrustumIntersection.INTERSECT) {
+                collectRange(node, false, results);
+            } else if (this.nodeLeft[node] < 0) {
+                final int end = this.nodeFirst[node] + this.nodeSize[node];
+                for (int i = this.nodeFirst[node]; i < end; i++) {
+                    queryFrustumSubtree(this.elements[i], frustum, results);
+                }
+            } else {
+                nodes[top++] = this.nodeLeft[node];
+                nodes[top++] = this.nodeLeft[node] + 1;
+            }
+        }
+    }
+
+    private void collectRange(final int node,
+                              final boolean inside,
+                              final List<SceneElement> results) {
+        final int end = this.nodeFirst[node] + this.nodeSize[node];
+        for (int i = this.nodeFirst[node]; i < end; i++) {
+            collectSubtree(this.elements[i], inside, results);
+        }
+    }
+
+    private void collectSubtree(final SceneElement sceneElement,
+                                final boolean inside,
+                                final List<SceneElement> results) {
+        if (this.member.test(sceneElement)
+                && (inside || sceneElement.isFrustumCullingDisabled())) {
+            results.add(sceneElement);
+        }
+        final List<SceneElement> children = sceneElement.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            collectSubtree(children.get(i), inside, results);
+        }
+    }
+
+    private void queryFrustumSubtree(final SceneElement sceneElement,
+                                     final FrustumIntersection frustum,
+                                     final List<SceneElement> results) {
+        final Vector3f position = sceneElement.getWorldPosition();
+        final List<SceneElement> children = sceneElement.getChildren();
+        if (!children.isEmpty()) {
+            final int result = frustum.intersectSphere(position.x, position.y, position.z, sceneElement.getSubtreeRadius());
+            if (result != FrustumIntersection.INTERSECT) {
+                collectSubtree(sceneElement, result == FrustumIntersection.INSIDE, results);
+                return;
+            }
+        }
+        if (this.member.test(sceneElement)
+                && (sceneElement.isFrustumCullingDisabled()
+                || testBounds(frustum, sceneElement))) {
+            results.add(sceneElement);
+        }
+        for (int i = 0; i < children.size(); i++) {
+            queryFrustumSubtree(children.get(i), frustum, results);
+        }
+    }
+
+    /**
+     * Appends every element whose bounding sphere overlaps the given sphere.
+     */
+    public void querySphere(final Vector3fc center,
+                            final float radius,
+                            final List<SceneElement> results) {
+        if (this.nodeCount == 0) {
+            return;
+        }
+        int top = 0;
+        this.stack[top++] = 0;
+        while (top > 0) {
+            final int node = this.stack[--top];
+            if (!sphereIntersectsNode(node, center, radius)) {
+                continue;
+            }
+            if (this.nodeLeft[node] >= 0) {
+                this.stack[top++] = this.nodeLeft[node];
+                this.stack[top++] = this.nodeLeft[node] + 1;
+                continue;
+            }
+            final int end = this.nodeFirst[node] + this.nodeSize[node];
+            for (int i = this.nodeFirst[node]; i < end; i++) {
+                querySubtree(this.elements[i], center, radius, results);
+            }
+        }
+    }
+
+    private void querySubtree(final SceneElement sceneElement,
+                              final Vector3fc center,
+                              final float radius,
+                              final List<SceneElement> results) {
+        final Vector3f position = sceneElement.getWorldPosition();
+        if (!spheresOverlap(position, sceneElement.getSubtreeRadius(), center, radius)) {
+            return;
+        }
+        if (this.member.test(sceneElement)
+                && spheresOverlap(sceneElement.getBoundsCentre(), sceneElement.getBoundingRadius(), center, radius)) {
+            results.add(sceneElement);
+        }
+        final List<SceneElement> children = sceneElement.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            querySubtree(children.get(i), center, radius, results);
+        }
+    }
+
+    private static boolean spheresOverlap(final Vector3f a,
+                                          final float radiusA,
+                                          final Vector3fc b,
+                                          final float radiusB) {
+        final float reach = radiusA + radiusB;
+        return a.distanceSquared(b) <= reach * reach;
+    }
+
+    private boolean sphereIntersectsNode(final int node,
+                                         final Vector3fc center,
+                                         final float radius) {
+        final int o = node * NODE_STRIDE;
+        float distanceSquared = 0;
+        for (int axis = 0; axis < 3; axis++) {
+            final float c = center.get(axis);
+            final float d = Math.max(this.nodeBounds[o + axis] - c, Math.max(0, c - this.nodeBounds[o + 3 + axis]));
+            distanceSquared += d * d;
+        }
+        return distanceSquared <= radius * radius;
+    }
+
+    /**
+     * @return the element whose bounding sphere the ray hits first, or null. The
+     * distance to the hit is available from {@link #getLastHitDistance()}
+     */
+    public SceneElement raycast(final Vector3fc origin,
+                                final Vector3fc direction,
+                                final float maxDistance) {
+        this.lastHitDistance = Float.POSITIVE_INFINITY;
+        if (this.nodeCount == 0) {
+            return null;
+        }
+        this.rayClosest = null;
+        this.rayDistance = maxDistance;
+        int top = 0;
+        this.stack[top++] = 0;
+        while (top > 0) {
+            final int node = this.stack[--top];
+            final int o = node * NODE_STRIDE;
+            if (!Intersectionf.intersectRayAab(
+                    origin.x(), origin.y(), origin.z(),
+                    direction.x(), direction.y(), direction.z(),
+                    this.nodeBounds[o], this.nodeBounds[o + 1], this.nodeBounds[o + 2],
+                    this.nodeBounds[o + 3], this.nodeBounds[o + 4], this.nodeBounds[o + 5],
+                    this.hit
+            ) || this.hit.x > this.rayDistance) {
+                continue;
+            }
+            if (this.nodeLeft[node] >= 0) {
+                this.stack[top++] = this.nodeLeft[node];
+                this.stack[top++] = this.nodeLeft[node] + 1;
+                continue;
+            }
+            final int end = this.nodeFirst[node] + this.nodeSize[node];
+            for (int i = this.nodeFirst[node]; i < end; i++) {
+                raycastSubtree(this.elements[i], origin, direction);
+            }
+        }
+        final SceneElement closest = this.rayClosest;
+        if (closest != null) {
+            this.lastHitDistance = this.rayDistance;
+        }
+        this.rayClosest = null;
+        return closest;
+    }
+
+    private void raycastSubtree(final SceneElement sceneElement,
+                                final Vector3fc origin,
+                                final Vector3fc direction) {
+        if (!raycastSphere(sceneElement.getWorldPosition(), sceneElement.getSubtreeRadius(), origin, direction)) {
+            return;
+        }
+        if (this.member.test(sceneElement)
+                && raycastSphere(sceneElement.getBoundsCentre(), sceneElement.getBoundingRadius(), origin, direction)
+                && this.hit.x >= 0
+                && this.hit.x < this.rayDistance) {
+            this.rayDistance = this.hit.x;
+            this.rayClosest = sceneElement;
+        }
+        final List<SceneElement> children = sceneElement.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            raycastSubtree(children.get(i), origin, direction);
+        }
+    }
+
+    private boolean raycastSphere(final Vector3f center,
+                                  final float radius,
+                                  final Vector3fc origin,
+                                  final Vector3fc direction) {
+        return Intersectionf.intersectRaySphere(
+                origin.x(), origin.y(), origin.z(),
+                direction.x(), direction.y(), direction.z(),
+                center.x, center.y, center.z,
+                radius * radius,
+                this.hit
+        ) && this.hit.y >= 0 && this.hit.x <= this.rayDistance;
+    }
+
+    public float getLastHitDistance() {
+        return this.lastHitDistance;
+    }
+
+    private int allocateNode() {
+        final int node = this.nodeCount++;
+        this.nodeLeft[node] = -1;
+        return node;
+    }
+
+    private void subdivide(final int node,
+                           final int first,
+                           final int count) {
+        this.nodeFirst[node] = first;
+        this.nodeSize[node] = count;
+        this.nodeLeft[node] = -1;
+        computeLeafBounds(node);
+        if (count <= MAX_LEAF_SIZE) {
+            return;
+        }
+
+        float minCentroid0 = Float.POSITIVE_INFINITY, minCentroid1 = Float.POSITIVE_INFINITY, minCentroid2 = Float.POSITIVE_INFINITY;
+        float maxCentroid0 = Float.NEGATIVE_INFINITY, maxCentroid1 = Float.NEGATIVE_INFINITY, maxCentroid2 = Float.NEGATIVE_INFINITY;
+        for (int i = first; i < first + count; i++) {
+            final int e = i * ELEMENT_STRIDE;
+            minCentroid0 = Math.min(minCentroid0, this.elementBounds[e]);
+            minCentroid1 = Math.min(minCentroid1, this.elementBounds[e + 1]);
+            minCentroid2 = Math.min(minCentroid2, this.elementBounds[e + 2]);
+            maxCentroid0 = Math.max(maxCentroid0, this.elementBounds[e]);
+            maxCentroid1 = Math.max(maxCentroid1, this.elementBounds[e + 1]);
+            maxCentroid2 = Math.max(maxCentroid2, this.elementBounds[e + 2]);
+        }
+        final float[] minCentroid = {minCentroid0, minCentroid1, minCentroid2};
+        final float[] maxCentroid = {maxCentroid0, maxCentroid1, maxCentroid2};
+
+        float bestCost = Float.POSITIVE_INFINITY;
+        int bestAxis = -1;
+        int bestSplit = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            final float extent = maxCentroid[axis] - minCentroid[axis];
+            if (extent <= MIN_EXTENT) {
+                continue;
+            }
+            binElements(first, count, axis, minCentroid[axis], extent);
+            sweepRight();
+            int leftCount = 0;
+            float lminX = Float.POSITIVE_INFINITY, lminY = Float.POSITIVE_INFINITY, lminZ = Float.POSITIVE_INFINITY;
+            float lmaxX = Float.NEGATIVE_INFINITY, lmaxY = Float.NEGATIVE_INFINITY, lmaxZ = Float.NEGATIVE_INFINITY;
+            for (int split = 1; split < SAH_BINS; split++) {
+                final int b = (split - 1) * NODE_STRIDE;
+                if (this.binCounts[split - 1] > 0) {
+                    leftCount += this.binCounts[split - 1];
+                    lminX = Math.min(lminX, this.binBounds[b]);
+                    lminY = Math.min(lminY, this.binBounds[b + 1]);
+                    lminZ = Math.min(lminZ, this.binBounds[b + 2]);
+                    lmaxX = Math.max(lmaxX, this.binBounds[b + 3]);
+                    lmaxY = Math.max(lmaxY, this.binBounds[b + 4]);
+                    lmaxZ = Math.max(lmaxZ, this.binBounds[b + 5]);
+                }
+                if (leftCount == 0 || this.rightCounts[split] == 0) {
+                    continue;
+                }
+                final float cost = leftCount * halfArea(lmaxX - lminX, lmaxY - lminY, lmaxZ - lminZ)
+                        + this.rightCounts[split] * this.rightAreas[split];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestSplit = split;
+                }
+            }
+        }
+
+        final int o = node * NODE_STRIDE;
+        final float leafCost = count * halfArea(
+                this.nodeBounds[o + 3] - this.nodeBounds[o],
+                this.nodeBounds[o + 4] - this.nodeBounds[o + 1],
+                this.nodeBounds[o + 5] - this.nodeBounds[o + 2]
+        );
+        if (bestAxis >= 0 && bestCost >= leafCost && count <= MAX_SAH_LEAF_SIZE) {
+            return;
+        }
+
+        int leftCount;
+        if (bestAxis < 0) {
+            // Every centroid coincides, any split is as good as another
+            leftCount = count / 2;
+        } else {
+            final float extent = maxCentroid[bestAxis] - minCentroid[bestAxis];
+            int i = first;
+            int j = first + count - 1;
+            while (i <= j) {
+                if (binOf(this.elementBounds[i * ELEMENT_STRIDE + bestAxis], minCentroid[bestAxis], extent) < bestSplit) {
+                    i++;
+                } else {
+                    swap(i, j--);
+                }
+            }
+            leftCount = i - first;
+            if (leftCount == 0 || leftCount == count) {
+                leftCount = count / 2;
+            }
+        }
+
+        final int left = allocateNode();
+        allocateNode();
+        this.nodeLeft[node] = left;
+        subdivide(left, first, leftCount);
+        subdivide(left + 1, first + leftCount, count - leftCount);
+    }
+
+    private void binElements(final int first,
+                             final int count,
+                             final int axis,
+                             final float minCentroid,
+                             final float extent) {
+        Arrays.fill(this.binCounts, 0);
+        for (int b = 0; b < SAH_BINS; b++) {
+            final int o = b * NODE_STRIDE;
+            this.binBounds[o] = this.binBounds[o + 1] = this.binBounds[o + 2] = Float.POSITIVE_INFINITY;
+            this.binBounds[o + 3] = this.binBounds[o + 4] = this.binBounds[o + 5] = Float.NEGATIVE_INFINITY;
+        }
+        for (int i = first; i < first + count; i++) {
+            final int e = i * ELEMENT_STRIDE;
+            final int bin = binOf(this.elementBounds[e + axis], minCentroid, extent);
+            final int o = bin * NODE_STRIDE;
+            final float r = this.elementBounds[e + 3];
+            this.binCounts[bin]++;
+            for (int a = 0; a < 3; a++) {
+                this.binBounds[o + a] = Math.min(this.binBounds[o + a], this.elementBounds[e + a] - r);
+                this.binBounds[o + 3 + a] = Math.max(this.binBounds[o + 3 + a], this.elementBounds[e + a] + r);
+            }
+        }
+    }
+
+    private void sweepRight() {
+        int count = 0;
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        this.rightCounts[0] = 0;
+        for (int bin = SAH_BINS - 1; bin > 0; bin--) {
+            final int b = bin * NODE_STRIDE;
+            if (this.binCounts[bin] > 0) {
+                count += this.binCounts[bin];
+                minX = Math.min(minX, this.binBounds[b]);
+                minY = Math.min(minY, this.binBounds[b + 1]);
+                minZ = Math.min(minZ, this.binBounds[b + 2]);
+                maxX = Math.max(maxX, this.binBounds[b + 3]);
+                maxY = Math.max(maxY, this.binBounds[b + 4]);
+                maxZ = Math.max(maxZ, this.binBounds[b + 5]);
+            }
+            this.rightCounts[bin] = count;
+            this.rightAreas[bin] = count > 0 ? halfArea(maxX - minX, maxY - minY, maxZ - minZ) : 0;
+        }
+    }
+
+    private static int binOf(final float centroid,
+                             final float minCentroid,
+                             final float extent) {
+        return Math.min(SAH_BINS - 1, (int) ((centroid - minCentroid) * SAH_BINS / extent));
+    }
+
+    private static float halfArea(final float dx,
+                                  final float dy,
+                                  final float dz) {
+        return dx * dy + dy * dz + dz * dx;
+    }
+
+    private void swap(final int a,
+                      final int b) {
+        final SceneElement element = this.elements[a];
+        this.elements[a] = this.elements[b];
+        this.elements[b] = element;
+        final int ea = a * ELEMENT_STRIDE;
+        final int eb = b * ELEMENT_STRIDE;
+        for (int k = 0; k < ELEMENT_STRIDE; k++) {
+            final float value = this.elementBounds[ea + k];
+            this.elementBounds[ea + k] = this.elementBounds[eb + k];
+            this.elementBounds[eb + k] = value;
+        }
+    }
+
+    private void computeLeafBounds(final int node) {
+        final int o = node * NODE_STRIDE;
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        final int end = this.nodeFirst[node] + this.nodeSize[node];
+        for (int i = this.nodeFirst[node]; i < end; i++) {
+            final int e = i * ELEMENT_STRIDE;
+            final float r = this.elementBounds[e + 3];
+            minX = Math.min(minX, this.elementBounds[e] - r);
+            minY = Math.min(minY, this.elementBounds[e + 1] - r);
+            minZ = Math.min(minZ, this.elementBounds[e + 2] - r);
+            maxX = Math.max(maxX, this.elementBounds[e] + r);
+            maxY = Math.max(maxY, this.elementBounds[e + 1] + r);
+            maxZ = Math.max(maxZ, this.elementBounds[e + 2] + r);
+        }
+        this.nodeBounds[o] = minX;
+        this.nodeBounds[o + 1] = minY;
+        this.nodeBounds[o + 2] = minZ;
+        this.nodeBounds[o + 3] = maxX;
+        this.nodeBounds[o + 4] = maxY;
+        this.nodeBounds[o + 5] = maxZ;
+    }
+
+    private void updateElementBounds(final int index) {
+        final SceneElement sceneElement = this.elements[index];
+        final int e = index * ELEMENT_STRIDE;
+        final Vector3f position = sceneElement.getWorldPosition();
+        this.elementBounds[e] = position.x;
+        this.elementBounds[e + 1] = position.y;
+        this.elementBounds[e + 2] = position.z;
+        this.elementBounds[e + 3] = sceneElement.getSubtreeRadius();
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+}
@@ -6,6 +6,8 @@ import static org.lwjgl.openal.AL10.*;
 
 public class SoundListener {
 
+    private final float[] orientation = new float[6];
+
     public SoundListener() {
         this(new Vector3f());
     }
@@ -24,16 +26,12 @@ public class SoundListener {
     }
     
     public void setOrientation(final Vector3f at, final Vector3f up) {
-        alListenerfv(
-                AL_ORIENTATION,
-                new float[]{
-                        at.x,
-                        at.y,
-                        at.z,
-                        up.x,
-                        up.y,
-                        up.z
-                }
-        );
+        this.orientation[0] = at.x;
+        this.orientation[1] = at.y;
+        this.orientation[2] = at.z;
+        this.orientation[3] = up.x;
+        this.orientation[4] = up.y;
+        this.orientation[5] = up.z;
+        alListenerfv(AL_ORIENTATION, this.orientation);
     }
 }
@@ -27,11 +27,15 @@ public class SoundManager {
     private final List<SoundBuffer> soundBufferList;
     private final Map<String, SoundSource> soundSourceMap;
     private final Matrix4f cameraMatrix;
+    private final Vector3f listenerAt;
+    private final Vector3f listenerUp;
 
     public SoundManager() {
         this.soundBufferList = new ArrayList<>();
         this.soundSourceMap = new HashMap<>();
         this.cameraMatrix = new Matrix4f();
+        this.listenerAt = new Vector3f();
+        this.listenerUp = new Vector3f();
     }
 
     public void init()  {
@@ -84,11 +88,9 @@ public class SoundManager {
         Transform.updateGenericViewMatrix(camera.getPosition(), camera.getRotation(), this.cameraMatrix);
 
         this.listener.setPosition(camera.getPosition());
-        final Vector3f at = new Vector3f();
-        this.cameraMatrix.positiveZ(at).negate();
-        final Vector3f up = new Vector3f();
-        this.cameraMatrix.positiveY(up);
-        this.listener.setOrientation(at, up);
+        this.cameraMatrix.positiveZ(this.listenerAt).negate();
+        this.cameraMatrix.positiveY(this.listenerUp);
+        this.listener.setOrientation(this.listenerAt, this.listenerUp);
     }
 
     public void setAttenuationModel(final int model) {
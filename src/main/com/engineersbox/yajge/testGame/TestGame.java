@@ -1,5 +1,6 @@
 package com.engineersbox.yajge.testgame;
 
+import com.engineersbox.yajge.core.engine.EngineContext;
 import com.engineersbox.yajge.core.engine.IGameLogic;
 import com.engineersbox.yajge.core.window.Window;
 import com.engineersbox.yajge.input.MouseInput;
@@ -12,10 +13,12 @@ import com.engineersbox.yajge.rendering.view.Camera;
 import com.engineersbox.yajge.resources.assets.shader.Shader;
 import com.engineersbox.yajge.resources.loader.assimp.StaticMeshesLoader;
 import com.engineersbox.yajge.scene.Scene;
+import com.engineersbox.yajge.scene.SceneSimulation;
 import com.engineersbox.yajge.scene.element.SceneElement;
 import com.engineersbox.yajge.scene.element.Skybox;
 import com.engineersbox.yajge.scene.element.object.composite.Mesh;
 import com.engineersbox.yajge.scene.lighting.SceneLight;
+import com.engineersbox.yajge.scene.snapshot.SceneSnapshot;
 import org.joml.Quaternionf;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
@@ -30,35 +33,59 @@ public class TestGame implements IGameLogic {
 
     private static final float MOUSE_SENSITIVITY = 0.2f;
     private static final float CAMERA_POS_STEP = 0.40f;
+    private static final int KEY_FORWARD = 1;
+    private static final int KEY_BACK = 1 << 1;
+    private static final int KEY_LEFT = 1 << 2;
+    private static final int KEY_RIGHT = 1 << 3;
+    private static final int KEY_DOWN = 1 << 4;
+    private static final int KEY_UP = 1 << 5;
+    private static final int KEY_LIGHT_LEFT = 1 << 6;
+    private static final int KEY_LIGHT_RIGHT = 1 << 7;
+    private static final int KEY_HOUSE_LEFT = 1 << 8;
+    private static final int KEY_HOUSE_RIGHT = 1 << 9;
 
     private final Vector3f cameraInc;
-    private final Renderer renderer;
+    private EngineContext context;
+    private Renderer renderer;
     private final Camera camera;
     private Scene scene;
+    private SceneSimulation simulation;
     private float angleInc;
     private float lightAngle;
     private float lightRotation;
     private float rotationInc;
     private boolean firstTime;
     private boolean sceneChanged;
+    private volatile int heldKeys;
+    private final Vector2f pendingRotation;
     private final Map<String, SceneElement> elements = new HashMap<>();
     private Shader waterShader;
 
     public TestGame() {
-        this.renderer = new Renderer();
         this.camera = new Camera();
         this.cameraInc = new Vector3f(0.0f, 0.0f, 0.0f);
+        this.pendingRotation = new Vector2f();
         this.angleInc = 0;
         this.lightAngle = 120f;
         this.firstTime = true;
     }
 
+    @Override
+    public void init(final Window window,
+                     final EngineContext context) {
+        this.context = context;
+        this.renderer = new Renderer(context);
+        init(window);
+    }
+
     @Override
     public void init(final Window window)  {
         this.renderer.init(window);
         this.scene = new Scene();
+        this.simulation = new SceneSimulation(this.scene, this.context.getJobSystem());
 
         final Mesh[] houseMesh = StaticMeshesLoader.load(
+                this.context,
                 "assets/game/models/house/house.obj",
                 "assets/game/models/house"
         );
@@ -71,14 +98,18 @@ public class TestGame implements IGameLogic {
         this.elements.put("house", house);
 
         final Mesh[] terrainMesh = StaticMeshesLoader.load(
+                this.context,
                 "assets/game/models/terrain/terrain.obj",
                 "assets/game/models/terrain"
         );
         final SceneElement terrain = new SceneElement(terrainMesh);
         terrain.setScale(100.0f);
+        terrain.setStatic(true);
+        terrain.setOccluder(true);
         this.elements.put("terrain", terrain);
 
         final Mesh[] bobMesh = StaticMeshesLoader.load(
+                this.context,
                 "assets/game/models/bob/boblamp.md5mesh",
                 "assets/game"
         );
@@ -99,6 +130,7 @@ public class TestGame implements IGameLogic {
 
         final float skyboxScale = 100.0f;
         final Skybox skybox = new Skybox(
+                this.context,
                 "assets/game/models/skybox.obj",
                 new Vector4f(0.65f, 0.65f, 0.65f, 1.0f)
         );
@@ -133,51 +165,46 @@ public class TestGame implements IGameLogic {
         )});
     }
 
+    /**
+     * Runs on the render thread, so it only latches the held keys and the mouse
+     * rotation. {@link #update} applies them to the camera and scene, which are
+     * owned by the simulation thread in the pipelined loop.
+     */
     @Override
     public void input(final Window window,
                       final MouseInput mouseInput) {
-        this.sceneChanged = false;
-        this.cameraInc.set(0, 0, 0);
+        int keys = 0;
         if (window.isKeyPressed(GLFW_KEY_W)) {
-            this.sceneChanged = true;
-            this.cameraInc.z = -1;
+            keys |= KEY_FORWARD;
         } else if (window.isKeyPressed(GLFW_KEY_S)) {
-            this.sceneChanged = true;
-            this.cameraInc.z = 1;
+            keys |= KEY_BACK;
         }
         if (window.isKeyPressed(GLFW_KEY_A)) {
-            this.sceneChanged = true;
-            this.cameraInc.x = -1;
+            keys |= KEY_LEFT;
         } else if (window.isKeyPressed(GLFW_KEY_D)) {
-            this.sceneChanged = true;
-            this.cameraInc.x = 1;
+            keys |= KEY_RIGHT;
         }
         if (window.isKeyPressed(GLFW_KEY_LEFT_SHIFT) || window.isKeyPressed(GLFW_KEY_RIGHT_SHIFT)) {
-            this.sceneChanged = true;
-            this.cameraInc.y = -1;
+            keys |= KEY_DOWN;
         } else if (window.isKeyPressed(GLFW_KEY_SPACE)) {
-            this.sceneChanged = true;
-            this.cameraInc.y = 1;
+            keys |= KEY_UP;
         }
         if (window.isKeyPressed(GLFW_KEY_LEFT)) {
-            this.sceneChanged = true;
-            this.angleInc -= 0.05f;
+            keys |= KEY_LIGHT_LEFT;
         } else if (window.isKeyPressed(GLFW_KEY_RIGHT)) {
-            this.sceneChanged = true;
-            this.angleInc += 0.05f;
-        } else {
-            this.angleInc = 0;
+            keys |= KEY_LIGHT_RIGHT;
         }
         if (window.isKeyPressed(GLFW_KEY_UP)) {
-            this.elements.get("house").getRotation().rotateLocalY(0.01f);
-            this.sceneChanged = true;
-//            this.rotationInc -= 0.05f;
+            keys |= KEY_HOUSE_LEFT;
         } else if (window.isKeyPressed(GLFW_KEY_DOWN)) {
-            this.elements.get("house").getRotation().rotateLocalY(-0.01f);
-            this.sceneChanged = true;
-//            this.rotationInc += 0.05f;
-        } else {
-            this.rotationInc = 0;
+            keys |= KEY_HOUSE_RIGHT;
+        }
+        this.heldKeys = keys;
+        if (mouseInput.isRightButtonPressed()) {
+            final Vector2f rotVec = mouseInput.getDisplayVec();
+            synchronized (this.pendingRotation) {
+                this.pendingRotation.add(rotVec);
+            }
         }
     }
 
@@ -185,12 +212,41 @@ public class TestGame implements IGameLogic {
     public void update(final float interval,
                        final MouseInput mouseInput,
                        final Window window) {
-        this.renderer.update(window);
-        if (mouseInput.isRightButtonPressed()) {
-            final Vector2f rotVec = mouseInput.getDisplayVec();
+        final int keys = this.heldKeys;
+        if (keys != 0) {
+            this.sceneChanged = true;
+        }
+        this.cameraInc.set(
+                axis(keys, KEY_LEFT, KEY_RIGHT),
+                axis(keys, KEY_DOWN, KEY_UP),
+                axis(keys, KEY_FORWARD, KEY_BACK)
+        );
+        if ((keys & KEY_LIGHT_LEFT) != 0) {
+            this.angleInc -= 0.05f;
+        } else if ((keys & KEY_LIGHT_RIGHT) != 0) {
+            this.angleInc += 0.05f;
+        } else {
+            this.angleInc = 0;
+        }
+        if ((keys & (KEY_HOUSE_LEFT | KEY_HOUSE_RIGHT)) != 0) {
+            final SceneElement house = this.elements.get("house");
+            house.getRotation().rotateLocalY((keys & KEY_HOUSE_LEFT) != 0 ? 0.01f : -0.01f);
+            house.markTransformDirty();
+        } else {
+            this.rotationInc = 0;
+        }
+
+        final float rotationX;
+        final float rotationY;
+        synchronized (this.pendingRotation) {
+            rotationX = this.pendingRotation.x;
+            rotationY = this.pendingRotation.y;
+            this.pendingRotation.zero();
+        }
+        if (rotationX != 0 || rotationY != 0) {
             this.camera.moveRotation(
-                    rotVec.x * MOUSE_SENSITIVITY,
-                    rotVec.y * MOUSE_SENSITIVITY,
+                    rotationX * MOUSE_SENSITIVITY,
+                    rotationY * MOUSE_SENSITIVITY,
                     0
             );
             this.sceneChanged = true;
@@ -209,21 +265,76 @@ public class TestGame implements IGameLogic {
         lightDirection.y = (float) Math.sin(Math.toRadians(this.lightAngle));
         lightDirection.z = (float) Math.cos(Math.toRadians(this.lightAngle));
         lightDirection.normalize();
+        if (this.simulation.step((long) (interval * 1000))) {
+            this.sceneChanged = true;
+        }
         this.camera.updateViewMatrix();
     }
 
+    private static float axis(final int keys,
+                              final int negative,
+                              final int positive) {
+        if ((keys & negative) != 0) {
+            return -1;
+        }
+        return (keys & positive) != 0 ? 1 : 0;
+    }
+
+    @Override
+    public void storePreviousState() {
+        this.scene.storePreviousTransforms();
+        this.camera.storePreviousState();
+    }
+
     @Override
     public void render(final Window window) {
+        render(window, 1.0f);
+    }
+
+    @Override
+    public void render(final Window window,
+                       final float alpha) {
         if (this.firstTime) {
             this.sceneChanged = true;
             this.firstTime = false;
         }
+        this.camera.updateViewMatrix(alpha);
         this.renderer.render(
                 window,
                 this.camera,
                 this.scene,
+                this.sceneChanged,
+                alpha
+        );
+        this.sceneChanged = false;
+    }
+
+    @Override
+    public boolean supportsPipelining() {
+        return true;
+    }
+
+    @Override
+    public void publish(final SceneSnapshot snapshot) {
+        snapshot.capture(
+                this.scene,
+                this.camera,
                 this.sceneChanged
         );
+        this.sceneChanged = false;
+    }
+
+    @Override
+    public void render(final Window window,
+                       final SceneSnapshot snapshot) {
+        final boolean sceneChanged = this.firstTime || snapshot.isSceneChanged();
+        this.firstTime = false;
+        this.renderer.render(
+                window,
+                snapshot.getCamera(),
+                snapshot.getScene(),
+                sceneChanged
+        );
     }
 
     @Override
@@ -234,6 +345,7 @@ public class TestGame implements IGameLogic {
     @Override
     public void cleanup() {
         this.renderer.cleanup();
+        this.simulation.cleanup();
         this.scene.cleanup();
     }
 }
\ No newline at end of file
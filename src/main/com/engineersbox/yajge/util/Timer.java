@@ -3,24 +3,36 @@ package com.engineersbox.yajge.util;
 public class Timer {
 
     private static final double NANOS_IN_SECONDS = 1_000_000_000.0;
-    private double lastLoopTime;
+    private long lastLoopTimeNanos;
     
     public void init() {
-        this.lastLoopTime = getTime();
+        this.lastLoopTimeNanos = getTimeNanos();
     }
 
     public double getTime() {
-        return System.nanoTime() / NANOS_IN_SECONDS;
+        return getTimeNanos() / NANOS_IN_SECONDS;
+    }
+
+    public long getTimeNanos() {
+        return System.nanoTime();
     }
 
     public float getElapsedTime() {
-        final double time = getTime();
-        final float elapsedTime = (float) (time - this.lastLoopTime);
-        this.lastLoopTime = time;
+        return (float) (getElapsedTimeNanos() / NANOS_IN_SECONDS);
+    }
+
+    public long getElapsedTimeNanos() {
+        final long time = getTimeNanos();
+        final long elapsedTime = time - this.lastLoopTimeNanos;
+        this.lastLoopTimeNanos = time;
         return elapsedTime;
     }
 
     public double getLastLoopTime() {
-        return this.lastLoopTime;
+        return this.lastLoopTimeNanos / NANOS_IN_SECONDS;
+    }
+
+    public long getLastLoopTimeNanos() {
+        return this.lastLoopTimeNanos;
     }
 }
@@ -0,0 +1,72 @@
+package com.engineersbox.yajge.debug;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AllocationTrackerTest {
+
+    private static final int ALLOCATION_BYTES = 1 << 20;
+
+    private static Object sink;
+
+    private static void allocate() {
+        sink = new byte[ALLOCATION_BYTES];
+    }
+
+    @Test
+    void strictModeRejectsFrameOverBudget() {
+        final AllocationTracker tracker = new AllocationTracker(true, 1024, 0, true);
+        assumeTrue(tracker.isEnabled());
+        tracker.beginFrame();
+        allocate();
+        final IllegalStateException exception = assertThrows(IllegalStateException.class, tracker::endFrame);
+        assertTrue(exception.getMessage().startsWith("Frame 1 allocated"));
+        assertEquals(1, tracker.getOverBudgetFrames());
+    }
+
+    @Test
+    void warmupFramesAreNotChecked() {
+        final AllocationTracker tracker = new AllocationTracker(true, 1024, 1, true);
+        assumeTrue(tracker.isEnabled());
+        tracker.beginFrame();
+        allocate();
+        assertDoesNotThrow(tracker::endFrame);
+        tracker.beginFrame();
+        allocate();
+        assertThrows(IllegalStateException.class, tracker::endFrame);
+    }
+
+    @Test
+    void zeroBudgetOnlyMeasures() {
+        final AllocationTracker tracker = new AllocationTracker(true, 0, 0, true);
+        assumeTrue(tracker.isEnabled());
+        tracker.beginFrame();
+        allocate();
+        assertDoesNotThrow(tracker::endFrame);
+        assertEquals(0, tracker.getOverBudgetFrames());
+        assertTrue(tracker.getLastFrameBytes() >= ALLOCATION_BYTES);
+    }
+
+    @Test
+    void suspendedAllocationsAreExcluded() {
+        final AllocationTracker tracker = new AllocationTracker(true, ALLOCATION_BYTES / 2, 0, true);
+        assumeTrue(tracker.isEnabled());
+        tracker.beginFrame();
+        tracker.suspend();
+        allocate();
+        tracker.resume();
+        assertDoesNotThrow(tracker::endFrame);
+        assertTrue(tracker.getLastFrameBytes() < ALLOCATION_BYTES / 2);
+    }
+
+    @Test
+    void disabledTrackerNeverThrows() {
+        final AllocationTracker tracker = new AllocationTracker(false, 1, 0, true);
+        tracker.beginFrame();
+        allocate();
+        assertDoesNotThrow(tracker::endFrame);
+        assertEquals(0, tracker.getLastFrameBytes());
+    }
+}
@@ -0,0 +1,218 @@
+package com.engineersbox.yajge.rendering.command;
+
+import com.engineersbox.yajge.resources.assets.material.Material;
+import com.engineersbox.yajge.resources.assets.shader.Shader;
+import com.engineersbox.yajge.resources.assets.shader.Uniform;
+import com.engineersbox.yajge.scene.element.object.composite.InstancedMesh;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandBufferTest {
+
+    private Shader shader;
+    private Uniform modelMatrix;
+    private Uniform selected;
+    private Mesh mesh;
+    private CommandBuffer commands;
+    private RecordingVisitor visitor;
+
+    @BeforeEach
+    void setUp() {
+        this.shader = new Shader(true);
+        this.modelMatrix = this.shader.createUniform("modelMatrix");
+        this.selected = this.shader.createUniform("selected");
+        this.mesh = new Mesh(
+                new float[]{-0.5f, -0.5f, 0, 0.5f, -0.5f, 0, 0, 0.5f, 0},
+                new float[]{0, 0, 1, 0, 0.5f, 1},
+                new float[]{0, 0, 1, 0, 0, 1, 0, 0, 1},
+                new int[]{0, 1, 2},
+                true
+        );
+        this.commands = new CommandBuffer(4, 16);
+        this.visitor = new RecordingVisitor();
+    }
+
+    @Test
+    void replaysCommandsInRecordingOrder() {
+        final Material material = new Material();
+        final Matrix4f matrix = new Matrix4f().translation(1, 2, 3);
+        this.commands.useShader(this.shader);
+        this.commands.setUniform("material", material);
+        this.commands.bindMesh(this.mesh);
+        this.commands.setUniform(this.modelMatrix, matrix);
+        this.commands.setUniform(this.selected, 1.5f);
+        this.commands.setUniform(this.selected, 7);
+        this.commands.drawElements(3);
+        this.commands.unbindMesh(this.mesh);
+
+        this.commands.replay(this.visitor);
+
+        assertEquals(
+                List.of(
+                        "useShader",
+                        "material material",
+                        "bindMesh",
+                        "matrices modelMatrix 1",
+                        "float selected 1.5",
+                        "int selected 7",
+                        "drawElements 3",
+                        "unbindMesh"
+                ),
+                this.visitor.calls
+        );
+        assertEquals(8, this.commands.getCommandCount());
+        assertSame(this.shader, this.visitor.shaders.get(0));
+        assertSame(material, this.visitor.materials.get(0));
+        assertSame(this.mesh, this.visitor.meshes.get(0));
+        assertSame(this.mesh, this.visitor.meshes.get(1));
+        assertEquals(matrix, this.visitor.matrices.get(0));
+    }
+
+    @Test
+    void internsEachReferenceOnce() {
+        this.commands.useShader(this.shader);
+        this.commands.bindMesh(this.mesh);
+        this.commands.drawElements(3);
+        this.commands.bindMesh(this.mesh);
+        this.commands.useShader(this.shader);
+        final int encodedOnce = this.commands.getEncodedSize();
+
+        this.commands.replay(this.visitor);
+
+        assertSame(this.visitor.meshes.get(0), this.visitor.meshes.get(1));
+        assertSame(this.visitor.shaders.get(0), this.visitor.shaders.get(1));
+        assertEquals((2 + 2 + 2 + 2 + 2) * Integer.BYTES, encodedOnce);
+    }
+
+    @Test
+    void growsPastInitialCapacity() {
+        final Matrix4f[] joints = new Matrix4f[8];
+        for (int i = 0; i < joints.length; i++) {
+            joints[i] = new Matrix4f().scaling(i + 1);
+        }
+        this.commands.useShader(this.shader);
+        this.commands.setUniform(this.modelMatrix, joints);
+        for (int i = 0; i < 100; i++) {
+            this.commands.drawElements(i);
+        }
+
+        this.commands.replay(this.visitor);
+
+        assertEquals(102, this.visitor.calls.size());
+        assertEquals("matrices modelMatrix 8", this.visitor.calls.get(1));
+        for (int i = 0; i < joints.length; i++) {
+            assertEquals(joints[i], this.visitor.matrices.get(i));
+        }
+        assertEquals("drawElements 99", this.visitor.calls.get(101));
+    }
+
+    @Test
+    void resetDropsCommandsAndReferences() {
+        this.commands.useShader(this.shader);
+        this.commands.drawElements(3);
+        this.commands.reset();
+        assertTrue(this.commands.isEmpty());
+        assertEquals(0, this.commands.getEncodedSize());
+
+        this.commands.bindMesh(this.mesh);
+        this.commands.replay(this.visitor);
+
+        assertEquals(List.of("bindMesh"), this.visitor.calls);
+        assertSame(this.mesh, this.visitor.meshes.get(0));
+    }
+
+    @Test
+    void replaysIndirectDraws() {
+        final IndirectDrawBuffer indirect = new IndirectDrawBuffer(true);
+        this.commands.bindMesh(this.mesh);
+        this.commands.drawIndirect(indirect, 4, 12);
+
+        this.commands.replay(this.visitor);
+
+        assertEquals(List.of("bindMesh", "drawIndirect 4 12"), this.visitor.calls);
+        assertSame(indirect, this.visitor.indirectBuffers.get(0));
+    }
+
+    private static class RecordingVisitor implements CommandVisitor {
+
+        private final List<String> calls = new ArrayList<>();
+        private final List<Shader> shaders = new ArrayList<>();
+        private final List<Mesh> meshes = new ArrayList<>();
+        private final List<Material> materials = new ArrayList<>();
+        private final List<Matrix4f> matrices = new ArrayList<>();
+        private final List<IndirectDrawBuffer> indirectBuffers = new ArrayList<>();
+
+        @Override
+        public void useShader(final Shader shader) {
+            this.calls.add("useShader");
+            this.shaders.add(shader);
+        }
+
+        @Override
+        public void setUniform(final Uniform uniform,
+                               final int value) {
+            this.calls.add("int " + uniform.getName() + " " + value);
+        }
+
+        @Override
+        public void setUniform(final Uniform uniform,
+                               final float value) {
+            this.calls.add("float " + uniform.getName() + " " + value);
+        }
+
+        @Override
+        public void setUniformMatrices(final Uniform uniform,
+                                       final float[] values,
+                                       final int offset,
+                                       final int count) {
+            this.calls.add("matrices " + uniform.getName() + " " + count);
+            for (int i = 0; i < count; i++) {
+                this.matrices.add(new Matrix4f().set(values, offset + i * 16));
+            }
+        }
+
+        @Override
+        public void setUniform(final String uniformName,
+                               final Material material) {
+            this.calls.add("material " + uniformName);
+            this.materials.add(material);
+        }
+
+        @Override
+        public void bindMesh(final Mesh mesh) {
+            this.calls.add("bindMesh");
+            this.meshes.add(mesh);
+        }
+
+        @Override
+        public void unbindMesh(final Mesh mesh) {
+            this.calls.add("unbindMesh");
+            this.meshes.add(mesh);
+        }
+
+        @Override
+        public void drawElements(final int vertexCount) {
+            this.calls.add("drawElements " + vertexCount);
+        }
+
+        @Override
+        public void drawPrepared(final InstancedMesh instancedMesh) {
+            this.calls.add("drawPrepared");
+        }
+
+        @Override
+        public void drawIndirect(final IndirectDrawBuffer indirectDrawBuffer,
+                                 final int first,
+                                 final int count) {
+            this.calls.add("drawIndirect " + first + " " + count);
+            this.indirectBuffers.add(indirectDrawBuffer);
+        }
+    }
+}
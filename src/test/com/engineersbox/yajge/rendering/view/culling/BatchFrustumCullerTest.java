@@ -0,0 +1,118 @@
+package com.engineersbox.yajge.rendering.view.culling;
+
+import com.engineersbox.yajge.core.jobs.JobSystem;
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchFrustumCullerTest {
+
+    private BatchFrustumCuller culler;
+
+    @BeforeEach
+    void setUp() {
+        this.culler = new BatchFrustumCuller();
+        this.culler.setFrustum(
+                new Matrix4f()
+                        .perspective((float) Math.toRadians(60), 1, 0.1f, 100)
+                        .lookAt(0, 0, 10, 0, 0, 0, 0, 1, 0)
+        );
+    }
+
+    private boolean[] cull(final float[][] spheres) {
+        final float[] centres = new float[spheres.length * 3];
+        final float[] radii = new float[spheres.length];
+        for (int i = 0; i < spheres.length; i++) {
+            centres[i * 3] = spheres[i][0];
+            centres[i * 3 + 1] = spheres[i][1];
+            centres[i * 3 + 2] = spheres[i][2];
+            radii[i] = spheres[i][3];
+        }
+        final long[] visibility = new long[BatchFrustumCuller.wordsFor(spheres.length)];
+        this.culler.cull(centres, radii, spheres.length, visibility);
+        final boolean[] visible = new boolean[spheres.length];
+        for (int i = 0; i < spheres.length; i++) {
+            visible[i] = BatchFrustumCuller.isVisible(visibility, i);
+        }
+        return visible;
+    }
+
+    @Test
+    void classifiesSpheresAgainstEveryPlane() {
+        final boolean[] visible = cull(new float[][]{
+                {0, 0, 0, 0.5f},
+                {0, 0, 20, 1},
+                {50, 0, 0, 1},
+                {0, -50, 0, 1},
+                {0, 0, -95, 1},
+                {0, 0, -95, 10},
+                {6.5f, 0, 0, 1},
+                {6.5f, 0, 0, 0.1f}
+        });
+        assertTrue(visible[0], "centre of the view");
+        assertFalse(visible[1], "behind the camera");
+        assertFalse(visible[2], "right of the frustum");
+        assertFalse(visible[3], "below the frustum");
+        assertFalse(visible[4], "beyond the far plane");
+        assertTrue(visible[5], "reaching back over the far plane");
+        assertTrue(visible[6], "straddling the right plane");
+        assertFalse(visible[7], "just outside the right plane");
+    }
+
+    @Test
+    void wordsForRoundsUp() {
+        assertEquals(0, BatchFrustumCuller.wordsFor(0));
+        assertEquals(1, BatchFrustumCuller.wordsFor(1));
+        assertEquals(1, BatchFrustumCuller.wordsFor(64));
+        assertEquals(2, BatchFrustumCuller.wordsFor(65));
+    }
+
+    @Test
+    void packsBitsAcrossWords() {
+        final int count = 130;
+        final float[][] spheres = new float[count][];
+        for (int i = 0; i < count; i++) {
+            spheres[i] = i % 3 == 0
+                    ? new float[]{0, 0, 0, 0.5f}
+                    : new float[]{0, 0, 50, 0.5f};
+        }
+        final boolean[] visible = cull(spheres);
+        for (int i = 0; i < count; i++) {
+            assertEquals(i % 3 == 0, visible[i], "sphere " + i);
+        }
+    }
+
+    @Test
+    void clearsBitsPastTheCount() {
+        final float[] centres = {0, 0, 0};
+        final float[] radii = {1};
+        final long[] visibility = {-1L};
+        this.culler.cull(centres, radii, 1, visibility);
+        assertEquals(1L, visibility[0]);
+    }
+
+    @Test
+    void parallelCullMatchesSerialCull() {
+        final int count = 20000;
+        final float[] centres = new float[count * 3];
+        final float[] radii = new float[count];
+        for (int i = 0; i < count; i++) {
+            centres[i * 3] = (i % 200) - 100;
+            centres[i * 3 + 1] = ((i / 200) % 100) - 50;
+            centres[i * 3 + 2] = -(i % 120);
+            radii[i] = 0.5f + (i % 7);
+        }
+        final long[] serial = new long[BatchFrustumCuller.wordsFor(count)];
+        final long[] parallel = new long[serial.length];
+        this.culler.cull(centres, radii, count, serial);
+        final JobSystem jobSystem = new JobSystem(4);
+        try {
+            this.culler.cull(centres, radii, count, parallel, jobSystem);
+        } finally {
+            jobSystem.shutdown();
+        }
+        assertArrayEquals(serial, parallel);
+    }
+}
@@ -0,0 +1,214 @@
+package com.engineersbox.yajge.rendering.view.culling;
+
+import com.engineersbox.yajge.scene.Scene;
+import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrustumCullingFilterTest {
+
+    private static final int VIEWPORT_HEIGHT = 720;
+
+    private FrustumCullingFilter filter;
+    private Matrix4f projMatrix;
+    private Matrix4f viewMatrix;
+    private Mesh mesh;
+    private Scene scene;
+
+    @BeforeEach
+    void setUp() {
+        this.filter = new FrustumCullingFilter();
+        this.projMatrix = new Matrix4f().perspective((float) Math.toRadians(60), 16.0f / 9.0f, 0.1f, 100);
+        this.viewMatrix = new Matrix4f().lookAt(0, 0, 10, 0, 0, 0, 0, 1, 0);
+        this.filter.updateFrustum(this.projMatrix, this.viewMatrix, VIEWPORT_HEIGHT);
+        this.mesh = new Mesh(
+                new float[]{-0.5f, -0.5f, 0, 0.5f, -0.5f, 0, 0, 0.5f, 0},
+                new float[]{0, 0, 1, 0, 0.5f, 1},
+                new float[]{0, 0, 1, 0, 0, 1, 0, 0, 1},
+                new int[]{0, 1, 2},
+                true
+        );
+        this.scene = new Scene();
+    }
+
+    private SceneElement add(final float x,
+                             final float y,
+                             final float z,
+                             final float scale) {
+        final SceneElement sceneElement = new SceneElement(this.mesh);
+        sceneElement.setPosition(x, y, z);
+        sceneElement.setScale(scale);
+        this.scene.add(sceneElement);
+        return sceneElement;
+    }
+
+    @Test
+    void insideFrustumTestsSpheres() {
+        assertTrue(this.filter.insideFrustum(0, 0, 0, 0.5f));
+        assertFalse(this.filter.insideFrustum(0, 0, 20, 1));
+        assertFalse(this.filter.insideFrustum(0, 50, 0, 1));
+        assertTrue(this.filter.insideFrustum(0, 50, 0, 50));
+    }
+
+    @Test
+    void sceneFilterKeepsOnlyElementsInsideTheFrustum() {
+        final SceneElement centre = add(0, 0, 0, 1);
+        final SceneElement behind = add(0, 0, 20, 1);
+        final SceneElement unculled = add(0, 0, 20, 1);
+        unculled.setFrustumCulling(false);
+
+        this.filter.filter(this.scene);
+
+        assertTrue(this.scene.getVisibleElements().contains(centre));
+        assertFalse(this.scene.getVisibleElements().contains(behind));
+        assertTrue(this.scene.getVisibleElements().contains(unculled));
+        assertFalse(behind.isInsideFrustum());
+        assertEquals(2, this.filter.getVisibleCount());
+    }
+
+    @Test
+    void listFilterTestsWorldBoundsRatherThanPosition() {
+        final Mesh offsetMesh = new Mesh(
+                new float[]{29.5f, -0.5f, 0, 30.5f, -0.5f, 0, 30, 0.5f, 0},
+                new float[]{0, 0, 1, 0, 0.5f, 1},
+                new float[]{0, 0, 1, 0, 0, 1, 0, 0, 1},
+                new int[]{0, 1, 2},
+                true
+        );
+        final SceneElement offset = new SceneElement(offsetMesh);
+        offset.updateWorldMatrix();
+        final SceneElement reaching = new SceneElement(offsetMesh);
+        reaching.setPosition(-30, 0, 0);
+        reaching.updateWorldMatrix();
+        final SceneElement unculled = new SceneElement(offsetMesh);
+        unculled.setFrustumCulling(false);
+        unculled.setInsideFrustum(true);
+        unculled.updateWorldMatrix();
+
+        this.filter.filter(List.of(offset, reaching, unculled));
+
+        assertFalse(offset.isInsideFrustum());
+        assertTrue(reaching.isInsideFrustum());
+        assertTrue(unculled.isInsideFrustum());
+    }
+
+    @Test
+    void contributionCullingDropsElementsTooSmallOnScreen() {
+        final SceneElement near = add(0, 0, 0, 1);
+        final SceneElement tiny = add(0, 0, -80, 0.01f);
+        this.filter.setMinPixelSize(4);
+
+        this.filter.filter(this.scene);
+
+        assertTrue(this.scene.getVisibleElements().contains(near));
+        assertFalse(this.scene.getVisibleElements().contains(tiny));
+        assertEquals(1, this.filter.getContributionCulledCount());
+    }
+
+    @Test
+    void contributionCullingIsOffWithoutViewportHeight() {
+        final SceneElement tiny = add(0, 0, -80, 0.01f);
+        this.filter.updateFrustum(this.projMatrix, this.viewMatrix);
+        this.filter.setMinPixelSize(4);
+
+        this.filter.filter(this.scene);
+
+        assertTrue(this.scene.getVisibleElements().contains(tiny));
+        assertEquals(0, this.filter.getContributionCulledCount());
+    }
+
+    @Test
+    void visibilityCachingReusesResultWhileCameraHoldsStill() {
+        add(0, 0, 0, 1);
+        add(3, 0, 0, 1);
+        this.filter.setVisibilityCaching(true, 0);
+
+        this.filter.filter(this.scene);
+        assertFalse(this.filter.isCached());
+        this.filter.filter(this.scene);
+        assertTrue(this.filter.isCached());
+        assertEquals(2, this.filter.getVisibleCount());
+    }
+
+    @Test
+    void visibilityCachingCullsAgainWhenCameraMoves() {
+        add(0, 0, 0, 1);
+        this.filter.setVisibilityCaching(true, 0);
+        this.filter.filter(this.scene);
+
+        this.filter.updateFrustum(
+                this.projMatrix,
+                new Matrix4f().lookAt(0, 0, 11, 0, 0, 0, 0, 1, 0),
+                VIEWPORT_HEIGHT
+        );
+        this.filter.filter(this.scene);
+
+        assertFalse(this.filter.isCached());
+    }
+
+    @Test
+    void visibilityCachingCullsAgainWhenMembershipChanges() {
+        add(0, 0, 0, 1);
+        this.filter.setVisibilityCaching(true, 0);
+        this.filter.filter(this.scene);
+
+        final SceneElement added = add(2, 0, 0, 1);
+        this.filter.filter(this.scene);
+
+        assertFalse(this.filter.isCached());
+        assertTrue(this.scene.getVisibleElements().contains(added));
+    }
+
+    @Test
+    void visibilityCachingRetestsMovedElements() {
+        final SceneElement moving = add(0, 0, 0, 1);
+        this.filter.setVisibilityCaching(true, 0);
+        this.filter.filter(this.scene);
+
+        moving.setPosition(0, 0, 20);
+        this.scene.updateWorldMatrices();
+        this.filter.filter(this.scene);
+
+        assertTrue(this.filter.isCached());
+        assertFalse(this.scene.getVisibleElements().contains(moving));
+    }
+
+    @Test
+    void visibilityCachingIsKeptPerScene() {
+        add(0, 0, 0, 1);
+        final Scene other = new Scene();
+        final SceneElement otherElement = new SceneElement(this.mesh);
+        other.add(otherElement);
+        this.filter.setVisibilityCaching(true, 0);
+
+        this.filter.filter(this.scene);
+        this.filter.filter(other);
+        this.filter.filter(this.scene);
+        assertTrue(this.filter.isCached());
+        this.filter.filter(other);
+        assertTrue(this.filter.isCached());
+        assertTrue(other.getVisibleElements().contains(otherElement));
+    }
+
+    @Test
+    void cachedFilterReportsNoContributionCulling() {
+        add(0, 0, 0, 1);
+        add(0, 0, -80, 0.01f);
+        this.filter.setMinPixelSize(4);
+        this.filter.setVisibilityCaching(true, 0);
+
+        this.filter.filter(this.scene);
+        assertEquals(1, this.filter.getContributionCulledCount());
+        this.filter.filter(this.scene);
+
+        assertTrue(this.filter.isCached());
+        assertEquals(0, this.filter.getContributionCulledCount());
+        assertEquals(1, this.filter.getVisibleCount());
+    }
+}
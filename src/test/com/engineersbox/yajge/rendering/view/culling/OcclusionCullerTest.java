@@ -0,0 +1,142 @@
+package com.engineersbox.yajge.rendering.view.culling;
+
+import com.engineersbox.yajge.core.jobs.JobSystem;
+import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OcclusionCullerTest {
+
+    private OcclusionCuller culler;
+    private Mesh wall;
+    private Mesh triangle;
+
+    @BeforeEach
+    void setUp() {
+        this.culler = new OcclusionCuller();
+        this.culler.updateProjectionView(
+                new Matrix4f().perspective(
+                        (float) Math.toRadians(60),
+                        (float) OcclusionCuller.DEFAULT_WIDTH / OcclusionCuller.DEFAULT_HEIGHT,
+                        0.1f,
+                        100
+                ),
+                new Matrix4f().lookAt(0, 0, 10, 0, 0, 0, 0, 1, 0)
+        );
+        this.wall = new Mesh(
+                new float[]{-5, -5, 0, 5, -5, 0, 5, 5, 0, -5, 5, 0},
+                new float[]{0, 0, 1, 0, 1, 1, 0, 1},
+                new float[]{0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1},
+                new int[]{0, 1, 2, 0, 2, 3},
+                true
+        );
+        this.triangle = new Mesh(
+                new float[]{-0.5f, -0.5f, 0, 0.5f, -0.5f, 0, 0, 0.5f, 0},
+                new float[]{0, 0, 1, 0, 0.5f, 1},
+                new float[]{0, 0, 1, 0, 0, 1, 0, 0, 1},
+                new int[]{0, 1, 2},
+                true
+        );
+    }
+
+    private SceneElement occluder() {
+        final SceneElement wall = new SceneElement(this.wall);
+        wall.setOccluder(true);
+        wall.getWorldMatrix();
+        return wall;
+    }
+
+    private SceneElement element(final float x,
+                                 final float y,
+                                 final float z) {
+        final SceneElement sceneElement = new SceneElement(this.triangle);
+        sceneElement.setPosition(x, y, z);
+        sceneElement.getWorldMatrix();
+        return sceneElement;
+    }
+
+    @Test
+    void nothingIsOccludedWithoutOccluders() {
+        assertFalse(this.culler.rasteriseOccluders(List.of(element(0, 0, -5)), null));
+        assertFalse(this.culler.isOccluded(new Vector3f(0, 0, -5), 0.5f));
+    }
+
+    @Test
+    void sphereBehindOccluderIsOccluded() {
+        assertTrue(this.culler.rasteriseOccluders(List.of(occluder()), null));
+        assertTrue(this.culler.isOccluded(new Vector3f(0, 0, -5), 0.5f));
+    }
+
+    @Test
+    void sphereInFrontOfOccluderIsKept() {
+        this.culler.rasteriseOccluders(List.of(occluder()), null);
+        assertFalse(this.culler.isOccluded(new Vector3f(0, 0, 5), 0.5f));
+    }
+
+    @Test
+    void sphereBesideOccluderIsKept() {
+        this.culler.rasteriseOccluders(List.of(occluder()), null);
+        assertFalse(this.culler.isOccluded(new Vector3f(12, 0, -5), 0.5f));
+    }
+
+    @Test
+    void spherePartlyUncoveredIsKept() {
+        this.culler.rasteriseOccluders(List.of(occluder()), null);
+        assertFalse(this.culler.isOccluded(new Vector3f(7, 0, -5), 1.0f));
+    }
+
+    @Test
+    void sphereReachingTheNearPlaneIsKept() {
+        this.culler.rasteriseOccluders(List.of(occluder()), null);
+        assertFalse(this.culler.isOccluded(new Vector3f(0, 0, -5), 20.0f));
+    }
+
+    @Test
+    void cullMovesOccludedElementsAndKeepsOrder() {
+        final SceneElement wall = occluder();
+        final SceneElement hidden = element(0, 0, -5);
+        final SceneElement front = element(0, 0, 5);
+        final SceneElement beside = element(12, 0, -5);
+        final SceneElement unculled = element(0, 1, -5);
+        unculled.setFrustumCulling(false);
+        final List<SceneElement> visible = new ArrayList<>(List.of(front, hidden, wall, beside, unculled));
+        final List<SceneElement> occluded = new ArrayList<>();
+
+        assertEquals(1, this.culler.cull(visible, occluded, null));
+
+        assertEquals(List.of(front, wall, beside, unculled), visible);
+        assertEquals(List.of(hidden), occluded);
+    }
+
+    @Test
+    void parallelCullMatchesSerialCull() {
+        final List<SceneElement> serialVisible = new ArrayList<>();
+        serialVisible.add(occluder());
+        for (int i = 0; i < 200; i++) {
+            serialVisible.add(element((i % 20) - 10, (i / 20) - 5, -5));
+        }
+        final List<SceneElement> parallelVisible = new ArrayList<>(serialVisible);
+        final List<SceneElement> serialOccluded = new ArrayList<>();
+        final List<SceneElement> parallelOccluded = new ArrayList<>();
+
+        this.culler.cull(serialVisible, serialOccluded, null);
+        final JobSystem jobSystem = new JobSystem(4);
+        try {
+            this.culler.cull(parallelVisible, parallelOccluded, jobSystem);
+        } finally {
+            jobSystem.shutdown();
+        }
+
+        assertFalse(serialOccluded.isEmpty());
+        assertEquals(serialVisible, parallelVisible);
+        assertEquals(serialOccluded, parallelOccluded);
+    }
+}
@@ -0,0 +1,116 @@
+package com.engineersbox.yajge.scene;
+
+import com.engineersbox.yajge.animation.AnimatedFrame;
+import com.engineersbox.yajge.animation.Animation;
+import com.engineersbox.yajge.core.jobs.JobSystem;
+import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.element.animation.AnimatedSceneElement;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import com.engineersbox.yajge.scene.element.particles.IParticleEmitter;
+import com.engineersbox.yajge.scene.element.particles.Particle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SceneSimulationTest {
+
+    private JobSystem jobSystem;
+    private Scene scene;
+    private Mesh mesh;
+    private SceneSimulation simulation;
+
+    @BeforeEach
+    void setUp() {
+        this.jobSystem = new JobSystem(2);
+        this.scene = new Scene();
+        this.mesh = new Mesh(
+                new float[]{-0.5f, -0.5f, 0, 0.5f, -0.5f, 0, 0, 0.5f, 0},
+                new float[]{0, 0, 1, 0, 0.5f, 1},
+                new float[]{0, 0, 1, 0, 0, 1, 0, 0, 1},
+                new int[]{0, 1, 2},
+                true
+        );
+        this.simulation = new SceneSimulation(this.scene, this.jobSystem);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.simulation.cleanup();
+        this.jobSystem.shutdown();
+    }
+
+    private AnimatedSceneElement addAnimated() {
+        final Animation animation = new Animation(
+                "walk",
+                List.of(new AnimatedFrame(), new AnimatedFrame(), new AnimatedFrame()),
+                1
+        );
+        final AnimatedSceneElement sceneElement = new AnimatedSceneElement(
+                new Mesh[]{this.mesh},
+                Map.of("walk", animation)
+        );
+        this.scene.add(sceneElement);
+        return sceneElement;
+    }
+
+    @Test
+    void stepAdvancesEveryAnimationOnce() {
+        final AnimatedSceneElement first = addAnimated();
+        final AnimatedSceneElement second = addAnimated();
+        this.scene.add(new SceneElement(this.mesh));
+
+        assertTrue(this.simulation.step(16));
+
+        assertEquals(1, first.getCurrentAnimation().getCurrentFrameIndex());
+        assertEquals(1, second.getCurrentAnimation().getCurrentFrameIndex());
+    }
+
+    @Test
+    void stepUpdatesParticleEmitters() {
+        final long[] elapsed = new long[1];
+        this.scene.setParticleEmitters(new IParticleEmitter[]{
+                new IParticleEmitter() {
+                    @Override
+                    public void cleanup() {
+                    }
+
+                    @Override
+                    public void update(final long elapsedTime) {
+                        elapsed[0] += elapsedTime;
+                    }
+
+                    @Override
+                    public Particle getBaseParticle() {
+                        return null;
+                    }
+
+                    @Override
+                    public List<SceneElement> getParticles() {
+                        return List.of();
+                    }
+                }
+        });
+
+        assertTrue(this.simulation.step(16));
+        this.simulation.step(16);
+
+        assertEquals(32, elapsed[0]);
+    }
+
+    @Test
+    void stepWithNothingToSimulateReportsNoChange() {
+        this.scene.add(new SceneElement(this.mesh));
+
+        assertFalse(this.simulation.step(16));
+    }
+
+    @Test
+    void simulationGraphIsRegisteredUntilCleanup() {
+        assertTrue(this.jobSystem.getFrameGraphs().contains(this.simulation.getFrameGraph()));
+    }
+}
@@ -0,0 +1,130 @@
+package com.engineersbox.yajge.scene;
+
+import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SceneTest {
+
+    private Scene scene;
+    private Mesh mesh;
+    private FrustumIntersection frustum;
+
+    @BeforeEach
+    void setUp() {
+        this.scene = new Scene();
+        this.mesh = new Mesh(
+                new float[]{-0.5f, -0.5f, 0, 0.5f, -0.5f, 0, 0, 0.5f, 0},
+                new float[]{0, 0, 1, 0, 0.5f, 1},
+                new float[]{0, 0, 1, 0, 0, 1, 0, 0, 1},
+                new int[]{0, 1, 2},
+                true
+        );
+        this.frustum = new FrustumIntersection(
+                new Matrix4f()
+                        .perspective((float) Math.toRadians(60), 1, 0.1f, 100)
+                        .lookAt(0, 0, 10, 0, 0, 0, 0, 1, 0)
+        );
+    }
+
+    private SceneElement createParentWithChild() {
+        final SceneElement parent = new SceneElement(this.mesh);
+        final SceneElement child = new SceneElement(this.mesh);
+        child.setPosition(1, 0, 0);
+        parent.addChild(child);
+        return parent;
+    }
+
+    @Test
+    void removedParentIsNotDrawnWhileChildRemains() {
+        final SceneElement parent = createParentWithChild();
+        final SceneElement child = parent.getChildren().get(0);
+        this.scene.add(parent);
+        this.scene.add(child);
+        this.scene.cull(this.frustum);
+        assertTrue(this.scene.getVisibleElements().contains(parent));
+
+        this.scene.remove(parent);
+        this.scene.cull(this.frustum);
+        assertEquals(List.of(child), this.scene.getVisibleElements());
+        assertEquals(List.of(child), this.scene.getVisibleNonInstancedMeshes().get(this.mesh));
+
+        this.scene.resetVisibility();
+        assertEquals(List.of(child), this.scene.getVisibleNonInstancedMeshes().get(this.mesh));
+    }
+
+    @Test
+    void settingMeshBoundingRadiusRebuildsElementBounds() {
+        final SceneElement sceneElement = new SceneElement(this.mesh);
+        sceneElement.setPosition(30, 0, 0);
+        this.scene.add(sceneElement);
+        this.scene.updateWorldMatrices();
+        this.scene.cull(this.frustum);
+        assertFalse(this.scene.getVisibleElements().contains(sceneElement));
+
+        this.mesh.setBoundingRadius(25);
+        assertEquals(new Vector3f(), this.mesh.getBounds().getCentre());
+        assertEquals(new Vector3f(-25), this.mesh.getBounds().getMin());
+        assertEquals(new Vector3f(25), this.mesh.getBounds().getMax());
+        this.scene.updateWorldMatrices();
+        this.scene.cull(this.frustum);
+
+        assertEquals(25, sceneElement.getBoundingRadius());
+        assertEquals(new Vector3f(30, 0, 0), sceneElement.getBoundsCentre());
+        assertTrue(this.scene.getVisibleElements().contains(sceneElement));
+    }
+
+    @Test
+    void parentNeverAddedIsNotIndexed() {
+        final SceneElement parent = createParentWithChild();
+        final SceneElement child = parent.getChildren().get(0);
+        this.scene.add(child);
+        this.scene.cull(this.frustum);
+        assertEquals(List.of(child), this.scene.getVisibleElements());
+
+        final List<SceneElement> results = new ArrayList<>();
+        this.scene.querySphere(new Vector3f(), 5, results);
+        assertEquals(List.of(child), results);
+        assertNull(this.scene.raycast(new Vector3f(0, 0, 10), new Vector3f(0, 0, -1), 100));
+        assertEquals(1, child.getWorldPosition().x, 1e-6f);
+    }
+
+    @Test
+    void removedChildIsNotDrawnWithItsParent() {
+        final SceneElement parent = createParentWithChild();
+        final SceneElement child = parent.getChildren().get(0);
+        this.scene.add(parent);
+        this.scene.add(child);
+        this.scene.remove(child);
+        this.scene.cull(this.frustum);
+        assertEquals(List.of(parent), this.scene.getVisibleElements());
+    }
+
+    @Test
+    void changesDuringFrameAreAppliedAtEndOfFrame() throws InterruptedException {
+        final SceneElement added = new SceneElement(this.mesh);
+        final SceneElement removed = new SceneElement(this.mesh);
+        this.scene.add(removed);
+        this.scene.beginFrame();
+        final Thread thread = new Thread(() -> {
+            this.scene.add(added);
+            this.scene.remove(removed);
+        });
+        thread.start();
+        thread.join();
+        assertFalse(this.scene.contains(added));
+        assertTrue(this.scene.contains(removed));
+        this.scene.endFrame();
+        assertTrue(this.scene.contains(added));
+        assertFalse(this.scene.contains(removed));
+    }
+}
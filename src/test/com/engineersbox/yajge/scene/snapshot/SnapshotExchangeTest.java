@@ -0,0 +1,152 @@
+package com.engineersbox.yajge.scene.snapshot;
+
+import com.engineersbox.yajge.animation.AnimatedFrame;
+import com.engineersbox.yajge.animation.Animation;
+import com.engineersbox.yajge.rendering.scene.lighting.PointLight;
+import com.engineersbox.yajge.rendering.scene.lighting.SpotLight;
+import com.engineersbox.yajge.rendering.view.Camera;
+import com.engineersbox.yajge.scene.Scene;
+import com.engineersbox.yajge.scene.element.SceneElement;
+import com.engineersbox.yajge.scene.element.animation.AnimatedSceneElement;
+import com.engineersbox.yajge.scene.element.object.composite.Mesh;
+import com.engineersbox.yajge.scene.lighting.SceneLight;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotExchangeTest {
+
+    private SnapshotExchange exchange;
+    private Scene scene;
+    private Camera camera;
+    private Mesh mesh;
+
+    @BeforeEach
+    void setUp() {
+        this.exchange = new SnapshotExchange();
+        this.scene = new Scene();
+        this.camera = new Camera();
+        this.mesh = new Mesh(
+                new float[]{-0.5f, -0.5f, 0, 0.5f, -0.5f, 0, 0, 0.5f, 0},
+                new float[]{0, 0, 1, 0, 0.5f, 1},
+                new float[]{0, 0, 1, 0, 0, 1, 0, 0, 1},
+                new int[]{0, 1, 2},
+                true
+        );
+    }
+
+    private void publish(final boolean sceneChanged) {
+        this.exchange.beginWrite().capture(this.scene, this.camera, sceneChanged);
+        this.exchange.publish();
+    }
+
+    @Test
+    void changeInSkippedSnapshotIsReportedByTheNextOne() {
+        publish(true);
+        publish(false);
+        assertTrue(this.exchange.acquire().isSceneChanged());
+    }
+
+    @Test
+    void changeIsReportedOnlyOnce() {
+        publish(true);
+        assertTrue(this.exchange.acquire().isSceneChanged());
+        assertFalse(this.exchange.acquire().isSceneChanged());
+        publish(false);
+        assertFalse(this.exchange.acquire().isSceneChanged());
+    }
+
+    @Test
+    void capturedSceneIsCulledLikeItsSource() {
+        final FrustumIntersection frustum = new FrustumIntersection(
+                new Matrix4f()
+                        .perspective((float) Math.toRadians(60), 1, 0.1f, 100)
+                        .lookAt(0, 0, 10, 0, 0, 0, 0, 1, 0)
+        );
+        final SceneElement inside = new SceneElement(this.mesh);
+        final SceneElement behind = new SceneElement(this.mesh);
+        behind.setPosition(0, 0, 20);
+        this.scene.add(inside);
+        this.scene.add(behind);
+        publish(true);
+
+        final Scene captured = this.exchange.acquire().getScene();
+        captured.updateWorldMatrices();
+        captured.cull(frustum);
+
+        assertEquals(2, captured.getElementCount());
+        assertEquals(1, captured.getVisibleElements().size());
+        assertEquals(0, captured.getVisibleElements().get(0).getPosition().z);
+    }
+
+    @Test
+    void removedElementLeavesTheNextCapture() {
+        final SceneElement kept = new SceneElement(this.mesh);
+        final SceneElement removed = new SceneElement(this.mesh);
+        this.scene.add(kept);
+        this.scene.add(removed);
+        publish(true);
+        this.scene.remove(removed);
+        publish(true);
+        // Written into the buffer that held both elements
+        publish(false);
+
+        final Scene captured = this.exchange.acquire().getScene();
+        assertEquals(1, captured.getElementCount());
+        assertEquals(1, captured.getNonInstancedMeshes().get(this.mesh).size());
+    }
+
+    @Test
+    void spotLightsAreCopied() {
+        final SpotLight spotLight = new SpotLight(
+                new PointLight(new Vector3f(1), new Vector3f(0, 2, 0), 1),
+                new Vector3f(0, -1, 0),
+                30
+        );
+        final SceneLight sceneLight = new SceneLight();
+        sceneLight.setSpotLightList(new SpotLight[]{spotLight});
+        this.scene.setSceneLight(sceneLight);
+        publish(true);
+
+        final SpotLight copy = this.exchange.acquire().getScene().getSceneLight().getSpotLightList()[0];
+        spotLight.getPointLight().getPosition().set(5, 5, 5);
+        spotLight.getConeDirection().set(1, 0, 0);
+
+        assertNotSame(spotLight, copy);
+        assertEquals(new Vector3f(0, 2, 0), copy.getPointLight().getPosition());
+        assertEquals(new Vector3f(0, -1, 0), copy.getConeDirection());
+        assertEquals(spotLight.getCutOff(), copy.getCutOff());
+    }
+
+    @Test
+    void proxyKeepsCapturedAnimationFrame() {
+        final Animation animation = new Animation(
+                "walk",
+                List.of(new AnimatedFrame(), new AnimatedFrame(), new AnimatedFrame()),
+                1.0
+        );
+        final AnimatedSceneElement element = new AnimatedSceneElement(
+                new Mesh[]{this.mesh},
+                Map.of("walk", animation)
+        );
+        this.scene.add(element);
+        animation.nextFrame();
+        publish(true);
+        final SceneSnapshot snapshot = this.exchange.acquire();
+        final SceneElement proxy = snapshot.getScene().getNonInstancedMeshes().get(this.mesh).get(0);
+        final Animation proxyAnimation = ((AnimatedSceneElement) proxy).getCurrentAnimation();
+        assertNotSame(animation, proxyAnimation);
+
+        animation.nextFrame();
+        assertEquals(2, animation.getCurrentFrameIndex());
+        assertEquals(1, proxyAnimation.getCurrentFrameIndex());
+        assertSame(animation.getFrames().get(1), proxyAnimation.getCurrentFrame());
+    }
+}